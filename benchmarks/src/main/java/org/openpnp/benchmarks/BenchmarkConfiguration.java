@@ -0,0 +1,193 @@
+package org.openpnp.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.openpnp.model.Board;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Job;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Part;
+import org.openpnp.model.Placement;
+
+/**
+ * Sets up a throwaway configuration directory for the benchmarks and builds
+ * the Jobs and Boards they work on. JMH runs each benchmark in its own JVM,
+ * so the Configuration is loaded once per benchmark.
+ *
+ * The machine is the one in machine.xml next to this class. Its
+ * TableScannerCamera is pointed at a grid of generated tiles instead of the
+ * openpnp.org table scan, so no network access is needed.
+ */
+public class BenchmarkConfiguration {
+    /**
+     * The parts in the default parts.xml that the benchmark machine has
+     * feeders for.
+     */
+    public static final String[] PART_IDS = new String[] { "C-0805-100NF",
+            "C-0805-1UF", "C-0805-10UF", "R-0805-1K", "R-0805-10K",
+            "R-0805-47" };
+
+    public static final int TILES_WIDE = 8;
+    public static final int TILES_HIGH = 8;
+    public static final int TILE_WIDTH = 320;
+    public static final int TILE_HEIGHT = 240;
+
+    /**
+     * The distance between tiles. The table scanner takes two images per
+     * camera width, so this is half a frame at the camera's units per pixel.
+     */
+    public static final double TILE_PITCH_X = TILE_WIDTH * 0.030745 / 2;
+    public static final double TILE_PITCH_Y = TILE_HEIGHT * 0.030813 / 2;
+
+    private static File configurationDirectory;
+
+    static {
+        System.setProperty("log4j.configuration", BenchmarkConfiguration.class
+                .getResource("log4j.properties").toString());
+    }
+
+    private BenchmarkConfiguration() {
+    }
+
+    /**
+     * Creates and loads the benchmark configuration the first time it is
+     * called and returns it.
+     * @return
+     * @throws Exception
+     */
+    public static synchronized Configuration load() throws Exception {
+        if (configurationDirectory == null) {
+            File directory = createTemporaryDirectory("openpnp-benchmarks");
+            File tilesDirectory = new File(directory, "tiles");
+            writeTiles(tilesDirectory);
+            String machine = IOUtils.toString(
+                    BenchmarkConfiguration.class
+                            .getResourceAsStream("machine.xml"), "UTF-8");
+            machine = machine.replace("${tilesUri}", tilesDirectory.toURI()
+                    .toString());
+            FileUtils.writeStringToFile(new File(directory, "machine.xml"),
+                    machine, "UTF-8");
+            FileUtils.copyURLToFile(
+                    ClassLoader.getSystemResource("config/parts.xml"),
+                    new File(directory, "parts.xml"));
+            FileUtils.copyURLToFile(
+                    ClassLoader.getSystemResource("config/packages.xml"),
+                    new File(directory, "packages.xml"));
+            configurationDirectory = directory;
+            Configuration.initialize(configurationDirectory);
+            Configuration.get().load();
+        }
+        return Configuration.get();
+    }
+
+    public static File getConfigurationDirectory() {
+        return configurationDirectory;
+    }
+
+    public static File createTemporaryDirectory(String prefix)
+            throws Exception {
+        File directory = File.createTempFile(prefix, "");
+        directory.delete();
+        if (!directory.mkdirs()) {
+            throw new Exception("Unable to create " + directory);
+        }
+        FileUtils.forceDeleteOnExit(directory);
+        return directory;
+    }
+
+    /**
+     * Returns the Parts of PART_IDS from the loaded Configuration.
+     * @return
+     */
+    public static List<Part> getParts() {
+        List<Part> parts = new ArrayList<Part>();
+        for (String id : PART_IDS) {
+            parts.add(Configuration.get().getPart(id));
+        }
+        return parts;
+    }
+
+    /**
+     * Creates a 100mm square Board with placementCount Placements scattered
+     * over it, cycling through the Parts, all on the top side. The same
+     * seed always gives the same Board.
+     * @param placementCount
+     * @param seed
+     * @return
+     */
+    public static Board createBoard(int placementCount, long seed) {
+        List<Part> parts = getParts();
+        Random random = new Random(seed);
+        Board board = new Board();
+        board.setName("benchmark-" + placementCount);
+        List<Placement> placements = new ArrayList<Placement>(placementCount);
+        for (int i = 0; i < placementCount; i++) {
+            Placement placement = new Placement("R" + (i + 1));
+            placement.setLocation(new Location(LengthUnit.Millimeters, random
+                    .nextDouble() * 100, random.nextDouble() * 100, 0,
+                    random.nextInt(4) * 90));
+            placement.setPart(parts.get(i % parts.size()));
+            placement.setSide(Side.Top);
+            placements.add(placement);
+        }
+        board.addPlacements(placements);
+        return board;
+    }
+
+    /**
+     * Creates a Job with a single rotated BoardLocation of a Board from
+     * createBoard().
+     * @param placementCount
+     * @param seed
+     * @return
+     */
+    public static Job createJob(int placementCount, long seed) {
+        BoardLocation boardLocation = new BoardLocation(createBoard(
+                placementCount, seed));
+        boardLocation.setLocation(new Location(LengthUnit.Millimeters, 150,
+                50, -1.6, 90));
+        boardLocation.setSide(Side.Top);
+        Job job = new Job();
+        job.addBoardLocation(boardLocation);
+        return job;
+    }
+
+    /**
+     * Writes a TILES_WIDE by TILES_HIGH grid of generated tiles named for
+     * their position, and the files.txt that TableScannerCamera reads the
+     * list of tiles from.
+     */
+    private static void writeTiles(File directory) throws Exception {
+        directory.mkdirs();
+        PrintWriter files = new PrintWriter(new File(directory, "files.txt"),
+                "UTF-8");
+        try {
+            for (int x = 0; x < TILES_WIDE; x++) {
+                for (int y = 0; y < TILES_HIGH; y++) {
+                    String name = String.format(Locale.US, "%.3f,%.3f.png", x
+                            * TILE_PITCH_X, y * TILE_PITCH_Y);
+                    BufferedImage image = Frames.createBoardImage(TILE_WIDTH,
+                            TILE_HEIGHT, x * TILES_HIGH + y);
+                    ImageIO.write(image, "png", new File(directory, name));
+                    files.println(name);
+                }
+            }
+        }
+        finally {
+            files.close();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.openpnp.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpnp.model.BinaryJobFormat;
+import org.openpnp.model.Board;
+import org.openpnp.model.Configuration;
+
+/**
+ * Loads and saves a Board as XML and in BinaryJobFormat. Binary Boards
+ * decode their Placements on first use, so loading is measured both on its
+ * own and followed by getPlacements(). Everything is in memory or in the
+ * page cache; no disk sync is involved.
+ *
+ * JMH measures time only, so main() measures the heap a loaded Board
+ * retains, which is what decides how many large Jobs fit in memory: it
+ * collects garbage, loads several copies of the Board, holds on to them and
+ * takes the growth of the used heap after collecting again. Run it with
+ *
+ *     java -cp target/benchmarks.jar org.openpnp.benchmarks.BoardSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BoardSerializationBenchmark {
+    @Param({ "1000", "10000" })
+    public int placements;
+
+    private Board board;
+    private File xmlFile;
+    private File binaryFile;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkConfiguration.load();
+        board = BenchmarkConfiguration.createBoard(placements, 1);
+        File directory = BenchmarkConfiguration
+                .createTemporaryDirectory("openpnp-boards");
+        xmlFile = new File(directory, "benchmark.board.xml");
+        binaryFile = new File(directory, "benchmark"
+                + BinaryJobFormat.BOARD_EXTENSION);
+        FileUtils.writeByteArrayToFile(xmlFile, saveXml());
+        FileUtils.writeByteArrayToFile(binaryFile, saveBinary());
+    }
+
+    @Benchmark
+    public Board loadXml() throws Exception {
+        return Configuration.createSerializer().read(Board.class, xmlFile);
+    }
+
+    @Benchmark
+    public Board loadBinary() throws Exception {
+        return BinaryJobFormat.readBoard(binaryFile);
+    }
+
+    @Benchmark
+    public int loadBinaryAndDecode() throws Exception {
+        return BinaryJobFormat.readBoard(binaryFile).getPlacements().size();
+    }
+
+    @Benchmark
+    public byte[] saveXml() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Configuration.createSerializer().write(board, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] saveBinary() throws Exception {
+        return BinaryJobFormat.writeBoard(board);
+    }
+
+    /**
+     * How many copies of a Board are held per measurement, so the result
+     * is well above the noise of the heap usage figures.
+     */
+    private static final int RETAINED_COPIES = 10;
+
+    /**
+     * Keeps the loaded copies reachable while the heap is measured.
+     */
+    private static Object[] retained;
+
+    /**
+     * Prints the heap retained per loaded Board, for XML, binary and binary
+     * with its Placements decoded, at each of the placement counts.
+     */
+    public static void main(String[] args) throws Exception {
+        System.out.println(String.format("%-12s %-20s %15s", "placements",
+                "format", "retained bytes"));
+        for (int placements : new int[] { 1000, 10000 }) {
+            BoardSerializationBenchmark benchmark = new BoardSerializationBenchmark();
+            benchmark.placements = placements;
+            benchmark.setup();
+            for (String format : new String[] { "xml", "binary",
+                    "binaryAndDecode" }) {
+                System.out.println(String.format("%-12d %-20s %15d",
+                        placements, format, benchmark.retainedBytes(format)));
+            }
+        }
+    }
+
+    /**
+     * The growth of the used heap per Board loaded in the given format and
+     * held on to.
+     */
+    private long retainedBytes(String format) throws Exception {
+        // Load once first so classes and caches are not counted.
+        load(format);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        retained = new Object[RETAINED_COPIES];
+        long before = usedHeap(memory);
+        for (int i = 0; i < RETAINED_COPIES; i++) {
+            retained[i] = load(format);
+        }
+        long after = usedHeap(memory);
+        retained = null;
+        return (after - before) / RETAINED_COPIES;
+    }
+
+    private Board load(String format) throws Exception {
+        if (format.equals("xml")) {
+            return loadXml();
+        }
+        Board board = loadBinary();
+        if (format.equals("binaryAndDecode")) {
+            board.getPlacements();
+        }
+        return board;
+    }
+
+    private static long usedHeap(MemoryMXBean memory) throws InterruptedException {
+        // One collection may leave garbage that is only found by the next.
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,128 @@
+package org.openpnp.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares JMH results written with -rf json against a baseline and exits
+ * with a non zero status if any benchmark got worse by more than the
+ * threshold, so it can gate a build.
+ *
+ * Usage: CompareResults baseline.json results.json [thresholdPercent]
+ *
+ * Benchmarks are matched by name and parameters. A result is a regression
+ * when it is worse than the baseline by more than thresholdPercent
+ * (default 10) and by more than the two scores' error margins combined.
+ * Benchmarks missing from either file are listed but do not fail.
+ */
+public class CompareResults {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_REGRESSION = 1;
+    public static final int EXIT_USAGE = 2;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: CompareResults baseline.json results.json [thresholdPercent]");
+            System.exit(EXIT_USAGE);
+        }
+        double threshold = args.length == 3 ? Double.parseDouble(args[2]) : 10;
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> results = read(new File(args[1]));
+        boolean regressed = false;
+        for (Entry<String, Result> entry : results.entrySet()) {
+            Result result = entry.getValue();
+            Result base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.println(String.format("NEW         %s %.3f %s",
+                        entry.getKey(), result.score, result.unit));
+                continue;
+            }
+            if (!base.unit.equals(result.unit)) {
+                System.out.println(String.format("UNITS       %s %s vs %s",
+                        entry.getKey(), base.unit, result.unit));
+                continue;
+            }
+            // Positive change is always worse.
+            double change = result.score - base.score;
+            if (base.higherIsBetter) {
+                change = -change;
+            }
+            double percent = base.score == 0 ? 0 : change * 100 / base.score;
+            boolean regression = percent > threshold
+                    && change > base.error + result.error;
+            regressed |= regression;
+            System.out.println(String.format("%-11s %s %.3f -> %.3f %s (%+.1f%%)",
+                    regression ? "REGRESSION" : "OK", entry.getKey(),
+                    base.score, result.score, result.unit, percent));
+        }
+        for (String key : baseline.keySet()) {
+            if (!results.containsKey(key)) {
+                System.out.println("MISSING     " + key);
+            }
+        }
+        System.exit(regressed ? EXIT_REGRESSION : EXIT_OK);
+    }
+
+    private static Map<String, Result> read(File file) throws Exception {
+        Map<String, Result> results = new TreeMap<String, Result>();
+        Reader reader = new InputStreamReader(new FileInputStream(file),
+                "UTF-8");
+        try {
+            JsonArray array = new JsonParser().parse(reader).getAsJsonArray();
+            for (JsonElement element : array) {
+                JsonObject o = element.getAsJsonObject();
+                StringBuilder key = new StringBuilder(o.get("benchmark")
+                        .getAsString());
+                if (o.has("params")) {
+                    Map<String, String> params = new TreeMap<String, String>();
+                    for (Entry<String, JsonElement> param : o
+                            .getAsJsonObject("params").entrySet()) {
+                        params.put(param.getKey(), param.getValue()
+                                .getAsString());
+                    }
+                    key.append(params);
+                }
+                JsonObject metric = o.getAsJsonObject("primaryMetric");
+                Result result = new Result();
+                result.score = metric.get("score").getAsDouble();
+                JsonElement error = metric.get("scoreError");
+                result.error = (error == null || !isNumber(error)) ? 0 : error
+                        .getAsDouble();
+                result.unit = metric.get("scoreUnit").getAsString();
+                result.higherIsBetter = o.get("mode").getAsString()
+                        .equals("thrpt");
+                results.put(key.toString(), result);
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return results;
+    }
+
+    /**
+     * JMH writes "NaN" as a string when there were too few iterations to
+     * compute an error.
+     */
+    private static boolean isNumber(JsonElement element) {
+        return element.isJsonPrimitive()
+                && element.getAsJsonPrimitive().isNumber();
+    }
+
+    private static class Result {
+        double score;
+        double error;
+        String unit;
+        boolean higherIsBetter;
+    }
+}
@@ -0,0 +1,54 @@
+package org.openpnp.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Configuration.Section;
+
+/**
+ * Loads the whole configuration (packages, parts and the benchmark machine)
+ * into a fresh Configuration, and saves the machine section. Saving syncs
+ * the file to disk, so its results depend on the disk as much as on the
+ * serializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConfigurationBenchmark {
+    private File directory;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkConfiguration.load();
+        directory = BenchmarkConfiguration.getConfigurationDirectory();
+    }
+
+    @Benchmark
+    public Configuration load() throws Exception {
+        Configuration.initialize(directory);
+        Configuration configuration = Configuration.get();
+        configuration.load();
+        return configuration;
+    }
+
+    @Benchmark
+    public void saveMachine() throws Exception {
+        Configuration configuration = Configuration.get();
+        configuration.setDirty(Section.Machine);
+        configuration.save();
+    }
+}
@@ -0,0 +1,48 @@
+package org.openpnp.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import org.openpnp.gui.support.Wizard;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.spi.base.AbstractCamera;
+
+/**
+ * A Camera that plays back a list of frames, one per capture(), looping at
+ * the end. It never moves.
+ */
+public class FrameCamera extends AbstractCamera {
+    private final List<BufferedImage> frames;
+    private int index;
+
+    public FrameCamera(List<BufferedImage> frames) {
+        this.frames = frames;
+        setUnitsPerPixel(new Location(LengthUnit.Millimeters, 0.03, 0.03, 0, 0));
+    }
+
+    @Override
+    public synchronized BufferedImage capture() {
+        BufferedImage frame = frames.get(index);
+        index = (index + 1) % frames.size();
+        return frame;
+    }
+
+    @Override
+    public Wizard getConfigurationWizard() {
+        return null;
+    }
+
+    @Override
+    public void moveTo(Location location, double speed) throws Exception {
+    }
+
+    @Override
+    public void moveToSafeZ(double speed) throws Exception {
+    }
+
+    @Override
+    public Location getLocation() {
+        return new Location(LengthUnit.Millimeters);
+    }
+}
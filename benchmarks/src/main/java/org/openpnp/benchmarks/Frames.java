@@ -0,0 +1,114 @@
+package org.openpnp.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Camera frames for the vision benchmarks. Recorded frames are read from a
+ * directory of PNG files; without one, frames that look roughly like a
+ * board under a down looking camera are generated from a seed.
+ */
+public class Frames {
+    private Frames() {
+    }
+
+    /**
+     * Reads every PNG in the directory, in name order.
+     * @param directory
+     * @return
+     * @throws Exception
+     */
+    public static List<BufferedImage> read(File directory) throws Exception {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.toLowerCase().endsWith(".png");
+            }
+        });
+        if (files == null || files.length == 0) {
+            throw new Exception("No PNG frames found in " + directory);
+        }
+        Arrays.sort(files);
+        List<BufferedImage> frames = new ArrayList<BufferedImage>();
+        for (File file : files) {
+            frames.add(ImageIO.read(file));
+        }
+        return frames;
+    }
+
+    /**
+     * Generates count frames of the given size, each from its own seed.
+     * @param count
+     * @param width
+     * @param height
+     * @return
+     */
+    public static List<BufferedImage> generate(int count, int width,
+            int height) {
+        List<BufferedImage> frames = new ArrayList<BufferedImage>();
+        for (int i = 0; i < count; i++) {
+            frames.add(createBoardImage(width, height, i));
+        }
+        return frames;
+    }
+
+    /**
+     * Draws solder mask with pads, a few round fiducials and some sensor
+     * noise.
+     * @param width
+     * @param height
+     * @param seed
+     * @return
+     */
+    public static BufferedImage createBoardImage(int width, int height,
+            long seed) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(20, 90, 40));
+        g.fillRect(0, 0, width, height);
+        g.setColor(new Color(200, 180, 120));
+        int pads = width * height / 2000;
+        for (int i = 0; i < pads; i++) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            if (random.nextBoolean()) {
+                g.fillRect(x, y, 12, 20);
+                g.fillRect(x + 24, y, 12, 20);
+            }
+            else {
+                g.fillRect(x, y, 20, 12);
+                g.fillRect(x, y + 24, 20, 12);
+            }
+        }
+        g.setColor(new Color(230, 220, 200));
+        for (int i = 0; i < 3; i++) {
+            g.fillOval(random.nextInt(width), random.nextInt(height), 30, 30);
+        }
+        g.dispose();
+        for (int i = 0; i < width * height / 20; i++) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            int rgb = image.getRGB(x, y);
+            int noise = random.nextInt(31) - 15;
+            int r = clamp(((rgb >> 16) & 0xff) + noise);
+            int gr = clamp(((rgb >> 8) & 0xff) + noise);
+            int b = clamp((rgb & 0xff) + noise);
+            image.setRGB(x, y, (r << 16) | (gr << 8) | b);
+        }
+        return image;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -0,0 +1,118 @@
+package org.openpnp.benchmarks;
+
+import java.awt.geom.AffineTransform;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openpnp.model.Length;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Point;
+import org.openpnp.util.MutableLocation;
+import org.openpnp.util.Utils2D;
+
+/**
+ * Unit conversion and vector math on Location, compared with MutableLocation
+ * and the array based Utils2D methods that hot paths can use instead.
+ * Single operations are reported in nanoseconds; the point benchmarks
+ * transform POINTS points per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LocationBenchmark {
+    private static final int POINTS = 1000;
+
+    private Location millimeters;
+    private Location inches;
+    private Length length;
+    private MutableLocation mutable;
+    private double[] points;
+    private double[] scratch;
+    private AffineTransform transform;
+
+    @Setup
+    public void setup() {
+        millimeters = new Location(LengthUnit.Millimeters, 12.5, 40.25, -3.2,
+                90);
+        inches = new Location(LengthUnit.Inches, 0.5, 1.25, 0.1, 0);
+        length = new Length(12.5, LengthUnit.Millimeters);
+        mutable = new MutableLocation(LengthUnit.Millimeters);
+        Random random = new Random(1);
+        points = new double[POINTS * 2];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = random.nextDouble() * 100;
+        }
+        scratch = new double[points.length];
+        transform = Utils2D.getRotateTranslateScaleTransform(30, 150, 50, 1,
+                1);
+    }
+
+    @Benchmark
+    public Location convertToUnits() {
+        return millimeters.convertToUnits(LengthUnit.Inches);
+    }
+
+    @Benchmark
+    public Length lengthConvertToUnits() {
+        return length.convertToUnits(LengthUnit.Inches);
+    }
+
+    @Benchmark
+    public Location addMixedUnits() {
+        return millimeters.add(inches);
+    }
+
+    @Benchmark
+    public Location subtractMixedUnits() {
+        return millimeters.subtract(inches);
+    }
+
+    @Benchmark
+    public double linearDistance() {
+        return millimeters.getLinearDistanceTo(inches
+                .convertToUnits(LengthUnit.Millimeters));
+    }
+
+    @Benchmark
+    public double mutableAddSubtract() {
+        mutable.set(millimeters).add(inches).subtract(inches)
+                .convertToUnits(LengthUnit.Inches);
+        return mutable.x;
+    }
+
+    @Benchmark
+    public double mutableTransform() {
+        mutable.set(millimeters).transform(transform);
+        return mutable.x;
+    }
+
+    @Benchmark
+    public void rotateTranslateScalePoint(Blackhole blackhole) {
+        for (int i = 0; i < points.length; i += 2) {
+            blackhole.consume(Utils2D.rotateTranslateScalePoint(new Point(
+                    points[i], points[i + 1]), 30, 150, 50, 1, 1));
+        }
+    }
+
+    @Benchmark
+    public double[] transformPoints() {
+        System.arraycopy(points, 0, scratch, 0, points.length);
+        Utils2D.transformPoints(transform, scratch, 0, POINTS);
+        return scratch;
+    }
+}
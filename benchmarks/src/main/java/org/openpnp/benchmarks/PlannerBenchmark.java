@@ -0,0 +1,57 @@
+package org.openpnp.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openpnp.model.Job;
+import org.openpnp.planner.SimpleJobPlanner;
+import org.openpnp.spi.Head;
+import org.openpnp.spi.JobPlanner.PlacementSolution;
+
+/**
+ * Plans a whole Job with the SimpleJobPlanner, including choosing among the
+ * duplicate feeders of the benchmark machine, the way the JobProcessor
+ * drains it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PlannerBenchmark {
+    @Param({ "100", "1000", "10000", "100000" })
+    public int placements;
+
+    private Job job;
+    private Head head;
+    private SimpleJobPlanner planner;
+
+    @Setup
+    public void setup() throws Exception {
+        head = BenchmarkConfiguration.load().getMachine().getHeads().get(0);
+        job = BenchmarkConfiguration.createJob(placements, 1);
+        planner = new SimpleJobPlanner();
+    }
+
+    @Benchmark
+    public void planJob(Blackhole blackhole) {
+        planner.setJob(job);
+        Set<PlacementSolution> solutions;
+        while ((solutions = planner.getNextPlacementSolutions(head)) != null) {
+            blackhole.consume(solutions);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.openpnp.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.spi.Camera;
+
+/**
+ * Renders TableScannerCamera frames over the generated tile grid. A frame
+ * from where the last one was rendered only copies from the buffer; a
+ * small move also searches for the closest tile; a move to a different
+ * tile re-renders the whole buffer of surrounding tiles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TableScannerCameraBenchmark {
+    private Camera camera;
+    private Location center;
+    private Location nearCenter;
+    private Location otherTile;
+    private boolean toggle;
+
+    @Setup
+    public void setup() throws Exception {
+        camera = BenchmarkConfiguration.load().getMachine().getHeads().get(0)
+                .getCameras().get(0);
+        double x = BenchmarkConfiguration.TILES_WIDE / 2
+                * BenchmarkConfiguration.TILE_PITCH_X;
+        double y = BenchmarkConfiguration.TILES_HIGH / 2
+                * BenchmarkConfiguration.TILE_PITCH_Y;
+        center = new Location(LengthUnit.Millimeters, x, y, 0, 0);
+        nearCenter = new Location(LengthUnit.Millimeters, x + 0.05, y + 0.05,
+                0, 0);
+        otherTile = new Location(LengthUnit.Millimeters, x
+                + BenchmarkConfiguration.TILE_PITCH_X, y, 0, 0);
+        camera.moveTo(center, 1.0);
+        camera.capture();
+    }
+
+    @Benchmark
+    public BufferedImage captureStationary() {
+        return camera.capture();
+    }
+
+    @Benchmark
+    public BufferedImage captureSmallMoves() throws Exception {
+        toggle = !toggle;
+        camera.moveTo(toggle ? nearCenter : center, 1.0);
+        return camera.capture();
+    }
+
+    @Benchmark
+    public BufferedImage captureAcrossTiles() throws Exception {
+        toggle = !toggle;
+        camera.moveTo(toggle ? otherTile : center, 1.0);
+        return camera.capture();
+    }
+}
@@ -0,0 +1,110 @@
+package org.openpnp.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Job;
+import org.openpnp.model.Location;
+import org.openpnp.model.Placement;
+import org.openpnp.model.Point;
+import org.openpnp.planner.PlacementTransformer;
+import org.openpnp.util.Utils2D;
+
+/**
+ * Transforms every Placement of a Job from board to machine coordinates.
+ * perPlacement is how the JobProcessor did it before PlacementTransformer,
+ * one chain of Location and Point objects per Placement; batch is the
+ * PlacementTransformer's single pass per board followed by a lookup per
+ * Placement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransformBenchmark {
+    @Param({ "100", "1000", "10000" })
+    public int placements;
+
+    private Job job;
+    private BoardLocation boardLocation;
+    private List<Placement> placementList;
+    private PlacementTransformer transformer;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkConfiguration.load();
+        job = BenchmarkConfiguration.createJob(placements, 1);
+        boardLocation = job.getBoardLocations().get(0);
+        placementList = boardLocation.getBoard().getPlacements();
+        transformer = new PlacementTransformer();
+    }
+
+    @Benchmark
+    public void perPlacement(Blackhole blackhole) {
+        for (Placement placement : placementList) {
+            blackhole.consume(transformPlacement(boardLocation, placement));
+        }
+    }
+
+    @Benchmark
+    public void batch(Blackhole blackhole) {
+        transformer.clear();
+        transformer.transform(job);
+        for (Placement placement : placementList) {
+            blackhole.consume(transformer.getPlacementLocation(boardLocation,
+                    placement));
+        }
+    }
+
+    /**
+     * The cached lookups alone, as the motion loop sees them once the Job
+     * has been transformed.
+     */
+    @Benchmark
+    public void cachedLookup(Blackhole blackhole) {
+        for (Placement placement : placementList) {
+            blackhole.consume(transformer.getPlacementLocation(boardLocation,
+                    placement));
+        }
+    }
+
+    private static Location transformPlacement(BoardLocation bl,
+            Placement placement) {
+        Location boardLocation = bl.getLocation();
+        Location placementLocation = placement.getLocation();
+        boardLocation = boardLocation.convertToUnits(placementLocation
+                .getUnits());
+        if (bl.getSide() == Side.Bottom) {
+            placementLocation = placementLocation.invert(true, false, false,
+                    false);
+        }
+        Point p = new Point(placementLocation.getX(), placementLocation.getY());
+        p = Utils2D.rotateTranslateScalePoint(p, boardLocation.getRotation(),
+                boardLocation.getX(), boardLocation.getY(), 1.0, 1.0);
+        placementLocation = placementLocation.derive(p.getX(), p.getY(), null,
+                null);
+        placementLocation = placementLocation.derive(null, null, null,
+                (placementLocation.getRotation() + boardLocation.getRotation())
+                        % 360.0);
+        double partHeight = placement.getPart().getHeight()
+                .convertToUnits(placementLocation.getUnits()).getValue();
+        return placementLocation.derive(null, null, boardLocation.getZ()
+                + partHeight, null);
+    }
+}
@@ -0,0 +1,86 @@
+package org.openpnp.benchmarks;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpnp.machine.reference.vision.OpenCvVisionProvider;
+import org.openpnp.spi.VisionProvider.Circle;
+
+/**
+ * Template matching and circle finding with the OpenCvVisionProvider on a
+ * sequence of camera frames. Set the frames parameter to a directory of
+ * recorded PNG frames to use real images, for instance
+ * -p frames=/path/to/frames; otherwise generated frames are used. The
+ * template is cut from the middle of the first frame.
+ *
+ * These need the JavaCV native libraries for the platform.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VisionBenchmark {
+    private static final int TEMPLATE_SIZE = 64;
+    private static final int REGION_SIZE = 200;
+
+    @Param({ "" })
+    public String frames;
+
+    private OpenCvVisionProvider visionProvider;
+    private BufferedImage template;
+    private int width;
+    private int height;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkConfiguration.load();
+        List<BufferedImage> images;
+        if (frames.length() == 0) {
+            images = Frames.generate(8, 640, 480);
+        }
+        else {
+            images = Frames.read(new File(frames));
+        }
+        width = images.get(0).getWidth();
+        height = images.get(0).getHeight();
+        template = images.get(0).getSubimage((width - TEMPLATE_SIZE) / 2,
+                (height - TEMPLATE_SIZE) / 2, TEMPLATE_SIZE, TEMPLATE_SIZE);
+        visionProvider = new OpenCvVisionProvider();
+        visionProvider.setCamera(new FrameCamera(images));
+    }
+
+    @Benchmark
+    public Point[] templateMatchFullFrame() throws Exception {
+        return visionProvider.locateTemplateMatches(0, 0, width, height,
+                width / 2, height / 2, template);
+    }
+
+    @Benchmark
+    public Point[] templateMatchRegion() throws Exception {
+        return visionProvider.locateTemplateMatches((width - REGION_SIZE) / 2,
+                (height - REGION_SIZE) / 2, REGION_SIZE, REGION_SIZE,
+                width / 2, height / 2, template);
+    }
+
+    @Benchmark
+    public Circle[] locateCircles() throws Exception {
+        return visionProvider.locateCircles(0, 0, width, height, width / 2,
+                height / 2, 20, 30, 40);
+    }
+}
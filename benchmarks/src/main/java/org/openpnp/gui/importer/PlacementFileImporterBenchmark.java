@@ -0,0 +1,98 @@
+package org.openpnp.gui.importer;
+
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openpnp.benchmarks.BenchmarkConfiguration;
+import org.openpnp.gui.importer.PlacementFileParser.ParsedPlacement;
+import org.openpnp.model.Placement;
+
+/**
+ * Imports generated EAGLE mountsmd.ulp files of the given total number of
+ * lines, split evenly between the top and bottom files. The parsers are
+ * package private, which is why this benchmark lives in their package.
+ *
+ * The first invocation creates the missing Parts and Packages; after that
+ * every part id resolves to an existing Part, as it does when the same
+ * design is imported again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PlacementFileImporterBenchmark {
+    private static final String[] PACKAGES = new String[] { "0402", "0603",
+            "0805", "1206", "SOT-23-3", "SOIC-8" };
+
+    @Param({ "50000" })
+    public int lines;
+
+    private File topFile;
+    private File bottomFile;
+    private File singleFile;
+    private PlacementFileImporter importer;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkConfiguration.load();
+        File directory = BenchmarkConfiguration
+                .createTemporaryDirectory("openpnp-import");
+        topFile = new File(directory, "top.mnt");
+        bottomFile = new File(directory, "bottom.mnb");
+        singleFile = new File(directory, "single.mnt");
+        writeFile(topFile, lines / 2, 1);
+        writeFile(bottomFile, lines - lines / 2, 2);
+        writeFile(singleFile, lines, 3);
+        importer = new PlacementFileImporter(new MountsmdUlpImporter.Parser(),
+                true);
+    }
+
+    @Benchmark
+    public List<Placement> importTopAndBottom() throws Exception {
+        return importer.importPlacements(topFile, bottomFile);
+    }
+
+    @Benchmark
+    public List<ParsedPlacement> parseSingleFile() throws Exception {
+        return importer.parseFile(singleFile);
+    }
+
+    /**
+     * Writes lines in the format mountsmd.ulp produces: name, x, y,
+     * rotation, value and package.
+     */
+    private static void writeFile(File file, int count, long seed)
+            throws Exception {
+        Random random = new Random(seed);
+        PrintWriter out = new PrintWriter(file, "UTF-8");
+        try {
+            for (int i = 0; i < count; i++) {
+                out.println(String.format(Locale.US, "R%d %.2f %.2f %d %dK %s",
+                        i + 1, random.nextDouble() * 300,
+                        random.nextDouble() * 200, random.nextInt(4) * 90,
+                        random.nextInt(100),
+                        PACKAGES[random.nextInt(PACKAGES.length)]));
+            }
+        }
+        finally {
+            out.close();
+        }
+    }
+}
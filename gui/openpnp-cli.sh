@@ -0,0 +1,16 @@
+#!/bin/bash
+
+# Runs jobs without the user interface. See org.openpnp.cli.JobRunner for
+# the options, e.g. openpnp-cli.sh -j -c /tmp/sim-config job.job.xml
+
+unamestr=`uname`
+case "$unamestr" in
+	Darwin)
+		rootdir="$(cd $(dirname $0); pwd -P)"
+	;;
+	*)
+		rootdir="$(dirname $(readlink -f $0))"
+	;;
+esac
+
+java -Djava.awt.headless=true -cp $rootdir/target/openpnp-gui-0.0.1-alpha-SNAPSHOT.jar org.openpnp.cli.JobRunner "$@"
@@ -0,0 +1,355 @@
+package org.openpnp;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Job;
+import org.openpnp.model.PanelLayout;
+import org.openpnp.model.Placement;
+import org.openpnp.spi.JobPlanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only record of the Placements of a Job that have been placed,
+ * kept next to the Job file so that a Job interrupted by a fault can be
+ * resumed without placing anything twice.
+ *
+ * The journal is a text file with one line per placed Placement, giving the
+ * index of its BoardLocation in the Job, the panel cell and the Placement
+ * id. The first line is a fingerprint of the Job's boards so that a journal
+ * is never applied to a Job that has been edited since.
+ *
+ * Each record is written to the operating system as soon as it is made, so
+ * it survives the process dying. Forcing the file to disk is expensive, so
+ * it is batched: a background thread syncs every
+ * DEFAULT_SYNC_INTERVAL_MILLISECONDS when there is something to sync, and
+ * sync() can be called when the Job pauses or stops.
+ */
+public class JobJournal implements JobPlanner.CompletedPlacements {
+    private final static Logger logger = LoggerFactory
+            .getLogger(JobJournal.class);
+
+    public static final long DEFAULT_SYNC_INTERVAL_MILLISECONDS = 250;
+
+    private static final String HEADER = "# OpenPnP job journal 1";
+    private static final String ENCODING = "UTF-8";
+
+    private final File file;
+    private final Map<BoardLocation, Integer> boardLocationIndexes = new IdentityHashMap<BoardLocation, Integer>();
+    private final Set<Entry> placed = new HashSet<Entry>();
+
+    private FileOutputStream out;
+    private Writer writer;
+    private ScheduledExecutorService syncer;
+    private volatile boolean dirty;
+
+    private JobJournal(Job job, File file) {
+        this.file = file;
+        List<BoardLocation> boardLocations = job.getBoardLocations();
+        for (int i = 0; i < boardLocations.size(); i++) {
+            boardLocationIndexes.put(boardLocations.get(i), i);
+        }
+    }
+
+    /**
+     * Returns the journal file for the Job. Jobs that have not been saved
+     * share a journal in the configuration directory.
+     * @param job
+     * @return
+     * @throws IOException
+     */
+    public static File getFile(Job job) throws IOException {
+        if (job.getFile() != null) {
+            return getFile(job.getFile());
+        }
+        return Configuration.get().getResourceFile(JobJournal.class,
+                "untitled.journal");
+    }
+
+    /**
+     * Returns the journal file for the Job saved in the given file.
+     * @param jobFile
+     * @return
+     */
+    public static File getFile(File jobFile) {
+        return new File(jobFile.getParentFile(), jobFile.getName()
+                + ".journal");
+    }
+
+    /**
+     * Returns the number of placed Placements recorded in the Job's
+     * journal, or 0 if there is no journal or it does not match the Job.
+     * @param job
+     * @return
+     */
+    public static int getPlacedCount(Job job) {
+        try {
+            File file = getFile(job);
+            if (!file.exists()) {
+                return 0;
+            }
+            JobJournal journal = new JobJournal(job, file);
+            journal.read(job);
+            return journal.placed.size();
+        }
+        catch (Exception e) {
+            logger.debug("Unable to read journal: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Starts a new, empty journal for the Job, replacing any existing one.
+     * @param job
+     * @return
+     * @throws Exception
+     */
+    public static JobJournal create(Job job) throws Exception {
+        JobJournal journal = new JobJournal(job, getFile(job));
+        journal.open(false);
+        journal.writeLine(HEADER);
+        journal.writeLine("J\t" + fingerprint(job));
+        journal.sync();
+        return journal;
+    }
+
+    /**
+     * Opens the Job's existing journal to resume the Job. Placements it
+     * records are reported as completed. Throws an Exception if the journal
+     * does not exist or was written for a different Job.
+     * @param job
+     * @return
+     * @throws Exception
+     */
+    public static JobJournal resume(Job job) throws Exception {
+        JobJournal journal = new JobJournal(job, getFile(job));
+        if (!journal.file.exists()) {
+            throw new Exception("No journal found for this job at "
+                    + journal.file);
+        }
+        long length = journal.read(job);
+        // Drop a record torn by a crash before appending to it.
+        RandomAccessFile raf = new RandomAccessFile(journal.file, "rw");
+        try {
+            raf.setLength(length);
+        }
+        finally {
+            raf.close();
+        }
+        journal.open(true);
+        logger.debug("Resuming with {} placements already placed",
+                journal.placed.size());
+        return journal;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized int getPlacedCount() {
+        return placed.size();
+    }
+
+    @Override
+    public synchronized boolean isCompleted(BoardLocation boardLocation,
+            int cell, Placement placement) {
+        Integer index = boardLocationIndexes.get(boardLocation);
+        if (index == null) {
+            return false;
+        }
+        return placed.contains(new Entry(index, cell, placement.getId()));
+    }
+
+    /**
+     * Records that the Placement has been placed.
+     * @param boardLocation
+     * @param cell
+     * @param placement
+     * @throws IOException
+     */
+    public synchronized void placed(BoardLocation boardLocation, int cell,
+            Placement placement) throws IOException {
+        Integer index = boardLocationIndexes.get(boardLocation);
+        if (index == null || out == null) {
+            return;
+        }
+        Entry entry = new Entry(index, cell, placement.getId());
+        if (!placed.add(entry)) {
+            return;
+        }
+        writeLine("P\t" + index + "\t" + cell + "\t" + entry.placementId);
+    }
+
+    /**
+     * Forces everything written so far to disk.
+     * @throws IOException
+     */
+    public synchronized void sync() throws IOException {
+        if (out == null) {
+            return;
+        }
+        writer.flush();
+        out.getChannel().force(false);
+        dirty = false;
+    }
+
+    /**
+     * Syncs and closes the journal, leaving the file in place so the Job can
+     * be resumed.
+     */
+    public synchronized void close() {
+        if (out == null) {
+            return;
+        }
+        syncer.shutdown();
+        try {
+            sync();
+            writer.close();
+        }
+        catch (IOException e) {
+            logger.warn("Unable to close job journal " + file, e);
+        }
+        out = null;
+        writer = null;
+    }
+
+    /**
+     * Closes and deletes the journal. Called when the Job completes.
+     */
+    public synchronized void delete() {
+        close();
+        FileUtils.deleteQuietly(file);
+    }
+
+    private void open(boolean append) throws IOException {
+        out = new FileOutputStream(file, append);
+        writer = new OutputStreamWriter(out, ENCODING);
+        syncer = Executors
+                .newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "JobJournal sync");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        syncer.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                if (!dirty) {
+                    return;
+                }
+                try {
+                    sync();
+                }
+                catch (IOException e) {
+                    logger.warn("Unable to sync job journal " + file, e);
+                }
+            }
+        }, DEFAULT_SYNC_INTERVAL_MILLISECONDS,
+                DEFAULT_SYNC_INTERVAL_MILLISECONDS, TimeUnit.MILLISECONDS);
+    }
+
+    private void writeLine(String line) throws IOException {
+        writer.write(line);
+        writer.write('\n');
+        // Hand the record to the OS now so that only a power loss, not a
+        // crash, can lose it. The expensive force to disk is batched.
+        writer.flush();
+        dirty = true;
+    }
+
+    /**
+     * Reads the placed records and returns the length of the journal up to
+     * the end of the last complete record.
+     */
+    private long read(Job job) throws Exception {
+        byte[] bytes = FileUtils.readFileToByteArray(file);
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') {
+            end--;
+        }
+        String[] lines = new String(bytes, 0, end, ENCODING).split("\n");
+        if (lines.length < 2 || !lines[0].equals(HEADER)) {
+            throw new Exception(file + " is not a job journal.");
+        }
+        if (!lines[1].equals("J\t" + fingerprint(job))) {
+            throw new Exception("The journal " + file
+                    + " was written for a different version of this job.");
+        }
+        for (int i = 2; i < lines.length; i++) {
+            String[] fields = lines[i].split("\t", 4);
+            if (fields.length != 4 || !fields[0].equals("P")) {
+                throw new Exception(String.format(
+                        "%s, line %d: Invalid record.", file.getName(), i + 1));
+            }
+            placed.add(new Entry(Integer.parseInt(fields[1]), Integer
+                    .parseInt(fields[2]), fields[3]));
+        }
+        return end;
+    }
+
+    /**
+     * Describes the shape of the Job: each board's name, side, number of
+     * Placements and number of panel cells.
+     */
+    private static String fingerprint(Job job) {
+        StringBuilder sb = new StringBuilder();
+        for (BoardLocation boardLocation : job.getBoardLocations()) {
+            PanelLayout panelLayout = boardLocation.getPanelLayout();
+            sb.append(boardLocation.getBoard().getName());
+            sb.append(':');
+            sb.append(boardLocation.getSide());
+            sb.append(':');
+            sb.append(boardLocation.getBoard().getPlacements().size());
+            sb.append(':');
+            sb.append(panelLayout == null ? 1 : panelLayout.getCellCount());
+            sb.append(';');
+        }
+        return sb.toString().replace('\t', ' ').replace('\n', ' ');
+    }
+
+    private static class Entry {
+        final int boardLocationIndex;
+        final int cell;
+        final String placementId;
+
+        public Entry(int boardLocationIndex, int cell, String placementId) {
+            this.boardLocationIndex = boardLocationIndex;
+            this.cell = cell;
+            this.placementId = String.valueOf(placementId);
+        }
+
+        @Override
+        public int hashCode() {
+            return (boardLocationIndex * 31 + cell) * 31
+                    + placementId.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) obj;
+            return boardLocationIndex == other.boardLocationIndex
+                    && cell == other.cell
+                    && placementId.equals(other.placementId);
+        }
+    }
+}
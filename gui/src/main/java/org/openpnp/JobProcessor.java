@@ -21,26 +21,38 @@
 
 package org.openpnp;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Set;
 
+import org.openpnp.JobProcessorEvent.Status;
+import org.openpnp.JobProcessorEvent.Type;
+import org.openpnp.PickRecovery.Recovery;
+import org.openpnp.metrics.Counter;
+import org.openpnp.metrics.LatencyHistogram;
+import org.openpnp.metrics.Metrics;
 import org.openpnp.model.Board;
-import org.openpnp.model.Board.Side;
 import org.openpnp.model.BoardLocation;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Job;
 import org.openpnp.model.Location;
 import org.openpnp.model.Part;
 import org.openpnp.model.Placement;
-import org.openpnp.model.Point;
+import org.openpnp.planner.PlacementTransformer;
+import org.openpnp.spi.Camera;
 import org.openpnp.spi.Feeder;
 import org.openpnp.spi.Head;
 import org.openpnp.spi.JobPlanner;
 import org.openpnp.spi.JobPlanner.PlacementSolution;
 import org.openpnp.spi.Machine;
 import org.openpnp.spi.Nozzle;
-import org.openpnp.util.Utils2D;
+import org.openpnp.trace.SessionTrace;
+import org.openpnp.util.AffineFit;
+import org.openpnp.util.BottomVision;
+import org.openpnp.util.FiducialLocator;
+import org.openpnp.util.HeadZones;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +61,16 @@ import org.slf4j.LoggerFactory;
 public class JobProcessor implements Runnable {
 	private static final Logger logger = LoggerFactory.getLogger(JobProcessor.class);
 	
+	private static final LatencyHistogram feedLatency = Metrics.histogram("feeder.feed");
+	private static final LatencyHistogram pickLatency = Metrics.histogram("job.pick");
+	private static final LatencyHistogram placeLatency = Metrics.histogram("job.place");
+	private static final LatencyHistogram fiducialsLatency = Metrics.histogram("job.fiducials");
+	private static final LatencyHistogram alignLatency = Metrics.histogram("job.align");
+	private static final LatencyHistogram cycleLatency = Metrics.histogram("job.cycle");
+	private static final Counter placedCount = Metrics.counter("job.placed");
+	private static final Counter skippedCount = Metrics.counter("job.skipped");
+	private static final Counter pickFailureCount = Metrics.counter("job.pickFailures");
+	
 	public enum JobState {
 		Stopped,
 		Running,
@@ -63,7 +85,9 @@ public class JobProcessor implements Runnable {
 		HeadError,
 		PickError,
 		PlaceError,
-		PartError
+		PartError,
+		FiducialError,
+		JournalError
 	}
 	
 	public enum PickRetryAction {
@@ -72,15 +96,34 @@ public class JobProcessor implements Runnable {
 		SkipAndContinue,
 	}
 	
+	private enum PickResult {
+		Picked,
+		Failed,
+		Aborted
+	}
+	
 	private Configuration configuration;
 	private Job job;
-	private Set<JobProcessorListener> listeners = new HashSet<JobProcessorListener>();
+	private final JobProcessorEventQueue events = new JobProcessorEventQueue();
 	private JobProcessorDelegate delegate = new DefaultJobProcessorDelegate();
-	private JobState state;
+	private volatile JobState state;
 	private Thread thread;
 	private Object runLock = new Object();
 	
-	private boolean pauseAtNextStep;
+	private volatile boolean pauseAtNextStep;
+	
+	/**
+	 * Set when one Head of a multi-head Job fails, so that the others stop.
+	 */
+	private volatile boolean aborted;
+	
+	private PlacementTransformer placementTransformer = new PlacementTransformer();
+	
+	private FiducialLocator fiducialLocator = new FiducialLocator();
+	
+	private volatile JobJournal journal;
+	
+	private boolean resumeFromJournal;
 	
 	public JobProcessor(Configuration configuration) {
 		this.configuration = configuration;
@@ -90,12 +133,48 @@ public class JobProcessor implements Runnable {
 		this.delegate = delegate;
 	}
 	
+	/**
+	 * Gets the PickRecovery that holds the per Feeder pick statistics and
+	 * the limits on retrying failed picks. It belongs to the Machine.
+	 * @return
+	 */
+	public PickRecovery getPickRecovery() {
+		return configuration.getMachine().getPickRecovery();
+	}
+	
+	/**
+	 * Adds a listener. Listeners are called on the JobProcessor's event
+	 * thread, not the job thread and not the Swing event dispatch thread.
+	 * @param listener
+	 */
 	public void addListener(JobProcessorListener listener) {
-		listeners.add(listener);
+		events.addListener(listener);
 	}
 	
 	public void removeListener(JobProcessorListener listener) {
-		listeners.remove(listener);
+		events.removeListener(listener);
+	}
+	
+	/**
+	 * Adds a listener that receives the structured JobProcessorEvents on the
+	 * JobProcessor's event thread.
+	 * @param listener
+	 */
+	public void addEventListener(JobProcessorEvent.Listener listener) {
+		events.addEventListener(listener);
+	}
+	
+	public void removeEventListener(JobProcessorEvent.Listener listener) {
+		events.removeEventListener(listener);
+	}
+	
+	/**
+	 * The number of detailed status updates dropped because listeners could
+	 * not keep up.
+	 * @return
+	 */
+	public long getDroppedStatusCount() {
+		return events.getDroppedCount();
 	}
 	
 	public Job getJob() {
@@ -110,7 +189,9 @@ public class JobProcessor implements Runnable {
 	// properties.
 	public void load(Job job) {
 		stop();
+		closeJournal();
 		this.job = job;
+		placementTransformer.clear();
 		
 		fireJobLoaded();
 	}
@@ -119,17 +200,43 @@ public class JobProcessor implements Runnable {
 	 * Start the Job. The Job must be in the Stopped state.
 	 */
 	public void start() throws Exception {
-		logger.debug("start()");
+		start(false);
+	}
+	
+	/**
+	 * Start the Job. The Job must be in the Stopped state. If resume is true
+	 * the Job continues from its journal, skipping every Placement that an
+	 * earlier run recorded as placed. Otherwise a new journal is started.
+	 * @param resume
+	 * @throws Exception
+	 */
+	public void start(boolean resume) throws Exception {
+		logger.debug("start({})", resume);
 		if (state != JobState.Stopped) {
 			throw new Exception("Invalid state. Cannot start new job while state is " + state);
 		}
 		if (thread != null && thread.isAlive()) {
 			throw new Exception("Previous Job has not yet finished.");
 		}
+		closeJournal();
+		journal = resume ? JobJournal.resume(job) : JobJournal.create(job);
+		resumeFromJournal = resume;
 		thread = new Thread(this);
 		thread.start();
 	}
 	
+	/**
+	 * Returns the number of Placements an earlier, interrupted run of the
+	 * loaded Job recorded as placed, or 0 if there is nothing to resume.
+	 * @return
+	 */
+	public int getResumablePlacementCount() {
+		if (job == null || (thread != null && thread.isAlive())) {
+			return 0;
+		}
+		return JobJournal.getPlacedCount(job);
+	}
+	
 	/**
 	 * Pause a running Job. The Job will stop running at the next opportunity and retain
 	 * it's state so that it can be resumed. 
@@ -137,6 +244,7 @@ public class JobProcessor implements Runnable {
 	public void pause() {
 		logger.debug("pause()");
 		state = JobState.Paused;
+		syncJournal();
 		fireJobStateChanged();
 	}
 	
@@ -171,18 +279,38 @@ public class JobProcessor implements Runnable {
 	
 	/**
 	 * Stop a running Job. The Job will stop immediately and will reset to it's 
-	 * freshly loaded state. All state about parts already placed will be lost.
+	 * freshly loaded state. The Placements already placed remain in the
+	 * Job's journal, so the Job can later be resumed with start(true).
 	 */
 	public void stop() {
 		logger.debug("stop()");
 		state = JobState.Stopped;
+		syncJournal();
 		fireJobStateChanged();
 		synchronized (runLock) {
 			runLock.notifyAll();
 		}
 	}
 	
+	/**
+	 * Waits up to millis milliseconds for the Job thread to finish, for
+	 * instance after the Job completes or stop() is called. Returns true if
+	 * no Job thread is running.
+	 * @param millis
+	 * @return
+	 * @throws InterruptedException
+	 */
+	public boolean join(long millis) throws InterruptedException {
+		Thread thread = this.thread;
+		if (thread == null) {
+			return true;
+		}
+		thread.join(millis);
+		return !thread.isAlive();
+	}
+	
 	public void run() {
+		aborted = false;
 		state = JobState.Running;
 		fireJobStateChanged();
 		
@@ -190,8 +318,13 @@ public class JobProcessor implements Runnable {
 		
 		preProcessJob(machine);
 		
+		// Transform all of the job's placements to machine coordinates
+		// up front so the motion loop only has to look them up.
+		placementTransformer.clear();
+		placementTransformer.transform(job);
+		
 		for (Head head : machine.getHeads()) {
-			fireDetailedStatusUpdated(String.format("Move head %s to Safe-Z.", head.getId()));		
+			fireDetailedStatusUpdated(Status.MoveHeadToSafeZ, head.getId());		
 	
 			if (!shouldJobProcessingContinue()) {
 				return;
@@ -207,12 +340,55 @@ public class JobProcessor implements Runnable {
 		}
 		
 		JobPlanner jobPlanner = machine.getJobPlanner();
-		Head head = machine.getHeads().get(0);
+		List<Head> heads = machine.getHeads();
 		
+		long fiducialsStart = System.nanoTime();
+		if (!registerBoards(heads.get(0))) {
+			return;
+		}
+		fiducialsLatency.recordSince(fiducialsStart);
+		
+		jobPlanner.setCompletedPlacements(resumeFromJournal ? journal : null);
 		jobPlanner.setJob(job);
-
+		
+		if (heads.size() == 1) {
+			if (!processHead(machine, jobPlanner, heads.get(0))) {
+				return;
+			}
+		}
+		else if (!HeadZones.isZoned(machine)) {
+			if (!processHeadsInTurn(machine, jobPlanner, heads)) {
+				return;
+			}
+		}
+		else if (!processHeads(machine, jobPlanner, heads)) {
+			return;
+		}
+		
+		fireDetailedStatusUpdated(Status.JobComplete);
+		
+		// The Job finished, so there is nothing left to resume.
+		JobJournal journal = this.journal;
+		if (journal != null) {
+			journal.delete();
+		}
+		
+		state = JobState.Stopped;
+		fireJobStateChanged();
+	}
+	
+	/**
+	 * Places everything the planner gives the Head until it runs out of
+	 * work. Returns false if the Job was stopped or failed.
+	 */
+	private boolean processHead(Machine machine, JobPlanner jobPlanner, Head head) {
+		// Parts are aligned over the up-looking camera if bottom vision is
+		// enabled and set up.
+		BottomVision bottomVision = machine.getBottomVision();
+		Camera upCamera = bottomVision.getCamera(machine);
         Set<PlacementSolution> solutions;
 		while ((solutions = jobPlanner.getNextPlacementSolutions(head)) != null) {
+		    long cycleStart = System.nanoTime();
 		    LinkedHashMap<PlacementSolution, Location> placementSolutionLocations = new LinkedHashMap<PlacementSolution, Location>();
 		    for (PlacementSolution solution : solutions) {
 				firePartProcessingStarted(solution.boardLocation, solution.placement);
@@ -227,82 +403,189 @@ public class JobProcessor implements Runnable {
 				// have the JobPlanner plan the job twice.
 				if (nozzle == null) {
                     fireJobEncounteredError(JobError.HeadError, "No Nozzle available to service Placement " + placement);
-                    return;
+                    return false;
                 }
 
 				if (feeder == null) {
 					fireJobEncounteredError(JobError.FeederError, "No viable Feeders found for Part " + part.getId());
-					return;
+					return false;
 				}
 
 				// Determine where we will place the part
-				Location boardLocation = bl.getLocation();
-				Location placementLocation = placement.getLocation();
-
-				// We will work in the units of the placementLocation, so convert
-				// anything that isn't in those units to it.
-				boardLocation = boardLocation.convertToUnits(placementLocation.getUnits());
-				
-				// If we are placing the bottom of the board we need to invert
-				// the placement location.
-				if (bl.getSide() == Side.Bottom) {
-					placementLocation = placementLocation.invert(true, false, false, false);
+				Location placementLocation = placementTransformer.getPlacementLocation(bl, placement, solution.cell);
+
+				long pickStart = System.nanoTime();
+				// With more than one Nozzle the others move before this one
+				// places, so it has to go back up after the pick.
+				PickResult result = pickWithRecovery(machine, nozzle, feeder, solutions.size() > 1, bl, placement);
+				if (result == PickResult.Aborted) {
+					return false;
+				}
+				if (result == PickResult.Picked) {
+					pickLatency.recordSince(pickStart);
+					if (upCamera != null) {
+						placementLocation = alignPart(bottomVision, nozzle, upCamera, placementLocation, solutions.size() == 1);
+						if (placementLocation == null) {
+							return false;
+						}
+					}
+					placementSolutionLocations.put(solution, placementLocation);
 				}
-
-				// Create the point that represents the final placement location
-				Point p = new Point(placementLocation.getX(),
-						placementLocation.getY());
-
-				// Rotate and translate the point into the same coordinate space
-				// as the board
-				p = Utils2D.rotateTranslateScalePoint(p, boardLocation
-						.getRotation(), boardLocation.getX(), boardLocation
-						.getY(), 1.0, 1.0);
-
-				// Update the placementLocation with the transformed point
-				placementLocation = placementLocation.derive(p.getX(), p.getY(), null, null);
-
-				// Update the placementLocation with the board's rotation and
-				// the placement's rotation
-				// This sets the rotation of the part itself when it will be
-				// placed
-				placementLocation = placementLocation.derive(
-				        null, 
-				        null, 
-				        null,
-				        (placementLocation.getRotation() + boardLocation.getRotation()) % 360.0);
-
-				// Update the placementLocation with the proper Z value. This is
-				// the distance to the top of the board plus the height of 
-				// the part.
-				double partHeight = part.getHeight().convertToUnits(placementLocation.getUnits()).getValue();
-				placementLocation = placementLocation.derive(null, null, boardLocation.getZ() + partHeight, null);
-
-				pick(nozzle, feeder, bl, placement);
-				placementSolutionLocations.put(solution, placementLocation);
 			}
 		    
             // TODO: a lot of the event fires are broken
-		    for (PlacementSolution solution : solutions) {
+		    for (PlacementSolution solution : placementSolutionLocations.keySet()) {
                 Nozzle nozzle = solution.nozzle;
                 BoardLocation bl = solution.boardLocation;
                 Placement placement = solution.placement;
                 Location placementLocation = placementSolutionLocations.get(solution);
-                place(nozzle, bl, placementLocation, placement);
+                long placeStart = System.nanoTime();
+                if (place(nozzle, bl, solution.cell, placementLocation, placement)) {
+                    placeLatency.recordSince(placeStart);
+                }
             }
+		    
+		    // Spread the time for the batch over the parts it placed, so the
+		    // cycle time is per part however many Nozzles the Head has.
+		    if (!placementSolutionLocations.isEmpty()) {
+		        long cycleTime = (System.nanoTime() - cycleStart) / placementSolutionLocations.size();
+		        for (int i = 0; i < placementSolutionLocations.size(); i++) {
+		            cycleLatency.record(cycleTime);
+		        }
+		    }
 		}
-		
-		fireDetailedStatusUpdated("Job complete.");
-		
-		state = JobState.Stopped;
-		fireJobStateChanged();
+		return true;
 	}
 	
-	private boolean pick(Nozzle nozzle, Feeder feeder, BoardLocation bl, Placement placement) {
-        fireDetailedStatusUpdated(String.format("Move nozzle %s to Safe-Z at (%s).", nozzle.getId(), nozzle.getLocation()));        
+	/**
+	 * Runs the Heads one after another on the Job thread, for a machine
+	 * where some Head has no zone and so nothing keeps the Heads apart.
+	 * Each Head parks when it runs out of work, before the next one starts.
+	 * Returns false if the Job was stopped or failed.
+	 */
+	private boolean processHeadsInTurn(Machine machine, JobPlanner jobPlanner, List<Head> heads) {
+		for (Head head : heads) {
+			if (!processHead(machine, jobPlanner, head)) {
+				return false;
+			}
+			fireDetailedStatusUpdated(Status.ParkHead, head.getId());
+			try {
+				head.park();
+			}
+			catch (Exception e) {
+				fireJobEncounteredError(JobError.MachineMovementError, e.getMessage());
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Runs each Head on its own thread, so that a machine with several Heads
+	 * places with all of them at once. The planner gives each Head the work
+	 * in its zone and the machine keeps the Heads apart in the shared
+	 * workspace. A Head that runs out of work parks so that it is out of
+	 * the others' way. If any Head fails the others stop at their next
+	 * step. Returns false if the Job was stopped or failed.
+	 */
+	private boolean processHeads(final Machine machine, final JobPlanner jobPlanner, List<Head> heads) {
+		List<Thread> workers = new ArrayList<Thread>();
+		for (final Head head : heads) {
+			Thread worker = new Thread(new Runnable() {
+				public void run() {
+					if (!processHead(machine, jobPlanner, head)) {
+						aborted = true;
+						return;
+					}
+					fireDetailedStatusUpdated(Status.ParkHead, head.getId());
+					try {
+						head.park();
+					}
+					catch (Exception e) {
+						aborted = true;
+						fireJobEncounteredError(JobError.MachineMovementError, e.getMessage());
+					}
+				}
+			}, "Job " + head.getId());
+			workers.add(worker);
+			worker.start();
+		}
+		for (Thread worker : workers) {
+			try {
+				worker.join();
+			}
+			catch (InterruptedException e) {
+				aborted = true;
+				Thread.currentThread().interrupt();
+			}
+		}
+		return !aborted && state != JobState.Stopped;
+	}
+	
+	/**
+	 * Picks the Placement's part, recovering from failed picks as the
+	 * delegate directs. Returns Failed if the Placement was skipped.
+	 */
+	private PickResult pickWithRecovery(Machine machine, Nozzle nozzle, Feeder feeder, boolean retract, BoardLocation bl, Placement placement) {
+		PickRecovery pickRecovery = machine.getPickRecovery();
+		Set<Feeder> failedFeeders = new HashSet<Feeder>();
+		boolean feed = true;
+		int attempts = 0;
+		int feederAttempts = 0;
+		while (true) {
+			PickResult result = pick(nozzle, feeder, feed, retract, bl, placement);
+			if (result == PickResult.Picked) {
+				pickRecovery.pickSucceeded(feeder);
+				return result;
+			}
+			if (result == PickResult.Aborted) {
+				return result;
+			}
+			attempts++;
+			feederAttempts++;
+			pickFailureCount.increment();
+			boolean disabled = pickRecovery.pickFailed(feeder);
+			if (disabled) {
+				fireDetailedStatusUpdated(Status.FeederDisabled, feeder.getId(), null, pickRecovery.getStatistics(feeder));
+			}
+			
+			PickRetryAction action = delegate.partPickFailed(bl, placement.getPart(), feeder);
+			Recovery recovery = pickRecovery.getRecovery(attempts, feederAttempts, disabled, action);
+			if (recovery == Recovery.Skip) {
+				skippedCount.increment();
+				fireDetailedStatusUpdated(Status.PlacementSkipped, placement.getId());
+				return PickResult.Failed;
+			}
+			
+			feed = (action == PickRetryAction.RetryWithFeed);
+			if (recovery == Recovery.Alternate) {
+				failedFeeders.add(feeder);
+				Feeder alternate = pickRecovery.getAlternateFeeder(machine, placement.getPart(), nozzle, failedFeeders);
+				if (alternate == null) {
+					skippedCount.increment();
+					fireDetailedStatusUpdated(Status.PlacementSkipped, placement.getId());
+					return PickResult.Failed;
+				}
+				fireDetailedStatusUpdated(Status.AlternateFeeder, alternate.getId());
+				feeder = alternate;
+				feederAttempts = 0;
+				// A new Feeder has nothing presented yet.
+				feed = true;
+			}
+		}
+	}
+	
+	/**
+	 * Picks a part from the Feeder, feeding first if feed is true, and
+	 * raises the Nozzle to safe Z afterwards if retract is true. Returns
+	 * Failed if the feed or pick failed and may be retried, and Aborted if
+	 * the Job was stopped or the machine could not move.
+	 */
+	private PickResult pick(Nozzle nozzle, Feeder feeder, boolean feed, boolean retract, BoardLocation bl, Placement placement) {
+        fireDetailedStatusUpdated(Status.MoveNozzleToSafeZ, nozzle);        
 
         if (!shouldJobProcessingContinue()) {
-            return false;
+            return PickResult.Aborted;
         }
 
         try {
@@ -310,23 +593,28 @@ public class JobProcessor implements Runnable {
         }
         catch (Exception e) {
             fireJobEncounteredError(JobError.MachineMovementError, e.getMessage());
-            return false;
-        }
-
-        // TODO: Need to be able to see the thing that caused an error, but we also want to see what is about to happen when paused. Figure it out.
-        fireDetailedStatusUpdated(String.format("Request part feed from feeder %s.", feeder.getId()));
-        
-        if (!shouldJobProcessingContinue()) {
-            return false;
+            return PickResult.Aborted;
         }
 
-        // Request that the Feeder feeds the part
-        try {
-            feeder.feed(nozzle);
-        }
-        catch (Exception e) {
-            fireJobEncounteredError(JobError.FeederError, e.getMessage());
-            return false;
+        if (feed) {
+            // TODO: Need to be able to see the thing that caused an error, but we also want to see what is about to happen when paused. Figure it out.
+            fireDetailedStatusUpdated(Status.RequestFeed, feeder.getId());
+            
+            if (!shouldJobProcessingContinue()) {
+                return PickResult.Aborted;
+            }
+    
+            // Request that the Feeder feeds the part
+            try {
+                long feedStart = System.nanoTime();
+                feeder.feed(nozzle);
+                feedLatency.recordSince(feedStart);
+                SessionTrace.feed(feeder.getId(), nozzle.getId(), feedStart);
+            }
+            catch (Exception e) {
+                fireDetailedStatusUpdated(Status.PickFailed, feeder.getId(), null, e.getMessage());
+                return PickResult.Failed;
+            }
         }
         
         // Now that the Feeder has done it's feed operation we can get
@@ -336,79 +624,54 @@ public class JobProcessor implements Runnable {
             pickLocation = feeder.getPickLocation();
         }
         catch (Exception e) {
-            fireJobEncounteredError(JobError.FeederError, e.getMessage());
-            return false;
+            fireDetailedStatusUpdated(Status.PickFailed, feeder.getId(), null, e.getMessage());
+            return PickResult.Failed;
         }
 
-        fireDetailedStatusUpdated(String.format("Move to safe Z at (%s).", nozzle.getLocation()));
-        
-        if (!shouldJobProcessingContinue()) {
-            return false;
-        }
-
-        try {
-            nozzle.moveToSafeZ(1.0);
-        }
-        catch (Exception e) {
-            fireJobEncounteredError(JobError.MachineMovementError, e.getMessage());
-            return false;
-        }
-
-        fireDetailedStatusUpdated(String.format("Move to pick location, safe Z at (%s).", pickLocation));
+        fireDetailedStatusUpdated(Status.MoveToPickLocationSafeZ, nozzle.getId(), pickLocation, null);
 
         if (!shouldJobProcessingContinue()) {
-            return false;
+            return PickResult.Aborted;
         }
         
-        // Move the Nozzle to the pick Location at safe Z
+        // Move the Nozzle up, over and down to the pick Location as one
+        // path, so the machine only stops where it picks.
         try {
-            nozzle.moveTo(pickLocation.derive(null, null, Double.NaN, null), 1.0);
+            nozzle.moveToViaSafeZ(pickLocation, 1.0);
         }
         catch (Exception e) {
             fireJobEncounteredError(JobError.MachineMovementError, e.getMessage());
-            return false;
+            return PickResult.Aborted;
         }
 
-        fireDetailedStatusUpdated(String.format("Move to pick location Z at (%s).", pickLocation));
+        fireDetailedStatusUpdated(Status.RequestPick, nozzle.getId(), pickLocation, null);
 
         if (!shouldJobProcessingContinue()) {
-            return false;
-        }
-
-        // Move the Nozzle to the pick Location 
-        try {
-            nozzle.moveTo(pickLocation, 1.0);
-        }
-        catch (Exception e) {
-            fireJobEncounteredError(JobError.MachineMovementError, e.getMessage());
-            return false;
-        }
-
-        fireDetailedStatusUpdated(String.format("Request part pick at (%s).", pickLocation));
-
-        if (!shouldJobProcessingContinue()) {
-            return false;
+            return PickResult.Aborted;
         }
         
-        // Pick the part
+        // Pick the part. A Nozzle that can sense a failed pick, for instance
+        // by vacuum level, reports it by throwing.
         try {
-            // TODO design a way for the head/feeder to indicate that the part
-            // failed to pick, use the delegate to notify and potentially retry
-            // We now have the delegate for this, just need to use it and 
-            // implement the logic for it's potential responses
             nozzle.pick();
         }
         catch (Exception e) {
-            fireJobEncounteredError(JobError.PickError, e.getMessage());
-            return false;
+            fireDetailedStatusUpdated(Status.PickFailed, feeder.getId(), null, e.getMessage());
+            return PickResult.Failed;
         }
         
         firePartPicked(bl, placement);
 
-        fireDetailedStatusUpdated(String.format("Move to safe Z at (%s).", nozzle.getLocation()));
+        // The place starts with a move up to safe Z, so if it comes next
+        // the Nozzle goes up as part of that path.
+        if (!retract) {
+            return PickResult.Picked;
+        }
+        
+        fireDetailedStatusUpdated(Status.MoveToSafeZ, nozzle);
 
         if (!shouldJobProcessingContinue()) {
-            return false;
+            return PickResult.Aborted;
         }
 
         try {
@@ -416,48 +679,55 @@ public class JobProcessor implements Runnable {
         }
         catch (Exception e) {
             fireJobEncounteredError(JobError.MachineMovementError, e.getMessage());
-            return false;
+            return PickResult.Aborted;
         }
         
-        return true;
+        return PickResult.Picked;
 	}
 	
-	private boolean place(Nozzle nozzle, BoardLocation bl, Location placementLocation, Placement placement) {
-        fireDetailedStatusUpdated(String.format("Move to placement location, safe Z at (%s).", placementLocation));
+	/**
+	 * Measures the part just picked by the Nozzle over the up-looking
+	 * Camera and returns the placement Location corrected for how it sits
+	 * on the Nozzle, or null if the Job was stopped or the part could not
+	 * be measured.
+	 */
+	private Location alignPart(BottomVision bottomVision, Nozzle nozzle, Camera camera, Location placementLocation, boolean placesNext) {
+        fireDetailedStatusUpdated(Status.AlignPart, nozzle.getId(), bottomVision.getLocation(), null);
 
         if (!shouldJobProcessingContinue()) {
-            return false;
+            return null;
         }
 
-        // Move the nozzle to the placement Location at safe Z
         try {
-            nozzle.moveTo(placementLocation.derive(null, null, Double.NaN, null), 1.0);
+            long alignStart = System.nanoTime();
+            Location corrected = bottomVision.align(nozzle, camera, placementLocation, placesNext);
+            alignLatency.recordSince(alignStart);
+            return corrected;
         }
         catch (Exception e) {
-            fireJobEncounteredError(JobError.MachineMovementError, e.getMessage());
-            return false;
+            fireJobEncounteredError(JobError.PartError, e.getMessage());
+            return null;
         }
-
-        fireDetailedStatusUpdated(String.format("Move to placement location Z at (%s).", placementLocation));
+	}
+	
+	private boolean place(Nozzle nozzle, BoardLocation bl, int cell, Location placementLocation, Placement placement) {
+        fireDetailedStatusUpdated(Status.MoveToPlacementLocationSafeZ, nozzle.getId(), placementLocation, null);
 
         if (!shouldJobProcessingContinue()) {
             return false;
         }
 
-        // Move the nozzle to the placement Location at safe Z
+        // Move the nozzle up, over and down to the placement Location as
+        // one path, so the machine only stops where it places.
         try {
-            nozzle.moveTo(placementLocation, 1.0);
+            nozzle.moveToViaSafeZ(placementLocation, 1.0);
         }
         catch (Exception e) {
             fireJobEncounteredError(JobError.MachineMovementError, e.getMessage());
             return false;
         }
 
-        fireDetailedStatusUpdated(String.format("Request part place. at (X %2.3f, Y %2.3f, Z %2.3f, C %2.3f).", 
-                placementLocation.getX(), 
-                placementLocation.getY(), 
-                placementLocation.getZ(), 
-                placementLocation.getRotation()));
+        fireDetailedStatusUpdated(Status.RequestPlace, nozzle.getId(), placementLocation, null);
 
         if (!shouldJobProcessingContinue()) {
             return false;
@@ -472,9 +742,21 @@ public class JobProcessor implements Runnable {
             return false;
         }
         
+        try {
+            JobJournal journal = this.journal;
+            if (journal != null) {
+                journal.placed(bl, cell, placement);
+            }
+        }
+        catch (Exception e) {
+            fireJobEncounteredError(JobError.JournalError, e.getMessage());
+            return false;
+        }
+        
+        placedCount.increment();
         firePartPlaced(bl, placement);
         
-        fireDetailedStatusUpdated(String.format("Move to safe Z at (%s).", nozzle.getLocation()));      
+        fireDetailedStatusUpdated(Status.MoveToSafeZ, nozzle);      
 
         if (!shouldJobProcessingContinue()) {
             return false;
@@ -494,6 +776,48 @@ public class JobProcessor implements Runnable {
         return true;
 	}
 	
+	/**
+	 * Registers every board in the Job that has Fiducials using the first
+	 * vision capable Camera on the Head. Boards without Fiducials keep the
+	 * location they were given during setup.
+	 * @param head
+	 * @return false if the Job should not continue.
+	 */
+	private boolean registerBoards(Head head) {
+		Camera camera = null;
+		for (Camera c : head.getCameras()) {
+			if (c.getVisionProvider() != null) {
+				camera = c;
+				break;
+			}
+		}
+		for (BoardLocation boardLocation : job.getBoardLocations()) {
+			if (boardLocation.getBoard().getFiducials().isEmpty()) {
+				continue;
+			}
+			if (camera == null) {
+				fireJobEncounteredError(JobError.FiducialError, "No vision capable camera found on head to locate the fiducials of board " + boardLocation.getBoard().getName());
+				return false;
+			}
+			
+			fireDetailedStatusUpdated(Status.LocateFiducials, boardLocation.getBoard().getName());
+			
+			if (!shouldJobProcessingContinue()) {
+				return false;
+			}
+			
+			try {
+				AffineFit fit = fiducialLocator.locateBoard(boardLocation, camera);
+				fireDetailedStatusUpdated(Status.BoardLocated, boardLocation.getBoard().getName(), null, fit);
+			}
+			catch (Exception e) {
+				fireJobEncounteredError(JobError.FiducialError, e.getMessage());
+				return false;
+			}
+		}
+		return true;
+	}
+	
 	/*
 	 * Pre-process the Job. We will:
 	 * 	Look for setup errors.
@@ -545,7 +869,7 @@ public class JobProcessor implements Runnable {
 			pause();
 		}
 		while (true) {
-			if (state == JobState.Stopped) {
+			if (state == JobState.Stopped || aborted) {
 				return false;
 			}
 			else if (state == JobState.Paused) {
@@ -565,67 +889,128 @@ public class JobProcessor implements Runnable {
 		return true;
 	}
 	
+	private void syncJournal() {
+		JobJournal journal = this.journal;
+		if (journal == null) {
+			return;
+		}
+		try {
+			journal.sync();
+		}
+		catch (Exception e) {
+			logger.warn("Unable to sync job journal", e);
+		}
+	}
+	
+	private void closeJournal() {
+		if (journal != null) {
+			journal.close();
+			journal = null;
+		}
+	}
+	
 	private void fireJobEncounteredError(JobError error, String description) {
 		logger.debug("fireJobEncounteredError({}, {})", error, description);
-		for (JobProcessorListener listener : listeners) {
-			listener.jobEncounteredError(error, description);
+		syncJournal();
+		long sequence = events.claim(Type.JobEncounteredError);
+		if (sequence == -1) {
+			return;
 		}
+		JobProcessorEvent event = events.getEvent(sequence);
+		event.error = error;
+		event.description = description;
+		events.publish(sequence);
 	}
 	
 	private void fireJobLoaded() {
 		logger.debug("fireJobLoaded()");
-		for (JobProcessorListener listener : listeners) {
-			listener.jobLoaded(job);
+		long sequence = events.claim(Type.JobLoaded);
+		if (sequence == -1) {
+			return;
 		}
+		events.getEvent(sequence).job = job;
+		events.publish(sequence);
 	}
 	
 	private void fireJobStateChanged() {
 		logger.debug("fireJobStateChanged({})", state);
-		for (JobProcessorListener listener : listeners) {
-			listener.jobStateChanged(state);
+		long sequence = events.claim(Type.JobStateChanged);
+		if (sequence == -1) {
+			return;
 		}
+		events.getEvent(sequence).state = state;
+		events.publish(sequence);
 	}
 	
 	private void firePartProcessingStarted(BoardLocation board, Placement placement) {
 		logger.debug("firePartProcessingStarted({}, {})", board, placement);
-		for (JobProcessorListener listener : listeners) {
-			listener.partProcessingStarted(board, placement);
-		}
+		firePartEvent(Type.PartProcessingStarted, board, placement);
 	}
 	
 	private void firePartPicked(BoardLocation board, Placement placement) {
 		logger.debug("firePartPicked({}, {})", board, placement);
-		for (JobProcessorListener listener : listeners) {
-			listener.partPicked(board, placement);
-		}
+		firePartEvent(Type.PartPicked, board, placement);
 	}
 	
 	private void firePartPlaced(BoardLocation board, Placement placement) {
 		logger.debug("firePartPlaced({}, {})", board, placement);
-		for (JobProcessorListener listener : listeners) {
-			listener.partPlaced(board, placement);
-		}
+		firePartEvent(Type.PartPlaced, board, placement);
 	}
 	
 	private void firePartProcessingComplete(BoardLocation board, Placement placement) {
 		logger.debug("firePartProcessingComplete({}, {})", board, placement);
-		for (JobProcessorListener listener : listeners) {
-			listener.partProcessingCompleted(board, placement);
+		firePartEvent(Type.PartProcessingCompleted, board, placement);
+	}
+	
+	private void firePartEvent(Type type, BoardLocation board, Placement placement) {
+		long sequence = events.claim(type);
+		if (sequence == -1) {
+			return;
+		}
+		JobProcessorEvent event = events.getEvent(sequence);
+		event.boardLocation = board;
+		event.placement = placement;
+		events.publish(sequence);
+	}
+	
+	private void fireDetailedStatusUpdated(Status status) {
+		fireDetailedStatusUpdated(status, null, null, null);
+	}
+	
+	private void fireDetailedStatusUpdated(Status status, String subject) {
+		fireDetailedStatusUpdated(status, subject, null, null);
+	}
+	
+	/**
+	 * Fires a detailed status with the current Location of the Nozzle. The
+	 * Location is only read from the driver if someone is listening.
+	 */
+	private void fireDetailedStatusUpdated(Status status, Nozzle nozzle) {
+		if (!events.hasListeners()) {
+			return;
 		}
+		fireDetailedStatusUpdated(status, nozzle.getId(), nozzle.getLocation(), null);
 	}
 	
-	private void fireDetailedStatusUpdated(String status) {
-		logger.debug("fireDetailedStatusUpdated({})", status);
-		for (JobProcessorListener listener : listeners) {
-			listener.detailedStatusUpdated(status);
+	private void fireDetailedStatusUpdated(Status status, String subject, Location location, Object detail) {
+		logger.debug("fireDetailedStatusUpdated({}, {})", status, subject);
+		long sequence = events.claim(Type.DetailedStatusUpdated);
+		if (sequence == -1) {
+			return;
 		}
+		JobProcessorEvent event = events.getEvent(sequence);
+		event.status = status;
+		event.subject = subject;
+		event.detail = detail;
+		event.setLocation(location);
+		events.publish(sequence);
 	}
 	
 	class DefaultJobProcessorDelegate implements JobProcessorDelegate {
 		@Override
 		public PickRetryAction partPickFailed(BoardLocation board, Part part,
 				Feeder feeder) {
-			return PickRetryAction.SkipAndContinue;
+			return PickRetryAction.RetryWithFeed;
 		}
 	}
 }
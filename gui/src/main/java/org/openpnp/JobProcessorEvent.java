@@ -0,0 +1,212 @@
+package org.openpnp;
+
+import org.openpnp.JobProcessor.JobError;
+import org.openpnp.JobProcessor.JobState;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Job;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Placement;
+
+/**
+ * A single event from the JobProcessor. Events are structured: a Type, and
+ * for detailed status updates a Status, plus the objects and primitive
+ * coordinates they refer to. The human readable message is only formatted
+ * if someone asks for it, and on the listener thread rather than the job
+ * thread.
+ * 
+ * Event objects are owned by the JobProcessor's event queue and reused, so
+ * a Listener must copy anything it needs to keep before returning.
+ */
+public class JobProcessorEvent {
+    public enum Type {
+        JobLoaded,
+        JobStateChanged,
+        JobEncounteredError,
+        PartProcessingStarted,
+        PartPicked,
+        PartPlaced,
+        PartProcessingCompleted,
+        DetailedStatusUpdated
+    }
+
+    /**
+     * The detailed status messages. The format is given the subject, the
+     * Location as a String, the detail, and then the X, Y, Z and rotation of
+     * the Location as numbers.
+     */
+    public enum Status {
+        MoveHeadToSafeZ("Move head %1$s to Safe-Z."),
+        LocateFiducials("Locate fiducials of board %1$s."),
+        BoardLocated("Board %1$s located, %3$s."),
+        MoveNozzleToSafeZ("Move nozzle %1$s to Safe-Z at (%2$s)."),
+        RequestFeed("Request part feed from feeder %1$s."),
+        MoveToSafeZ("Move to safe Z at (%2$s)."),
+        MoveToPickLocationSafeZ("Move to pick location, safe Z at (%2$s)."),
+        MoveToPickLocation("Move to pick location Z at (%2$s)."),
+        RequestPick("Request part pick at (%2$s)."),
+        AlignPart("Align part on nozzle %1$s over the up camera at (%2$s)."),
+        MoveToPlacementLocationSafeZ("Move to placement location, safe Z at (%2$s)."),
+        MoveToPlacementLocation("Move to placement location Z at (%2$s)."),
+        RequestPlace("Request part place. at (X %4$2.3f, Y %5$2.3f, Z %6$2.3f, C %7$2.3f)."),
+        PickFailed("Pick from feeder %1$s failed: %3$s"),
+        FeederDisabled("Feeder %1$s disabled after %3$s."),
+        AlternateFeeder("Retry pick from alternate feeder %1$s."),
+        PlacementSkipped("Skipped placement %1$s, the part could not be picked."),
+        ParkHead("Head %1$s has no more work, parking."),
+        JobComplete("Job complete.");
+
+        private final String format;
+
+        private Status(String format) {
+            this.format = format;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+    }
+
+    public interface Listener {
+        /**
+         * Called on the JobProcessor's event thread for every event, in the
+         * order the events were fired.
+         * @param event
+         */
+        public void jobProcessorEvent(JobProcessorEvent event);
+    }
+
+    Type type;
+    Job job;
+    JobState state;
+    JobError error;
+    String description;
+    BoardLocation boardLocation;
+    Placement placement;
+    Status status;
+    String subject;
+    Object detail;
+    boolean hasLocation;
+    LengthUnit units;
+    double x;
+    double y;
+    double z;
+    double rotation;
+
+    void reset() {
+        type = null;
+        job = null;
+        state = null;
+        error = null;
+        description = null;
+        boardLocation = null;
+        placement = null;
+        status = null;
+        subject = null;
+        detail = null;
+        hasLocation = false;
+        units = null;
+        x = y = z = rotation = 0;
+    }
+
+    void setLocation(Location location) {
+        if (location == null) {
+            return;
+        }
+        hasLocation = true;
+        units = location.getUnits();
+        x = location.getX();
+        y = location.getY();
+        z = location.getZ();
+        rotation = location.getRotation();
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Job getJob() {
+        return job;
+    }
+
+    public JobState getState() {
+        return state;
+    }
+
+    public JobError getError() {
+        return error;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BoardLocation getBoardLocation() {
+        return boardLocation;
+    }
+
+    public Placement getPlacement() {
+        return placement;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * The id or name of the thing a detailed status is about, such as a
+     * Nozzle, Feeder or Board.
+     * @return
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    public Object getDetail() {
+        return detail;
+    }
+
+    public boolean hasLocation() {
+        return hasLocation;
+    }
+
+    public LengthUnit getUnits() {
+        return units;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public double getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Formats the human readable message for a detailed status update.
+     * @return
+     */
+    public String getMessage() {
+        if (status == null) {
+            return description;
+        }
+        String location = hasLocation ? String.format(
+                "units %s, x %f, y %f, z %f, rotation %f", units, x, y, z,
+                rotation) : null;
+        return String.format(status.getFormat(), subject, location, detail,
+                x, y, z, rotation);
+    }
+
+    @Override
+    public String toString() {
+        return type + (status == null ? "" : " " + status);
+    }
+}
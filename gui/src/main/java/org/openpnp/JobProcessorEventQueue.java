@@ -0,0 +1,249 @@
+package org.openpnp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openpnp.JobProcessorEvent.Type;
+import org.openpnp.util.BoundedRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Carries JobProcessorEvents from the threads that fire them to listeners on
+ * a single event thread, so that the job thread never waits on a listener.
+ * 
+ * The queue is a BoundedRing of preallocated events, so firing an event
+ * takes no lock and allocates nothing. If the ring is full, detailed status
+ * updates are dropped and counted, while all other events wait for the
+ * event thread to free a slot. A listener that fires an event, for
+ * instance by pausing the JobProcessor, runs on the event thread, which
+ * cannot wait for itself; if the ring is full its event is delivered
+ * inline, before the listener's call returns, rather than queued.
+ */
+class JobProcessorEventQueue {
+    private final static Logger logger = LoggerFactory
+            .getLogger(JobProcessorEventQueue.class);
+
+    static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * claim() returns INLINE minus the depth for an event that will be
+     * delivered inline.
+     */
+    private static final long INLINE = -2;
+
+    private final Set<JobProcessorListener> listeners = new CopyOnWriteArraySet<JobProcessorListener>();
+    private final Set<JobProcessorEvent.Listener> eventListeners = new CopyOnWriteArraySet<JobProcessorEvent.Listener>();
+
+    private final BoundedRing<JobProcessorEvent> ring;
+
+    /**
+     * The events being delivered inline, by how deeply they are nested.
+     * Only used on the event thread.
+     */
+    private final List<JobProcessorEvent> inlineEvents = new ArrayList<JobProcessorEvent>();
+    private int inlineDepth;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    JobProcessorEventQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Must be a power of two.
+     */
+    JobProcessorEventQueue(int capacity) {
+        JobProcessorEvent[] events = new JobProcessorEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new JobProcessorEvent();
+        }
+        ring = new BoundedRing<JobProcessorEvent>(events);
+    }
+
+    void addListener(JobProcessorListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(JobProcessorListener listener) {
+        listeners.remove(listener);
+    }
+
+    void addEventListener(JobProcessorEvent.Listener listener) {
+        eventListeners.add(listener);
+    }
+
+    void removeEventListener(JobProcessorEvent.Listener listener) {
+        eventListeners.remove(listener);
+    }
+
+    /**
+     * True if anyone is listening. Callers should skip gathering the data
+     * for an event, and especially calls to the driver, when this is false.
+     * @return
+     */
+    boolean hasListeners() {
+        return !listeners.isEmpty() || !eventListeners.isEmpty();
+    }
+
+    /**
+     * The number of detailed status updates dropped because the queue was
+     * full.
+     * @return
+     */
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Claims a slot for an event of the given Type and returns its sequence
+     * number, or -1 if the event should not be fired because there are no
+     * listeners or it was dropped. The caller fills in getEvent(sequence)
+     * and then must call publish(sequence).
+     * @param type
+     * @return
+     */
+    long claim(Type type) {
+        if (!hasListeners()) {
+            return -1;
+        }
+        long sequence = ring.tryClaim();
+        if (sequence < 0) {
+            if (type == Type.DetailedStatusUpdated) {
+                droppedCount.incrementAndGet();
+                return -1;
+            }
+            sequence = ring.claim();
+        }
+        JobProcessorEvent event;
+        if (sequence < 0) {
+            // The ring is full and we are on the event thread.
+            if (inlineDepth == inlineEvents.size()) {
+                inlineEvents.add(new JobProcessorEvent());
+            }
+            event = inlineEvents.get(inlineDepth);
+            sequence = INLINE - inlineDepth;
+            inlineDepth++;
+        }
+        else {
+            event = ring.get(sequence);
+        }
+        event.reset();
+        event.type = type;
+        return sequence;
+    }
+
+    JobProcessorEvent getEvent(long sequence) {
+        if (sequence <= INLINE) {
+            return inlineEvents.get((int) (INLINE - sequence));
+        }
+        return ring.get(sequence);
+    }
+
+    void publish(long sequence) {
+        if (sequence <= INLINE) {
+            JobProcessorEvent event = getEvent(sequence);
+            try {
+                deliver(event);
+            }
+            finally {
+                event.reset();
+                inlineDepth--;
+            }
+            return;
+        }
+        ring.publish(sequence);
+        if (ring.getConsumer() == null) {
+            startEventThread();
+        }
+    }
+
+    private synchronized void startEventThread() {
+        if (ring.getConsumer() != null) {
+            return;
+        }
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                drain();
+            }
+        }, "JobProcessor events");
+        thread.setDaemon(true);
+        ring.setConsumer(thread);
+        thread.start();
+    }
+
+    private void drain() {
+        while (true) {
+            JobProcessorEvent event = ring.peek();
+            if (event == null) {
+                ring.await(TimeUnit.MILLISECONDS.toNanos(100));
+                continue;
+            }
+            deliver(event);
+            event.reset();
+            ring.release();
+        }
+    }
+
+    private void deliver(JobProcessorEvent event) {
+        for (JobProcessorEvent.Listener listener : eventListeners) {
+            try {
+                listener.jobProcessorEvent(event);
+            }
+            catch (Throwable t) {
+                logger.error("JobProcessorEvent listener " + listener
+                        + " failed", t);
+            }
+        }
+        if (listeners.isEmpty()) {
+            return;
+        }
+        String message = event.type == Type.DetailedStatusUpdated ? event
+                .getMessage() : null;
+        for (JobProcessorListener listener : listeners) {
+            try {
+                deliver(listener, event, message);
+            }
+            catch (Throwable t) {
+                logger.error("JobProcessorListener " + listener + " failed",
+                        t);
+            }
+        }
+    }
+
+    private static void deliver(JobProcessorListener listener,
+            JobProcessorEvent event, String message) {
+        switch (event.type) {
+        case JobLoaded:
+            listener.jobLoaded(event.job);
+            break;
+        case JobStateChanged:
+            listener.jobStateChanged(event.state);
+            break;
+        case JobEncounteredError:
+            listener.jobEncounteredError(event.error, event.description);
+            break;
+        case PartProcessingStarted:
+            listener.partProcessingStarted(event.boardLocation,
+                    event.placement);
+            break;
+        case PartPicked:
+            listener.partPicked(event.boardLocation, event.placement);
+            break;
+        case PartPlaced:
+            listener.partPlaced(event.boardLocation, event.placement);
+            break;
+        case PartProcessingCompleted:
+            listener.partProcessingCompleted(event.boardLocation,
+                    event.placement);
+            break;
+        case DetailedStatusUpdated:
+            listener.detailedStatusUpdated(message);
+            break;
+        }
+    }
+}
@@ -23,12 +23,20 @@ package org.openpnp;
 
 import java.awt.EventQueue;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
 
 import javax.swing.UIManager;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Appender;
+import org.apache.log4j.AsyncAppender;
+import org.apache.log4j.LogManager;
 import org.openpnp.gui.MainFrame;
+import org.openpnp.metrics.Metrics;
 import org.openpnp.model.Configuration;
+import org.openpnp.trace.SessionTrace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +46,8 @@ import org.slf4j.LoggerFactory;
  *
  */
 public class Main {
+	private static final int ASYNC_LOG_BUFFER_SIZE = 8192;
+	
 	private static Logger logger;
 	
 	public static String getVersion() {
@@ -48,19 +58,21 @@ public class Main {
 		return version;
 	}
 	
-	public static void main(String[] args) {
-		// http://developer.apple.com/library/mac/#documentation/Java/Conceptual/Java14Development/07-NativePlatformIntegration/NativePlatformIntegration.html#//apple_ref/doc/uid/TP40001909-212952-TPXREF134
-		System.setProperty("apple.laf.useScreenMenuBar", "true");
-		try {
-			UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-		}
-		catch (Exception e) {
-			throw new Error(e);
-		}
-		
-		File configurationDirectory = new File(System.getProperty("user.home"));
-		configurationDirectory = new File(configurationDirectory, ".openpnp");
-		
+	/**
+	 * Returns the .openpnp directory in the user's home directory.
+	 * @return
+	 */
+	public static File getDefaultConfigurationDirectory() {
+		return new File(new File(System.getProperty("user.home")), ".openpnp");
+	}
+	
+	/**
+	 * Points log4j at the log4j.properties in the configuration directory,
+	 * copying the default there first if there is none. Must be called
+	 * before any Logger is created.
+	 * @param configurationDirectory
+	 */
+	public static void configureLogging(File configurationDirectory) {
 		// If the log4j.properties is not in the configuration directory, copy
 		// the default over.
 		File log4jConfigurationFile = new File(configurationDirectory, "log4j.properties");
@@ -78,6 +90,54 @@ public class Main {
 			System.setProperty("log4j.configuration", log4jConfigurationFile.toURI().toString());
 		}
 		
+		logAsynchronously();
+	}
+	
+	/**
+	 * Moves the root logger's appenders behind an AsyncAppender so that
+	 * logging from the machine and job threads costs an enqueue rather than
+	 * a formatted write to the console and the log file. When the buffer is
+	 * full events are discarded and summarized instead of blocking the
+	 * caller. log4j.properties can't configure an AsyncAppender, so it's
+	 * done here once log4j has read its configuration.
+	 */
+	private static void logAsynchronously() {
+		org.apache.log4j.Logger root = LogManager.getRootLogger();
+		List<Appender> appenders = new ArrayList<Appender>();
+		for (Enumeration<?> e = root.getAllAppenders(); e.hasMoreElements(); ) {
+			appenders.add((Appender) e.nextElement());
+		}
+		if (appenders.isEmpty()) {
+			return;
+		}
+		AsyncAppender asyncAppender = new AsyncAppender();
+		asyncAppender.setName("async");
+		asyncAppender.setBufferSize(ASYNC_LOG_BUFFER_SIZE);
+		asyncAppender.setBlocking(false);
+		// Layouts must not use %C, %F, %L, %l or %M; the caller is not known
+		// on the logging thread.
+		asyncAppender.setLocationInfo(false);
+		for (Appender appender : appenders) {
+			root.removeAppender(appender);
+			asyncAppender.addAppender(appender);
+		}
+		root.addAppender(asyncAppender);
+	}
+	
+	public static void main(String[] args) {
+		// http://developer.apple.com/library/mac/#documentation/Java/Conceptual/Java14Development/07-NativePlatformIntegration/NativePlatformIntegration.html#//apple_ref/doc/uid/TP40001909-212952-TPXREF134
+		System.setProperty("apple.laf.useScreenMenuBar", "true");
+		try {
+			UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+		}
+		catch (Exception e) {
+			throw new Error(e);
+		}
+		
+		File configurationDirectory = getDefaultConfigurationDirectory();
+		
+		configureLogging(configurationDirectory);
+		
 		// We don't create a logger until log4j has been configured or it tries
 		// to configure itself.
 		logger = LoggerFactory.getLogger(Main.class);
@@ -85,7 +145,17 @@ public class Main {
 		logger.debug(String.format("OpenPnP %s Started.", Main.getVersion()));
 		
 		Configuration.initialize(configurationDirectory);
+		Metrics.startReporting(configurationDirectory, 10);
+		if (SessionTrace.isRequested()) {
+			try {
+				SessionTrace.start(configurationDirectory);
+			}
+			catch (Exception e) {
+				logger.warn("Unable to start session trace", e);
+			}
+		}
 		final Configuration configuration = Configuration.get();
+		configuration.setSerializeOnEventDispatchThread(true);
 		final JobProcessor jobProcessor = new JobProcessor(configuration);
 		EventQueue.invokeLater(new Runnable() {
 			public void run() {
@@ -0,0 +1,222 @@
+package org.openpnp;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.openpnp.JobProcessor.PickRetryAction;
+import org.openpnp.model.Part;
+import org.openpnp.spi.Feeder;
+import org.openpnp.spi.Machine;
+import org.openpnp.spi.Nozzle;
+import org.openpnp.util.HeadZones;
+import org.simpleframework.xml.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the pick statistics for each Feeder and decides how the
+ * JobProcessor recovers from a failed pick. The JobProcessorDelegate picks
+ * the PickRetryAction; this class bounds how often that action is repeated,
+ * chooses an alternate Feeder for the same Part when a Feeder keeps failing,
+ * and disables a Feeder whose failure rate crosses maxFailureRate once it has
+ * made at least minimumPicks attempts. A maxFailureRate of 1 never disables
+ * a Feeder.
+ *
+ * The limits are configured in the pick-recovery element of the machine.
+ *
+ * Picks may be recorded by several Head threads at once. The map of
+ * Statistics is guarded by this object and the counts of each Statistics
+ * by the Statistics itself.
+ */
+public class PickRecovery {
+    private final static Logger logger = LoggerFactory
+            .getLogger(PickRecovery.class);
+
+    /**
+     * How to go on after a failed pick of a Placement.
+     */
+    public enum Recovery {
+        /**
+         * Pick again from the same Feeder.
+         */
+        Retry,
+        /**
+         * Give up on the Feeder and pick from an alternate one.
+         */
+        Alternate,
+        /**
+         * Give up on the Placement.
+         */
+        Skip
+    }
+
+    @Attribute(required = false)
+    private int maxAttemptsPerFeeder = 3;
+
+    @Attribute(required = false)
+    private int maxAttempts = 6;
+
+    @Attribute(required = false)
+    private int minimumPicks = 5;
+
+    @Attribute(required = false)
+    private double maxFailureRate = 0.5;
+
+    private final Map<Feeder, Statistics> statistics = new IdentityHashMap<Feeder, Statistics>();
+
+    public void pickSucceeded(Feeder feeder) {
+        getStatistics(feeder).recordPick(false);
+    }
+
+    /**
+     * Records a failed pick. If the Feeder's failure rate is now over the
+     * limit it is disabled and true is returned.
+     * @param feeder
+     * @return
+     */
+    public boolean pickFailed(Feeder feeder) {
+        Statistics stats = getStatistics(feeder);
+        boolean overLimit;
+        synchronized (stats) {
+            stats.recordPick(true);
+            overLimit = stats.picks >= minimumPicks
+                    && stats.getFailureRate() > maxFailureRate;
+        }
+        if (overLimit && feeder.isEnabled()) {
+            logger.warn("Disabling feeder {} after {}", feeder.getId(), stats);
+            feeder.setEnabled(false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Decides how to go on after a failed pick of a Placement.
+     * @param attempts The picks tried for the Placement so far, across all
+     * Feeders, including the one that failed.
+     * @param feederAttempts The picks tried from the current Feeder.
+     * @param feederDisabled True if the failure disabled the Feeder.
+     * @param action What the JobProcessorDelegate asked for.
+     * @return
+     */
+    public Recovery getRecovery(int attempts, int feederAttempts,
+            boolean feederDisabled, PickRetryAction action) {
+        if (action == PickRetryAction.SkipAndContinue
+                || attempts >= maxAttempts) {
+            return Recovery.Skip;
+        }
+        if (feederDisabled || feederAttempts >= maxAttemptsPerFeeder) {
+            return Recovery.Alternate;
+        }
+        return Recovery.Retry;
+    }
+
+    /**
+     * Returns an enabled Feeder other than the excluded ones that can feed
+     * the Part to the Nozzle, or null if there is none.
+     * @param machine
+     * @param part
+     * @param nozzle
+     * @param excluded
+     * @return
+     */
+    public Feeder getAlternateFeeder(Machine machine, Part part,
+            Nozzle nozzle, Collection<Feeder> excluded) {
+        for (Feeder feeder : machine.getFeeders(part)) {
+            if (excluded.contains(feeder) || !feeder.isEnabled()) {
+                continue;
+            }
+            if (feeder.getRemainingCount() != 0
+                    && feeder.canFeedToNozzle(nozzle)
+                    && HeadZones.canUse(machine, nozzle.getHead(), feeder)) {
+                return feeder;
+            }
+        }
+        return null;
+    }
+
+    public synchronized Statistics getStatistics(Feeder feeder) {
+        Statistics stats = statistics.get(feeder);
+        if (stats == null) {
+            stats = new Statistics();
+            statistics.put(feeder, stats);
+        }
+        return stats;
+    }
+
+    public synchronized void clearStatistics() {
+        statistics.clear();
+    }
+
+    /**
+     * The number of times a single Feeder is tried for one Placement before
+     * an alternate Feeder is used.
+     * @return
+     */
+    public int getMaxAttemptsPerFeeder() {
+        return maxAttemptsPerFeeder;
+    }
+
+    public void setMaxAttemptsPerFeeder(int maxAttemptsPerFeeder) {
+        this.maxAttemptsPerFeeder = maxAttemptsPerFeeder;
+    }
+
+    /**
+     * The number of picks tried for one Placement, across all Feeders,
+     * before it is skipped.
+     * @return
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public int getMinimumPicks() {
+        return minimumPicks;
+    }
+
+    public void setMinimumPicks(int minimumPicks) {
+        this.minimumPicks = minimumPicks;
+    }
+
+    public double getMaxFailureRate() {
+        return maxFailureRate;
+    }
+
+    public void setMaxFailureRate(double maxFailureRate) {
+        this.maxFailureRate = maxFailureRate;
+    }
+
+    public static class Statistics {
+        private int picks;
+        private int failures;
+
+        synchronized void recordPick(boolean failed) {
+            picks++;
+            if (failed) {
+                failures++;
+            }
+        }
+
+        public synchronized int getPicks() {
+            return picks;
+        }
+
+        public synchronized int getFailures() {
+            return failures;
+        }
+
+        public synchronized double getFailureRate() {
+            return picks == 0 ? 0 : (double) failures / picks;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%d failures in %d picks", failures, picks);
+        }
+    }
+}
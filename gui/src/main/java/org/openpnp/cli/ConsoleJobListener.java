@@ -0,0 +1,44 @@
+package org.openpnp.cli;
+
+import java.io.PrintStream;
+
+import org.openpnp.JobProcessorEvent;
+
+/**
+ * Prints JobProcessorEvents as plain text. Errors go to the error stream.
+ * When quiet, only state changes and errors are printed.
+ */
+public class ConsoleJobListener implements JobProcessorEvent.Listener {
+    private final PrintStream out;
+    private final PrintStream err;
+    private final boolean quiet;
+
+    public ConsoleJobListener(PrintStream out, PrintStream err, boolean quiet) {
+        this.out = out;
+        this.err = err;
+        this.quiet = quiet;
+    }
+
+    public void jobProcessorEvent(JobProcessorEvent event) {
+        switch (event.getType()) {
+        case JobStateChanged:
+            out.println("Job " + event.getState());
+            break;
+        case JobEncounteredError:
+            err.println(event.getError() + ": " + event.getDescription());
+            break;
+        case PartPlaced:
+            if (!quiet) {
+                out.println("Placed " + event.getPlacement().getId());
+            }
+            break;
+        case DetailedStatusUpdated:
+            if (!quiet) {
+                out.println(event.getMessage());
+            }
+            break;
+        default:
+            break;
+        }
+    }
+}
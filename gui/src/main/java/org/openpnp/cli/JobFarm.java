@@ -0,0 +1,538 @@
+package org.openpnp.cli;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.openpnp.JobJournal;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Job;
+import org.openpnp.model.Placement;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Runs a queue of Jobs across several machines as if they were one line.
+ * Each machine is a configuration directory and is run by its own
+ * JobRunner process, because Configuration holds a single Machine per
+ * process. Every machine reads its parts and packages from one shared
+ * catalog directory.
+ *
+ * Jobs are handed out one at a time to whichever machine is free. With -s
+ * each board of a Job becomes a Job of its own, so one large Job is spread
+ * over every machine. A Job that fails is resumed from its journal once on
+ * another machine, and a machine that fails twice in a row is taken out of
+ * the line.
+ *
+ * With -i the Parts each Job needs are reserved from a central inventory,
+ * see PartInventory, before the Job is dispatched, and taken out of it as
+ * the machine places them. Jobs that the inventory can't cover wait until
+ * it can, or fail if nothing else is running.
+ *
+ * Usage: JobFarm -m configurationDirectory [-m configurationDirectory]...
+ *     [-p catalogDirectory] [-s] [-i inventory.properties] [-w workDirectory]
+ *     job...
+ *
+ * -m  Add a machine. Give once for each machine.
+ * -p  The shared parts and packages, by default the first machine's
+ *     configuration directory.
+ * -s  Split each Job into one Job per board.
+ * -i  Track Parts in the given properties file.
+ * -w  Where to write split Jobs, by default the directory of each Job.
+ *
+ * Exits with the JobRunner exit codes.
+ */
+public class JobFarm {
+    /**
+     * A machine that fails this many Jobs in a row gets no more.
+     */
+    private static final int MAX_CONSECUTIVE_FAILURES = 2;
+
+    /**
+     * How many times a Job is run before it is reported failed.
+     */
+    private static final int MAX_ATTEMPTS = 2;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        System.exit(run(args));
+    }
+
+    public static int run(String[] args) {
+        List<File> machineDirectories = new ArrayList<File>();
+        File catalogDirectory = null;
+        File inventoryFile = null;
+        File workDirectory = null;
+        boolean split = false;
+        List<File> jobFiles = new ArrayList<File>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-m") && i + 1 < args.length) {
+                machineDirectories.add(new File(args[++i]));
+            }
+            else if (arg.equals("-p") && i + 1 < args.length) {
+                catalogDirectory = new File(args[++i]);
+            }
+            else if (arg.equals("-i") && i + 1 < args.length) {
+                inventoryFile = new File(args[++i]);
+            }
+            else if (arg.equals("-w") && i + 1 < args.length) {
+                workDirectory = new File(args[++i]);
+            }
+            else if (arg.equals("-s")) {
+                split = true;
+            }
+            else if (arg.startsWith("-")) {
+                return usage("Unknown option " + arg);
+            }
+            else {
+                jobFiles.add(new File(arg));
+            }
+        }
+        if (machineDirectories.isEmpty()) {
+            return usage("No machines given.");
+        }
+        if (jobFiles.isEmpty()) {
+            return usage("No jobs given.");
+        }
+        if (catalogDirectory == null) {
+            catalogDirectory = machineDirectories.get(0);
+        }
+
+        // Jobs are only read here, to split them and to count their Parts,
+        // so only the catalog is loaded and no Machine is started.
+        Configuration.initialize(catalogDirectory);
+        Configuration configuration = Configuration.get();
+        List<Unit> units = new ArrayList<Unit>();
+        try {
+            configuration.loadCatalog();
+            for (File file : jobFiles) {
+                addUnits(configuration, file, split, workDirectory, units);
+            }
+        }
+        catch (Exception e) {
+            System.err.println(e.getMessage());
+            return JobRunner.EXIT_USAGE;
+        }
+
+        PartInventory inventory = null;
+        if (inventoryFile != null) {
+            try {
+                inventory = new PartInventory(inventoryFile);
+            }
+            catch (IOException e) {
+                System.err.println("Unable to read inventory: "
+                        + e.getMessage());
+                return JobRunner.EXIT_USAGE;
+            }
+        }
+
+        Dispatcher dispatcher = new Dispatcher(units, inventory,
+                machineDirectories.size());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (File directory : machineDirectories) {
+            Thread thread = new Thread(new Worker(dispatcher, directory,
+                    catalogDirectory), "Farm " + directory.getName());
+            threads.add(thread);
+            thread.start();
+        }
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        catch (InterruptedException e) {
+            return JobRunner.EXIT_JOB_FAILED;
+        }
+        return dispatcher.report();
+    }
+
+    /**
+     * Adds the Job in the file to the queue, or one Job for each of its
+     * boards if splitting.
+     */
+    private static void addUnits(Configuration configuration, File file,
+            boolean split, File workDirectory, List<Unit> units)
+            throws Exception {
+        Job job;
+        try {
+            job = configuration.loadJob(file);
+        }
+        catch (Exception e) {
+            throw new Exception("Unable to load " + file + ": "
+                    + e.getMessage(), e);
+        }
+        List<BoardLocation> boardLocations = job.getBoardLocations();
+        if (!split || boardLocations.size() < 2) {
+            units.add(new Unit(file, getRequiredParts(boardLocations)));
+            return;
+        }
+        File directory = workDirectory == null ? file.getAbsoluteFile()
+                .getParentFile() : workDirectory;
+        directory.mkdirs();
+        String name = file.getName();
+        int dot = name.indexOf('.');
+        String base = dot < 0 ? name : name.substring(0, dot);
+        String extension = dot < 0 ? "" : name.substring(dot);
+        for (int i = 0; i < boardLocations.size(); i++) {
+            Job boardJob = new Job();
+            boardJob.addBoardLocation(boardLocations.get(i));
+            File boardFile = new File(directory, base + "-" + (i + 1)
+                    + extension);
+            configuration.saveJob(boardJob, boardFile);
+            units.add(new Unit(boardFile, getRequiredParts(boardJob
+                    .getBoardLocations())));
+        }
+    }
+
+    /**
+     * Counts the Parts the boards need, by Part id, the same way
+     * JobProcessor chooses which Placements to place.
+     */
+    private static Map<String, Integer> getRequiredParts(
+            List<BoardLocation> boardLocations) {
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (BoardLocation boardLocation : boardLocations) {
+            int cells = boardLocation.getActiveCellCount();
+            for (Placement placement : boardLocation.getBoard()
+                    .getPlacements()) {
+                if (placement.getSide() != boardLocation.getSide()
+                        || placement.getPart() == null) {
+                    continue;
+                }
+                add(counts, placement.getPart().getId(), cells);
+            }
+        }
+        return counts;
+    }
+
+    private static void add(Map<String, Integer> counts, String partId,
+            int count) {
+        Integer current = counts.get(partId);
+        counts.put(partId, (current == null ? 0 : current) + count);
+    }
+
+    private static int usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: JobFarm -m configurationDirectory [-m configurationDirectory]... [-p catalogDirectory] [-s] [-i inventory.properties] [-w workDirectory] job...");
+        return JobRunner.EXIT_USAGE;
+    }
+
+    /**
+     * One Job file to be run on one machine.
+     */
+    private static class Unit {
+        final File file;
+        final Map<String, Integer> required;
+        final Map<String, Integer> placed = new HashMap<String, Integer>();
+        Map<String, Integer> reservation;
+        int attempts;
+        Worker failedOn;
+
+        Unit(File file, Map<String, Integer> required) {
+            this.file = file;
+            this.required = required;
+        }
+
+        /**
+         * The Parts still to be placed, which is everything unless an
+         * earlier attempt placed some before it failed.
+         */
+        Map<String, Integer> getRemainingParts() {
+            Map<String, Integer> remaining = new HashMap<String, Integer>();
+            for (Map.Entry<String, Integer> entry : required.entrySet()) {
+                Integer done = placed.get(entry.getKey());
+                int count = entry.getValue() - (done == null ? 0 : done);
+                if (count > 0) {
+                    remaining.put(entry.getKey(), count);
+                }
+            }
+            return remaining;
+        }
+    }
+
+    /**
+     * Hands out Units to Workers and keeps the inventory.
+     */
+    private static class Dispatcher {
+        private final LinkedList<Unit> pending = new LinkedList<Unit>();
+        private final List<Unit> failed = new ArrayList<Unit>();
+        private final PartInventory inventory;
+        private int machines;
+        private int running;
+        private int completed;
+
+        Dispatcher(List<Unit> units, PartInventory inventory, int machines) {
+            this.pending.addAll(units);
+            this.inventory = inventory;
+            this.machines = machines;
+        }
+
+        /**
+         * Returns the next Unit the Worker should run, waiting while every
+         * pending Unit is held up by other machines, or null if there is
+         * nothing more for it to do.
+         */
+        synchronized Unit take(Worker worker) throws InterruptedException {
+            // A running Unit may fail and come back, so keep waiting until
+            // every Unit is done.
+            while (!worker.retired && (!pending.isEmpty() || running > 0)) {
+                for (Unit unit : pending) {
+                    // Give a failed Unit to another machine if there is one.
+                    if (unit.failedOn == worker && machines > 1) {
+                        continue;
+                    }
+                    Map<String, Integer> reservation = unit
+                            .getRemainingParts();
+                    if (inventory != null && !inventory.reserve(reservation)) {
+                        continue;
+                    }
+                    pending.remove(unit);
+                    unit.reservation = reservation;
+                    unit.attempts++;
+                    running++;
+                    return unit;
+                }
+                if (running == 0 && inventory != null) {
+                    // Nothing holds a reservation, so a Unit the inventory
+                    // can't cover now never will be.
+                    for (Iterator<Unit> i = pending.iterator(); i.hasNext();) {
+                        Unit unit = i.next();
+                        Map<String, Integer> reservation = unit
+                                .getRemainingParts();
+                        if (inventory.reserve(reservation)) {
+                            inventory.release(reservation);
+                            continue;
+                        }
+                        System.err.println(unit.file
+                                + ": Not enough parts in the inventory.");
+                        failed.add(unit);
+                        i.remove();
+                    }
+                    notifyAll();
+                }
+                if (!pending.isEmpty() || running > 0) {
+                    wait();
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Records the end of a Unit the Worker ran.
+         */
+        synchronized void finished(Worker worker, Unit unit, boolean ok,
+                Map<String, Integer> placed) {
+            running--;
+            for (Map.Entry<String, Integer> entry : placed.entrySet()) {
+                add(unit.placed, entry.getKey(), entry.getValue());
+            }
+            if (inventory != null) {
+                inventory.release(unit.reservation);
+                inventory.consume(placed);
+                try {
+                    inventory.save();
+                }
+                catch (IOException e) {
+                    System.err.println("Unable to save inventory: "
+                            + e.getMessage());
+                }
+            }
+            if (ok) {
+                worker.failures = 0;
+                completed++;
+            }
+            else {
+                if (++worker.failures >= MAX_CONSECUTIVE_FAILURES) {
+                    System.err.println(worker.name
+                            + ": Taken out of the line after "
+                            + worker.failures + " failed jobs.");
+                    worker.retired = true;
+                    machines--;
+                }
+                if (unit.attempts < MAX_ATTEMPTS && machines > 0) {
+                    unit.failedOn = worker;
+                    pending.addFirst(unit);
+                }
+                else {
+                    failed.add(unit);
+                }
+            }
+            notifyAll();
+        }
+
+        /**
+         * Prints the outcome and returns the exit code.
+         */
+        synchronized int report() {
+            // Units left pending had no machine left to run them.
+            failed.addAll(pending);
+            pending.clear();
+            System.out.println(completed + " jobs completed, "
+                    + failed.size() + " failed.");
+            for (Unit unit : failed) {
+                System.out.println("Failed: " + unit.file);
+            }
+            return failed.isEmpty() ? JobRunner.EXIT_OK
+                    : JobRunner.EXIT_JOB_FAILED;
+        }
+    }
+
+    /**
+     * Runs Units on one machine, one JobRunner process at a time.
+     */
+    private static class Worker implements Runnable {
+        private final Dispatcher dispatcher;
+        private final File configurationDirectory;
+        private final File catalogDirectory;
+        final String name;
+        int failures;
+        boolean retired;
+
+        Worker(Dispatcher dispatcher, File configurationDirectory,
+                File catalogDirectory) {
+            this.dispatcher = dispatcher;
+            this.configurationDirectory = configurationDirectory;
+            this.catalogDirectory = catalogDirectory;
+            this.name = configurationDirectory.getName();
+        }
+
+        public void run() {
+            try {
+                Unit unit;
+                while ((unit = dispatcher.take(this)) != null) {
+                    Map<String, Integer> placed = new HashMap<String, Integer>();
+                    boolean ok = runUnit(unit, placed);
+                    dispatcher.finished(this, unit, ok, placed);
+                }
+            }
+            catch (InterruptedException e) {
+                // Stop taking work.
+            }
+        }
+
+        /**
+         * Runs the Unit in a JobRunner and counts the Parts it places.
+         * Returns true if the Job completed.
+         */
+        private boolean runUnit(Unit unit, Map<String, Integer> placed)
+                throws InterruptedException {
+            List<String> command = new ArrayList<String>();
+            command.add(new File(new File(System.getProperty("java.home"),
+                    "bin"), "java").getPath());
+            command.add("-Djava.awt.headless=true");
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(JobRunner.class.getName());
+            command.add("-c");
+            command.add(configurationDirectory.getPath());
+            command.add("-p");
+            command.add(catalogDirectory.getPath());
+            command.add("-j");
+            // A run that failed before it placed anything may not have left
+            // a journal, and then there is nothing to resume.
+            boolean resume = unit.attempts > 1
+                    && JobJournal.getFile(unit.file).exists();
+            if (resume) {
+                command.add("-r");
+            }
+            command.add(unit.file.getPath());
+
+            System.out.println(name + ": Running " + unit.file
+                    + (resume ? " (resumed)" : ""));
+            Process process;
+            try {
+                process = new ProcessBuilder(command).start();
+            }
+            catch (IOException e) {
+                System.err.println(name + ": Unable to start JobRunner: "
+                        + e.getMessage());
+                return false;
+            }
+            Thread errors = copy(process.getErrorStream());
+            try {
+                readEvents(unit, process.getInputStream(), placed);
+            }
+            catch (IOException e) {
+                System.err.println(name + ": " + e.getMessage());
+            }
+            int status = process.waitFor();
+            errors.join();
+            System.out.println(name + ": "
+                    + (status == JobRunner.EXIT_OK ? "Completed " : "Failed ")
+                    + unit.file);
+            return status == JobRunner.EXIT_OK;
+        }
+
+        /**
+         * Reads the JSON lines JobRunner writes, counting placed Parts and
+         * printing errors.
+         */
+        private void readEvents(Unit unit, InputStream in,
+                Map<String, Integer> placed) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    in, "UTF-8"));
+            JsonParser parser = new JsonParser();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonObject o;
+                try {
+                    o = parser.parse(line).getAsJsonObject();
+                }
+                catch (RuntimeException e) {
+                    // Not an event, such as a stray log line.
+                    System.out.println(name + ": " + line);
+                    continue;
+                }
+                String type = o.get("type").getAsString();
+                if (type.equals("PartPlaced")) {
+                    JsonElement part = o.get("part");
+                    if (part != null) {
+                        add(placed, part.getAsString(), 1);
+                    }
+                }
+                else if (type.equals("JobEncounteredError")) {
+                    System.err.println(name + ": " + unit.file + ": "
+                            + o.get("description").getAsString());
+                }
+            }
+            reader.close();
+        }
+
+        /**
+         * Copies the process's error output to ours, with the machine's
+         * name in front of each line.
+         */
+        private Thread copy(final InputStream in) {
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(in));
+                    try {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            System.err.println(name + ": " + line);
+                        }
+                        reader.close();
+                    }
+                    catch (IOException e) {
+                        // The process has gone.
+                    }
+                }
+            }, name + " errors");
+            thread.start();
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.openpnp.cli;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openpnp.JobJournal;
+import org.openpnp.JobProcessor;
+import org.openpnp.JobProcessor.JobState;
+import org.openpnp.JobProcessorEvent;
+import org.openpnp.Main;
+import org.openpnp.metrics.Metrics;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Job;
+import org.openpnp.spi.Machine;
+import org.openpnp.trace.SessionTrace;
+
+/**
+ * Runs one or more Jobs without a user interface and exits with a status
+ * code, for unattended runs and simulation. Swing and AWT are never
+ * initialized: the Configuration saves, such as the feed counts of tray
+ * Feeders, are serialized on the saver thread rather than the event
+ * dispatch thread. So many runners can be started side by side; give each
+ * its own configuration directory if their Feeders are stateful.
+ *
+ * Usage: JobRunner [-c configurationDirectory] [-p catalogDirectory] [-j] [-q] [-r] job...
+ *
+ * -c  Use the given configuration directory instead of ~/.openpnp.
+ * -p  Read parts.xml and packages.xml from the given directory instead of
+ *     the configuration directory, so several machines share one catalog.
+ * -j  Write events as JSON lines instead of text.
+ * -q  Only print state changes and errors.
+ * -r  Resume each Job from its journal, or start it from the beginning if
+ *     it has none.
+ *
+ * The session is traced as in the GUI; run with -Dopenpnp.trace=false to
+ * turn tracing off.
+ *
+ * Exits with EXIT_OK if every Job completed, EXIT_JOB_FAILED if any Job
+ * encountered an error, and EXIT_USAGE for bad arguments or configuration.
+ */
+public class JobRunner {
+    public static final int EXIT_OK = 0;
+    public static final int EXIT_JOB_FAILED = 1;
+    public static final int EXIT_USAGE = 2;
+
+    /**
+     * How long to wait for the last events of a Job to be delivered once
+     * its thread has finished.
+     */
+    private static final long EVENT_DRAIN_TIMEOUT_MILLISECONDS = 5000;
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        System.exit(run(args));
+    }
+
+    public static int run(String[] args) {
+        File configurationDirectory = Main.getDefaultConfigurationDirectory();
+        File catalogDirectory = null;
+        boolean json = false;
+        boolean quiet = false;
+        boolean resume = false;
+        List<File> jobFiles = new ArrayList<File>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("-c") && i + 1 < args.length) {
+                configurationDirectory = new File(args[++i]);
+            }
+            else if (arg.equals("-p") && i + 1 < args.length) {
+                catalogDirectory = new File(args[++i]);
+            }
+            else if (arg.equals("-j")) {
+                json = true;
+            }
+            else if (arg.equals("-q")) {
+                quiet = true;
+            }
+            else if (arg.equals("-r")) {
+                resume = true;
+            }
+            else if (arg.startsWith("-")) {
+                return usage("Unknown option " + arg);
+            }
+            else {
+                jobFiles.add(new File(arg));
+            }
+        }
+        if (jobFiles.isEmpty()) {
+            return usage("No jobs given.");
+        }
+
+        Main.configureLogging(configurationDirectory);
+        Configuration.initialize(configurationDirectory);
+        Metrics.startReporting(configurationDirectory, 10);
+        if (SessionTrace.isRequested()) {
+            try {
+                SessionTrace.start(configurationDirectory);
+            }
+            catch (Exception e) {
+                System.err.println("Unable to start session trace: "
+                        + e.getMessage());
+            }
+        }
+        Configuration configuration = Configuration.get();
+        if (catalogDirectory != null) {
+            configuration.setCatalogDirectory(catalogDirectory);
+        }
+        Machine machine;
+        try {
+            configuration.load();
+            machine = configuration.getMachine();
+            machine.setEnabled(true);
+        }
+        catch (Exception e) {
+            System.err.println("Unable to start the machine: "
+                    + e.getMessage());
+            return EXIT_USAGE;
+        }
+
+        JobProcessor jobProcessor = new JobProcessor(configuration);
+        if (json) {
+            jobProcessor.addEventListener(new JsonLinesJobListener(System.out));
+        }
+        else {
+            jobProcessor.addEventListener(new ConsoleJobListener(System.out,
+                    System.err, quiet));
+        }
+        Monitor monitor = new Monitor();
+        jobProcessor.addEventListener(monitor);
+
+        int status = EXIT_OK;
+        try {
+            for (File file : jobFiles) {
+                if (!runJob(configuration, jobProcessor, monitor, file, resume)) {
+                    status = EXIT_JOB_FAILED;
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            status = EXIT_JOB_FAILED;
+        }
+        finally {
+            try {
+                machine.setEnabled(false);
+            }
+            catch (Exception e) {
+                System.err.println("Unable to disable the machine: "
+                        + e.getMessage());
+            }
+            // Write what the Feeders scheduled for saving now, the saver
+            // thread does not outlive System.exit().
+            try {
+                configuration.save();
+            }
+            catch (Exception e) {
+                System.err.println("Unable to save the configuration: "
+                        + e.getMessage());
+                status = EXIT_JOB_FAILED;
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Runs the Job in the file to completion. Returns false if it could not
+     * be loaded or encountered an error, in which case it is stopped.
+     */
+    private static boolean runJob(Configuration configuration,
+            JobProcessor jobProcessor, Monitor monitor, File file,
+            boolean resume) throws InterruptedException {
+        Job job;
+        try {
+            job = configuration.loadJob(file);
+        }
+        catch (Exception e) {
+            System.err.println("Unable to load " + file + ": "
+                    + e.getMessage());
+            return false;
+        }
+        monitor.reset(job);
+        jobProcessor.load(job);
+        try {
+            // Nothing was journaled if an earlier run failed before it
+            // started, so there is nothing to resume.
+            jobProcessor.start(resume && JobJournal.getFile(file).exists());
+        }
+        catch (Exception e) {
+            System.err.println("Unable to start " + file + ": "
+                    + e.getMessage());
+            return false;
+        }
+        while (!jobProcessor.join(100)) {
+            if (monitor.hasError()) {
+                jobProcessor.stop();
+            }
+        }
+        boolean failed = monitor.hasError();
+        if (jobProcessor.getState() != JobState.Stopped) {
+            // The Job thread gives up after an error without stopping, and
+            // one that died never stops, so the Job did not complete
+            // whether or not an error has been delivered yet.
+            if (!failed) {
+                System.err.println(file + " ended without completing.");
+            }
+            failed = true;
+            jobProcessor.stop();
+        }
+        monitor.awaitStopped();
+        return !failed && !monitor.hasError();
+    }
+
+    private static int usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: JobRunner [-c configurationDirectory] [-p catalogDirectory] [-j] [-q] [-r] job...");
+        return EXIT_USAGE;
+    }
+
+    /**
+     * Watches the events of the current Job for errors and for the Job
+     * stopping. Events of the previously loaded Job that are still being
+     * delivered are ignored until the current Job's JobLoaded event arrives.
+     */
+    private static class Monitor implements JobProcessorEvent.Listener {
+        private volatile Job job;
+        private volatile boolean error;
+        private boolean loaded;
+        private boolean started;
+        private volatile CountDownLatch stopped;
+
+        public synchronized void reset(Job job) {
+            this.job = job;
+            this.error = false;
+            this.loaded = false;
+            this.started = false;
+            this.stopped = new CountDownLatch(1);
+        }
+
+        public boolean hasError() {
+            return error;
+        }
+
+        public void awaitStopped() throws InterruptedException {
+            stopped.await(EVENT_DRAIN_TIMEOUT_MILLISECONDS,
+                    TimeUnit.MILLISECONDS);
+        }
+
+        public synchronized void jobProcessorEvent(JobProcessorEvent event) {
+            switch (event.getType()) {
+            case JobLoaded:
+                loaded = (event.getJob() == job);
+                break;
+            case JobEncounteredError:
+                if (loaded) {
+                    error = true;
+                }
+                break;
+            case JobStateChanged:
+                if (!loaded) {
+                    break;
+                }
+                if (event.getState() == JobState.Running) {
+                    started = true;
+                }
+                else if (event.getState() == JobState.Stopped && started) {
+                    stopped.countDown();
+                }
+                break;
+            default:
+                break;
+            }
+        }
+    }
+}
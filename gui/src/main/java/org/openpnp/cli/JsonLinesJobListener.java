@@ -0,0 +1,67 @@
+package org.openpnp.cli;
+
+import java.io.PrintStream;
+
+import org.openpnp.JobProcessorEvent;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Job;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Writes each JobProcessorEvent as one line of JSON, for other programs to
+ * consume. Every object has the time in milliseconds, the job and the event
+ * type, plus whichever of the event's fields are set.
+ */
+public class JsonLinesJobListener implements JobProcessorEvent.Listener {
+    private final PrintStream out;
+    private String jobName;
+
+    public JsonLinesJobListener(PrintStream out) {
+        this.out = out;
+    }
+
+    public void jobProcessorEvent(JobProcessorEvent event) {
+        if (event.getType() == JobProcessorEvent.Type.JobLoaded) {
+            Job job = event.getJob();
+            jobName = (job == null || job.getFile() == null) ? null : job
+                    .getFile().getPath();
+        }
+        JsonObject o = new JsonObject();
+        o.addProperty("time", System.currentTimeMillis());
+        o.addProperty("job", jobName);
+        o.addProperty("type", event.getType().toString());
+        if (event.getState() != null) {
+            o.addProperty("state", event.getState().toString());
+        }
+        if (event.getError() != null) {
+            o.addProperty("error", event.getError().toString());
+            o.addProperty("description", event.getDescription());
+        }
+        BoardLocation boardLocation = event.getBoardLocation();
+        if (boardLocation != null && boardLocation.getBoard() != null) {
+            o.addProperty("board", boardLocation.getBoard().getName());
+        }
+        if (event.getPlacement() != null) {
+            o.addProperty("placement", event.getPlacement().getId());
+            if (event.getPlacement().getPart() != null) {
+                o.addProperty("part", event.getPlacement().getPart().getId());
+            }
+        }
+        if (event.getStatus() != null) {
+            o.addProperty("status", event.getStatus().toString());
+            if (event.getSubject() != null) {
+                o.addProperty("subject", event.getSubject());
+            }
+            if (event.hasLocation()) {
+                o.addProperty("units", event.getUnits().toString());
+                o.addProperty("x", event.getX());
+                o.addProperty("y", event.getY());
+                o.addProperty("z", event.getZ());
+                o.addProperty("rotation", event.getRotation());
+            }
+            o.addProperty("message", event.getMessage());
+        }
+        out.println(o.toString());
+    }
+}
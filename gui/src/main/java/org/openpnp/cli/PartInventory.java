@@ -0,0 +1,130 @@
+package org.openpnp.cli;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * How many of each Part are left across every machine of a JobFarm, kept in
+ * a properties file of partId=count. Parts that are not in the file are not
+ * tracked and never run out.
+ *
+ * Parts are reserved when a Job is dispatched to a machine so that two
+ * machines are never promised the same reels, and consumed as the machine
+ * reports them placed. The file is rewritten after every Job so that it is
+ * current if the farm is stopped.
+ */
+class PartInventory {
+    private final File file;
+    private final Map<String, Integer> available = new HashMap<String, Integer>();
+    private final Map<String, Integer> reserved = new HashMap<String, Integer>();
+
+    PartInventory(File file) throws IOException {
+        this.file = file;
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            properties.load(in);
+        }
+        finally {
+            in.close();
+        }
+        for (String partId : properties.stringPropertyNames()) {
+            try {
+                available.put(partId, Integer.parseInt(properties
+                        .getProperty(partId).trim()));
+            }
+            catch (NumberFormatException e) {
+                throw new IOException("Bad count for " + partId + " in "
+                        + file);
+            }
+        }
+    }
+
+    /**
+     * Reserves the counts if every tracked Part has enough left that isn't
+     * already reserved. Returns false and reserves nothing otherwise.
+     * @param counts
+     * @return
+     */
+    boolean reserve(Map<String, Integer> counts) {
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            Integer count = available.get(entry.getKey());
+            if (count != null
+                    && count - get(reserved, entry.getKey()) < entry
+                            .getValue()) {
+                return false;
+            }
+        }
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (available.containsKey(entry.getKey())) {
+                add(reserved, entry.getKey(), entry.getValue());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gives back a reservation made with reserve().
+     * @param counts
+     */
+    void release(Map<String, Integer> counts) {
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (available.containsKey(entry.getKey())) {
+                add(reserved, entry.getKey(), -entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Takes Parts that have been placed out of the inventory.
+     * @param counts
+     */
+    void consume(Map<String, Integer> counts) {
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (available.containsKey(entry.getKey())) {
+                add(available, entry.getKey(), -entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes the remaining counts back to the file, through a temporary
+     * file so that a crash leaves either the old or the new counts.
+     * @throws IOException
+     */
+    void save() throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Integer> entry : available.entrySet()) {
+            properties.setProperty(entry.getKey(),
+                    Integer.toString(Math.max(0, entry.getValue())));
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(temp);
+        try {
+            properties.store(out, "Parts remaining");
+        }
+        finally {
+            out.close();
+        }
+        // Windows won't rename over an existing file.
+        if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+            throw new IOException("Unable to replace " + file);
+        }
+    }
+
+    private static int get(Map<String, Integer> map, String partId) {
+        Integer count = map.get(partId);
+        return count == null ? 0 : count;
+    }
+
+    private static void add(Map<String, Integer> map, String partId, int count) {
+        map.put(partId, get(map, partId) + count);
+    }
+}
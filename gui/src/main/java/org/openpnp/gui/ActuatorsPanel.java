@@ -188,7 +188,7 @@ public class ActuatorsPanel extends JPanel implements WizardContainer {
 
 	@Override
 	public void wizardCompleted(Wizard wizard) {
-		configuration.setDirty(true);
+		configuration.setDirty(Configuration.Section.Machine);
 	}
 
 	@Override
@@ -51,6 +51,7 @@ import javax.swing.event.ListSelectionListener;
 import org.openpnp.gui.components.AutoSelectTextTable;
 import org.openpnp.gui.support.ActionGroup;
 import org.openpnp.gui.support.Helpers;
+import org.openpnp.gui.support.IdentifiableKeySelectionManager;
 import org.openpnp.gui.support.IdentifiableListCellRenderer;
 import org.openpnp.gui.support.IdentifiableTableCellRenderer;
 import org.openpnp.gui.support.MessageBoxes;
@@ -147,6 +148,7 @@ public class BoardsPanel extends JPanel {
 
 		JComboBox partsComboBox = new JComboBox(new PartsComboBoxModel());
 		partsComboBox.setRenderer(new IdentifiableListCellRenderer<Part>());
+		partsComboBox.setKeySelectionManager(new IdentifiableKeySelectionManager<Part>(Configuration.get().getPartsCatalog()));
 
 		placementsTable = new AutoSelectTextTable(placementsTableModel);
 		placementsTable.setAutoCreateRowSorter(true);
@@ -235,7 +235,7 @@ public class CamerasPanel extends JPanel implements WizardContainer {
 
 	@Override
 	public void wizardCompleted(Wizard wizard) {
-		configuration.setDirty(true);
+		configuration.setDirty(Configuration.Section.Machine);
 	}
 
 	@Override
@@ -283,7 +283,7 @@ public class CamerasPanel extends JPanel implements WizardContainer {
 				MainFrame.cameraPanel.addCamera(camera);
 				tableModel.refresh();
 				Helpers.selectLastTableRow(table);
-				configuration.setDirty(true);
+				configuration.setDirty(Configuration.Section.Machine);
 			}
 			catch (Exception e) {
 				MessageBoxes.errorBox(
@@ -227,7 +227,7 @@ public class FeedersPanel extends JPanel implements WizardContainer {
 
 	@Override
 	public void wizardCompleted(Wizard wizard) {
-		configuration.setDirty(true);
+		configuration.setDirty(Configuration.Section.Machine);
 	}
 
 	@Override
@@ -272,7 +272,7 @@ public class FeedersPanel extends JPanel implements WizardContainer {
 				configuration.getMachine().addFeeder(feeder);
 				tableModel.refresh();
 				Helpers.selectLastTableRow(table);
-				configuration.setDirty(true);
+				configuration.setDirty(Configuration.Section.Machine);
 			}
 			catch (Exception e) {
 				MessageBoxes.errorBox(
@@ -193,7 +193,7 @@ public class HeadsPanel extends JPanel implements WizardContainer {
 
 	@Override
 	public void wizardCompleted(Wizard wizard) {
-		configuration.setDirty(true);
+		configuration.setDirty(Configuration.Section.Machine);
 	}
 
 	@Override
@@ -44,6 +44,7 @@ import javax.swing.JSplitPane;
 import javax.swing.JTable;
 import javax.swing.JToolBar;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
 import javax.swing.border.EtchedBorder;
 import javax.swing.border.TitledBorder;
 import javax.swing.event.ListSelectionEvent;
@@ -63,12 +64,14 @@ import org.openpnp.gui.importer.MountsmdPosImporter;
 import org.openpnp.gui.processes.TwoPlacementBoardLocationProcess;
 import org.openpnp.gui.support.ActionGroup;
 import org.openpnp.gui.support.Helpers;
+import org.openpnp.gui.support.IdentifiableKeySelectionManager;
 import org.openpnp.gui.support.IdentifiableListCellRenderer;
 import org.openpnp.gui.support.IdentifiableTableCellRenderer;
 import org.openpnp.gui.support.MessageBoxes;
 import org.openpnp.gui.support.PartsComboBoxModel;
 import org.openpnp.gui.tablemodel.BoardLocationsTableModel;
 import org.openpnp.gui.tablemodel.PlacementsTableModel;
+import org.openpnp.model.BinaryJobFormat;
 import org.openpnp.model.Board;
 import org.openpnp.model.Board.Side;
 import org.openpnp.model.BoardLocation;
@@ -82,6 +85,8 @@ import org.openpnp.spi.Feeder;
 import org.openpnp.spi.Machine;
 import org.openpnp.spi.MachineListener;
 import org.openpnp.spi.Nozzle;
+import org.openpnp.util.AffineFit;
+import org.openpnp.util.FiducialLocator;
 import org.openpnp.util.MovableUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -128,7 +133,8 @@ public class JobPanel extends JPanel {
 				captureCameraBoardLocationAction,
 				captureToolBoardLocationAction, newPlacementAction,
 				moveCameraToBoardLocationAction, moveToolToBoardLocationAction,
-				twoPointLocateBoardLocationAction);
+				twoPointLocateBoardLocationAction,
+				fiducialLocateBoardLocationAction);
 		boardLocationSelectionActionGroup.setEnabled(false);
 
 		placementSelectionActionGroup = new ActionGroup(removePlacementAction,
@@ -169,6 +175,7 @@ public class JobPanel extends JPanel {
 
 		JComboBox partsComboBox = new JComboBox(new PartsComboBoxModel());
 		partsComboBox.setRenderer(new IdentifiableListCellRenderer<Part>());
+		partsComboBox.setKeySelectionManager(new IdentifiableKeySelectionManager<Part>(Configuration.get().getPartsCatalog()));
 
 		placementsTable = new AutoSelectTextTable(placementsTableModel);
 		placementsTable.setAutoCreateRowSorter(true);
@@ -265,6 +272,10 @@ public class JobPanel extends JPanel {
 		toolBarBoards.add(btnTwoPointBoardLocation);
 		btnTwoPointBoardLocation.setHideActionText(true);
 
+		JButton btnFiducialBoardLocation = new JButton(
+				fiducialLocateBoardLocationAction);
+		toolBarBoards.add(btnFiducialBoardLocation);
+
 		pnlBoards.add(new JScrollPane(boardLocationsTable));
 		JPanel pnlPlacements = new JPanel();
 		pnlPlacements.setBorder(new TitledBorder(null, "Placements",
@@ -393,7 +404,8 @@ public class JobPanel extends JPanel {
 		fileDialog.setFilenameFilter(new FilenameFilter() {
 			@Override
 			public boolean accept(File dir, String name) {
-				return name.toLowerCase().endsWith(".job.xml");
+				return name.toLowerCase().endsWith(".job.xml")
+						|| name.toLowerCase().endsWith(BinaryJobFormat.JOB_EXTENSION);
 			}
 		});
 		fileDialog.setVisible(true);
@@ -402,7 +414,8 @@ public class JobPanel extends JPanel {
 			if (filename == null) {
 				return false;
 			}
-			if (!filename.toLowerCase().endsWith(".job.xml")) {
+			if (!filename.toLowerCase().endsWith(".job.xml")
+					&& !filename.toLowerCase().endsWith(BinaryJobFormat.JOB_EXTENSION)) {
 				filename = filename + ".job.xml";
 			}
 			File file = new File(new File(fileDialog.getDirectory()), filename);
@@ -489,7 +502,8 @@ public class JobPanel extends JPanel {
 			fileDialog.setFilenameFilter(new FilenameFilter() {
 				@Override
 				public boolean accept(File dir, String name) {
-					return name.toLowerCase().endsWith(".job.xml");
+					return name.toLowerCase().endsWith(".job.xml")
+							|| name.toLowerCase().endsWith(BinaryJobFormat.JOB_EXTENSION);
 				}
 			});
 			fileDialog.setVisible(true);
@@ -547,8 +561,20 @@ public class JobPanel extends JPanel {
 		public void actionPerformed(ActionEvent arg0) {
 			JobState state = jobProcessor.getState();
 			if (state == JobState.Stopped) {
+				boolean resume = false;
+				int placedCount = jobProcessor.getResumablePlacementCount();
+				if (placedCount > 0) {
+					int result = JOptionPane.showConfirmDialog(frame,
+							placedCount + " placements were already placed by an earlier run of this job that did not finish.\n"
+									+ "Do you want to resume the job and skip them?",
+							"Resume Job?", JOptionPane.YES_NO_CANCEL_OPTION);
+					if (result == JOptionPane.CANCEL_OPTION || result == JOptionPane.CLOSED_OPTION) {
+						return;
+					}
+					resume = (result == JOptionPane.YES_OPTION);
+				}
 				try {
-					jobProcessor.start();
+					jobProcessor.start(resume);
 				}
 				catch (Exception e) {
 					MessageBoxes.errorBox(frame, "Job Start Error",
@@ -616,7 +642,8 @@ public class JobPanel extends JPanel {
 			fileDialog.setFilenameFilter(new FilenameFilter() {
 				@Override
 				public boolean accept(File dir, String name) {
-					return name.toLowerCase().endsWith(".board.xml");
+					return name.toLowerCase().endsWith(".board.xml")
+							|| name.toLowerCase().endsWith(BinaryJobFormat.BOARD_EXTENSION);
 				}
 			});
 			fileDialog.setVisible(true);
@@ -625,7 +652,8 @@ public class JobPanel extends JPanel {
 				if (filename == null) {
 					return;
 				}
-				if (!filename.toLowerCase().endsWith(".board.xml")) {
+				if (!filename.toLowerCase().endsWith(".board.xml")
+						&& !filename.toLowerCase().endsWith(BinaryJobFormat.BOARD_EXTENSION)) {
 					filename = filename + ".board.xml";
 				}
 				File file = new File(new File(fileDialog.getDirectory()),
@@ -660,7 +688,8 @@ public class JobPanel extends JPanel {
 			fileDialog.setFilenameFilter(new FilenameFilter() {
 				@Override
 				public boolean accept(File dir, String name) {
-					return name.toLowerCase().endsWith(".board.xml");
+					return name.toLowerCase().endsWith(".board.xml")
+							|| name.toLowerCase().endsWith(BinaryJobFormat.BOARD_EXTENSION);
 				}
 			});
 			fileDialog.setVisible(true);
@@ -832,6 +861,55 @@ public class JobPanel extends JPanel {
 		}
 	};
 
+	public final Action fiducialLocateBoardLocationAction = new AbstractAction() {
+		{
+			putValue(NAME, "Fiducial Check");
+			putValue(SHORT_DESCRIPTION,
+					"Set the board's location, rotation and scale by locating its fiducials with the camera.");
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent arg0) {
+			final Camera camera = MainFrame.cameraPanel.getSelectedCamera();
+			if (camera.getHead() == null) {
+				MessageBoxes.errorBox(getTopLevelAncestor(), "Fiducial Error", "Camera is not movable.");
+				return;
+			}
+			final BoardLocation boardLocation = getSelectedBoardLocation();
+			MainFrame.machineControlsPanel.submitMachineTask(new Runnable() {
+				public void run() {
+					try {
+						final AffineFit fit = new FiducialLocator().locateBoard(boardLocation, camera);
+						SwingUtilities.invokeLater(new Runnable() {
+							public void run() {
+								refreshSelectedBoardRow();
+								// With no more fiducials than the fit needs the
+								// residuals are always 0 and say nothing.
+								String residuals = fit.isOverdetermined() ? String.format(
+										"RMS residual %2.4f, max residual %2.4f",
+										fit.getRmsResidual(),
+										fit.getMaxResidual())
+										: "Add fiducials to check the fit, it is exact with this few.";
+								JOptionPane.showMessageDialog(getTopLevelAncestor(), String.format(
+										"Board located using %d fiducials.\nCorrected by rotation %2.3f, scale %2.4f x %2.4f, skew %2.3f\n%s",
+										fit.getResiduals().length,
+										fit.getRotation(),
+										fit.getScaleX(),
+										fit.getScaleY(),
+										fit.getSkew(),
+										residuals));
+							}
+						});
+					}
+					catch (Exception e) {
+						MessageBoxes.errorBox(getTopLevelAncestor(),
+								"Fiducial Error", e);
+					}
+				}
+			});
+		}
+	};
+
 	public final Action newPlacementAction = new AbstractAction() {
 		{
 			putValue(SMALL_ICON,
@@ -933,10 +1011,11 @@ public class JobPanel extends JPanel {
 			BoardImporter importer = new MountsmdUlpImporter(JOptionPane.getFrameForComponent(JobPanel.this));
 			try {
 				Board importedBoard = importer.importBoard();
-				Board existingBoard = getSelectedBoardLocation().getBoard();
-				for (Placement placement : importedBoard.getPlacements()) {
-					existingBoard.addPlacement(placement);
+				if (importedBoard == null) {
+					return;
 				}
+				Board existingBoard = getSelectedBoardLocation().getBoard();
+				existingBoard.addPlacements(importedBoard.getPlacements());
 				placementsTableModel.fireTableDataChanged();
 			}
 			catch (Exception e) {
@@ -954,10 +1033,11 @@ public class JobPanel extends JPanel {
 			BoardImporter importer = new MountsmdPosImporter(JOptionPane.getFrameForComponent(JobPanel.this));
 			try {
 				Board importedBoard = importer.importBoard();
-				Board existingBoard = getSelectedBoardLocation().getBoard();
-				for (Placement placement : importedBoard.getPlacements()) {
-					existingBoard.addPlacement(placement);
+				if (importedBoard == null) {
+					return;
 				}
+				Board existingBoard = getSelectedBoardLocation().getBoard();
+				existingBoard.addPlacements(importedBoard.getPlacements());
 				placementsTableModel.fireTableDataChanged();
 			}
 			catch (Exception e) {
@@ -966,28 +1046,49 @@ public class JobPanel extends JPanel {
 		}
 	};
 	
+	/**
+	 * JobProcessor events arrive on the JobProcessor's event thread, so
+	 * anything touching Swing is handed to the event dispatch thread.
+	 */
 	private final JobProcessorListener jobProcessorListener = new JobProcessorListener.Adapter() {
 		@Override
 		public void jobStateChanged(JobState state) {
-			updateJobActions();
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					updateJobActions();
+				}
+			});
 		}
 
 		@Override
-		public void jobLoaded(Job job) {
-			placementsTableModel.setBoard(null);
-			boardLocationsTableModel.setJob(jobProcessor.getJob());
-			job.addPropertyChangeListener("dirty", titlePropertyChangeListener);
-			job.addPropertyChangeListener("file", titlePropertyChangeListener);
-			updateTitle();
-			updateJobActions();
+		public void jobLoaded(final Job job) {
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					placementsTableModel.setBoard(null);
+					boardLocationsTableModel.setJob(jobProcessor.getJob());
+					job.addPropertyChangeListener("dirty", titlePropertyChangeListener);
+					job.addPropertyChangeListener("file", titlePropertyChangeListener);
+					updateTitle();
+					updateJobActions();
+				}
+			});
 		}
 
 		@Override
-		public void jobEncounteredError(JobError error, String description) {
-			MessageBoxes.errorBox(frame, error.toString(), description
-					+ "\n\nThe job will be paused.");
+		public void jobEncounteredError(final JobError error, final String description) {
+			// Pause before showing the dialog rather than after it is
+			// dismissed, since the job thread no longer waits for us. Pausing
+			// fires an event, so it is done from the event dispatch thread
+			// rather than from this listener on the JobProcessor's event
+			// thread, which would have to deliver it to itself.
 			// TODO: Implement a way to retry, abort, etc.
-			jobProcessor.pause();
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					jobProcessor.pause();
+					MessageBoxes.errorBox(frame, error.toString(), description
+							+ "\n\nThe job will be paused.");
+				}
+			});
 		}
 	};
 
@@ -995,20 +1096,33 @@ public class JobPanel extends JPanel {
 		@Override
 		public PickRetryAction partPickFailed(BoardLocation board, Part part,
 				Feeder feeder) {
-			return PickRetryAction.SkipAndContinue;
+			// Keep the line running. The JobProcessor limits the retries,
+			// moves to another Feeder and skips the Placement as needed.
+			return PickRetryAction.RetryWithFeed;
 		}
 	};
 
 	private final MachineListener machineListener = new MachineListener.Adapter() {
 		@Override
 		public void machineEnabled(Machine machine) {
-			updateJobActions();
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					updateJobActions();
+				}
+			});
 		}
 
 		@Override
 		public void machineDisabled(Machine machine, String reason) {
-			updateJobActions();
-			jobProcessor.stop();
+			// As with pausing on an error, stop from the event dispatch
+			// thread so that this listener never fires JobProcessor events
+			// from whichever thread delivers it.
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					jobProcessor.stop();
+					updateJobActions();
+				}
+			});
 		}
 	};
 
@@ -548,26 +548,31 @@ public class MachineControlsPanel extends JPanel {
 
 		@Override
 		public void machineEnabled(Machine machine) {
-			btnStartStop.setAction(machine.isEnabled() ? stopMachineAction : startMachineAction);
-			btnStartStop.setForeground(machine.isEnabled() ? stopColor : startColor);
+			updateStartStopButton(machine);
 		}
 
 		@Override
 		public void machineEnableFailed(Machine machine, String reason) {
-			btnStartStop.setAction(machine.isEnabled() ? stopMachineAction : startMachineAction);
-			btnStartStop.setForeground(machine.isEnabled() ? stopColor : startColor);
+			updateStartStopButton(machine);
 		}
 
 		@Override
 		public void machineDisabled(Machine machine, String reason) {
-			btnStartStop.setAction(machine.isEnabled() ? stopMachineAction : startMachineAction);
-			btnStartStop.setForeground(machine.isEnabled() ? stopColor : startColor);
+			updateStartStopButton(machine);
 		}
 
 		@Override
 		public void machineDisableFailed(Machine machine, String reason) {
-			btnStartStop.setAction(machine.isEnabled() ? stopMachineAction : startMachineAction);
-			btnStartStop.setForeground(machine.isEnabled() ? stopColor : startColor);
+			updateStartStopButton(machine);
+		}
+		
+		private void updateStartStopButton(final Machine machine) {
+			EventQueue.invokeLater(new Runnable() {
+				public void run() {
+					btnStartStop.setAction(machine.isEnabled() ? stopMachineAction : startMachineAction);
+					btnStartStop.setForeground(machine.isEnabled() ? stopColor : startColor);
+				}
+			});
 		}
 	};
 	
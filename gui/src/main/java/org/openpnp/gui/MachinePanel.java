@@ -22,11 +22,14 @@
 package org.openpnp.gui;
 
 import javax.swing.JPanel;
+import javax.swing.JTabbedPane;
 
 import org.openpnp.ConfigurationListener;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.gui.support.WizardContainer;
+import org.openpnp.gui.wizards.BottomVisionConfigurationWizard;
 import org.openpnp.model.Configuration;
+import org.openpnp.spi.Machine;
 import java.awt.BorderLayout;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
@@ -39,13 +42,18 @@ public class MachinePanel extends JPanel implements WizardContainer {
 			@Override
 			public void componentShown(ComponentEvent e) {
 				removeAll();
-                Wizard wizard = Configuration.get().getMachine()
-                        .getConfigurationWizard();
+                Machine machine = Configuration.get().getMachine();
+                JTabbedPane tabbedPane = new JTabbedPane(JTabbedPane.TOP);
+                Wizard wizard = machine.getConfigurationWizard();
                 if (wizard != null) {
                     wizard.setWizardContainer(MachinePanel.this);
-                    JPanel panel = wizard.getWizardPanel();
-                    add(panel);
+                    tabbedPane.addTab("Driver", wizard.getWizardPanel());
                 }
+                Wizard bottomVisionWizard = new BottomVisionConfigurationWizard(
+                        machine.getBottomVision());
+                bottomVisionWizard.setWizardContainer(MachinePanel.this);
+                tabbedPane.addTab("Bottom Vision", bottomVisionWizard.getWizardPanel());
+                add(tabbedPane);
                 revalidate();
                 repaint();
 			}
@@ -54,7 +62,7 @@ public class MachinePanel extends JPanel implements WizardContainer {
 
     @Override
     public void wizardCompleted(Wizard wizard) {
-        Configuration.get().setDirty(true);
+        Configuration.get().setDirty(Configuration.Section.Machine);
     }
 
     @Override
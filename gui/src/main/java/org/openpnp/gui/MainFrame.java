@@ -58,6 +58,7 @@ import javax.swing.JSplitPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JTextPane;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.border.BevelBorder;
 import javax.swing.border.EmptyBorder;
@@ -66,6 +67,7 @@ import javax.swing.border.TitledBorder;
 import org.openpnp.JobProcessor;
 import org.openpnp.JobProcessorListener;
 import org.openpnp.gui.components.CameraPanel;
+import org.openpnp.gui.components.ThroughputPanel;
 import org.openpnp.gui.support.HeadCellValue;
 import org.openpnp.gui.support.LengthCellValue;
 import org.openpnp.gui.support.MessageBoxes;
@@ -401,7 +403,10 @@ public class MainFrame extends JFrame {
 		lblStatus = new JLabel(" ");
 		lblStatus.setBorder(new BevelBorder(BevelBorder.LOWERED, null, null,
 				null, null));
-		contentPane.add(lblStatus, BorderLayout.SOUTH);
+		JPanel panelStatus = new JPanel(new BorderLayout());
+		panelStatus.add(lblStatus, BorderLayout.CENTER);
+		panelStatus.add(new ThroughputPanel(), BorderLayout.EAST);
+		contentPane.add(panelStatus, BorderLayout.SOUTH);
 
 		splitPaneTopBottom.setDividerLocation(prefs.getInt(
 				PREF_DIVIDER_POSITION, PREF_DIVIDER_POSITION_DEF));
@@ -554,8 +559,12 @@ public class MainFrame extends JFrame {
 
 	private JobProcessorListener jobProcessorListener = new JobProcessorListener.Adapter() {
 		@Override
-		public void detailedStatusUpdated(String status) {
-			lblStatus.setText(status);
+		public void detailedStatusUpdated(final String status) {
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					lblStatus.setText(status);
+				}
+			});
 		}
 	};
 
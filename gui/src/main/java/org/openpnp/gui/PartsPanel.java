@@ -28,7 +28,8 @@ import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.regex.PatternSyntaxException;
+import java.util.HashSet;
+import java.util.Set;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -53,6 +54,7 @@ import javax.swing.table.TableRowSorter;
 
 import org.openpnp.gui.components.AutoSelectTextTable;
 import org.openpnp.gui.support.Helpers;
+import org.openpnp.gui.support.IdentifiableKeySelectionManager;
 import org.openpnp.gui.support.IdentifiableListCellRenderer;
 import org.openpnp.gui.support.IdentifiableTableCellRenderer;
 import org.openpnp.gui.support.MessageBoxes;
@@ -119,6 +121,7 @@ public class PartsPanel extends JPanel {
 		
 		JComboBox packagesCombo = new JComboBox(new PackagesComboBoxModel());
 		packagesCombo.setRenderer(new IdentifiableListCellRenderer<org.openpnp.model.Package>());
+		packagesCombo.setKeySelectionManager(new IdentifiableKeySelectionManager<org.openpnp.model.Package>(Configuration.get().getPackagesCatalog()));
 
 		partsTable = new AutoSelectTextTable(partsTableModel);
 		partsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -129,6 +132,15 @@ public class PartsPanel extends JPanel {
 
 		partsTable.setRowSorter(partsTableSorter);
 		
+		// The search matches against the catalog, so run it again when the
+		// Parts change.
+		configuration.addPropertyChangeListener("parts", new PropertyChangeListener() {
+			@Override
+			public void propertyChange(PropertyChangeEvent evt) {
+				search();
+			}
+		});
+		
 		partsTable.getSelectionModel().addListSelectionListener(new ListSelectionListener() {
 			@Override
 			public void valueChanged(ListSelectionEvent e) {
@@ -159,18 +171,24 @@ public class PartsPanel extends JPanel {
 		return partsTableModel.getPart(index);
 	}
 	
+	/**
+	 * Shows only the Parts whose id contains the search text. The matches
+	 * come from the parts catalog's substring index, so the filter only
+	 * has to look each row's Part up in the result.
+	 */
 	private void search() {
-		RowFilter<PartsTableModel, Object> rf = null;
-		// If current expression doesn't parse, don't update.
-		try {
-			rf = RowFilter.regexFilter("(?i)"
-					+ searchTextField.getText().trim());
-		}
-		catch (PatternSyntaxException e) {
-			logger.warn("Search failed", e);
+		String text = searchTextField.getText().trim();
+		if (text.length() == 0) {
+			partsTableSorter.setRowFilter(null);
 			return;
 		}
-		partsTableSorter.setRowFilter(rf);
+		final Set<Part> matches = new HashSet<Part>(configuration.getPartsCatalog().findBySubstring(text));
+		partsTableSorter.setRowFilter(new RowFilter<PartsTableModel, Integer>() {
+			@Override
+			public boolean include(Entry<? extends PartsTableModel, ? extends Integer> entry) {
+				return matches.contains(entry.getModel().getPart(entry.getIdentifier()));
+			}
+		});
 	}
 
 	public final Action newPartAction = new AbstractAction() {
@@ -0,0 +1,127 @@
+package org.openpnp.gui.components;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Drives short lived UI animations, such as the marching selection of a
+ * CameraView, from a single Swing Timer shared by the whole application. The
+ * Timer only runs while at least one Animation is active, so an idle
+ * application does no animation work at all. Every active Animation is
+ * stepped in the same Timer event on the EDT, which lets the RepaintManager
+ * coalesce the repaints they request into a single paint pass.
+ */
+public class AnimationScheduler {
+    private final static Logger logger = LoggerFactory
+            .getLogger(AnimationScheduler.class);
+
+    public static final int FRAME_INTERVAL_MILLISECONDS = 30;
+
+    private static final AnimationScheduler instance = new AnimationScheduler();
+
+    private final List<Animation> animations = new ArrayList<Animation>();
+
+    private final Timer timer;
+
+    private long lastFrame;
+
+    public static AnimationScheduler get() {
+        return instance;
+    }
+
+    private AnimationScheduler() {
+        timer = new Timer(FRAME_INTERVAL_MILLISECONDS, new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                step();
+            }
+        });
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Starts the Animation if it is not already running. May be called from
+     * any thread.
+     * @param animation
+     */
+    public synchronized void start(Animation animation) {
+        if (animations.contains(animation)) {
+            return;
+        }
+        animations.add(animation);
+        if (!timer.isRunning()) {
+            lastFrame = System.currentTimeMillis();
+            timer.start();
+        }
+    }
+
+    /**
+     * Stops the Animation without stepping it again. May be called from any
+     * thread.
+     * @param animation
+     */
+    public synchronized void stop(Animation animation) {
+        animations.remove(animation);
+        if (animations.isEmpty()) {
+            timer.stop();
+        }
+    }
+
+    public synchronized boolean isRunning(Animation animation) {
+        return animations.contains(animation);
+    }
+
+    private void step() {
+        Animation[] active;
+        long elapsed;
+        synchronized (this) {
+            active = animations.toArray(new Animation[animations.size()]);
+            long now = System.currentTimeMillis();
+            elapsed = now - lastFrame;
+            lastFrame = now;
+        }
+        List<Animation> finished = null;
+        for (Animation animation : active) {
+            boolean running;
+            try {
+                running = animation.step(elapsed);
+            }
+            catch (Throwable t) {
+                logger.error("Animation " + animation + " failed", t);
+                running = false;
+            }
+            if (!running) {
+                if (finished == null) {
+                    finished = new ArrayList<Animation>();
+                }
+                finished.add(animation);
+            }
+        }
+        synchronized (this) {
+            if (finished != null) {
+                animations.removeAll(finished);
+            }
+            if (animations.isEmpty()) {
+                timer.stop();
+            }
+        }
+    }
+
+    public interface Animation {
+        /**
+         * Advances the Animation by the given number of milliseconds and
+         * requests any repaints it needs. Called on the EDT. Return false
+         * once the Animation has nothing left to do and it will not be
+         * stepped again until it is restarted.
+         * @param elapsedMilliseconds
+         * @return
+         */
+        public boolean step(long elapsedMilliseconds);
+    }
+}
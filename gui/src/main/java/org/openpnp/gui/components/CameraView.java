@@ -25,10 +25,13 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.Graphics;
+import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Insets;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.Transparency;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
@@ -42,10 +45,6 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.prefs.Preferences;
 
 import javax.swing.JComponent;
@@ -53,6 +52,7 @@ import javax.swing.JPopupMenu;
 
 import org.openpnp.CameraListener;
 import org.openpnp.gui.components.reticle.Reticle;
+import org.openpnp.model.LengthUnit;
 import org.openpnp.spi.Camera;
 import org.openpnp.util.XmlSerialize;
 import org.slf4j.Logger;
@@ -72,6 +72,10 @@ public class CameraView extends JComponent implements CameraListener {
 
 	private final static int HANDLE_DIAMETER = 8;
 
+	private final static long SELECTION_DASH_INTERVAL_MILLISECONDS = 50;
+
+	private final static float SELECTION_FLASH_FADE_PER_MILLISECOND = 0.07f / 30f;
+
 	private enum HandlePosition {
 		NW, N, NE, E, SE, S, SW, W
 	}
@@ -90,6 +94,35 @@ public class CameraView extends JComponent implements CameraListener {
 	 */
 	private BufferedImage lastFrame;
 
+	/**
+	 * The last frame received, scaled to fit the component in the screen's
+	 * native format by the thread that delivered it. paintComponent() only
+	 * has to blit this. Null until the first frame is rendered or while the
+	 * component is not displayable.
+	 */
+	private volatile ScaledFrame scaledFrame;
+
+	/**
+	 * The buffer that the next frame will be scaled into. Frames are double
+	 * buffered so that steady state capture does not allocate.
+	 */
+	private ScaledFrame spareFrame;
+
+	private final Object frameLock = new Object();
+
+	/**
+	 * The reticles and text overlay pre-rendered into a translucent layer the
+	 * size of the component. Only re-rendered when one of the values it
+	 * depends on changes. Only accessed from the EDT.
+	 */
+	private BufferedImage overlayLayer;
+	private volatile boolean overlayLayerInvalid = true;
+	private int overlayLayerScaledWidth, overlayLayerScaledHeight;
+	private double overlayLayerUnitsPerPixelX, overlayLayerUnitsPerPixelY;
+	private double overlayLayerRotation;
+	private LengthUnit overlayLayerUnits;
+	private String overlayLayerText;
+
 	/**
 	 * The maximum frames per second that we'll display.
 	 */
@@ -152,15 +185,45 @@ public class CameraView extends JComponent implements CameraListener {
 	private SelectionMode selectionMode;
 	private HandlePosition selectionActiveHandle;
 	private int selectionStartX, selectionStartY;
-	private float selectionFlashOpacity;
+	private volatile float selectionFlashOpacity;
 	private float selectionDashPhase;
+	private long selectionDashElapsed;
 	private static float[] selectionDashProfile = new float[] { 6f, 6f };
 	// 11 is the sum of the dash lengths minus 1.
 	private static float selectionDashPhaseStart = 11f;
 
 	private CameraViewSelectionTextDelegate selectionTextDelegate;
 
-	private ScheduledExecutorService scheduledExecutor;
+	/**
+	 * Marches the selection dashes and fades the capture flash. Only runs
+	 * while there is a selection to animate or a flash to fade.
+	 */
+	private final AnimationScheduler.Animation selectionAnimation = new AnimationScheduler.Animation() {
+		public boolean step(long elapsedMilliseconds) {
+			boolean running = false;
+			if (selectionEnabled && selection != null) {
+				// Adjust the dash phase so the line marches on the next
+				// paint
+				selectionDashElapsed += elapsedMilliseconds;
+				while (selectionDashElapsed >= SELECTION_DASH_INTERVAL_MILLISECONDS) {
+					selectionDashElapsed -= SELECTION_DASH_INTERVAL_MILLISECONDS;
+					selectionDashPhase -= 1f;
+					if (selectionDashPhase < 0) {
+						selectionDashPhase = selectionDashPhaseStart;
+					}
+				}
+				running = true;
+			}
+			if (selectionFlashOpacity > 0) {
+				selectionFlashOpacity = Math.max(0, selectionFlashOpacity
+						- SELECTION_FLASH_FADE_PER_MILLISECOND
+						* elapsedMilliseconds);
+				running = true;
+			}
+			repaint();
+			return running;
+		}
+	};
 
 	private Preferences prefs = Preferences
 			.userNodeForPackage(CameraView.class);
@@ -187,24 +250,6 @@ public class CameraView extends JComponent implements CameraListener {
 		addMouseListener(mouseListener);
 		addMouseMotionListener(mouseMotionListener);
 		addComponentListener(componentListener);
-
-		scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
-
-		// TODO: Cancel this when it's not being used instead of spinning,
-		// or maybe create a real thread and wait().
-		scheduledExecutor.scheduleAtFixedRate(new Runnable() {
-			public void run() {
-				if (selectionEnabled && selection != null) {
-					// Adjust the dash phase so the line marches on the next
-					// paint
-					selectionDashPhase -= 1f;
-					if (selectionDashPhase < 0) {
-						selectionDashPhase = selectionDashPhaseStart;
-					}
-					repaint();
-				}
-			}
-		}, 0, 50, TimeUnit.MILLISECONDS);
 	}
 
 	public CameraView(int maximumFps) {
@@ -276,6 +321,7 @@ public class CameraView extends JComponent implements CameraListener {
 		}
 		else {
 			reticles.put(key, reticle);
+			invalidateOverlayLayer();
 		}
 	}
 	
@@ -284,7 +330,19 @@ public class CameraView extends JComponent implements CameraListener {
 	}
 	
 	public Reticle removeReticle(Object key) {
-		return reticles.remove(key);
+		Reticle reticle = reticles.remove(key);
+		invalidateOverlayLayer();
+		return reticle;
+	}
+	
+	/**
+	 * Causes the reticles and text overlay to be re-rendered on the next
+	 * paint. Call this after changing a property of a Reticle that is
+	 * already set on this view.
+	 */
+	public void invalidateOverlayLayer() {
+		overlayLayerInvalid = true;
+		repaint();
 	}
 
 	public CameraViewSelectionTextDelegate getSelectionTextDelegate() {
@@ -304,27 +362,20 @@ public class CameraView extends JComponent implements CameraListener {
 		this.text = text;
 	}
 
+	/**
+	 * Returns a copy of the selected area of the last frame, or null if there
+	 * is no selection or no frame. The selection flashes to show that it was
+	 * captured, but the flash animates on its own and this returns
+	 * immediately.
+	 * @return
+	 */
 	public BufferedImage captureSelectionImage() {
 		if (selection == null || lastFrame == null) {
 			return null;
 		}
 
 		selectionFlashOpacity = 1.0f;
-
-		ScheduledFuture future = scheduledExecutor.scheduleAtFixedRate(
-				new Runnable() {
-					public void run() {
-						if (selectionFlashOpacity > 0) {
-							selectionFlashOpacity -= 0.07;
-							selectionFlashOpacity = Math.max(0,
-									selectionFlashOpacity);
-							repaint();
-						}
-						else {
-							throw new RuntimeException();
-						}
-					}
-				}, 0, 30, TimeUnit.MILLISECONDS);
+		AnimationScheduler.get().start(selectionAnimation);
 
 		int sx = selection.x;
 		int sy = selection.y;
@@ -337,9 +388,6 @@ public class CameraView extends JComponent implements CameraListener {
 		g.drawImage(lastFrame, 0, 0, sw, sh, sx, sy, sx + sw, sy + sh, null);
 		g.dispose();
 
-		while (!future.isDone())
-			;
-
 		return image;
 	}
 
@@ -356,9 +404,51 @@ public class CameraView extends JComponent implements CameraListener {
 						.getHeight() != img.getHeight())) {
 			calculateScalingData();
 		}
+		renderScaledFrame(img);
 		repaint();
 	}
 
+	/**
+	 * Scales the frame to the current display size on the calling thread,
+	 * which is the camera's capture thread, and publishes it for
+	 * paintComponent(). The destination is a compatible image for the
+	 * screen the component is on so that the blit on the EDT needs neither
+	 * scaling nor pixel format conversion.
+	 * @param img
+	 */
+	private void renderScaledFrame(BufferedImage img) {
+		int width, height;
+		synchronized (this) {
+			width = scaledWidth;
+			height = scaledHeight;
+		}
+		GraphicsConfiguration gc = getGraphicsConfiguration();
+		if (gc == null || width <= 0 || height <= 0) {
+			scaledFrame = null;
+			return;
+		}
+		synchronized (frameLock) {
+			ScaledFrame frame = spareFrame;
+			if (frame == null || frame.image.getWidth() != width
+					|| frame.image.getHeight() != height) {
+				frame = new ScaledFrame(gc.createCompatibleImage(width,
+						height, Transparency.OPAQUE));
+			}
+			// The EDT holds the frame's lock while blitting it, so this
+			// only waits if it is still drawing a frame from two captures
+			// ago.
+			synchronized (frame) {
+				Graphics2D g = frame.image.createGraphics();
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+						RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.drawImage(img, 0, 0, width, height, null);
+				g.dispose();
+			}
+			spareFrame = scaledFrame;
+			scaledFrame = frame;
+		}
+	}
+
 	/**
 	 * Calculates a bunch of scaling data that we cache to speed up painting.
 	 * This is recalculated when the size of the component or the size of the
@@ -414,43 +504,66 @@ public class CameraView extends JComponent implements CameraListener {
 		}
 	}
 
+	/**
+	 * Paints the current frame, overlays and selection. The frame and
+	 * overlays are already rendered at display size so, other than while
+	 * the component is being resized, this is only a few blits. Scaling data
+	 * is copied under the lock rather than holding it for the whole paint
+	 * so that the capture thread is never blocked by the EDT.
+	 */
 	@Override
-	protected synchronized void paintComponent(Graphics g) {
+	protected void paintComponent(Graphics g) {
 		super.paintComponent(g);
 		BufferedImage image = lastFrame;
 		Insets ins = getInsets();
 		int width = getWidth() - ins.left - ins.right;
 		int height = getHeight() - ins.top - ins.bottom;
+		int imageX, imageY, scaledWidth, scaledHeight;
+		double scaledUnitsPerPixelX, scaledUnitsPerPixelY;
+		synchronized (this) {
+			imageX = this.imageX;
+			imageY = this.imageY;
+			scaledWidth = this.scaledWidth;
+			scaledHeight = this.scaledHeight;
+			scaledUnitsPerPixelX = this.scaledUnitsPerPixelX;
+			scaledUnitsPerPixelY = this.scaledUnitsPerPixelY;
+		}
 		Graphics2D g2d = (Graphics2D) g;
 		g.setColor(getBackground());
 		g2d.fillRect(ins.left, ins.top, width, height);
 		if (image != null) {
 			// Only render if there is a valid image.
-			g2d.drawImage(lastFrame, imageX, imageY, scaledWidth, scaledHeight,
-					null);
-
-			double c = camera.getLocation().getRotation();
-			
-			for (Reticle reticle : reticles.values()) {
-				reticle.draw(
-						g2d, 
-						camera.getUnitsPerPixel().getUnits(),
-						scaledUnitsPerPixelX, 
-						scaledUnitsPerPixelY, 
-						ins.left + (width / 2), 
-						ins.top + (height / 2),
-						scaledWidth, 
-						scaledHeight,
-						c);
+			ScaledFrame frame = scaledFrame;
+			if (frame != null && frame.image.getWidth() == scaledWidth
+					&& frame.image.getHeight() == scaledHeight) {
+				synchronized (frame) {
+					g2d.drawImage(frame.image, imageX, imageY, null);
+				}
 			}
-			
-			if (text != null) {
-				drawTextOverlay(g2d, 10, 10, text);
+			else {
+				// The component was resized since the last frame was
+				// scaled, so scale this one here until the next arrives.
+				g2d.drawImage(image, imageX, imageY, scaledWidth,
+						scaledHeight, null);
+			}
+
+			BufferedImage overlay = getOverlayLayer(scaledWidth,
+					scaledHeight, scaledUnitsPerPixelX, scaledUnitsPerPixelY);
+			if (overlay != null) {
+				g2d.drawImage(overlay, 0, 0, null);
 			}
 
 			if (selectionEnabled && selection != null) {
 				paintSelection(g2d);
 			}
+
+			// Callers usually disable the selection as soon as they have
+			// captured it, so the flash is painted on its own.
+			Rectangle flash = selectionScaled;
+			if (selectionFlashOpacity > 0 && flash != null) {
+				g2d.setColor(new Color(1.0f, 1.0f, 1.0f, selectionFlashOpacity));
+				g2d.fillRect(flash.x, flash.y, flash.width, flash.height);
+			}
 		}
 		else {
 			g.setColor(Color.red);
@@ -459,6 +572,87 @@ public class CameraView extends JComponent implements CameraListener {
 		}
 	}
 
+	/**
+	 * Returns the reticles and text overlay rendered into a translucent
+	 * image the size of the component, re-rendering it only if the view's
+	 * size, scale, the camera's rotation, the text or the reticles have
+	 * changed since the last call. Returns null if there is nothing to
+	 * draw.
+	 */
+	private BufferedImage getOverlayLayer(int scaledWidth, int scaledHeight,
+			double scaledUnitsPerPixelX, double scaledUnitsPerPixelY) {
+		if (reticles.isEmpty() && text == null) {
+			return null;
+		}
+		int componentWidth = getWidth();
+		int componentHeight = getHeight();
+		if (componentWidth <= 0 || componentHeight <= 0) {
+			return null;
+		}
+		LengthUnit units = camera.getUnitsPerPixel().getUnits();
+		double rotation = camera.getLocation().getRotation();
+		if (!overlayLayerInvalid
+				&& overlayLayer != null
+				&& overlayLayer.getWidth() == componentWidth
+				&& overlayLayer.getHeight() == componentHeight
+				&& overlayLayerScaledWidth == scaledWidth
+				&& overlayLayerScaledHeight == scaledHeight
+				&& overlayLayerUnitsPerPixelX == scaledUnitsPerPixelX
+				&& overlayLayerUnitsPerPixelY == scaledUnitsPerPixelY
+				&& overlayLayerRotation == rotation
+				&& overlayLayerUnits == units
+				&& (text == null ? overlayLayerText == null : text
+						.equals(overlayLayerText))) {
+			return overlayLayer;
+		}
+		overlayLayerInvalid = false;
+
+		if (overlayLayer == null
+				|| overlayLayer.getWidth() != componentWidth
+				|| overlayLayer.getHeight() != componentHeight) {
+			GraphicsConfiguration gc = getGraphicsConfiguration();
+			if (gc == null) {
+				return null;
+			}
+			overlayLayer = gc.createCompatibleImage(componentWidth,
+					componentHeight, Transparency.TRANSLUCENT);
+		}
+		Graphics2D g2d = overlayLayer.createGraphics();
+		g2d.setComposite(AlphaComposite.Clear);
+		g2d.fillRect(0, 0, componentWidth, componentHeight);
+		g2d.setComposite(AlphaComposite.SrcOver);
+
+		Insets ins = getInsets();
+		int width = componentWidth - ins.left - ins.right;
+		int height = componentHeight - ins.top - ins.bottom;
+		for (Reticle reticle : reticles.values()) {
+			reticle.draw(
+					g2d, 
+					units,
+					scaledUnitsPerPixelX, 
+					scaledUnitsPerPixelY, 
+					ins.left + (width / 2), 
+					ins.top + (height / 2),
+					scaledWidth, 
+					scaledHeight,
+					rotation);
+		}
+		
+		if (text != null) {
+			drawTextOverlay(g2d, 10, 10, text);
+		}
+		g2d.dispose();
+
+		overlayLayerScaledWidth = scaledWidth;
+		overlayLayerScaledHeight = scaledHeight;
+		overlayLayerUnitsPerPixelX = scaledUnitsPerPixelX;
+		overlayLayerUnitsPerPixelY = scaledUnitsPerPixelY;
+		overlayLayerRotation = rotation;
+		overlayLayerUnits = units;
+		overlayLayerText = text;
+		return overlayLayer;
+	}
+
 	private void paintSelection(Graphics2D g2d) {
 		int rx = selectionScaled.x;
 		int ry = selectionScaled.y;
@@ -504,11 +698,6 @@ public class CameraView extends JComponent implements CameraListener {
 						text);
 			}
 		}
-
-		if (selectionFlashOpacity > 0) {
-			g2d.setColor(new Color(1.0f, 1.0f, 1.0f, selectionFlashOpacity));
-			g2d.fillRect(rx, ry, rw, rh);
-		}
 	}
 
 	/**
@@ -775,6 +964,7 @@ public class CameraView extends JComponent implements CameraListener {
 			int rw = (int) (selection.width / scaleRatioX);
 			int rh = (int) (selection.height / scaleRatioY);
 			selectionScaled = new Rectangle(rx, ry, rw, rh);
+			startSelectionAnimation();
 		}
 	}
 
@@ -799,6 +989,13 @@ public class CameraView extends JComponent implements CameraListener {
 		int rh = (int) (height * scaleRatioY);
 
 		selection = new Rectangle(rx, ry, rw, rh);
+		startSelectionAnimation();
+	}
+
+	private void startSelectionAnimation() {
+		if (selectionEnabled) {
+			AnimationScheduler.get().start(selectionAnimation);
+		}
 	}
 
 	public boolean isSelectionEnabled() {
@@ -807,6 +1004,9 @@ public class CameraView extends JComponent implements CameraListener {
 
 	public void setSelectionEnabled(boolean selectionEnabled) {
 		this.selectionEnabled = selectionEnabled;
+		if (selection != null) {
+			startSelectionAnimation();
+		}
 	}
 
 	public static Cursor getCursorForHandlePosition(
@@ -1023,4 +1223,16 @@ public class CameraView extends JComponent implements CameraListener {
 			return text;
 		}
 	};
+
+	/**
+	 * A frame scaled to display size. The image is locked while it is being
+	 * drawn into or blitted.
+	 */
+	private static class ScaledFrame {
+		final BufferedImage image;
+
+		public ScaledFrame(BufferedImage image) {
+			this.image = image;
+		}
+	}
 }
@@ -0,0 +1,111 @@
+/*
+ 	Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ 	
+ 	This file is part of OpenPnP.
+ 	
+	OpenPnP is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    OpenPnP is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with OpenPnP.  If not, see <http://www.gnu.org/licenses/>.
+ 	
+ 	For more information about OpenPnP visit http://openpnp.org
+ */
+
+
+package org.openpnp.gui.components;
+
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.LinkedList;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.Timer;
+import javax.swing.border.BevelBorder;
+
+import org.openpnp.metrics.Counter;
+import org.openpnp.metrics.LatencyHistogram;
+import org.openpnp.metrics.Metrics;
+
+/**
+ * Shows the live placement rate, average cycle time and average vision time
+ * from the Metrics registry. The rate is components per hour over the last
+ * minute of placements.
+ */
+@SuppressWarnings("serial")
+public class ThroughputPanel extends JPanel {
+	private static final int UPDATE_INTERVAL_MILLISECONDS = 1000;
+	private static final long WINDOW_MILLISECONDS = 60 * 1000;
+
+	private final Counter placed = Metrics.counter("job.placed");
+	private final LatencyHistogram cycle = Metrics.histogram("job.cycle");
+
+	/**
+	 * Samples of [time in milliseconds, placed count] covering the window.
+	 */
+	private final LinkedList<long[]> samples = new LinkedList<long[]>();
+
+	private JLabel lblRate;
+	private JLabel lblCycle;
+	private JLabel lblVision;
+
+	public ThroughputPanel() {
+		setLayout(new FlowLayout(FlowLayout.RIGHT, 10, 0));
+		setBorder(new BevelBorder(BevelBorder.LOWERED, null, null, null, null));
+
+		lblRate = new JLabel();
+		add(lblRate);
+		lblCycle = new JLabel();
+		add(lblCycle);
+		lblVision = new JLabel();
+		add(lblVision);
+		update();
+
+		Timer timer = new Timer(UPDATE_INTERVAL_MILLISECONDS,
+				new ActionListener() {
+					public void actionPerformed(ActionEvent e) {
+						update();
+					}
+				});
+		timer.start();
+	}
+
+	private void update() {
+		long now = System.currentTimeMillis();
+		long count = placed.getCount();
+		samples.addLast(new long[] { now, count });
+		while (samples.size() > 2
+				&& now - samples.get(1)[0] >= WINDOW_MILLISECONDS) {
+			samples.removeFirst();
+		}
+		long[] oldest = samples.getFirst();
+		long elapsed = now - oldest[0];
+		double rate = elapsed == 0 ? 0 : (count - oldest[1]) * 3600000.0
+				/ elapsed;
+		lblRate.setText(String.format("%.0f CPH", rate));
+
+		LatencyHistogram.Snapshot cycleSnapshot = cycle.getSnapshot();
+		lblCycle.setText(String.format("Cycle %.2f s",
+				cycleSnapshot.getMeanMillis() / 1000.0));
+
+		long visionCount = 0;
+		long visionNanoseconds = 0;
+		for (LatencyHistogram histogram : Metrics.getHistograms()) {
+			if (histogram.getName().startsWith("vision.")) {
+				visionCount += histogram.getCount();
+				visionNanoseconds += histogram.getTotalNanoseconds();
+			}
+		}
+		lblVision.setText(String.format("Vision %.0f ms",
+				visionCount == 0 ? 0 : visionNanoseconds / 1e6 / visionCount));
+	}
+}
@@ -25,13 +25,8 @@ import java.awt.FileDialog;
 import java.awt.FlowLayout;
 import java.awt.Frame;
 import java.awt.event.ActionEvent;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FilenameFilter;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -51,15 +46,9 @@ import javax.swing.JTextField;
 import javax.swing.KeyStroke;
 import javax.swing.border.TitledBorder;
 
+import org.openpnp.gui.importer.PlacementFileParser.ParsedPlacement;
 import org.openpnp.gui.support.MessageBoxes;
 import org.openpnp.model.Board;
-import org.openpnp.model.Board.Side;
-import org.openpnp.model.Configuration;
-import org.openpnp.model.LengthUnit;
-import org.openpnp.model.Location;
-import org.openpnp.model.Package;
-import org.openpnp.model.Part;
-import org.openpnp.model.Placement;
 
 import com.jgoodies.forms.factories.FormFactory;
 import com.jgoodies.forms.layout.ColumnSpec;
@@ -167,59 +156,32 @@ public class MountsmdPosImporter extends JDialog implements BoardImporter {
 		return board;
 	}
 	
-	private static List<Placement> parseFile(File file, Side side, boolean createMissingParts) throws Exception {
-		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
-		ArrayList<Placement> placements = new ArrayList<Placement>();
-		String line;
-		while ((line = reader.readLine()) != null) {
-			line = line.trim();
-			if (line.length() == 0 || line.charAt(0) == '#') {
-				continue;
+	/**
+	 * Parses lines of a KiCAD .pos file. Lines starting with # are comments.
+	 * The Part id is the value column and the Package is left blank.
+	 */
+	static class Parser implements PlacementFileParser {
+		private static final Pattern pattern = Pattern.compile("(\\S+)\\s+(.*?)\\s(\\d+\\.\\d+)\\s+(\\d+\\.\\d+)\\s+(\\d+\\.\\d+)\\s(.*)");
+		
+		@Override
+		public ParsedPlacement parseLine(String line) throws Exception {
+			if (line.charAt(0) == '#') {
+				return null;
 			}
-
-			// C1 41.91 34.93 180 0.1uF C0805
-			// T10 21.59 14.22  90  SOT23-BEC
-			// printf("%s %5.2f %5.2f %3.0f %s %s\n",
-
-			//Pattern pattern = Pattern.compile("(\\S+)\\s+(\\d+\\.\\d+)\\s+(\\d+\\.\\d+)\\s+(\\d{1,3})\\s(.*?)\\s(.*)");
-			Pattern pattern = Pattern.compile("(\\S+)\\s+(.*?)\\s(\\d+\\.\\d+)\\s+(\\d+\\.\\d+)\\s+(\\d+\\.\\d+)\\s(.*)");
-
 			Matcher matcher = pattern.matcher(line);
-			matcher.matches();
-			Placement placement = new Placement(matcher.group(1));
-			placement.setLocation(new Location(
-			        LengthUnit.Millimeters,
-			        Double.parseDouble(matcher.group(3)),
-			        Double.parseDouble(matcher.group(4)),
-			        0,
-			        Double.parseDouble(matcher.group(5))));
-			Configuration cfg = Configuration.get();
-            if (cfg != null && createMissingParts) {
-                //String packageId = matcher.group(6);
-                //String partId = packageId + "-" + matcher.group(2);
-		String packageId = "";
-                String partId = matcher.group(2);
-                Part part = cfg.getPart(partId);
-                if (part == null) {
-                    part = new Part(partId);
-                    Package pkg = cfg.getPackage(packageId);
-                    if (pkg == null) {
-                        pkg = new Package(packageId);
-                        cfg.addPackage(pkg);
-                    }
-                    part.setPackage(pkg);
-
-                    cfg.addPart(part);
-                }
-                placement.setPart(part);
-
-            }
-
-			placement.setSide(side);
-			placements.add(placement);
+			if (!matcher.matches()) {
+				throw new Exception("Unrecognized line: " + line);
+			}
+			return new ParsedPlacement(
+					matcher.group(1),
+					Double.parseDouble(matcher.group(3)),
+					Double.parseDouble(matcher.group(4)),
+					Double.parseDouble(matcher.group(5)),
+					matcher.group(2),
+					"");
 		}
-		return placements;
 	}
+	
 	private class SwingAction extends AbstractAction {
 		public SwingAction() {
 			putValue(NAME, "Browse");
@@ -273,18 +235,14 @@ public class MountsmdPosImporter extends JDialog implements BoardImporter {
 			topFile = new File(textFieldTopFile.getText());
 			bottomFile = new File(textFieldBottomFile.getText());
 			board = new Board();
-			List<Placement> placements = new ArrayList<Placement>();
+			PlacementFileImporter importer = new PlacementFileImporter(new Parser(), chckbxCreateMissingParts.isSelected());
 			try {
-				placements.addAll(parseFile(topFile, Side.Top, chckbxCreateMissingParts.isSelected()));
-				placements.addAll(parseFile(bottomFile, Side.Bottom, chckbxCreateMissingParts.isSelected()));
+				board.addPlacements(importer.importPlacements(topFile, bottomFile));
 			}
 			catch (Exception e1) {
 				MessageBoxes.errorBox(MountsmdPosImporter.this, "Import Error", e1);
 				return;
 			}
-			for (Placement placement : placements) {
-				board.addPlacement(placement);
-			}
 			setVisible(false);
 		}
 	}
@@ -0,0 +1,203 @@
+package org.openpnp.gui.importer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.openpnp.gui.importer.PlacementFileParser.ParsedPlacement;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Package;
+import org.openpnp.model.Part;
+import org.openpnp.model.Placement;
+
+/**
+ * Imports Placements from a pair of top and bottom side CAD pick and place
+ * files using a PlacementFileParser for the line format.
+ *
+ * The files are streamed line by line and the two sides are parsed
+ * concurrently. Parts are resolved once per distinct part id after parsing,
+ * and any missing Parts and Packages are added to the Configuration in one
+ * batch each, so listeners see a single change however many lines the files
+ * have.
+ */
+public class PlacementFileImporter {
+    private final PlacementFileParser parser;
+    private final boolean createMissingParts;
+
+    public PlacementFileImporter(PlacementFileParser parser,
+            boolean createMissingParts) {
+        this.parser = parser;
+        this.createMissingParts = createMissingParts;
+    }
+
+    /**
+     * Imports the top and bottom files. Either may be null or not exist, in
+     * which case that side is skipped.
+     * @param topFile
+     * @param bottomFile
+     * @return
+     * @throws Exception
+     */
+    public List<Placement> importPlacements(File topFile, File bottomFile)
+            throws Exception {
+        List<ParsedPlacement> top;
+        List<ParsedPlacement> bottom;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<ParsedPlacement>> topFuture = executor
+                    .submit(parseTask(topFile));
+            Future<List<ParsedPlacement>> bottomFuture = executor
+                    .submit(parseTask(bottomFile));
+            top = get(topFuture);
+            bottom = get(bottomFuture);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Part> parts = resolveParts(top, bottom);
+
+        List<Placement> placements = new ArrayList<Placement>(top.size()
+                + bottom.size());
+        createPlacements(top, Side.Top, parts, placements);
+        createPlacements(bottom, Side.Bottom, parts, placements);
+        return placements;
+    }
+
+    /**
+     * Reads the file and returns the parsed lines. Exposed so that callers
+     * with a single file can skip the threading.
+     * @param file
+     * @return
+     * @throws Exception
+     */
+    public List<ParsedPlacement> parseFile(File file) throws Exception {
+        List<ParsedPlacement> results = new ArrayList<ParsedPlacement>();
+        if (file == null || !file.exists()) {
+            return results;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file)), 64 * 1024);
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.length() == 0) {
+                    continue;
+                }
+                ParsedPlacement placement;
+                try {
+                    placement = parser.parseLine(line);
+                }
+                catch (Exception e) {
+                    throw new Exception(String.format(
+                            "%s, line %d: %s", file.getName(), lineNumber,
+                            e.getMessage()), e);
+                }
+                if (placement != null) {
+                    results.add(placement);
+                }
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return results;
+    }
+
+    private Callable<List<ParsedPlacement>> parseTask(final File file) {
+        return new Callable<List<ParsedPlacement>>() {
+            public List<ParsedPlacement> call() throws Exception {
+                return parseFile(file);
+            }
+        };
+    }
+
+    private static <T> T get(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up every distinct part id once. Missing Parts, and the Packages
+     * they need, are created and added to the Configuration in one batch if
+     * createMissingParts is set; otherwise their Placements get no Part.
+     */
+    private Map<String, Part> resolveParts(List<ParsedPlacement> top,
+            List<ParsedPlacement> bottom) {
+        Configuration configuration = Configuration.get();
+        Map<String, Part> parts = new LinkedHashMap<String, Part>();
+        Map<String, Part> newParts = new LinkedHashMap<String, Part>();
+        Map<String, Package> newPackages = new LinkedHashMap<String, Package>();
+        resolveParts(configuration, top, parts, newParts, newPackages);
+        resolveParts(configuration, bottom, parts, newParts, newPackages);
+        if (!newPackages.isEmpty()) {
+            configuration.addPackages(newPackages.values());
+        }
+        if (!newParts.isEmpty()) {
+            configuration.addParts(newParts.values());
+        }
+        return parts;
+    }
+
+    private void resolveParts(Configuration configuration,
+            List<ParsedPlacement> parsedPlacements, Map<String, Part> parts,
+            Map<String, Part> newParts, Map<String, Package> newPackages) {
+        for (ParsedPlacement parsed : parsedPlacements) {
+            // Part ids are case insensitive in the Configuration.
+            String key = parsed.partId.toUpperCase();
+            if (parts.containsKey(key)) {
+                continue;
+            }
+            Part part = configuration.getPart(parsed.partId);
+            if (part == null && createMissingParts) {
+                part = new Part(parsed.partId);
+                Package pkg = configuration.getPackage(parsed.packageId);
+                if (pkg == null) {
+                    pkg = newPackages.get(parsed.packageId.toUpperCase());
+                }
+                if (pkg == null) {
+                    pkg = new Package(parsed.packageId);
+                    newPackages.put(parsed.packageId.toUpperCase(), pkg);
+                }
+                part.setPackage(pkg);
+                newParts.put(key, part);
+            }
+            parts.put(key, part);
+        }
+    }
+
+    private static void createPlacements(List<ParsedPlacement> parsed,
+            Side side, Map<String, Part> parts, List<Placement> placements) {
+        for (ParsedPlacement p : parsed) {
+            Placement placement = new Placement(p.id);
+            placement.setLocation(new Location(LengthUnit.Millimeters, p.x,
+                    p.y, 0, p.rotation));
+            placement.setPart(parts.get(p.partId.toUpperCase()));
+            placement.setSide(side);
+            placements.add(placement);
+        }
+    }
+}
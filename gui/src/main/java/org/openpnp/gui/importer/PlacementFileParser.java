@@ -0,0 +1,42 @@
+package org.openpnp.gui.importer;
+
+/**
+ * Parses a single line of a CAD pick and place file. Implement this to add
+ * support for a new file format to PlacementFileImporter. Implementations
+ * must be thread safe since the top and bottom files of a board are parsed
+ * concurrently.
+ */
+public interface PlacementFileParser {
+    /**
+     * Parses one line of the file. Returns null if the line holds no
+     * placement, for instance a blank line or a comment. Throws an Exception
+     * if the line is malformed.
+     * @param line
+     * @return
+     * @throws Exception
+     */
+    public ParsedPlacement parseLine(String line) throws Exception;
+
+    /**
+     * A placement as read from the file, before its Part is resolved.
+     * Units are millimeters and rotation is in degrees.
+     */
+    public static class ParsedPlacement {
+        public final String id;
+        public final double x;
+        public final double y;
+        public final double rotation;
+        public final String partId;
+        public final String packageId;
+
+        public ParsedPlacement(String id, double x, double y, double rotation,
+                String partId, String packageId) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+            this.rotation = rotation;
+            this.partId = partId;
+            this.packageId = packageId;
+        }
+    }
+}
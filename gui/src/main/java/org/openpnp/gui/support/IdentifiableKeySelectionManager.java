@@ -0,0 +1,72 @@
+/*
+ 	Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+
+ 	This file is part of OpenPnP.
+
+	OpenPnP is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    OpenPnP is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with OpenPnP.  If not, see <http://www.gnu.org/licenses/>.
+
+ 	For more information about OpenPnP visit http://openpnp.org
+*/
+
+package org.openpnp.gui.support;
+
+import javax.swing.ComboBoxModel;
+import javax.swing.JComboBox;
+
+import org.openpnp.model.Identifiable;
+import org.openpnp.util.IdentifiableCatalog;
+
+/**
+ * Selects the first item whose id starts with what the user has typed into
+ * a JComboBox, or failing that the first whose id contains it, using the
+ * catalog's indexes rather than searching the model. Characters typed within
+ * TYPING_INTERVAL_MILLISECONDS of each other build up the text. The model must present the catalog's getSorted()
+ * list, as PartsComboBoxModel and PackagesComboBoxModel do.
+ */
+public class IdentifiableKeySelectionManager<T extends Identifiable> implements JComboBox.KeySelectionManager {
+	private static final long TYPING_INTERVAL_MILLISECONDS = 1000;
+
+	private final IdentifiableCatalog<T> catalog;
+	private String prefix = "";
+	private long lastKeyTime;
+
+	public IdentifiableKeySelectionManager(IdentifiableCatalog<T> catalog) {
+		this.catalog = catalog;
+	}
+
+	@Override
+	public int selectionForKey(char key, ComboBoxModel model) {
+		long now = System.currentTimeMillis();
+		if (now - lastKeyTime > TYPING_INTERVAL_MILLISECONDS) {
+			prefix = "";
+		}
+		lastKeyTime = now;
+		prefix += key;
+		int index = catalog.indexOfPrefix(prefix);
+		if (index == -1 && prefix.length() > 1) {
+			// Look for what was typed inside the ids, so that for instance
+			// "10K" finds "R-0805-10K".
+			int[] indexes = catalog.indexesOfSubstring(prefix);
+			if (indexes.length > 0) {
+				index = indexes[0];
+			}
+		}
+		if (index == -1 && prefix.length() > 1) {
+			// Start over with the key just typed.
+			prefix = String.valueOf(key);
+			index = catalog.indexOfPrefix(prefix);
+		}
+		return index < model.getSize() ? index : -1;
+	}
+}
@@ -23,33 +23,60 @@ package org.openpnp.gui.support;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
 
-import javax.swing.DefaultComboBoxModel;
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
 
 import org.openpnp.model.Configuration;
 
+/**
+ * A ComboBoxModel that presents the sorted snapshot of the packages catalog
+ * directly rather than copying every entry into the model, so that it stays
+ * cheap to create and refresh with large libraries.
+ */
 @SuppressWarnings("serial")
-public class PackagesComboBoxModel extends DefaultComboBoxModel implements PropertyChangeListener {
-	private IdentifiableComparator<org.openpnp.model.Package> comparator = new IdentifiableComparator<org.openpnp.model.Package>();
-
+public class PackagesComboBoxModel extends AbstractListModel implements ComboBoxModel, PropertyChangeListener {
+	private List<org.openpnp.model.Package> packages;
+	private Object selectedItem;
+	
 	public PackagesComboBoxModel() {
-		addAllElements();
+		packages = Configuration.get().getPackagesCatalog().getSorted();
 		Configuration.get().addPropertyChangeListener("packages", this);
 	}
 	
-	private void addAllElements() {
-		ArrayList<org.openpnp.model.Package> packages = new ArrayList<org.openpnp.model.Package>(Configuration.get().getPackages());
-		Collections.sort(packages, comparator);
-		for (org.openpnp.model.Package pkg : packages) {
-			addElement(pkg);
+	@Override
+	public int getSize() {
+		return packages.size();
+	}
+
+	@Override
+	public Object getElementAt(int index) {
+		return packages.get(index);
+	}
+
+	@Override
+	public void setSelectedItem(Object item) {
+		if ((selectedItem != null && !selectedItem.equals(item)) || (selectedItem == null && item != null)) {
+			selectedItem = item;
+			fireContentsChanged(this, -1, -1);
 		}
 	}
+
+	@Override
+	public Object getSelectedItem() {
+		return selectedItem;
+	}
 	
 	@Override
 	public void propertyChange(PropertyChangeEvent evt) {
-		removeAllElements();
-		addAllElements();
+		int oldSize = packages.size();
+		packages = Configuration.get().getPackagesCatalog().getSorted();
+		if (oldSize > 0) {
+			fireIntervalRemoved(this, 0, oldSize - 1);
+		}
+		if (packages.size() > 0) {
+			fireIntervalAdded(this, 0, packages.size() - 1);
+		}
 	}
 }
@@ -23,34 +23,61 @@ package org.openpnp.gui.support;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
 
-import javax.swing.DefaultComboBoxModel;
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
 
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Part;
 
+/**
+ * A ComboBoxModel that presents the sorted snapshot of the parts catalog
+ * directly rather than copying every entry into the model, so that it stays
+ * cheap to create and refresh with large libraries.
+ */
 @SuppressWarnings("serial")
-public class PartsComboBoxModel extends DefaultComboBoxModel implements PropertyChangeListener {
-	private IdentifiableComparator<Part> comparator = new IdentifiableComparator<Part>();
+public class PartsComboBoxModel extends AbstractListModel implements ComboBoxModel, PropertyChangeListener {
+	private List<Part> parts;
+	private Object selectedItem;
 	
 	public PartsComboBoxModel() {
-		addAllElements();
+		parts = Configuration.get().getPartsCatalog().getSorted();
 		Configuration.get().addPropertyChangeListener("parts", this);
 	}
 	
-	private void addAllElements() {
-		ArrayList<Part> parts = new ArrayList<Part>(Configuration.get().getParts());
-		Collections.sort(parts, comparator);
-		for (Part part : parts) {
-			addElement(part);
+	@Override
+	public int getSize() {
+		return parts.size();
+	}
+
+	@Override
+	public Object getElementAt(int index) {
+		return parts.get(index);
+	}
+
+	@Override
+	public void setSelectedItem(Object item) {
+		if ((selectedItem != null && !selectedItem.equals(item)) || (selectedItem == null && item != null)) {
+			selectedItem = item;
+			fireContentsChanged(this, -1, -1);
 		}
 	}
+
+	@Override
+	public Object getSelectedItem() {
+		return selectedItem;
+	}
 	
 	@Override
 	public void propertyChange(PropertyChangeEvent evt) {
-		removeAllElements();
-		addAllElements();
+		int oldSize = parts.size();
+		parts = Configuration.get().getPartsCatalog().getSorted();
+		if (oldSize > 0) {
+			fireIntervalRemoved(this, 0, oldSize - 1);
+		}
+		if (parts.size() > 0) {
+			fireIntervalAdded(this, 0, parts.size() - 1);
+		}
 	}
 }
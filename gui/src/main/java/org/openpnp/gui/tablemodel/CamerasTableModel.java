@@ -111,7 +111,7 @@ public class CamerasTableModel extends AbstractTableModel {
 			    }
 			    camera.setHead(value.getHead());
 			}
-			configuration.setDirty(true);
+			configuration.setDirty(Configuration.Section.Machine);
 		}
 		catch (Exception e) {
 			// TODO: dialog, bad input
@@ -79,7 +79,7 @@ public class FeedersTableModel extends AbstractTableModel {
 			if (columnIndex == 2) {
 				feeder.setEnabled((Boolean) aValue);
 			}
-			configuration.setDirty(true);
+			configuration.setDirty(Configuration.Section.Machine);
 		}
 		catch (Exception e) {
 			// TODO: dialog, bad input
@@ -23,7 +23,6 @@ package org.openpnp.gui.tablemodel;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.ArrayList;
 import java.util.List;
 
 import javax.swing.table.AbstractTableModel;
@@ -55,7 +54,7 @@ public class PartsTableModel extends AbstractTableModel implements PropertyChang
 	public PartsTableModel(Configuration configuration) {
 		this.configuration = configuration;
 		configuration.addPropertyChangeListener("parts", this);
-		parts = new ArrayList<Part>(configuration.getParts());
+		parts = configuration.getParts();
 	}
 
 	@Override
@@ -110,7 +109,7 @@ public class PartsTableModel extends AbstractTableModel implements PropertyChang
 			else if (columnIndex == 3) {
 				part.setPackage((Package) aValue);
 			}
-			configuration.setDirty(true);
+			configuration.setDirty(Configuration.Section.Parts);
 		}
 		catch (Exception e) {
 			// TODO: dialog, bad input
@@ -135,7 +134,7 @@ public class PartsTableModel extends AbstractTableModel implements PropertyChang
 
 	@Override
 	public void propertyChange(PropertyChangeEvent arg0) {
-		parts = new ArrayList<Part>(configuration.getParts());
+		parts = configuration.getParts();
 		fireTableDataChanged();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,192 @@
+package org.openpnp.gui.wizards;
+
+import javax.swing.JCheckBox;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.border.EtchedBorder;
+import javax.swing.border.TitledBorder;
+
+import org.jdesktop.beansbinding.AutoBinding.UpdateStrategy;
+import org.openpnp.gui.components.ComponentDecorators;
+import org.openpnp.gui.components.LocationButtonsPanel;
+import org.openpnp.gui.support.AbstractConfigurationWizard;
+import org.openpnp.gui.support.DoubleConverter;
+import org.openpnp.gui.support.IntegerConverter;
+import org.openpnp.gui.support.LengthConverter;
+import org.openpnp.gui.support.MutableLocationProxy;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Location;
+import org.openpnp.util.BottomVision;
+
+import com.jgoodies.forms.factories.FormFactory;
+import com.jgoodies.forms.layout.ColumnSpec;
+import com.jgoodies.forms.layout.FormLayout;
+import com.jgoodies.forms.layout.RowSpec;
+
+/**
+ * Edits the BottomVision settings of the machine.
+ */
+public class BottomVisionConfigurationWizard extends AbstractConfigurationWizard {
+    private final BottomVision bottomVision;
+
+    private JCheckBox chckbxEnabled;
+    private JTextField textFieldCameraId;
+    private JTextField textFieldSettleTime;
+    private JTextField textFieldThreshold;
+    private JTextField textFieldMinimumPixels;
+    private JTextField textFieldMaximumOffset;
+    private JTextField textFieldLocationX;
+    private JTextField textFieldLocationY;
+    private JTextField textFieldLocationZ;
+    private JTextField textFieldLocationC;
+
+    public BottomVisionConfigurationWizard(BottomVision bottomVision) {
+        this.bottomVision = bottomVision;
+
+        JPanel panelGeneral = new JPanel();
+        panelGeneral.setBorder(new TitledBorder(new EtchedBorder(EtchedBorder.LOWERED, null, null), "Bottom Vision", TitledBorder.LEADING, TitledBorder.TOP, null, null));
+        contentPanel.add(panelGeneral);
+        panelGeneral.setLayout(new FormLayout(new ColumnSpec[] {
+                FormFactory.RELATED_GAP_COLSPEC,
+                FormFactory.DEFAULT_COLSPEC,
+                FormFactory.RELATED_GAP_COLSPEC,
+                FormFactory.DEFAULT_COLSPEC,
+                FormFactory.RELATED_GAP_COLSPEC,
+                FormFactory.DEFAULT_COLSPEC,
+                FormFactory.RELATED_GAP_COLSPEC,
+                FormFactory.DEFAULT_COLSPEC,},
+            new RowSpec[] {
+                FormFactory.RELATED_GAP_ROWSPEC,
+                FormFactory.DEFAULT_ROWSPEC,
+                FormFactory.RELATED_GAP_ROWSPEC,
+                FormFactory.DEFAULT_ROWSPEC,
+                FormFactory.RELATED_GAP_ROWSPEC,
+                FormFactory.DEFAULT_ROWSPEC,
+                FormFactory.RELATED_GAP_ROWSPEC,
+                FormFactory.DEFAULT_ROWSPEC,}));
+
+        chckbxEnabled = new JCheckBox("Align Parts?");
+        panelGeneral.add(chckbxEnabled, "2, 2, 3, 1");
+
+        JLabel lblCameraId = new JLabel("Camera Id");
+        lblCameraId.setToolTipText("Leave empty to use the first up-looking camera.");
+        panelGeneral.add(lblCameraId, "2, 4, right, default");
+
+        textFieldCameraId = new JTextField();
+        panelGeneral.add(textFieldCameraId, "4, 4");
+        textFieldCameraId.setColumns(8);
+
+        JLabel lblSettleTime = new JLabel("Settle Time (ms)");
+        panelGeneral.add(lblSettleTime, "6, 4, right, default");
+
+        textFieldSettleTime = new JTextField();
+        panelGeneral.add(textFieldSettleTime, "8, 4");
+        textFieldSettleTime.setColumns(8);
+
+        JLabel lblThreshold = new JLabel("Threshold (0-255)");
+        panelGeneral.add(lblThreshold, "2, 6, right, default");
+
+        textFieldThreshold = new JTextField();
+        panelGeneral.add(textFieldThreshold, "4, 6");
+        textFieldThreshold.setColumns(8);
+
+        JLabel lblMinimumPixels = new JLabel("Minimum Pixels");
+        panelGeneral.add(lblMinimumPixels, "6, 6, right, default");
+
+        textFieldMinimumPixels = new JTextField();
+        panelGeneral.add(textFieldMinimumPixels, "8, 6");
+        textFieldMinimumPixels.setColumns(8);
+
+        JLabel lblMaximumOffset = new JLabel("Maximum Offset");
+        lblMaximumOffset.setToolTipText("The largest offset of a part from the nozzle that is accepted. 0 for no limit.");
+        panelGeneral.add(lblMaximumOffset, "2, 8, right, default");
+
+        textFieldMaximumOffset = new JTextField();
+        panelGeneral.add(textFieldMaximumOffset, "4, 8");
+        textFieldMaximumOffset.setColumns(8);
+
+        JPanel panelLocation = new JPanel();
+        panelLocation.setBorder(new TitledBorder(new EtchedBorder(EtchedBorder.LOWERED, null, null), "Nozzle Centered Over Camera", TitledBorder.LEADING, TitledBorder.TOP, null, null));
+        contentPanel.add(panelLocation);
+        panelLocation.setLayout(new FormLayout(new ColumnSpec[] {
+                FormFactory.RELATED_GAP_COLSPEC,
+                FormFactory.DEFAULT_COLSPEC,
+                FormFactory.RELATED_GAP_COLSPEC,
+                FormFactory.DEFAULT_COLSPEC,
+                FormFactory.RELATED_GAP_COLSPEC,
+                FormFactory.DEFAULT_COLSPEC,
+                FormFactory.RELATED_GAP_COLSPEC,
+                FormFactory.DEFAULT_COLSPEC,
+                FormFactory.RELATED_GAP_COLSPEC,
+                FormFactory.DEFAULT_COLSPEC,},
+            new RowSpec[] {
+                FormFactory.RELATED_GAP_ROWSPEC,
+                FormFactory.DEFAULT_ROWSPEC,
+                FormFactory.RELATED_GAP_ROWSPEC,
+                FormFactory.DEFAULT_ROWSPEC,}));
+
+        panelLocation.add(new JLabel("X"), "2, 2");
+        panelLocation.add(new JLabel("Y"), "4, 2");
+        panelLocation.add(new JLabel("Z"), "6, 2");
+        panelLocation.add(new JLabel("Rotation"), "8, 2");
+
+        textFieldLocationX = new JTextField();
+        panelLocation.add(textFieldLocationX, "2, 4");
+        textFieldLocationX.setColumns(8);
+
+        textFieldLocationY = new JTextField();
+        panelLocation.add(textFieldLocationY, "4, 4");
+        textFieldLocationY.setColumns(8);
+
+        textFieldLocationZ = new JTextField();
+        panelLocation.add(textFieldLocationZ, "6, 4");
+        textFieldLocationZ.setColumns(8);
+
+        textFieldLocationC = new JTextField();
+        panelLocation.add(textFieldLocationC, "8, 4");
+        textFieldLocationC.setColumns(8);
+
+        LocationButtonsPanel locationButtonsPanel = new LocationButtonsPanel(
+                textFieldLocationX, textFieldLocationY, textFieldLocationZ,
+                textFieldLocationC);
+        panelLocation.add(locationButtonsPanel, "10, 4");
+    }
+
+    @Override
+    public void createBindings() {
+        LengthConverter lengthConverter = new LengthConverter();
+        DoubleConverter doubleConverter = new DoubleConverter(Configuration.get().getLengthDisplayFormat());
+        IntegerConverter integerConverter = new IntegerConverter();
+
+        // The Location is unset until bottom vision is first configured,
+        // and the proxy needs one to edit field by field. Alignment stays
+        // off until it is enabled.
+        if (bottomVision.getLocation() == null) {
+            bottomVision.setLocation(new Location(Configuration.get().getSystemUnits()));
+        }
+        MutableLocationProxy location = new MutableLocationProxy();
+        bind(UpdateStrategy.READ_WRITE, bottomVision, "location", location, "location");
+        addWrappedBinding(location, "lengthX", textFieldLocationX, "text", lengthConverter);
+        addWrappedBinding(location, "lengthY", textFieldLocationY, "text", lengthConverter);
+        addWrappedBinding(location, "lengthZ", textFieldLocationZ, "text", lengthConverter);
+        addWrappedBinding(location, "rotation", textFieldLocationC, "text", doubleConverter);
+
+        addWrappedBinding(bottomVision, "enabled", chckbxEnabled, "selected");
+        addWrappedBinding(bottomVision, "cameraId", textFieldCameraId, "text");
+        addWrappedBinding(bottomVision, "settleTimeMilliseconds", textFieldSettleTime, "text", integerConverter);
+        addWrappedBinding(bottomVision, "threshold", textFieldThreshold, "text", integerConverter);
+        addWrappedBinding(bottomVision, "minimumPixels", textFieldMinimumPixels, "text", integerConverter);
+        addWrappedBinding(bottomVision, "maximumOffset", textFieldMaximumOffset, "text", doubleConverter);
+
+        ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldLocationX);
+        ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldLocationY);
+        ComponentDecorators.decorateWithAutoSelectAndLengthConversion(textFieldLocationZ);
+        ComponentDecorators.decorateWithAutoSelect(textFieldLocationC);
+        ComponentDecorators.decorateWithAutoSelect(textFieldCameraId);
+        ComponentDecorators.decorateWithAutoSelect(textFieldSettleTime);
+        ComponentDecorators.decorateWithAutoSelect(textFieldThreshold);
+        ComponentDecorators.decorateWithAutoSelect(textFieldMinimumPixels);
+        ComponentDecorators.decorateWithAutoSelect(textFieldMaximumOffset);
+    }
+}
@@ -0,0 +1,99 @@
+package org.openpnp.machine.reference;
+
+import org.openpnp.model.Location;
+import org.openpnp.spi.Head;
+import org.simpleframework.xml.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the Heads of a machine with more than one Head from running into
+ * each other. Each Head may have a zone, see ReferenceHead, that no other
+ * Head enters; everything outside the zones is shared workspace. A Head
+ * moves freely within its own zone, but a move that starts or ends outside
+ * it must first take the shared workspace, which only one Head holds at a
+ * time. The Head gives it up with the first move that ends back in its
+ * zone.
+ *
+ * Zones are rectangles, so a move between two points in a zone stays in
+ * it. A Head that has no zone is always in the shared workspace and could
+ * never give it up, so it takes it for one move at a time instead. That
+ * only keeps the moves from overlapping, not the Heads apart, which is why
+ * JobProcessor runs Heads one after another unless every Head has a zone.
+ *
+ * A Head that finishes its work in the shared workspace holds it until it
+ * parks, which JobProcessor has it do when it runs out of work.
+ */
+public class CollisionArbiter {
+    private final static Logger logger = LoggerFactory
+            .getLogger(CollisionArbiter.class);
+
+    /**
+     * How long a Head waits for the shared workspace before the move fails.
+     */
+    @Attribute(required = false)
+    private long timeoutMilliseconds = 60000;
+
+    private Head owner;
+
+    /**
+     * Moves the HeadMountable with the driver, waiting first for the shared
+     * workspace if the move needs it.
+     * @param driver
+     * @param hm
+     * @param location
+     * @param speed
+     * @throws Exception
+     */
+    public void moveTo(ReferenceDriver driver, ReferenceHeadMountable hm,
+            Location location, double speed) throws Exception {
+        Head head = hm.getHead();
+        Location from = driver.getLocation(hm).subtract(hm.getHeadOffsets());
+        Location to = location.convertToUnits(from.getUnits()).subtract(
+                hm.getHeadOffsets().convertToUnits(from.getUnits()));
+        // Axes that are NaN don't move.
+        to = new Location(from.getUnits(),
+                Double.isNaN(to.getX()) ? from.getX() : to.getX(),
+                Double.isNaN(to.getY()) ? from.getY() : to.getY(), 0, 0);
+        if (!head.isInZone(from) || !head.isInZone(to)) {
+            acquire(head);
+        }
+        driver.moveTo(hm, location, speed);
+        if (!head.hasZone() || head.isInZone(to)) {
+            release(head);
+        }
+    }
+
+    private synchronized void acquire(Head head) throws Exception {
+        if (owner == head) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMilliseconds;
+        while (owner != null) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new Exception(String.format(
+                        "Head %s timed out waiting for Head %s to leave the shared workspace.",
+                        head.getId(), owner.getId()));
+            }
+            logger.debug("{} waiting for {}", head.getId(), owner.getId());
+            wait(remaining);
+        }
+        owner = head;
+    }
+
+    private synchronized void release(Head head) {
+        if (owner == head) {
+            owner = null;
+            notifyAll();
+        }
+    }
+
+    public long getTimeoutMilliseconds() {
+        return timeoutMilliseconds;
+    }
+
+    public void setTimeoutMilliseconds(long timeoutMilliseconds) {
+        this.timeoutMilliseconds = timeoutMilliseconds;
+    }
+}
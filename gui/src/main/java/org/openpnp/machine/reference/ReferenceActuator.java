@@ -24,9 +24,12 @@ package org.openpnp.machine.reference;
 import org.openpnp.ConfigurationListener;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.wizards.ReferenceActuatorConfigurationWizard;
+import org.openpnp.metrics.LatencyHistogram;
+import org.openpnp.metrics.Metrics;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Location;
 import org.openpnp.spi.base.AbstractActuator;
+import org.openpnp.trace.SessionTrace;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 import org.slf4j.Logger;
@@ -35,6 +38,7 @@ import org.slf4j.LoggerFactory;
 public class ReferenceActuator extends AbstractActuator implements ReferenceHeadMountable {
     private final static Logger logger = LoggerFactory
             .getLogger(ReferenceActuator.class);
+    private static final LatencyHistogram moveToLatency = Metrics.histogram("driver.moveTo");
     
     @Element
     private Location headOffsets;
@@ -71,7 +75,9 @@ public class ReferenceActuator extends AbstractActuator implements ReferenceHead
 	@Override
 	public void actuate(boolean on) throws Exception {
 		logger.debug("{}.actuate({})", new Object[] { getId(), on } );
+		long t = System.nanoTime();
 		driver.actuate(this, on);
+		SessionTrace.actuate(getId(), on, t);
 		machine.fireMachineHeadActivity(head);
 	}
 	
@@ -83,14 +89,19 @@ public class ReferenceActuator extends AbstractActuator implements ReferenceHead
     @Override
     public void actuate(double value) throws Exception {
 		logger.debug("{}.actuate({})", new Object[] { getId(), value } );
+		long t = System.nanoTime();
 		driver.actuate(this, value);
+		SessionTrace.actuate(getId(), value, t);
         machine.fireMachineHeadActivity(head);
     }
 
     @Override
     public void moveTo(Location location, double speed) throws Exception {
 		logger.debug("{}.moveTo({}, {})", new Object[] { getId(), location, speed } );
-		driver.moveTo(this, location, speed);
+		long t = System.nanoTime();
+		machine.moveTo(this, location, speed);
+		SessionTrace.move(getId(), location, speed, t);
+		moveToLatency.recordSince(t);
         machine.fireMachineHeadActivity(head);
     }
 
@@ -99,7 +110,10 @@ public class ReferenceActuator extends AbstractActuator implements ReferenceHead
         logger.debug("{}.moveToSafeZ({})", new Object[] { getId(), speed } );
         Location l = new Location(getLocation().getUnits(), Double.NaN,
                 Double.NaN, 0, Double.NaN);
-        driver.moveTo(this, l, speed);
+        long t = System.nanoTime();
+        machine.moveTo(this, l, speed);
+        SessionTrace.move(getId(), l, speed, t);
+        moveToLatency.recordSince(t);
         machine.fireMachineHeadActivity(head);
     }
 
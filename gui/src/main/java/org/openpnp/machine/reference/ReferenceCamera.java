@@ -22,10 +22,13 @@
 package org.openpnp.machine.reference;
 
 import org.openpnp.ConfigurationListener;
+import org.openpnp.metrics.LatencyHistogram;
+import org.openpnp.metrics.Metrics;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.spi.base.AbstractCamera;
+import org.openpnp.trace.SessionTrace;
 import org.simpleframework.xml.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +36,11 @@ import org.slf4j.LoggerFactory;
 public abstract class ReferenceCamera extends AbstractCamera implements ReferenceHeadMountable {
     private final static Logger logger = LoggerFactory
             .getLogger(ReferenceCamera.class);
+    private static final LatencyHistogram moveToLatency = Metrics.histogram("driver.moveTo");
+    /**
+     * Subclasses record the time each capture() takes here.
+     */
+    protected static final LatencyHistogram captureLatency = Metrics.histogram("camera.capture");
     
     @Element
     private Location headOffsets = new Location(LengthUnit.Millimeters);
@@ -58,7 +66,10 @@ public abstract class ReferenceCamera extends AbstractCamera implements Referenc
     @Override
     public void moveTo(Location location, double speed) throws Exception {
         logger.debug("moveTo({}, {})", new Object[] { location, speed } );
-        driver.moveTo(this, location, speed);
+        long t = System.nanoTime();
+        machine.moveTo(this, location, speed);
+        SessionTrace.move(getId(), location, speed, t);
+        moveToLatency.recordSince(t);
         machine.fireMachineHeadActivity(head);
     }
 
@@ -67,7 +78,10 @@ public abstract class ReferenceCamera extends AbstractCamera implements Referenc
         logger.debug("moveToSafeZ({})", new Object[] { speed } );
         Location l = new Location(getLocation().getUnits(), Double.NaN,
                 Double.NaN, 0, Double.NaN);
-        driver.moveTo(this, l, speed);
+        long t = System.nanoTime();
+        machine.moveTo(this, l, speed);
+        SessionTrace.move(getId(), l, speed, t);
+        moveToLatency.recordSince(t);
         machine.fireMachineHeadActivity(head);
     }
 
@@ -25,7 +25,10 @@ import org.openpnp.ConfigurationListener;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.wizards.ReferenceHeadConfigurationWizard;
 import org.openpnp.model.Configuration;
+import org.openpnp.model.Location;
 import org.openpnp.spi.base.AbstractHead;
+import org.openpnp.trace.SessionTrace;
+import org.simpleframework.xml.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,6 +36,25 @@ public class ReferenceHead extends AbstractHead {
     private final static Logger logger = LoggerFactory
             .getLogger(ReferenceHead.class);
 
+    /**
+     * Opposite corners of the rectangle, in head coordinates, that this Head
+     * works in on a machine with more than one Head. Other Heads never go
+     * there and this Head moves there without waiting for the
+     * CollisionArbiter. Leave them out for a Head that has no zone.
+     */
+    @Element(required = false)
+    private Location zoneMinimum;
+
+    @Element(required = false)
+    private Location zoneMaximum;
+
+    /**
+     * Where, in head coordinates, the Head waits when it has no more work.
+     * Only X and Y are used.
+     */
+    @Element(required = false)
+    private Location parkLocation;
+
     private ReferenceMachine machine;
     private ReferenceDriver driver;
 
@@ -50,7 +72,9 @@ public class ReferenceHead extends AbstractHead {
     @Override
     public void home() throws Exception {
 		logger.debug("{}.home()", getId());
+        long t = System.nanoTime();
         driver.home(this);
+        SessionTrace.home(getId(), t);
         machine.fireMachineHeadActivity(this);
     }
 
@@ -65,6 +89,70 @@ public class ReferenceHead extends AbstractHead {
 		super.moveToSafeZ(speed);
 	}
 
+    @Override
+    public boolean hasZone() {
+        return zoneMinimum != null && zoneMaximum != null;
+    }
+
+    @Override
+    public boolean isInZone(Location location) {
+        if (!hasZone()) {
+            return false;
+        }
+        Location l = location.convertToUnits(zoneMinimum.getUnits());
+        Location max = zoneMaximum.convertToUnits(zoneMinimum.getUnits());
+        return l.getX() >= zoneMinimum.getX() && l.getX() <= max.getX()
+                && l.getY() >= zoneMinimum.getY() && l.getY() <= max.getY();
+    }
+
+    @Override
+    public void park() throws Exception {
+        logger.debug("{}.park()", getId());
+        moveToSafeZ(1.0);
+        if (parkLocation == null) {
+            return;
+        }
+        // The Head moves by moving one of its HeadMountables, so move the
+        // first one to where it is when the Head is parked.
+        ReferenceHeadMountable hm;
+        if (!nozzles.isEmpty()) {
+            hm = (ReferenceHeadMountable) nozzles.get(0);
+        }
+        else if (!cameras.isEmpty()) {
+            hm = (ReferenceHeadMountable) cameras.get(0);
+        }
+        else {
+            return;
+        }
+        Location l = parkLocation.derive(null, null, Double.NaN, Double.NaN)
+                .add(hm.getHeadOffsets());
+        hm.moveTo(l, 1.0);
+    }
+
+    public Location getZoneMinimum() {
+        return zoneMinimum;
+    }
+
+    public void setZoneMinimum(Location zoneMinimum) {
+        this.zoneMinimum = zoneMinimum;
+    }
+
+    public Location getZoneMaximum() {
+        return zoneMaximum;
+    }
+
+    public void setZoneMaximum(Location zoneMaximum) {
+        this.zoneMaximum = zoneMaximum;
+    }
+
+    public Location getParkLocation() {
+        return parkLocation;
+    }
+
+    public void setParkLocation(Location parkLocation) {
+        this.parkLocation = parkLocation;
+    }
+
 	@Override
 	public String toString() {
 		return getId();
@@ -32,6 +32,7 @@ import org.openpnp.machine.reference.camera.VfwCamera;
 import org.openpnp.machine.reference.feeder.ReferenceTapeFeeder;
 import org.openpnp.machine.reference.feeder.ReferenceTrayFeeder;
 import org.openpnp.machine.reference.feeder.ReferenceTubeFeeder;
+import org.openpnp.model.Location;
 import org.openpnp.spi.Camera;
 import org.openpnp.spi.Feeder;
 import org.openpnp.spi.base.AbstractMachine;
@@ -45,11 +46,48 @@ public class ReferenceMachine extends AbstractMachine {
 	@Element
 	private ReferenceDriver driver;
 	
+	@Element(required=false)
+	private CollisionArbiter collisionArbiter = new CollisionArbiter();
+	
 	private boolean enabled;
 	
 	ReferenceDriver getDriver() {
 		return driver;
 	}
+	
+	/**
+	 * Moves the HeadMountable with the driver. When the machine has more
+	 * than one Head the move goes through the CollisionArbiter, which may
+	 * make it wait for another Head to get out of the way.
+	 */
+	void moveTo(ReferenceHeadMountable hm, Location location, double speed) throws Exception {
+		if (getHeads().size() < 2) {
+			driver.moveTo(hm, location, speed);
+		}
+		else {
+			collisionArbiter.moveTo(driver, hm, location, speed);
+		}
+	}
+	
+	/**
+	 * Moves the HeadMountable through the path as one move if the driver
+	 * can, and one Location at a time otherwise. When the machine has more
+	 * than one Head every Location goes through the CollisionArbiter on its
+	 * own, since a path may leave the Head's zone part way.
+	 */
+	void moveThrough(ReferenceHeadMountable hm, List<Location> path, double speed) throws Exception {
+		if (getHeads().size() < 2 && driver instanceof ReferencePathDriver) {
+			((ReferencePathDriver) driver).moveThrough(hm, path, speed);
+			return;
+		}
+		for (Location location : path) {
+			moveTo(hm, location, speed);
+		}
+	}
+	
+	public CollisionArbiter getCollisionArbiter() {
+		return collisionArbiter;
+	}
 
 	@Override
 	public boolean isEnabled() {
@@ -1,12 +1,18 @@
 package org.openpnp.machine.reference;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.openpnp.ConfigurationListener;
 import org.openpnp.gui.support.Wizard;
+import org.openpnp.metrics.LatencyHistogram;
+import org.openpnp.metrics.Metrics;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Location;
 import org.openpnp.spi.Feeder;
 import org.openpnp.spi.NozzleTip;
 import org.openpnp.spi.base.AbstractNozzle;
+import org.openpnp.trace.SessionTrace;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 import org.slf4j.Logger;
@@ -16,6 +22,10 @@ public class ReferenceNozzle extends AbstractNozzle implements
         ReferenceHeadMountable {
     private final static Logger logger = LoggerFactory
             .getLogger(ReferenceNozzle.class);
+    private static final LatencyHistogram moveToLatency = Metrics.histogram("driver.moveTo");
+    private static final LatencyHistogram moveThroughLatency = Metrics.histogram("driver.moveThrough");
+    private static final LatencyHistogram pickLatency = Metrics.histogram("driver.pick");
+    private static final LatencyHistogram placeLatency = Metrics.histogram("driver.place");
 
     @Element
     private Location headOffsets;
@@ -79,7 +89,10 @@ public class ReferenceNozzle extends AbstractNozzle implements
     @Override
     public void pick() throws Exception {
 		logger.debug("{}.pick()", getId());
+		long t = System.nanoTime();
 		driver.pick(this);
+		SessionTrace.pick(getId(), t);
+		pickLatency.recordSince(t);
         machine.fireMachineHeadActivity(head);
         Thread.sleep(pickDwellMilliseconds);
     }
@@ -87,7 +100,10 @@ public class ReferenceNozzle extends AbstractNozzle implements
     @Override
     public void place() throws Exception {
 		logger.debug("{}.place()", getId());
+		long t = System.nanoTime();
 		driver.place(this);
+		SessionTrace.place(getId(), t);
+		placeLatency.recordSince(t);
         machine.fireMachineHeadActivity(head);
         Thread.sleep(placeDwellMilliseconds);
     }
@@ -95,7 +111,10 @@ public class ReferenceNozzle extends AbstractNozzle implements
     @Override
     public void moveTo(Location location, double speed) throws Exception {
         logger.debug("{}.moveTo({}, {})", new Object[] { id, location, speed } );
-        driver.moveTo(this, location, speed);
+        long t = System.nanoTime();
+        machine.moveTo(this, location, speed);
+        SessionTrace.move(id, location, speed, t);
+        moveToLatency.recordSince(t);
         machine.fireMachineHeadActivity(head);
     }
 
@@ -104,7 +123,27 @@ public class ReferenceNozzle extends AbstractNozzle implements
 		logger.debug("{}.moveToSafeZ({})", new Object[]{getId(), speed});
         Location l = new Location(getLocation().getUnits(), Double.NaN,
                 Double.NaN, 0, Double.NaN);
-        driver.moveTo(this, l, speed);
+        long t = System.nanoTime();
+        machine.moveTo(this, l, speed);
+        SessionTrace.move(getId(), l, speed, t);
+        moveToLatency.recordSince(t);
+        machine.fireMachineHeadActivity(head);
+    }
+
+    @Override
+    public void moveToViaSafeZ(Location location, double speed) throws Exception {
+        logger.debug("{}.moveToViaSafeZ({}, {})", new Object[] { id, location, speed } );
+        List<Location> path = new ArrayList<Location>();
+        path.add(new Location(location.getUnits(), Double.NaN, Double.NaN, 0,
+                Double.NaN));
+        // Rotate on the way over, so a driver that can't turn the Nozzle
+        // independently still does it during the travel.
+        path.add(location.derive(null, null, Double.NaN, null));
+        path.add(location);
+        long t = System.nanoTime();
+        machine.moveThrough(this, path, speed);
+        SessionTrace.move(id, location, speed, t);
+        moveThroughLatency.recordSince(t);
         machine.fireMachineHeadActivity(head);
     }
 
@@ -0,0 +1,55 @@
+/*
+ 	Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ 	
+ 	This file is part of OpenPnP.
+ 	
+	OpenPnP is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    OpenPnP is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with OpenPnP.  If not, see <http://www.gnu.org/licenses/>.
+ 	
+ 	For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.machine.reference;
+
+import java.util.List;
+
+import org.openpnp.model.Location;
+
+/**
+ * A ReferenceDriver that can move through several Locations as one path.
+ * The driver is given the whole path up front, so it can plan ahead and
+ * round the corners between moves at speed instead of stopping at each
+ * one. ReferenceMachine uses it when the driver implements it and falls
+ * back to one moveTo per Location otherwise.
+ */
+public interface ReferencePathDriver extends ReferenceDriver {
+    /**
+     * Moves the specified HeadMountable through each Location of the path
+     * in turn, as moveTo would, but only comes to a stop at the last one.
+     * The path may cut the corner at each Location in between by the
+     * driver's blending tolerance. Blocks until the last Location is
+     * reached.
+     * 
+     * Rotation only has to be where the last Location puts it by the time
+     * the path ends. A driver whose rotation axis runs independently of
+     * the others should start it with the path and run it alongside, so
+     * turning the part costs no time of its own.
+     * 
+     * @param hm
+     * @param path
+     * @param speed
+     * @throws Exception
+     */
+    public void moveThrough(ReferenceHeadMountable hm, List<Location> path,
+            double speed) throws Exception;
+}
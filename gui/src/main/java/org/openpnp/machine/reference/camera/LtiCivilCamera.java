@@ -136,10 +136,12 @@ public class LtiCivilCamera extends ReferenceCamera implements CaptureObserver {
 
 	@Override
 	public BufferedImage capture() {
+		long t = System.nanoTime();
 		synchronized (captureLock) {
 			try {
 				captureLock.wait();
 				BufferedImage image = lastImage;
+				captureLatency.recordSince(t);
 				return image;
 			}
 			catch (Exception e) {
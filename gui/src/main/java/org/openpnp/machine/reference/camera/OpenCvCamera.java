@@ -53,8 +53,11 @@ public class OpenCvCamera extends ReferenceCamera implements Runnable {
 	@Override
 	public synchronized BufferedImage capture() {
 		try {
+			long t = System.nanoTime();
 			IplImage image = fg.grab();
-			return image.getBufferedImage();
+			BufferedImage bufferedImage = image.getBufferedImage();
+			captureLatency.recordSince(t);
+			return bufferedImage;
 		}
 		catch (Exception e) {
 			return null;
@@ -0,0 +1,132 @@
+/*
+ 	Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ 	
+ 	This file is part of OpenPnP.
+ 	
+	OpenPnP is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    OpenPnP is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with OpenPnP.  If not, see <http://www.gnu.org/licenses/>.
+ 	
+ 	For more information about OpenPnP visit http://openpnp.org
+ */
+
+
+package org.openpnp.machine.reference.camera;
+
+import java.awt.image.BufferedImage;
+
+import org.openpnp.CameraListener;
+import org.openpnp.gui.support.Wizard;
+import org.openpnp.machine.reference.ReferenceCamera;
+import org.openpnp.trace.SessionRecording;
+import org.openpnp.trace.TraceRecord;
+import org.openpnp.trace.TraceRecord.Type;
+import org.simpleframework.xml.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Camera that plays back the frames a camera with the same id captured
+ * for vision in a session trace recorded with openpnp.trace.frames=true.
+ * Each capture() returns the next recorded frame, so vision sees exactly
+ * what it saw in the recorded session. Use it with ReplayDriver and the same
+ * recording.
+ * 
+ * Continuous capture shows the last frame returned and does not use up
+ * recorded frames.
+ */
+public class ReplayCamera extends ReferenceCamera implements Runnable {
+	private final static Logger logger = LoggerFactory.getLogger(ReplayCamera.class);
+	
+	/**
+	 * The trace file to replay. Relative to the configuration directory if
+	 * not absolute.
+	 */
+	@Attribute
+	private String recording;
+	
+	@Attribute(required=false)
+	private int fps = 10;
+	
+	private SessionRecording session;
+	private volatile BufferedImage lastFrame;
+	private Thread thread;
+	
+	@Override
+	public synchronized BufferedImage capture() {
+		long t = System.nanoTime();
+		try {
+			if (session == null) {
+				session = SessionRecording.get(recording);
+			}
+			TraceRecord frame = session.next(Type.Frame, getId());
+			if (frame == null) {
+				logger.warn("No more frames recorded for {}", getId());
+			}
+			else {
+				lastFrame = session.readFrame(frame);
+			}
+		}
+		catch (Exception e) {
+			logger.error("Unable to replay frame", e);
+		}
+		captureLatency.recordSince(t);
+		return lastFrame;
+	}
+	
+	@Override
+	public synchronized void startContinuousCapture(CameraListener listener, int maximumFps) {
+		super.startContinuousCapture(listener, maximumFps);
+		if (thread == null) {
+			thread = new Thread(this);
+			thread.start();
+		}
+	}
+	
+	@Override
+	public synchronized void stopContinuousCapture(CameraListener listener) {
+		super.stopContinuousCapture(listener);
+		if (listeners.size() == 0 && thread != null) {
+			thread.interrupt();
+			thread = null;
+		}
+	}
+	
+	public void run() {
+		while (!Thread.interrupted()) {
+			BufferedImage frame = lastFrame;
+			if (frame != null) {
+				broadcastCapture(frame);
+			}
+			try {
+				Thread.sleep(1000 / fps);
+			}
+			catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+	
+	public String getRecording() {
+		return recording;
+	}
+
+	public void setRecording(String recording) {
+		this.recording = recording;
+		session = null;
+	}
+
+	@Override
+	public Wizard getConfigurationWizard() {
+		return null;
+	}
+}
@@ -190,7 +190,10 @@ public class TableScannerCamera extends ReferenceCamera implements Runnable {
 
 	@Override
 	public BufferedImage capture() {
-		return renderFrame();
+		long t = System.nanoTime();
+		BufferedImage image = renderFrame();
+		captureLatency.recordSince(t);
+		return image;
 	}
 	
 	public void run() {
@@ -163,10 +163,12 @@ public class VfwCamera extends ReferenceCamera implements Runnable {
 	
 	@Override
 	public BufferedImage capture() {
+		long t = System.nanoTime();
 		synchronized (captureLock) {
 			try {
 				captureLock.wait();
 				BufferedImage image = lastImage;
+				captureLatency.recordSince(t);
 				return image;
 			}
 			catch (Exception e) {
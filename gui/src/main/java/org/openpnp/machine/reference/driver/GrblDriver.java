@@ -35,13 +35,14 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import org.openpnp.ConfigurationListener;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferenceActuator;
-import org.openpnp.machine.reference.ReferenceDriver;
 import org.openpnp.machine.reference.ReferenceHead;
 import org.openpnp.machine.reference.ReferenceHeadMountable;
 import org.openpnp.machine.reference.ReferenceNozzle;
+import org.openpnp.machine.reference.ReferencePathDriver;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
+import org.openpnp.trace.SessionTrace;
 import org.simpleframework.xml.Attribute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,7 +50,7 @@ import org.slf4j.LoggerFactory;
 /**
  * TODO: Consider adding some type of heartbeat to the firmware.  
  */
-public class GrblDriver implements ReferenceDriver, Runnable {
+public class GrblDriver implements ReferencePathDriver, Runnable {
 	private static final Logger logger = LoggerFactory.getLogger(GrblDriver.class);
 	private static final double minimumRequiredVersion = 0.81;
 	
@@ -114,6 +115,29 @@ public class GrblDriver implements ReferenceDriver, Runnable {
     @Override
 	public void moveTo(ReferenceHeadMountable hm, Location location, double speed)
 			throws Exception {
+		queueMove(hm, location, speed);
+		dwell();
+	}
+	
+	/**
+	 * Sends every move of the path before waiting for any of them, so that
+	 * Grbl's planner can look ahead through the whole path and take the
+	 * corners without stopping.
+	 */
+	@Override
+	public void moveThrough(ReferenceHeadMountable hm, List<Location> path,
+			double speed) throws Exception {
+		for (Location location : path) {
+			queueMove(hm, location, speed);
+		}
+		dwell();
+	}
+	
+	/**
+	 * Sends the move to Grbl without waiting for it to complete.
+	 */
+	private void queueMove(ReferenceHeadMountable hm, Location location, double speed)
+			throws Exception {
         location = location.subtract(hm.getHeadOffsets());
 
         location = location.convertToUnits(LengthUnit.Millimeters);
@@ -131,7 +155,7 @@ public class GrblDriver implements ReferenceDriver, Runnable {
 		// Also, since C is so slow in comparison, we just increase it
 		// by a factor of 10.
 		if (c != this.c && (x != this.x || y != this.y || z != this.z)) {
-			moveTo(hm, location.derive(Double.NaN, Double.NaN, Double.NaN, null), speed);
+			queueMove(hm, location.derive(Double.NaN, Double.NaN, Double.NaN, null), speed);
 		}
 		StringBuffer sb = new StringBuffer();
 		if (!Double.isNaN(x) && x != this.x) {
@@ -151,7 +175,6 @@ public class GrblDriver implements ReferenceDriver, Runnable {
 		if (sb.length() > 0) {
 			sb.append(String.format(Locale.US, "F%2.2f", feedRateMmPerMinute));
 			sendCommand("G1 " + sb.toString());
-			dwell();
 		}
 		this.x = x;
 		this.y = y;
@@ -286,6 +309,7 @@ public class GrblDriver implements ReferenceDriver, Runnable {
 		synchronized (commandLock) {
 			if (command != null) {
 				logger.debug("sendCommand({}, {})", command, timeout);
+				SessionTrace.command("GrblDriver", command);
 				output.write(command.getBytes());
 				output.write("\n".getBytes());
 			}
@@ -304,6 +328,7 @@ public class GrblDriver implements ReferenceDriver, Runnable {
 		while (!disconnectRequested) {
 			String line = readLine().trim();
 			logger.debug(line);
+			SessionTrace.response("GrblDriver", line);
 			responseQueue.offer(line);
 			if (line.equals("ok") || line.startsWith("error: ")) {
 				// This is the end of processing for a command
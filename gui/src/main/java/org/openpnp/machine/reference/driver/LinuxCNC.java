@@ -85,6 +85,7 @@ import org.openpnp.machine.reference.ReferenceNozzle;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
+import org.openpnp.trace.SessionTrace;
 import org.simpleframework.xml.Attribute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -342,6 +343,7 @@ public class LinuxCNC implements ReferenceDriver, Runnable {
         synchronized (commandLock) {
             if (command != null) {
                 logger.debug("sendCommand({}, {})", command, timeout);
+                SessionTrace.command("LinuxCNC", command);
                 output.write(command.getBytes());
                 output.write("\r\n".getBytes());
 
@@ -361,6 +363,7 @@ public class LinuxCNC implements ReferenceDriver, Runnable {
         while (!disconnectRequested) {
             String line = readLine().trim();
             logger.debug(line);
+            SessionTrace.response("LinuxCNC", line);
             responseQueue.offer(line);
             synchronized (commandLock) {
                 commandLock.notify();
@@ -0,0 +1,371 @@
+/*
+ 	Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ 	
+ 	This file is part of OpenPnP.
+ 	
+	OpenPnP is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    OpenPnP is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with OpenPnP.  If not, see <http://www.gnu.org/licenses/>.
+ 	
+ 	For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.machine.reference.driver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plans a path through a series of positions the way a motion controller
+ * with look-ahead does, so that simulated moves take as long as real ones.
+ * Positions are X, Y, Z and C, in millimeters and degrees.
+ * 
+ * Each segment of the path accelerates and decelerates within the limits of
+ * the axes it moves, so a segment that is mostly Z is held to the Z limits.
+ * Between segments the path rounds the corner with an arc that stays within
+ * the junction deviation of the corner, and the speed through the corner
+ * is the fastest that arc allows without exceeding the acceleration. A
+ * backward pass makes sure every segment can slow down in time for the
+ * ones after it, and the path always comes to a stop at its end.
+ * 
+ * An acceleration of 0 is unlimited, in which case every segment runs at
+ * its full speed and the corners cost nothing.
+ * 
+ * Axes can be independent, like the rotation of a nozzle on a machine that
+ * drives it separately from the gantry. An independent axis is left out of
+ * the path and moves straight to where the path ends it, starting when the
+ * path starts and running alongside it, so a part is turned while it is
+ * carried instead of before or after. The path takes as long as the longer
+ * of the two.
+ */
+public class MotionPlanner {
+    public static final int AXES = 4;
+
+    private final double[] maxVelocity;
+    private final double[] maxAcceleration;
+    private final double junctionDeviation;
+    private final boolean[] independent = new boolean[AXES];
+
+    /**
+     * @param maxVelocity Per axis, in units per second.
+     * @param maxAcceleration Per axis, in units per second squared, or 0
+     * for unlimited.
+     * @param junctionDeviation How far the path may cut a corner, in
+     * millimeters. 0 stops at every corner.
+     */
+    public MotionPlanner(double[] maxVelocity, double[] maxAcceleration,
+            double junctionDeviation) {
+        this.maxVelocity = maxVelocity.clone();
+        this.maxAcceleration = maxAcceleration.clone();
+        this.junctionDeviation = junctionDeviation;
+    }
+
+    /**
+     * Moves the axis on its own instead of as part of the path.
+     * @param axis
+     * @param independent
+     */
+    public void setIndependent(int axis, boolean independent) {
+        this.independent[axis] = independent;
+    }
+
+    /**
+     * Plans the path from start through each of the positions, stopping at
+     * the last. Segments that don't move are dropped.
+     * 
+     * @param start
+     * @param positions
+     * @param speed Fraction of the maximum velocities to move at, between 0
+     * and 1.
+     * @return
+     */
+    public Plan plan(double[] start, List<double[]> positions, double speed) {
+        // Each independent axis makes one move of its own, from where it
+        // starts to where the path ends.
+        List<Segment> axisSegments = new ArrayList<Segment>();
+        double[] end = positions.isEmpty() ? start : positions.get(positions
+                .size() - 1);
+        for (int axis = 0; axis < AXES; axis++) {
+            if (!independent[axis]) {
+                continue;
+            }
+            double[] to = start.clone();
+            to[axis] = end[axis];
+            Segment segment = createSegment(start, to, speed);
+            if (segment != null) {
+                segment.profile();
+                axisSegments.add(segment);
+            }
+        }
+
+        List<Segment> segments = new ArrayList<Segment>();
+        double[] from = start;
+        for (double[] position : positions) {
+            // The path holds the independent axes where they start.
+            double[] to = position.clone();
+            for (int axis = 0; axis < AXES; axis++) {
+                if (independent[axis]) {
+                    to[axis] = start[axis];
+                }
+            }
+            Segment segment = createSegment(from, to, speed);
+            if (segment != null) {
+                segments.add(segment);
+                from = to;
+            }
+        }
+        int n = segments.size();
+
+        // The fastest each segment may be entered at, from the corner
+        // before it.
+        double[] maxEntry = new double[n];
+        for (int i = 1; i < n; i++) {
+            maxEntry[i] = getJunctionVelocity(segments.get(i - 1),
+                    segments.get(i));
+        }
+
+        // Backward pass: every segment must be able to slow down to the
+        // entry speed of the next, and the last to a stop.
+        double exit = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            segment.exit = exit;
+            segment.entry = Math.min(maxEntry[i],
+                    reachable(exit, segment.acceleration, segment.length));
+            exit = segment.entry;
+        }
+
+        // Forward pass: and must be able to speed up to it from the
+        // previous one.
+        double entry = 0;
+        for (int i = 0; i < n; i++) {
+            Segment segment = segments.get(i);
+            segment.entry = Math.min(segment.entry, entry);
+            segment.exit = Math.min(segment.exit, reachable(segment.entry,
+                    segment.acceleration, segment.length));
+            segment.profile();
+            entry = segment.exit;
+        }
+        return new Plan(start, segments, axisSegments);
+    }
+
+    private Segment createSegment(double[] from, double[] to, double speed) {
+        double[] delta = new double[AXES];
+        double length = 0;
+        for (int axis = 0; axis < AXES; axis++) {
+            delta[axis] = to[axis] - from[axis];
+            length += delta[axis] * delta[axis];
+        }
+        length = Math.sqrt(length);
+        if (length < 1e-9) {
+            return null;
+        }
+        Segment segment = new Segment();
+        segment.from = from;
+        segment.length = length;
+        segment.unit = new double[AXES];
+        segment.velocity = Double.POSITIVE_INFINITY;
+        segment.acceleration = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < AXES; axis++) {
+            double u = delta[axis] / length;
+            segment.unit[axis] = u;
+            if (u == 0) {
+                continue;
+            }
+            segment.velocity = Math.min(segment.velocity,
+                    maxVelocity[axis] / Math.abs(u));
+            if (maxAcceleration[axis] > 0) {
+                segment.acceleration = Math.min(segment.acceleration,
+                        maxAcceleration[axis] / Math.abs(u));
+            }
+        }
+        segment.velocity *= Math.max(speed, 0.01);
+        return segment;
+    }
+
+    /**
+     * The fastest the corner between the segments can be taken on an arc
+     * that stays within the junction deviation, from a = v^2 / r.
+     */
+    private double getJunctionVelocity(Segment a, Segment b) {
+        double limit = Math.min(a.velocity, b.velocity);
+        double cosTheta = 0;
+        for (int axis = 0; axis < AXES; axis++) {
+            cosTheta -= a.unit[axis] * b.unit[axis];
+        }
+        if (cosTheta < -0.999999) {
+            // Straight on.
+            return limit;
+        }
+        if (cosTheta > 0.999999 || junctionDeviation <= 0) {
+            // Reversal, or no blending.
+            return 0;
+        }
+        double acceleration = Math.min(a.acceleration, b.acceleration);
+        if (Double.isInfinite(acceleration)) {
+            return limit;
+        }
+        double sinHalfTheta = Math.sqrt(0.5 * (1 - cosTheta));
+        double radius = junctionDeviation * sinHalfTheta / (1 - sinHalfTheta);
+        return Math.min(limit, Math.sqrt(acceleration * radius));
+    }
+
+    private static double reachable(double velocity, double acceleration,
+            double length) {
+        return Math.sqrt(velocity * velocity + 2 * acceleration * length);
+    }
+
+    private static class Segment {
+        double[] from;
+        double[] unit;
+        double length;
+        double velocity;
+        double acceleration;
+        double entry;
+        double exit;
+
+        // The trapezoid: accelerate from entry to peak, cruise, decelerate
+        // to exit.
+        double peak;
+        double accelerateTime;
+        double cruiseTime;
+        double decelerateTime;
+        double accelerateLength;
+        double cruiseLength;
+
+        void profile() {
+            if (Double.isInfinite(acceleration)) {
+                peak = velocity;
+                cruiseLength = length;
+                cruiseTime = length / velocity;
+                return;
+            }
+            double accelerateLength = (velocity * velocity - entry * entry)
+                    / (2 * acceleration);
+            double decelerateLength = (velocity * velocity - exit * exit)
+                    / (2 * acceleration);
+            if (accelerateLength + decelerateLength <= length) {
+                peak = velocity;
+            }
+            else {
+                // Never reaches full speed.
+                peak = Math.sqrt((2 * acceleration * length + entry * entry + exit
+                        * exit) / 2);
+                peak = Math.max(peak, Math.max(entry, exit));
+                accelerateLength = (peak * peak - entry * entry)
+                        / (2 * acceleration);
+                decelerateLength = (peak * peak - exit * exit)
+                        / (2 * acceleration);
+            }
+            this.accelerateLength = accelerateLength;
+            this.cruiseLength = Math.max(0, length - accelerateLength
+                    - decelerateLength);
+            accelerateTime = (peak - entry) / acceleration;
+            cruiseTime = cruiseLength / peak;
+            decelerateTime = (peak - exit) / acceleration;
+        }
+
+        double getDuration() {
+            return accelerateTime + cruiseTime + decelerateTime;
+        }
+
+        /**
+         * Sets the axes the segment moves to where it is t seconds after
+         * entering it.
+         */
+        void getPosition(double t, double[] position) {
+            double distance = getDistance(t);
+            for (int axis = 0; axis < AXES; axis++) {
+                if (unit[axis] != 0) {
+                    position[axis] = from[axis] + unit[axis] * distance;
+                }
+            }
+        }
+
+        /**
+         * How far along the segment it is t seconds after entering it.
+         */
+        double getDistance(double t) {
+            if (t < accelerateTime) {
+                return entry * t + 0.5 * acceleration * t * t;
+            }
+            t -= accelerateTime;
+            if (t < cruiseTime) {
+                return accelerateLength + peak * t;
+            }
+            t -= cruiseTime;
+            t = Math.min(t, decelerateTime);
+            double distance = accelerateLength + cruiseLength + peak * t - 0.5
+                    * acceleration * t * t;
+            return Math.min(distance, length);
+        }
+    }
+
+    /**
+     * A planned path, which can be followed in time.
+     */
+    public static class Plan {
+        private final double[] start;
+        private final List<Segment> segments;
+        private final List<Segment> axisSegments;
+        private final double duration;
+
+        private Plan(double[] start, List<Segment> segments,
+                List<Segment> axisSegments) {
+            this.start = start;
+            this.segments = segments;
+            this.axisSegments = axisSegments;
+            double duration = 0;
+            for (Segment segment : segments) {
+                duration += segment.getDuration();
+            }
+            for (Segment segment : axisSegments) {
+                duration = Math.max(duration, segment.getDuration());
+            }
+            this.duration = duration;
+        }
+
+        /**
+         * How long the path takes, in seconds.
+         * @return
+         */
+        public double getDuration() {
+            return duration;
+        }
+
+        /**
+         * Where the path is t seconds after it starts. Corners are
+         * followed square rather than on their arcs, which is close
+         * enough to show.
+         * @param t
+         * @return
+         */
+        public double[] getPosition(double t) {
+            double[] position = start.clone();
+            double remaining = t;
+            for (Segment segment : segments) {
+                double segmentDuration = segment.getDuration();
+                segment.getPosition(Math.min(remaining, segmentDuration),
+                        position);
+                if (remaining <= segmentDuration) {
+                    break;
+                }
+                remaining -= segmentDuration;
+            }
+            for (Segment segment : axisSegments) {
+                segment.getPosition(Math.min(t, segment.getDuration()),
+                        position);
+            }
+            return position;
+        }
+    }
+}
@@ -21,7 +21,10 @@
 
 package org.openpnp.machine.reference.driver;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferenceActuator;
@@ -30,6 +33,7 @@ import org.openpnp.machine.reference.ReferenceHead;
 import org.openpnp.machine.reference.ReferenceHeadMountable;
 import org.openpnp.machine.reference.ReferenceMachine;
 import org.openpnp.machine.reference.ReferenceNozzle;
+import org.openpnp.machine.reference.ReferencePathDriver;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
@@ -42,15 +46,60 @@ import org.slf4j.LoggerFactory;
  * An example of the simplest possible driver that can support multiple heads.
  * This driver maintains a set of coordinates for each Head that it is asked to
  * handle and simply logs all commands sent to it.
+ * 
+ * If feed-rate-mm-per-minute is set, moves take as long as they would on a
+ * machine with that feed rate. If acceleration-mm-per-second-squared is set
+ * as well, moves are planned with MotionPlanner, with acceleration and
+ * with corners rounded within junction-deviation-mm, so that the cycle time
+ * saved by moving through a path without stopping, see moveThrough, shows
+ * up in the simulation. Z may be given its own, usually lower, limits.
+ * Rotation runs independently of the other axes unless
+ * independent-rotation is false, so a part is turned during the travel to
+ * where it is placed.
  */
-public class NullDriver implements ReferenceDriver {
+public class NullDriver implements ReferencePathDriver {
     private final static Logger logger = LoggerFactory
             .getLogger(NullDriver.class);
     
     @Attribute(required = false)
     private double feedRateMmPerMinute;
     
-    private HashMap<Head, Location> headLocations = new HashMap<Head, Location>();
+    /**
+     * 0 for none, which moves at full speed from the start.
+     */
+    @Attribute(required = false)
+    private double accelerationMmPerSecondSquared;
+    
+    /**
+     * 0 to use feedRateMmPerMinute.
+     */
+    @Attribute(required = false)
+    private double zFeedRateMmPerMinute;
+    
+    /**
+     * 0 to use accelerationMmPerSecondSquared.
+     */
+    @Attribute(required = false)
+    private double zAccelerationMmPerSecondSquared;
+    
+    /**
+     * How far a path may cut the corner between two moves.
+     */
+    @Attribute(required = false)
+    private double junctionDeviationMm = 0.05;
+    
+    /**
+     * If false, rotation is part of the coordinated move like on a machine
+     * whose firmware interpolates it with X, Y and Z.
+     */
+    @Attribute(required = false)
+    private boolean independentRotation = true;
+    
+    /**
+     * Concurrent because each Head of a multi-head machine is moved by its
+     * own thread during a Job.
+     */
+    private Map<Head, Location> headLocations = new ConcurrentHashMap<Head, Location>();
 
     /**
      * Gets the Location object being tracked for a specific Head. This is the
@@ -111,7 +160,12 @@ public class NullDriver implements ReferenceDriver {
         // Get the current location of the Head that we'll move
         Location hl = getHeadLocation(hm.getHead());
         
-        if (feedRateMmPerMinute > 0) {
+        if (feedRateMmPerMinute > 0 && accelerationMmPerSecondSquared > 0) {
+            List<Location> path = new ArrayList<Location>();
+            path.add(location);
+            simulatePath(hm, path, hl, speed);
+        }
+        else if (feedRateMmPerMinute > 0) {
             simulateMovement(hm, location, hl, speed);
         }
         
@@ -129,6 +183,92 @@ public class NullDriver implements ReferenceDriver {
         setHeadLocation(hm.getHead(), hl);
     }
     
+    /**
+     * Moves through the path as one planned move if acceleration is set.
+     * Without acceleration corners cost nothing, so the path is simply
+     * moved one Location at a time.
+     */
+    @Override
+    public void moveThrough(ReferenceHeadMountable hm, List<Location> path,
+            double speed) throws Exception {
+        if (feedRateMmPerMinute <= 0 || accelerationMmPerSecondSquared <= 0) {
+            for (Location location : path) {
+                moveTo(hm, location, speed);
+            }
+            return;
+        }
+        logger.debug("moveThrough({}, {}, {})", new Object[] { hm, path, speed });
+        
+        List<Location> headPath = new ArrayList<Location>();
+        for (Location location : path) {
+            headPath.add(location.subtract(hm.getHeadOffsets())
+                    .convertToUnits(LengthUnit.Millimeters));
+        }
+        Location hl = getHeadLocation(hm.getHead());
+        hl = simulatePath(hm, headPath, hl, speed);
+        setHeadLocation(hm.getHead(), hl);
+    }
+    
+    /**
+     * Follows the planned path through the Locations, in head coordinates
+     * and millimeters, in real time. Returns where it ends, which is also
+     * where it started for any axis that is NaN throughout.
+     */
+    protected Location simulatePath(ReferenceHeadMountable hm,
+            List<Location> path, Location hl, double speed) throws Exception {
+        double[] start = new double[] { hl.getX(), hl.getY(), hl.getZ(),
+                hl.getRotation() };
+        List<double[]> positions = new ArrayList<double[]>();
+        double[] previous = start;
+        for (Location location : path) {
+            // Rotation is taken modulo 360, as simulateMovement() does.
+            double[] position = new double[] { location.getX(),
+                    location.getY(), location.getZ(),
+                    location.getRotation() % 360.0 };
+            // NaN means the axis stays where it is.
+            for (int axis = 0; axis < position.length; axis++) {
+                if (Double.isNaN(position[axis])) {
+                    position[axis] = previous[axis];
+                }
+            }
+            positions.add(position);
+            previous = position;
+        }
+        
+        double feedRate = feedRateMmPerMinute / 60.0;
+        double zFeedRate = (zFeedRateMmPerMinute > 0 ? zFeedRateMmPerMinute
+                : feedRateMmPerMinute) / 60.0;
+        double zAcceleration = zAccelerationMmPerSecondSquared > 0 ? zAccelerationMmPerSecondSquared
+                : accelerationMmPerSecondSquared;
+        MotionPlanner planner = new MotionPlanner(
+                new double[] { feedRate, feedRate, zFeedRate, feedRate },
+                new double[] { accelerationMmPerSecondSquared,
+                        accelerationMmPerSecondSquared, zAcceleration,
+                        accelerationMmPerSecondSquared }, junctionDeviationMm);
+        planner.setIndependent(3, independentRotation);
+        MotionPlanner.Plan plan = planner.plan(start, positions, speed);
+        logger.debug("Planned {} moves in {} s", path.size(),
+                plan.getDuration());
+        
+        long startTime = System.nanoTime();
+        while (true) {
+            double t = (System.nanoTime() - startTime) / 1e9;
+            double[] position = plan.getPosition(t);
+            hl = hl.derive(position[0], position[1], position[2], position[3]);
+            setHeadLocation(hm.getHead(), hl);
+            
+            // Provide live updates to the Machine as the move progresses.
+            ((ReferenceMachine) Configuration.get().getMachine())
+                    .fireMachineHeadActivity(hm.getHead());
+            
+            double remaining = plan.getDuration() - t;
+            if (remaining <= 0) {
+                return hl;
+            }
+            Thread.sleep(Math.max(1, Math.min(100, (long) (remaining * 1000))));
+        }
+    }
+    
     /**
      * Simulates true machine movement, which takes time, by tracing the
      * required movement lines over a period of time based on the input speed.
@@ -0,0 +1,217 @@
+/*
+ 	Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ 	
+ 	This file is part of OpenPnP.
+ 	
+	OpenPnP is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    OpenPnP is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with OpenPnP.  If not, see <http://www.gnu.org/licenses/>.
+ 	
+ 	For more information about OpenPnP visit http://openpnp.org
+ */
+
+
+package org.openpnp.machine.reference.driver;
+
+import java.util.List;
+
+import org.openpnp.machine.reference.ReferenceActuator;
+import org.openpnp.machine.reference.ReferenceHead;
+import org.openpnp.machine.reference.ReferenceHeadMountable;
+import org.openpnp.machine.reference.ReferenceNozzle;
+import org.openpnp.model.Identifiable;
+import org.openpnp.model.Location;
+import org.openpnp.trace.SessionRecording;
+import org.openpnp.trace.TraceRecord;
+import org.openpnp.trace.TraceRecord.Type;
+import org.simpleframework.xml.Attribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A driver that plays back a session trace instead of driving a machine.
+ * Each home, move, pick, place and actuation takes as long as it took in the
+ * recorded session, or no time at all if real-time is false, so a job can be
+ * run, profiled and benchmarked against a real session with no machine
+ * attached. Pair it with ReplayCamera to play back the camera frames too.
+ * 
+ * <driver class="org.openpnp.machine.reference.driver.ReplayDriver"
+ *     recording="trace/session-20131019-101500-000.jsonl" real-time="true"/>
+ * 
+ * The recording is started over each time the machine is enabled. If the
+ * job asks for something the recording doesn't have, or moves somewhere the
+ * recorded session didn't, the replay carries on without waiting and the
+ * divergence is logged once.
+ */
+public class ReplayDriver extends NullDriver {
+    private final static Logger logger = LoggerFactory
+            .getLogger(ReplayDriver.class);
+
+    /**
+     * The trace file to replay. Relative to the configuration directory if
+     * not absolute.
+     */
+    @Attribute
+    private String recording;
+
+    @Attribute(required = false)
+    private boolean realTime = true;
+
+    private SessionRecording session;
+    private boolean diverged;
+
+    @Override
+    public void setEnabled(boolean enabled) throws Exception {
+        super.setEnabled(enabled);
+        if (enabled) {
+            session = SessionRecording.get(recording);
+            session.rewind();
+            diverged = false;
+        }
+    }
+
+    @Override
+    public void home(ReferenceHead head) throws Exception {
+        super.home(head);
+        replay(Type.Home, head.getId());
+    }
+
+    @Override
+    public void moveTo(ReferenceHeadMountable hm, Location location,
+            double speed) throws Exception {
+        super.moveTo(hm, location, speed);
+        replayMove(hm, location);
+    }
+
+    /**
+     * A path is traced as one Move to its end, so it is replayed as one.
+     */
+    @Override
+    public void moveThrough(ReferenceHeadMountable hm, List<Location> path,
+            double speed) throws Exception {
+        for (Location location : path) {
+            super.moveTo(hm, location, speed);
+        }
+        replayMove(hm, path.get(path.size() - 1));
+    }
+
+    private void replayMove(ReferenceHeadMountable hm, Location location)
+            throws Exception {
+        TraceRecord record = replay(Type.Move, getId(hm));
+        if (record != null && !diverged && !matches(record, location)) {
+            diverged = true;
+            logger.warn(
+                    "Replay diverged from {}: {} moved to {} but was recorded moving to {}, {}, {}, {}",
+                    new Object[] { session.getFile(), getId(hm), location,
+                            record.getX(), record.getY(), record.getZ(),
+                            record.getRotation() });
+        }
+    }
+
+    @Override
+    public void pick(ReferenceNozzle nozzle) throws Exception {
+        super.pick(nozzle);
+        replay(Type.Pick, nozzle.getId());
+    }
+
+    @Override
+    public void place(ReferenceNozzle nozzle) throws Exception {
+        super.place(nozzle);
+        replay(Type.Place, nozzle.getId());
+    }
+
+    @Override
+    public void actuate(ReferenceActuator actuator, double value)
+            throws Exception {
+        super.actuate(actuator, value);
+        replay(Type.Actuate, actuator.getId());
+    }
+
+    @Override
+    public void actuate(ReferenceActuator actuator, boolean on)
+            throws Exception {
+        super.actuate(actuator, on);
+        replay(Type.Actuate, actuator.getId());
+    }
+
+    public String getRecording() {
+        return recording;
+    }
+
+    public void setRecording(String recording) {
+        this.recording = recording;
+    }
+
+    public boolean isRealTime() {
+        return realTime;
+    }
+
+    public void setRealTime(boolean realTime) {
+        this.realTime = realTime;
+    }
+
+    /**
+     * True if the replay has gone off the recording since the machine was
+     * last enabled.
+     * @return
+     */
+    public boolean isDiverged() {
+        return diverged;
+    }
+
+    /**
+     * Takes the next recorded operation of the type for the source and, in
+     * real time, waits as long as it took.
+     */
+    private TraceRecord replay(Type type, String source) throws Exception {
+        if (session == null) {
+            throw new Exception("ReplayDriver is not enabled.");
+        }
+        TraceRecord record = session.next(type, source);
+        if (record == null) {
+            if (!diverged) {
+                diverged = true;
+                logger.warn("Replay diverged from {}: no more {} recorded for {}",
+                        new Object[] { session.getFile(), type, source });
+            }
+            return null;
+        }
+        double duration = record.getDuration();
+        if (realTime && duration > 0) {
+            long nanos = (long) (duration * 1000000);
+            Thread.sleep(nanos / 1000000, (int) (nanos % 1000000));
+        }
+        return record;
+    }
+
+    private static boolean matches(TraceRecord record, Location location) {
+        if (record.getUnits() != null) {
+            location = location.convertToUnits(record.getUnits());
+        }
+        return matches(record.getX(), location.getX())
+                && matches(record.getY(), location.getY())
+                && matches(record.getZ(), location.getZ())
+                && matches(record.getRotation(), location.getRotation());
+    }
+
+    private static boolean matches(double recorded, double value) {
+        if (Double.isNaN(recorded) || Double.isNaN(value)) {
+            return Double.isNaN(recorded) == Double.isNaN(value);
+        }
+        return Math.abs(recorded - value) < 0.001;
+    }
+
+    private static String getId(ReferenceHeadMountable hm) {
+        return hm instanceof Identifiable ? ((Identifiable) hm).getId() : hm
+                .toString();
+    }
+}
@@ -42,6 +42,7 @@ import org.openpnp.machine.reference.ReferenceNozzle;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
+import org.openpnp.trace.SessionTrace;
 import org.simpleframework.xml.Attribute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -396,7 +397,8 @@ public class SprinterDriver implements ReferenceDriver, Runnable {
 	private List<String> sendCommand(String command, long timeout) throws Exception {
 		synchronized (commandLock) {
 			if (command != null) {
-				logger.debug("> " + command);
+				logger.debug("> {}", command);
+				SessionTrace.command("SprinterDriver", command);
 				output.write(command.getBytes());
 				output.write("\n".getBytes());
 			}
@@ -416,7 +418,8 @@ public class SprinterDriver implements ReferenceDriver, Runnable {
 	public void run() {
 		while (!disconnectRequested) {
 			String line = readLine().trim();
-			logger.debug("< " + line);
+			logger.debug("< {}", line);
+			SessionTrace.response("SprinterDriver", line);
 			responseQueue.offer(line);
 			// We have a special case of accepting "start" when we are not
 			// connected because Sprinter does not send an "ok" when it starts
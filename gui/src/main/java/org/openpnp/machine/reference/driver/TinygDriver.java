@@ -26,19 +26,21 @@ import gnu.io.SerialPort;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.List;
 import java.util.Locale;
 
 import org.openpnp.ConfigurationListener;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferenceActuator;
-import org.openpnp.machine.reference.ReferenceDriver;
 import org.openpnp.machine.reference.ReferenceHead;
 import org.openpnp.machine.reference.ReferenceHeadMountable;
 import org.openpnp.machine.reference.ReferenceNozzle;
+import org.openpnp.machine.reference.ReferencePathDriver;
 import org.openpnp.machine.reference.driver.wizards.TinygDriverConfigurationWizard;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
+import org.openpnp.trace.SessionTrace;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 import org.slf4j.Logger;
@@ -51,7 +53,7 @@ import com.google.gson.JsonSyntaxException;
 /**
  * TODO: Consider adding some type of heartbeat to the firmware.
  */
-public class TinygDriver implements ReferenceDriver, Runnable {
+public class TinygDriver implements ReferencePathDriver, Runnable {
     private static final Logger logger = LoggerFactory
             .getLogger(TinygDriver.class);
     private static final double minimumRequiredVersion = 0.95;
@@ -187,10 +189,77 @@ public class TinygDriver implements ReferenceDriver, Runnable {
     @Override
     public void moveTo(ReferenceHeadMountable hm, Location location,
             double speed) throws Exception {
-        location = location.subtract(hm.getHeadOffsets());
+        location = toDriverLocation(hm, location);
+        String command = getMoveCommand(location, speed);
+        if (command != null) {
+            // TODO: Move this type of op into it's own method
+            // sendCommandAndWaitForMovementComplete()
+            synchronized (movementWaitLock) {
+                JsonObject response = sendCommand(command);
+                setPosition(location);
+                if (getResponseStatusCode(response) == 0) {
+                    waitForMovementComplete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends every move of the path before waiting, so that TinyG plans
+     * through the whole path and only stops at the end of it. TinyG moves
+     * A together with X, Y and Z but holds each axis to its own velocity
+     * limit, so a rotation made during the XY travel costs no more time
+     * than the travel does if it fits in it.
+     *
+     * A move that TinyG rejects fails the whole path, rather than leaving
+     * the rest unsent, since the machine would stop short of where it was
+     * sent.
+     */
+    @Override
+    public void moveThrough(ReferenceHeadMountable hm, List<Location> path,
+            double speed) throws Exception {
+        synchronized (movementWaitLock) {
+            boolean moving = false;
+            for (Location location : path) {
+                location = toDriverLocation(hm, location);
+                String command = getMoveCommand(location, speed);
+                if (command == null) {
+                    continue;
+                }
+                JsonObject response = sendCommand(command);
+                int statusCode = getResponseStatusCode(response);
+                // 60 is a move too short for TinyG to make, so it is already
+                // there.
+                if (statusCode != 0 && statusCode != 60) {
+                    throw new Exception("Move failed. Status code: "
+                            + statusCode);
+                }
+                setPosition(location);
+                if (statusCode == 0) {
+                    moving = true;
+                }
+            }
+            if (moving) {
+                waitForMovementComplete();
+            }
+        }
+    }
 
-        location = location.convertToUnits(LengthUnit.Millimeters);
+    /**
+     * The Location in millimeters and without the head offsets of the
+     * HeadMountable, as TinyG takes it.
+     */
+    private static Location toDriverLocation(ReferenceHeadMountable hm,
+            Location location) {
+        return location.subtract(hm.getHeadOffsets()).convertToUnits(
+                LengthUnit.Millimeters);
+    }
 
+    /**
+     * Returns the G1 command that moves to the driver Location, or null if
+     * the Location is where the last move left off.
+     */
+    private String getMoveCommand(Location location, double speed) {
         double x = location.getX();
         double y = location.getY();
         double z = location.getZ();
@@ -209,29 +278,30 @@ public class TinygDriver implements ReferenceDriver, Runnable {
         if (!Double.isNaN(c) && c != this.c) {
             sb.append(String.format(Locale.US, "A%2.2f ", c));
         }
-        if (sb.length() > 0) {
-            sb.append(String.format(Locale.US, "F%2.2f", feedRateMmPerMinute
-                    * speed));
-            // TODO: Move this type of op into it's own method
-            // sendCommandAndWaitForMovementComplete()
-            synchronized (movementWaitLock) {
-                JsonObject response = sendCommand("G1 " + sb.toString());
-                if (getResponseStatusCode(response) == 0) {
-                    waitForMovementComplete();
-                }
-            }
+        if (sb.length() == 0) {
+            return null;
         }
-        if (!Double.isNaN(x)) {
-            this.x = x;
+        sb.append(String.format(Locale.US, "F%2.2f", feedRateMmPerMinute
+                * speed));
+        return "G1 " + sb.toString();
+    }
+
+    /**
+     * Takes the driver Location as the current position once TinyG has
+     * accepted the move to it. Axes that are NaN did not move.
+     */
+    private void setPosition(Location location) {
+        if (!Double.isNaN(location.getX())) {
+            x = location.getX();
         }
-        if (!Double.isNaN(y)) {
-            this.y = y;
+        if (!Double.isNaN(location.getY())) {
+            y = location.getY();
         }
-        if (!Double.isNaN(z)) {
-            this.z = z;
+        if (!Double.isNaN(location.getZ())) {
+            z = location.getZ();
         }
-        if (!Double.isNaN(c)) {
-            this.c = c;
+        if (!Double.isNaN(location.getRotation())) {
+            c = location.getRotation();
         }
     }
 
@@ -298,6 +368,7 @@ public class TinygDriver implements ReferenceDriver, Runnable {
             lastResponse = null;
             if (command != null) {
                 logger.debug("sendCommand({}, {})", command, timeout);
+                SessionTrace.command("TinygDriver", command);
                 output.write(command.getBytes());
                 output.write("\n".getBytes());
             }
@@ -327,6 +398,7 @@ public class TinygDriver implements ReferenceDriver, Runnable {
         while (!Thread.interrupted()) {
             String line = readLine().trim();
             logger.trace(line);
+            SessionTrace.response("TinygDriver", line);
             try {
                 JsonObject o = (JsonObject) parser.parse(line);
                 if (o.has("sr")) {
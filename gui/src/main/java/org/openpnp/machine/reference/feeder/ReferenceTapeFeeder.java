@@ -23,8 +23,6 @@ package org.openpnp.machine.reference.feeder;
 
 import java.awt.Point;
 import java.awt.image.BufferedImage;
-import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
 import java.io.File;
 import java.io.IOException;
 
@@ -43,6 +41,7 @@ import org.openpnp.spi.Camera;
 import org.openpnp.spi.Head;
 import org.openpnp.spi.Nozzle;
 import org.openpnp.spi.VisionProvider;
+import org.openpnp.trace.SessionTrace;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
 import org.simpleframework.xml.core.Persist;
@@ -74,8 +73,6 @@ import org.slf4j.LoggerFactory;
 public class ReferenceTapeFeeder extends ReferenceFeeder {
 	private final static Logger logger = LoggerFactory.getLogger(ReferenceTapeFeeder.class);
 	
-	private final PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
-	
 	@Element
 	private Location feedStartLocation = new Location(LengthUnit.Millimeters);
 	@Element
@@ -247,6 +244,7 @@ public class ReferenceTapeFeeder extends ReferenceFeeder {
 		// of the image to the top left corner of the match. We are interested in
 		// knowing how far from the center of the image the center of the match is.
 		BufferedImage image = camera.capture();
+		SessionTrace.frame(camera.getId(), image);
 		double imageWidth = image.getWidth();
 		double imageHeight = image.getHeight();
 		double templateWidth = vision.getTemplateImage().getWidth();
@@ -286,6 +284,14 @@ public class ReferenceTapeFeeder extends ReferenceFeeder {
         return new Location(unitsPerPixel.getUnits(), offsetX, offsetY, 0, 0);
 	}
 
+	/**
+	 * A feed drags the tape with an actuator, which takes several moves.
+	 */
+	@Override
+	public double getFeedCost() {
+		return 1.0;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("ReferenceTapeFeeder id %s", id);
@@ -338,25 +344,6 @@ public class ReferenceTapeFeeder extends ReferenceFeeder {
 		this.vision = vision;
 	}
 	
-	public void addPropertyChangeListener(PropertyChangeListener listener) {
-		propertyChangeSupport.addPropertyChangeListener(listener);
-	}
-
-	public void addPropertyChangeListener(String propertyName,
-			PropertyChangeListener listener) {
-		propertyChangeSupport.addPropertyChangeListener(propertyName, listener);
-	}
-
-	public void removePropertyChangeListener(PropertyChangeListener listener) {
-		propertyChangeSupport.removePropertyChangeListener(listener);
-	}
-
-	public void removePropertyChangeListener(String propertyName,
-			PropertyChangeListener listener) {
-		propertyChangeSupport.removePropertyChangeListener(propertyName,
-				listener);
-	}
-
 	public static class Vision {
 		@Attribute(required=false)
 		private boolean enabled;
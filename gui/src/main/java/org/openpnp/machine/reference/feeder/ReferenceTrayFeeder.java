@@ -26,6 +26,7 @@ package org.openpnp.machine.reference.feeder;
 import org.openpnp.gui.support.Wizard;
 import org.openpnp.machine.reference.ReferenceFeeder;
 import org.openpnp.machine.reference.feeder.wizards.ReferenceTrayFeederConfigurationWizard;
+import org.openpnp.model.Configuration;
 import org.openpnp.model.LengthUnit;
 import org.openpnp.model.Location;
 import org.openpnp.model.Part;
@@ -98,8 +99,17 @@ public class ReferenceTrayFeeder extends ReferenceFeeder {
                 partX, partY, pickLocation.getX(), pickLocation.getY()));
         
         feedCount++;
+        
+        // The feed count is the only record of how many parts are left in
+        // the tray, so persist it. This is batched on a background thread.
+        Configuration.get().scheduleSave(Configuration.Section.Machine);
 	}
 
+	@Override
+	public int getRemainingCount() {
+		return Math.max(0, (trayCountX * trayCountY) - feedCount);
+	}
+	
 	@Override
 	public Wizard getConfigurationWizard() {
 		return new ReferenceTrayFeederConfigurationWizard(this);
@@ -50,6 +50,15 @@ public class ReferenceTubeFeeder extends ReferenceFeeder {
 		return true;
 	}
 
+	/**
+	 * The tube presents the next part by itself, but it can take a moment
+	 * to settle.
+	 */
+	@Override
+	public double getFeedCost() {
+		return 0.25;
+	}
+
 	@Override
 	public Wizard getConfigurationWizard() {
 		return new ReferenceTubeFeederConfigurationWizard(this);
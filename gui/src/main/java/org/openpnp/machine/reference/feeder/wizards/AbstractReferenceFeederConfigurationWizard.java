@@ -35,6 +35,7 @@ import org.openpnp.gui.components.ComponentDecorators;
 import org.openpnp.gui.components.LocationButtonsPanel;
 import org.openpnp.gui.support.AbstractConfigurationWizard;
 import org.openpnp.gui.support.DoubleConverter;
+import org.openpnp.gui.support.IdentifiableKeySelectionManager;
 import org.openpnp.gui.support.IdentifiableListCellRenderer;
 import org.openpnp.gui.support.LengthConverter;
 import org.openpnp.gui.support.MutableLocationProxy;
@@ -86,6 +87,7 @@ public abstract class AbstractReferenceFeederConfigurationWizard extends Abstrac
 		comboBoxPart = new JComboBox();
 		try {
 		    comboBoxPart.setModel(new PartsComboBoxModel());
+		    comboBoxPart.setKeySelectionManager(new IdentifiableKeySelectionManager<Part>(Configuration.get().getPartsCatalog()));
 		}
 		catch (Error e) {
 		    // Swallow this error. This happens during parsing in
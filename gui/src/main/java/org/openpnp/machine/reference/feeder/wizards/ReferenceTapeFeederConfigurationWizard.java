@@ -442,26 +442,22 @@ public class ReferenceTapeFeederConfigurationWizard extends
             "Confirm") {
         @Override
         public void actionPerformed(ActionEvent arg0) {
-            new Thread() {
-                public void run() {
-                    CameraView cameraView = MainFrame.cameraPanel
-                            .getSelectedCameraView();
-                    BufferedImage image = cameraView.captureSelectionImage();
-                    if (image == null) {
-                        MessageBoxes
-                                .errorBox(
-                                        ReferenceTapeFeederConfigurationWizard.this,
-                                        "No Image Selected",
-                                        "Please select an area of the camera image using the mouse.");
-                    }
-                    else {
-                        labelTemplateImage.setIcon(new ImageIcon(image));
-                    }
-                    cameraView.setSelectionEnabled(false);
-                    btnChangeTemplateImage.setAction(selectTemplateImageAction);
-                    cancelSelectTemplateImageAction.setEnabled(false);
-                }
-            }.start();
+            CameraView cameraView = MainFrame.cameraPanel
+                    .getSelectedCameraView();
+            BufferedImage image = cameraView.captureSelectionImage();
+            if (image == null) {
+                MessageBoxes
+                        .errorBox(
+                                ReferenceTapeFeederConfigurationWizard.this,
+                                "No Image Selected",
+                                "Please select an area of the camera image using the mouse.");
+            }
+            else {
+                labelTemplateImage.setIcon(new ImageIcon(image));
+            }
+            cameraView.setSelectionEnabled(false);
+            btnChangeTemplateImage.setAction(selectTemplateImageAction);
+            cancelSelectTemplateImageAction.setEnabled(false);
         }
     };
 
@@ -49,10 +49,13 @@ import java.util.List;
 import javax.imageio.ImageIO;
 
 import org.openpnp.gui.support.Wizard;
+import org.openpnp.metrics.LatencyHistogram;
+import org.openpnp.metrics.Metrics;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Rectangle;
 import org.openpnp.spi.Camera;
 import org.openpnp.spi.VisionProvider;
+import org.openpnp.trace.SessionTrace;
 import org.simpleframework.xml.Attribute;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,6 +70,8 @@ import com.googlecode.javacv.cpp.opencv_imgproc;
 public class OpenCvVisionProvider implements VisionProvider {
     private final static Logger logger = LoggerFactory
             .getLogger(OpenCvVisionProvider.class);
+    private static final LatencyHistogram locateCirclesLatency = Metrics.histogram("vision.locateCircles");
+    private static final LatencyHistogram locateTemplateMatchesLatency = Metrics.histogram("vision.locateTemplateMatches");
 
     // SimpleXML requires at least one attribute or element on a class before
     // it will recognize it.
@@ -86,12 +91,6 @@ public class OpenCvVisionProvider implements VisionProvider {
         return null;
     }
 
-    private IplImage getCameraImage() {
-        BufferedImage image_ = camera.capture();
-        IplImage image = IplImage.createFrom(image_);
-        return image;
-    }
-
     private static void setROI(IplImage image, Rectangle roi) {
         cvSetImageROI(
                 image,
@@ -103,14 +102,26 @@ public class OpenCvVisionProvider implements VisionProvider {
             int roiHeight, int coiX, int coiY, int minimumDiameter,
             int diameter, int maximumDiameter) throws Exception {
 
+        long t = System.nanoTime();
         Rectangle roi = new Rectangle(roiX, roiY, roiWidth, roiHeight);
-        return locateCircles(roi, minimumDiameter, maximumDiameter);
+        Circle[] circles = locateCircles(roi, minimumDiameter, maximumDiameter);
+        locateCirclesLatency.recordSince(t);
+        SessionTrace.vision(camera.getId(), "locateCircles", circles, t);
+        return circles;
     }
 
+    /**
+     * Returns the circles found within the roi. Coordinates are in pixels
+     * from the top left of the full image, not of the roi.
+     */
     private Circle[] locateCircles(Rectangle roi, int minimumDiameter,
             int maximumDiameter) {
 
-        IplImage image = getCameraImage();
+        BufferedImage frame = camera.capture();
+        SessionTrace.frame(camera.getId(), frame);
+        // The Hough transform needs a single channel 8 bit image.
+        IplImage image = IplImage.createFrom(convertBufferedImage(frame,
+                BufferedImage.TYPE_BYTE_GRAY));
         // cvSetImageROI(image, cvRect(roiX, roiY, roiWidth, roiHeight));
         setROI(image, roi);
 
@@ -123,9 +134,13 @@ public class OpenCvVisionProvider implements VisionProvider {
         int edgeThreshold = 20;
         int circleThreshold = 20;
 
-        return locateCircles(image, minDistance, edgeThreshold,
-                circleThreshold, minRadius, maxRadius);
-
+        Circle[] circles = locateCircles(image, minRadius, maxRadius,
+                minDistance, edgeThreshold, circleThreshold);
+        for (Circle circle : circles) {
+            circle.setX(circle.getX() + roi.getX());
+            circle.setY(circle.getY() + roi.getY());
+        }
+        return circles;
     }
 
     private Circle[] locateCircles(IplImage image, int minRadius,
@@ -160,7 +175,9 @@ public class OpenCvVisionProvider implements VisionProvider {
         CvPoint resLoc;
         double resValue;
 
+        long t = System.nanoTime();
         BufferedImage image_ = camera.capture();
+        SessionTrace.frame(camera.getId(), image_);
         
         // Convert the camera image and template image to the same type. This
         // is required by the cvMatchTemplate call.
@@ -192,7 +209,11 @@ public class OpenCvVisionProvider implements VisionProvider {
                 "locateTemplateMatches certainty %f at %d, %d", resValue,
                 resLoc.x(), resLoc.y()));
 
-        return new Point[] { new Point(resLoc.x() + roiX, resLoc.y() + roiY) };
+        locateTemplateMatchesLatency.recordSince(t);
+        
+        Point[] matches = new Point[] { new Point(resLoc.x() + roiX, resLoc.y() + roiY) };
+        SessionTrace.vision(camera.getId(), "locateTemplateMatches", matches, t);
+        return matches;
     }
 
     private void locateTemplateMatchesDebug(BufferedImage image_, int roiX,
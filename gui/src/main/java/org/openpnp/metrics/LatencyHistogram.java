@@ -0,0 +1,162 @@
+package org.openpnp.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in nanoseconds. Buckets are log-linear
+ * in the manner of HdrHistogram: every power of two is split into 16 equal
+ * buckets, so any percentile is reported within about 6% of the true value
+ * while the whole range from 1ns to centuries fits in under 1,000 buckets.
+ * Recording a value is a few atomic operations and allocates nothing.
+ *
+ * Typical use on a hot path, with the histogram held in a static final:
+ *
+ * long t = System.nanoTime();
+ * ...
+ * histogram.recordSince(t);
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT
+            + (62 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long nanoseconds) {
+        if (nanoseconds < 0) {
+            nanoseconds = 0;
+        }
+        buckets.incrementAndGet(getBucket(nanoseconds));
+        count.incrementAndGet();
+        total.addAndGet(nanoseconds);
+        long max;
+        while (nanoseconds > (max = this.max.get())) {
+            if (this.max.compareAndSet(max, nanoseconds)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Records the time elapsed since startNanoTime, a value previously
+     * returned by System.nanoTime().
+     * @param startNanoTime
+     */
+    public void recordSince(long startNanoTime) {
+        record(System.nanoTime() - startNanoTime);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalNanoseconds() {
+        return total.get();
+    }
+
+    /**
+     * Takes a consistent enough copy of the histogram for reporting. Values
+     * recorded while the copy is made may or may not be included.
+     * @return
+     */
+    public Snapshot getSnapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long n = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            n += counts[i];
+        }
+        return new Snapshot(name, counts, n, total.get(), max.get());
+    }
+
+    static int getBucket(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS;
+        int mantissa = (int) (value >>> shift);
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS
+                + (mantissa - SUB_BUCKETS);
+    }
+
+    /**
+     * Returns the value in the middle of the bucket.
+     */
+    static long getBucketValue(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long mantissa = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return (mantissa << shift) + ((1L << shift) >> 1);
+    }
+
+    public static class Snapshot {
+        private final String name;
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        Snapshot(String name, long[] counts, long count, long total, long max) {
+            this.name = name;
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMeanMillis() {
+            return count == 0 ? 0 : total / (double) count / 1e6;
+        }
+
+        public double getMaxMillis() {
+            return max / 1e6;
+        }
+
+        /**
+         * Returns the given percentile, 0 to 100, in milliseconds.
+         * @param percentile
+         * @return
+         */
+        public double getPercentileMillis(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(percentile / 100.0 * count);
+            rank = Math.max(1, Math.min(count, rank));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(getBucketValue(i), max) / 1e6;
+                }
+            }
+            return max / 1e6;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.openpnp.metrics;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The registry of named Counters and LatencyHistograms. Metrics are created
+ * on first use and live for the life of the process. Look them up once and
+ * keep them in a static final field; recording into them is lock-free.
+ *
+ * Names are dotted, starting with the subsystem: driver.moveTo,
+ * feeder.feed, vision.locateCircles, camera.capture, job.cycle.
+ */
+public class Metrics {
+    private final static Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    public static final String OBJECT_NAME = "org.openpnp:type=Metrics";
+
+    private static final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+    private static final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    private static MetricsSnapshotWriter snapshotWriter;
+
+    private Metrics() {
+    }
+
+    public static Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counter = new Counter(name);
+            Counter existing = counters.putIfAbsent(name, counter);
+            if (existing != null) {
+                counter = existing;
+            }
+        }
+        return counter;
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new LatencyHistogram(name);
+            LatencyHistogram existing = histograms.putIfAbsent(name, histogram);
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns the Counters sorted by name.
+     * @return
+     */
+    public static List<Counter> getCounters() {
+        List<Counter> list = new ArrayList<Counter>(counters.values());
+        Collections.sort(list, new Comparator<Counter>() {
+            public int compare(Counter o1, Counter o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        return list;
+    }
+
+    /**
+     * Returns the LatencyHistograms sorted by name.
+     * @return
+     */
+    public static List<LatencyHistogram> getHistograms() {
+        List<LatencyHistogram> list = new ArrayList<LatencyHistogram>(histograms.values());
+        Collections.sort(list, new Comparator<LatencyHistogram>() {
+            public int compare(LatencyHistogram o1, LatencyHistogram o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        return list;
+    }
+
+    /**
+     * Publishes the metrics through JMX and starts writing a snapshot of
+     * them to metrics.json in the directory every intervalSeconds. Safe to
+     * call more than once; later calls do nothing.
+     * @param directory
+     * @param intervalSeconds
+     */
+    public static synchronized void startReporting(File directory,
+            long intervalSeconds) {
+        if (snapshotWriter != null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+        }
+        catch (Exception e) {
+            logger.warn("Unable to register metrics with JMX", e);
+        }
+        snapshotWriter = new MetricsSnapshotWriter(new File(directory,
+                "metrics.json"), intervalSeconds);
+        snapshotWriter.start();
+    }
+}
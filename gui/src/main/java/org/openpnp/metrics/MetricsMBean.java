@@ -0,0 +1,116 @@
+package org.openpnp.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+
+/**
+ * Exposes every registered metric as a read only JMX attribute. A Counter
+ * named x is the attribute x; a LatencyHistogram named x provides x.count,
+ * x.meanMillis, x.p50Millis, x.p90Millis, x.p99Millis and x.maxMillis. The
+ * attribute list is rebuilt on each request, so metrics created after
+ * registration appear too.
+ */
+class MetricsMBean implements DynamicMBean {
+    private static final String[] HISTOGRAM_ATTRIBUTES = { "count",
+            "meanMillis", "p50Millis", "p90Millis", "p99Millis", "maxMillis" };
+
+    public Object getAttribute(String attribute)
+            throws AttributeNotFoundException {
+        for (Counter counter : Metrics.getCounters()) {
+            if (counter.getName().equals(attribute)) {
+                return counter.getCount();
+            }
+        }
+        int dot = attribute.lastIndexOf('.');
+        if (dot != -1) {
+            String name = attribute.substring(0, dot);
+            String field = attribute.substring(dot + 1);
+            for (LatencyHistogram histogram : Metrics.getHistograms()) {
+                if (histogram.getName().equals(name)) {
+                    return getHistogramAttribute(histogram.getSnapshot(), field);
+                }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    private static Object getHistogramAttribute(
+            LatencyHistogram.Snapshot snapshot, String field)
+            throws AttributeNotFoundException {
+        if (field.equals("count")) {
+            return snapshot.getCount();
+        }
+        else if (field.equals("meanMillis")) {
+            return snapshot.getMeanMillis();
+        }
+        else if (field.equals("p50Millis")) {
+            return snapshot.getPercentileMillis(50);
+        }
+        else if (field.equals("p90Millis")) {
+            return snapshot.getPercentileMillis(90);
+        }
+        else if (field.equals("p99Millis")) {
+            return snapshot.getPercentileMillis(99);
+        }
+        else if (field.equals("maxMillis")) {
+            return snapshot.getMaxMillis();
+        }
+        throw new AttributeNotFoundException(snapshot.getName() + "." + field);
+    }
+
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            }
+            catch (AttributeNotFoundException e) {
+                // Per the DynamicMBean contract, missing attributes are
+                // left out.
+            }
+        }
+        return list;
+    }
+
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+        for (Counter counter : Metrics.getCounters()) {
+            attributes.add(new MBeanAttributeInfo(counter.getName(),
+                    Long.class.getName(), counter.getName(), true, false,
+                    false));
+        }
+        for (LatencyHistogram histogram : Metrics.getHistograms()) {
+            for (String field : HISTOGRAM_ATTRIBUTES) {
+                String name = histogram.getName() + "." + field;
+                String type = field.equals("count") ? Long.class.getName()
+                        : Double.class.getName();
+                attributes.add(new MBeanAttributeInfo(name, type, name, true,
+                        false, false));
+            }
+        }
+        return new MBeanInfo(getClass().getName(), "OpenPnP metrics",
+                attributes.toArray(new MBeanAttributeInfo[attributes.size()]),
+                null, new MBeanOperationInfo[0], null);
+    }
+
+    public void setAttribute(Attribute attribute)
+            throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read only.");
+    }
+
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException(actionName);
+    }
+}
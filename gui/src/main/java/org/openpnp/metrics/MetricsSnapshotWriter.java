@@ -0,0 +1,85 @@
+package org.openpnp.metrics;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+/**
+ * Periodically writes all metrics to a JSON file. The file is written to a
+ * temporary file and renamed into place, so readers never see a partial
+ * snapshot.
+ */
+class MetricsSnapshotWriter implements Runnable {
+    private final static Logger logger = LoggerFactory
+            .getLogger(MetricsSnapshotWriter.class);
+
+    private final File file;
+    private final long intervalSeconds;
+    private final ScheduledExecutorService executor;
+
+    public MetricsSnapshotWriter(File file, long intervalSeconds) {
+        this.file = file;
+        this.intervalSeconds = intervalSeconds;
+        this.executor = Executors
+                .newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "MetricsSnapshotWriter");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    public void start() {
+        executor.scheduleWithFixedDelay(this, intervalSeconds,
+                intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void run() {
+        try {
+            File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+            FileUtils.writeStringToFile(temp, createSnapshot(), "UTF-8");
+            if (!temp.renameTo(file)) {
+                // Windows will not rename over an existing file.
+                file.delete();
+                temp.renameTo(file);
+            }
+        }
+        catch (Exception e) {
+            logger.warn("Unable to write metrics snapshot " + file, e);
+        }
+    }
+
+    static String createSnapshot() {
+        JsonObject root = new JsonObject();
+        root.addProperty("time", System.currentTimeMillis());
+        JsonObject counters = new JsonObject();
+        for (Counter counter : Metrics.getCounters()) {
+            counters.addProperty(counter.getName(), counter.getCount());
+        }
+        root.add("counters", counters);
+        JsonObject histograms = new JsonObject();
+        for (LatencyHistogram histogram : Metrics.getHistograms()) {
+            LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+            JsonObject o = new JsonObject();
+            o.addProperty("count", snapshot.getCount());
+            o.addProperty("meanMillis", snapshot.getMeanMillis());
+            o.addProperty("p50Millis", snapshot.getPercentileMillis(50));
+            o.addProperty("p90Millis", snapshot.getPercentileMillis(90));
+            o.addProperty("p99Millis", snapshot.getPercentileMillis(99));
+            o.addProperty("maxMillis", snapshot.getMaxMillis());
+            histograms.add(histogram.getName(), o);
+        }
+        root.add("histograms", histograms);
+        return new GsonBuilder().setPrettyPrinting().create().toJson(root);
+    }
+}
@@ -0,0 +1,451 @@
+/*
+ 	Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+
+ 	This file is part of OpenPnP.
+
+	OpenPnP is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    OpenPnP is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with OpenPnP.  If not, see <http://www.gnu.org/licenses/>.
+
+ 	For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.model;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.openpnp.model.Board.Side;
+
+/**
+ * A compact binary encoding for Boards and Jobs. Files in this format use
+ * the .board.bin and .job.bin extensions and are otherwise interchangeable
+ * with their XML counterparts; Configuration picks the format by looking at
+ * the file.
+ *
+ * A Board file holds the Board's name, outline and fiducials as a small XML
+ * document followed by the Placements stored column by column. Strings such
+ * as Part ids are written once to a table and referenced by index, so each
+ * distinct Part is resolved once per file and every Placement using it
+ * shares the same instance. Placements are not decoded when the Board is
+ * loaded; the column block is kept as raw bytes and decoded the first time
+ * the Placements are requested.
+ *
+ * A Job file holds the BoardLocations in the same column layout. Version 2
+ * Job files add the step and repeat PanelLayout of each BoardLocation.
+ */
+public class BinaryJobFormat {
+    public static final String BOARD_EXTENSION = ".board.bin";
+    public static final String JOB_EXTENSION = ".job.bin";
+
+    private static final byte[] BOARD_MAGIC = { 'O', 'P', 'N', 'P', 'B', 'R', 'D', 0 };
+    private static final byte[] JOB_MAGIC = { 'O', 'P', 'N', 'P', 'J', 'O', 'B', 0 };
+    private static final int VERSION = 1;
+    private static final int JOB_VERSION = 2;
+
+    private static final LengthUnit[] UNITS = LengthUnit.values();
+    private static final Side[] SIDES = Side.values();
+
+    /**
+     * Returns true if the file starts with the binary Board or Job header.
+     * Files that do not exist or cannot be read are not binary.
+     * @param file
+     * @return
+     */
+    public static boolean isBinary(File file) {
+        if (!file.exists()) {
+            return false;
+        }
+        try {
+            byte[] magic = new byte[BOARD_MAGIC.length];
+            InputStream in = new FileInputStream(file);
+            try {
+                if (in.read(magic) != magic.length) {
+                    return false;
+                }
+            }
+            finally {
+                in.close();
+            }
+            return Arrays.equals(magic, BOARD_MAGIC)
+                    || Arrays.equals(magic, JOB_MAGIC);
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if a file with the given name should be written in the
+     * binary format.
+     * @param file
+     * @return
+     */
+    public static boolean isBinaryFilename(File file) {
+        String name = file.getName().toLowerCase();
+        return name.endsWith(BOARD_EXTENSION) || name.endsWith(JOB_EXTENSION);
+    }
+
+    public static byte[] writeBoard(Board board) throws Exception {
+        // The header only carries the properties that are not Placements.
+        Board header = new Board();
+        header.setName(board.getName());
+        header.setOutline(board.getOutline());
+        for (Fiducial fiducial : board.getFiducials()) {
+            header.addFiducial(fiducial);
+        }
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        Configuration.createSerializer().write(header, xml);
+
+        List<Placement> placements = board.getPlacements();
+        int count = placements.size();
+        StringTable strings = new StringTable();
+        int[] ids = new int[count];
+        int[] partIds = new int[count];
+        byte[] sides = new byte[count];
+        byte[] units = new byte[count];
+        double[] values = new double[count * 4];
+        for (int i = 0; i < count; i++) {
+            Placement placement = placements.get(i);
+            Location location = placement.getLocation();
+            Part part = placement.getPart();
+            ids[i] = strings.indexOf(placement.getId());
+            partIds[i] = strings.indexOf(part == null ? null : part.getId());
+            sides[i] = (byte) placement.getSide().ordinal();
+            units[i] = (byte) location.getUnits().ordinal();
+            values[i * 4] = location.getX();
+            values[i * 4 + 1] = location.getY();
+            values[i * 4 + 2] = location.getZ();
+            values[i * 4 + 3] = location.getRotation();
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + count * 42);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(BOARD_MAGIC);
+        out.writeInt(VERSION);
+        byte[] xmlBytes = xml.toByteArray();
+        out.writeInt(xmlBytes.length);
+        out.write(xmlBytes);
+        strings.write(out);
+        out.writeInt(count);
+        writeInts(out, ids);
+        writeInts(out, partIds);
+        out.write(sides);
+        out.write(units);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a Board. Only the header is decoded here; the Placements are
+     * decoded when the Board first needs them.
+     * @param file
+     * @return
+     * @throws Exception
+     */
+    public static Board readBoard(File file) throws Exception {
+        byte[] data = FileUtils.readFileToByteArray(file);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        readHeader(in, BOARD_MAGIC, VERSION, file);
+        byte[] xml = new byte[in.readInt()];
+        in.readFully(xml);
+        Board board = Configuration.createSerializer().read(Board.class,
+                new ByteArrayInputStream(xml));
+        int placementsOffset = BOARD_MAGIC.length + 8 + xml.length;
+        board.setPlacementLoader(new PlacementLoader(data, placementsOffset));
+        return board;
+    }
+
+    public static byte[] writeJob(Job job) throws Exception {
+        List<BoardLocation> boardLocations = job.getBoardLocations();
+        int count = boardLocations.size();
+        StringTable strings = new StringTable();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + count * 40);
+        DataOutputStream out = new DataOutputStream(bytes);
+        int[] files = new int[count];
+        for (int i = 0; i < count; i++) {
+            files[i] = strings.indexOf(boardLocations.get(i).getBoardFile());
+        }
+        out.write(JOB_MAGIC);
+        out.writeInt(JOB_VERSION);
+        strings.write(out);
+        out.writeInt(count);
+        writeInts(out, files);
+        for (BoardLocation boardLocation : boardLocations) {
+            out.writeByte(boardLocation.getSide().ordinal());
+        }
+        for (BoardLocation boardLocation : boardLocations) {
+            out.writeByte(boardLocation.getLocation().getUnits().ordinal());
+        }
+        for (BoardLocation boardLocation : boardLocations) {
+            Location location = boardLocation.getLocation();
+            out.writeDouble(location.getX());
+            out.writeDouble(location.getY());
+            out.writeDouble(location.getZ());
+            out.writeDouble(location.getRotation());
+        }
+        for (BoardLocation boardLocation : boardLocations) {
+            PanelLayout panelLayout = boardLocation.getPanelLayout();
+            out.writeBoolean(panelLayout != null);
+            if (panelLayout == null) {
+                continue;
+            }
+            Location pitch = panelLayout.getPitch();
+            out.writeInt(panelLayout.getRows());
+            out.writeInt(panelLayout.getColumns());
+            out.writeByte(pitch.getUnits().ordinal());
+            out.writeDouble(pitch.getX());
+            out.writeDouble(pitch.getY());
+            int cellCount = panelLayout.getCellCount();
+            for (int cell = 0; cell < cellCount; cell += 8) {
+                int mask = 0;
+                for (int bit = 0; bit < 8 && cell + bit < cellCount; bit++) {
+                    if (panelLayout.isSkipped(cell + bit)) {
+                        mask |= 1 << bit;
+                    }
+                }
+                out.writeByte(mask);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a Job. As with an XML Job, the BoardLocations only carry the
+     * Board filename; Configuration.loadJob() resolves the Boards.
+     * @param file
+     * @return
+     * @throws Exception
+     */
+    public static Job readJob(File file) throws Exception {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(file)));
+        try {
+            int version = readHeader(in, JOB_MAGIC, JOB_VERSION, file);
+            String[] strings = StringTable.read(in);
+            int count = in.readInt();
+            int[] files = readInts(in, count);
+            byte[] sides = new byte[count];
+            in.readFully(sides);
+            byte[] units = new byte[count];
+            in.readFully(units);
+            Job job = new Job();
+            BoardLocation[] boardLocations = new BoardLocation[count];
+            for (int i = 0; i < count; i++) {
+                BoardLocation boardLocation = new BoardLocation();
+                boardLocation.setBoardFile(files[i] < 0 ? null : strings[files[i]]);
+                boardLocation.setSide(SIDES[sides[i]]);
+                boardLocation.setLocation(new Location(UNITS[units[i]], in
+                        .readDouble(), in.readDouble(), in.readDouble(), in
+                        .readDouble()));
+                boardLocations[i] = boardLocation;
+            }
+            if (version >= 2) {
+                for (BoardLocation boardLocation : boardLocations) {
+                    if (!in.readBoolean()) {
+                        continue;
+                    }
+                    int rows = in.readInt();
+                    int columns = in.readInt();
+                    LengthUnit pitchUnits = UNITS[in.readByte()];
+                    PanelLayout panelLayout = new PanelLayout(rows, columns,
+                            new Location(pitchUnits, in.readDouble(), in
+                                    .readDouble(), 0, 0));
+                    int cellCount = panelLayout.getCellCount();
+                    for (int cell = 0; cell < cellCount; cell += 8) {
+                        int mask = in.readUnsignedByte();
+                        for (int bit = 0; bit < 8 && cell + bit < cellCount; bit++) {
+                            if ((mask & (1 << bit)) != 0) {
+                                panelLayout.setSkipped(cell + bit, true);
+                            }
+                        }
+                    }
+                    boardLocation.setPanelLayout(panelLayout);
+                }
+            }
+            for (BoardLocation boardLocation : boardLocations) {
+                job.addBoardLocation(boardLocation);
+            }
+            return job;
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Converts an XML Board file to a binary one. Part references are
+     * resolved against the current Configuration.
+     * @param xmlFile
+     * @param binaryFile
+     * @throws Exception
+     */
+    public static void convertBoardToBinary(File xmlFile, File binaryFile)
+            throws Exception {
+        Board board = Configuration.createSerializer().read(Board.class,
+                xmlFile);
+        Configuration.writeAtomically(binaryFile, writeBoard(board));
+    }
+
+    /**
+     * Converts a binary Board file to an XML one.
+     * @param binaryFile
+     * @param xmlFile
+     * @throws Exception
+     */
+    public static void convertBoardToXml(File binaryFile, File xmlFile)
+            throws Exception {
+        Board board = readBoard(binaryFile);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Configuration.createSerializer().write(board, out);
+        Configuration.writeAtomically(xmlFile, out.toByteArray());
+    }
+
+    /**
+     * Checks the magic and returns the file's version, which may be any
+     * version from 1 up to maximumVersion.
+     */
+    private static int readHeader(DataInputStream in, byte[] expectedMagic,
+            int maximumVersion, File file) throws IOException {
+        byte[] magic = new byte[expectedMagic.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, expectedMagic)) {
+            throw new IOException("Not a binary OpenPnP file: " + file);
+        }
+        int version = in.readInt();
+        if (version < 1 || version > maximumVersion) {
+            throw new IOException("Unsupported binary file version "
+                    + version + ": " + file);
+        }
+        return version;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values)
+            throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(DataInputStream in, int count)
+            throws IOException {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    /**
+     * Decodes the Placement columns of a Board on demand.
+     */
+    static class PlacementLoader {
+        private final byte[] data;
+        private final int offset;
+
+        public PlacementLoader(byte[] data, int offset) {
+            this.data = data;
+            this.offset = offset;
+        }
+
+        public List<Placement> loadPlacements() throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    data, offset, data.length - offset));
+            String[] strings = StringTable.read(in);
+            int count = in.readInt();
+            int[] ids = readInts(in, count);
+            int[] partIds = readInts(in, count);
+            byte[] sides = new byte[count];
+            in.readFully(sides);
+            byte[] units = new byte[count];
+            in.readFully(units);
+
+            // Resolve each distinct Part once.
+            Configuration configuration = Configuration.get();
+            Part[] parts = new Part[strings.length];
+            boolean[] resolved = new boolean[strings.length];
+
+            List<Placement> placements = new ArrayList<Placement>(count);
+            for (int i = 0; i < count; i++) {
+                Placement placement = new Placement(ids[i] < 0 ? null
+                        : strings[ids[i]]);
+                placement.setLocation(new Location(UNITS[units[i]], in
+                        .readDouble(), in.readDouble(), in.readDouble(), in
+                        .readDouble()));
+                placement.setSide(SIDES[sides[i]]);
+                int partId = partIds[i];
+                if (partId >= 0) {
+                    if (!resolved[partId]) {
+                        parts[partId] = configuration.getPart(strings[partId]);
+                        resolved[partId] = true;
+                    }
+                    placement.setPart(parts[partId]);
+                }
+                placements.add(placement);
+            }
+            return placements;
+        }
+    }
+
+    /**
+     * Assigns each distinct String an index. null is stored as -1.
+     */
+    private static class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+        private final List<String> strings = new ArrayList<String>();
+
+        public int indexOf(String s) {
+            if (s == null) {
+                return -1;
+            }
+            Integer index = indexes.get(s);
+            if (index == null) {
+                index = strings.size();
+                indexes.put(s, index);
+                strings.add(s);
+            }
+            return index;
+        }
+
+        public void write(DataOutputStream out) throws IOException {
+            out.writeInt(strings.size());
+            for (String s : strings) {
+                out.writeUTF(s);
+            }
+        }
+
+        public static String[] read(DataInputStream in) throws IOException {
+            String[] strings = new String[in.readInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = in.readUTF().intern();
+            }
+            return strings;
+        }
+    }
+}
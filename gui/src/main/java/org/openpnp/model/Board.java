@@ -26,6 +26,7 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
@@ -34,6 +35,7 @@ import org.simpleframework.xml.Element;
 import org.simpleframework.xml.ElementList;
 import org.simpleframework.xml.Root;
 import org.simpleframework.xml.core.Commit;
+import org.simpleframework.xml.core.Persist;
 
 /**
  * A Board describes the physical properties of a PCB and has a list of 
@@ -56,6 +58,7 @@ public class Board extends AbstractModelObject implements PropertyChangeListener
 	
 	private transient File file;
 	private transient boolean dirty;
+	private transient BinaryJobFormat.PlacementLoader placementLoader;
 	
 	public Board() {
 		this(null);
@@ -74,6 +77,16 @@ public class Board extends AbstractModelObject implements PropertyChangeListener
 		}
 	}
 	
+	/**
+	 * A Board read from BinaryJobFormat has not decoded its Placements yet,
+	 * so they are loaded before the serializer reads the field.
+	 */
+	@SuppressWarnings("unused")
+	@Persist
+	private void persist() {
+		loadPlacements();
+	}
+	
 	public List<Fiducial> getFiducials() {
 		return Collections.unmodifiableList(fiducials);
 	}
@@ -94,10 +107,12 @@ public class Board extends AbstractModelObject implements PropertyChangeListener
 	}
 	
 	public List<Placement> getPlacements() {
+		loadPlacements();
 		return Collections.unmodifiableList(placements);
 	}
 	
 	public void addPlacement(Placement placement) {
+		loadPlacements();
 		Object oldValue = placements;
 		placements = new ArrayList<Placement>(placements);
 		placements.add(placement);
@@ -107,7 +122,28 @@ public class Board extends AbstractModelObject implements PropertyChangeListener
 		}
 	}
 	
+	/**
+	 * Adds all of the Placements with a single copy of the list and a
+	 * single property change, for bulk operations such as imports.
+	 * @param placements
+	 */
+	public void addPlacements(Collection<Placement> placements) {
+		loadPlacements();
+		Object oldValue = this.placements;
+		ArrayList<Placement> newValue = new ArrayList<Placement>(this.placements.size() + placements.size());
+		newValue.addAll(this.placements);
+		newValue.addAll(placements);
+		this.placements = newValue;
+		firePropertyChange("placements", oldValue, newValue);
+		for (Placement placement : placements) {
+			if (placement != null) {
+				placement.addPropertyChangeListener(this);
+			}
+		}
+	}
+	
 	public void removePlacement(Placement placement) {
+		loadPlacements();
 		Object oldValue = placements;
 		placements = new ArrayList<Placement>(placements);
 		placements.remove(placement);
@@ -117,6 +153,33 @@ public class Board extends AbstractModelObject implements PropertyChangeListener
 		}
 	}
 	
+	/**
+	 * Sets a loader that supplies this Board's Placements the first time they
+	 * are needed. Used by BinaryJobFormat so that loading a Job does not
+	 * decode every Placement of every Board up front.
+	 * @param placementLoader
+	 */
+	synchronized void setPlacementLoader(BinaryJobFormat.PlacementLoader placementLoader) {
+		this.placementLoader = placementLoader;
+	}
+	
+	private synchronized void loadPlacements() {
+		if (placementLoader == null) {
+			return;
+		}
+		BinaryJobFormat.PlacementLoader loader = placementLoader;
+		placementLoader = null;
+		try {
+			placements = new ArrayList<Placement>(loader.loadPlacements());
+		}
+		catch (Exception e) {
+			throw new Error("Unable to load placements for board " + name, e);
+		}
+		for (Placement placement : placements) {
+			placement.addPropertyChangeListener(this);
+		}
+	}
+	
 	public Outline getOutline() {
 		return outline;
 	}
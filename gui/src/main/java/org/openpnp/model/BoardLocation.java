@@ -21,6 +21,10 @@
 
 package org.openpnp.model;
 
+import java.awt.geom.AffineTransform;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
 import org.openpnp.model.Board.Side;
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
@@ -36,6 +40,21 @@ public class BoardLocation extends AbstractModelObject {
 	@Attribute
 	private String boardFile;
 	
+	/**
+	 * If set, this BoardLocation is a step and repeat panel of its Board
+	 * and the Location is that of the panel's first cell.
+	 */
+	@Element(required=false)
+	private PanelLayout panelLayout;
+	
+	/**
+	 * The transform from board coordinates to machine coordinates measured
+	 * by fiducial registration, or null if the board has not been
+	 * registered. Not saved, since the board will be in a slightly
+	 * different place each time it is loaded onto the machine.
+	 */
+	private transient AffineTransform placementTransform;
+	
 	BoardLocation() {
 		setLocation(new Location(LengthUnit.Millimeters));
 	}
@@ -50,17 +69,41 @@ public class BoardLocation extends AbstractModelObject {
 	private void commit() {
 		setLocation(location);
 		setBoard(board);
+		setPanelLayout(panelLayout);
 	}
 	
 	public Location getLocation() {
 		return location;
 	}
 
+	/**
+	 * Sets the Location of the board. Any transform measured by fiducial
+	 * registration is discarded since it no longer matches.
+	 * @param location
+	 */
 	public void setLocation(Location location) {
 		Location oldValue = this.location;
 		this.location = location;
+		setPlacementTransform(null);
 		firePropertyChange("location", oldValue, location);
 	}
+	
+	public AffineTransform getPlacementTransform() {
+		return placementTransform == null ? null : new AffineTransform(placementTransform);
+	}
+	
+	/**
+	 * Sets the transform from board coordinates, in the units of this
+	 * BoardLocation's Location, to machine coordinates. When set it
+	 * replaces the transform that would otherwise be built from the Location
+	 * and side, so it must include the mirroring of the bottom side.
+	 * @param placementTransform
+	 */
+	public void setPlacementTransform(AffineTransform placementTransform) {
+		Object oldValue = this.placementTransform;
+		this.placementTransform = placementTransform == null ? null : new AffineTransform(placementTransform);
+		firePropertyChange("placementTransform", oldValue, placementTransform);
+	}
 
 	public Side getSide() {
 		return side;
@@ -72,6 +115,31 @@ public class BoardLocation extends AbstractModelObject {
 		firePropertyChange("side", oldValue, side);
 	}
 	
+	public PanelLayout getPanelLayout() {
+		return panelLayout;
+	}
+	
+	public void setPanelLayout(PanelLayout panelLayout) {
+		PanelLayout oldValue = this.panelLayout;
+		if (oldValue != null) {
+			oldValue.removePropertyChangeListener(panelLayoutListener);
+		}
+		this.panelLayout = panelLayout;
+		if (panelLayout != null) {
+			panelLayout.addPropertyChangeListener(panelLayoutListener);
+		}
+		firePropertyChange("panelLayout", oldValue, panelLayout);
+	}
+	
+	/**
+	 * The number of copies of the Board that will be placed: the number of
+	 * active cells of the panel or 1 if this is not a panel.
+	 * @return
+	 */
+	public int getActiveCellCount() {
+		return panelLayout == null ? 1 : panelLayout.getActiveCellCount();
+	}
+	
 	public Board getBoard() {
 		return board;
 	}
@@ -94,4 +162,14 @@ public class BoardLocation extends AbstractModelObject {
 	public String toString() {
 		return String.format("board (%s), location (%s), side (%s)", boardFile, location, side);
 	}
+	
+	/**
+	 * Passes changes to the PanelLayout on to our own listeners so that the
+	 * Job is marked dirty.
+	 */
+	private transient PropertyChangeListener panelLayoutListener = new PropertyChangeListener() {
+		public void propertyChange(PropertyChangeEvent evt) {
+			firePropertyChange("panelLayout", null, panelLayout);
+		}
+	};
 }
\ No newline at end of file
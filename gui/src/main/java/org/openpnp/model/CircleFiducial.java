@@ -0,0 +1,61 @@
+/*
+ 	Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ 	
+ 	This file is part of OpenPnP.
+ 	
+	OpenPnP is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    OpenPnP is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with OpenPnP.  If not, see <http://www.gnu.org/licenses/>.
+ 	
+ 	For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.model;
+
+import org.simpleframework.xml.Element;
+
+/**
+ * A round Fiducial, the most common kind, such as a 1mm copper dot with a
+ * solder mask opening around it.
+ */
+public class CircleFiducial implements Fiducial {
+	@Element
+	private Location location;
+	@Element
+	private Length diameter;
+	
+	/**
+	 * Only used by XML serialization.
+	 */
+	@SuppressWarnings("unused")
+	private CircleFiducial() {
+		this(new Location(LengthUnit.Millimeters), new Length(1, LengthUnit.Millimeters));
+	}
+	
+	public CircleFiducial(Location location, Length diameter) {
+		this.location = location;
+		this.diameter = diameter;
+	}
+	
+	public Location getLocation() {
+		return location;
+	}
+	
+	public Length getDiameter() {
+		return diameter;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("location %s, diameter %s", location, diameter);
+	}
+}
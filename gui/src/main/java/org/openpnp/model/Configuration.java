@@ -21,21 +21,40 @@
 
 package org.openpnp.model;
 
+import java.awt.EventQueue;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.prefs.Preferences;
 
 import org.apache.commons.io.FileUtils;
 import org.openpnp.ConfigurationListener;
 import org.openpnp.spi.JobPlanner;
 import org.openpnp.spi.Machine;
+import org.openpnp.util.IdentifiableCatalog;
 import org.openpnp.util.ResourceUtils;
 import org.simpleframework.xml.Element;
 import org.simpleframework.xml.ElementList;
@@ -45,6 +64,8 @@ import org.simpleframework.xml.convert.AnnotationStrategy;
 import org.simpleframework.xml.core.Persister;
 import org.simpleframework.xml.stream.Format;
 import org.simpleframework.xml.stream.HyphenStyle;
+import org.simpleframework.xml.stream.InputNode;
+import org.simpleframework.xml.stream.NodeBuilder;
 import org.simpleframework.xml.stream.Style;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,14 +87,53 @@ public class Configuration extends AbstractModelObject {
 	private static final String PREF_VERTICAL_SCROLL_UNIT_INCREMENT = "Configuration.verticalScrollUnitIncrement";
 	private static final int PREF_VERTICAL_SCROLL_UNIT_INCREMENT_DEF = 16;
 	
-	private LinkedHashMap<String, Package> packages = new LinkedHashMap<String, Package>();
-	private LinkedHashMap<String, Part> parts = new LinkedHashMap<String, Part>();
+	/**
+	 * How long scheduleSave() waits before writing, so that a burst of
+	 * changes such as feeder counters during a job results in one write.
+	 */
+	private static final long BACKGROUND_SAVE_DELAY_MILLISECONDS = 5000;
+	
+	/**
+	 * The independently saved sections of the configuration. Each is
+	 * stored in its own file and is only rewritten when it is dirty.
+	 */
+	public enum Section {
+		Machine("machine.xml"),
+		Packages("packages.xml"),
+		Parts("parts.xml");
+		
+		private final String filename;
+		
+		private Section(String filename) {
+			this.filename = filename;
+		}
+		
+		public String getFilename() {
+			return filename;
+		}
+	}
+	
+	private final IdentifiableCatalog<Package> packages = new IdentifiableCatalog<Package>();
+	private final IdentifiableCatalog<Part> parts = new IdentifiableCatalog<Part>();
 	private Machine machine;
 	private LinkedHashMap<File, Board> boards = new LinkedHashMap<File, Board>();
-	private boolean dirty;
+	private final Set<Section> dirtySections = EnumSet.noneOf(Section.class);
+	private boolean saveScheduled;
+	private ScheduledExecutorService saveExecutor;
+	private long saveDelayMilliseconds = BACKGROUND_SAVE_DELAY_MILLISECONDS;
+	private volatile boolean serializeOnEventDispatchThread;
+	/*
+	 * Each serialization of the Sections takes the next generation, and
+	 * each Section remembers the generation last written to its file, so a
+	 * slow save can't overwrite the file with an older snapshot than a
+	 * save that finished before it.
+	 */
+	private final AtomicLong saveGeneration = new AtomicLong();
+	private final Map<Section, Long> savedGenerations = new EnumMap<Section, Long>(Section.class);
 	private boolean loaded;
 	private Set<ConfigurationListener> listeners = Collections.synchronizedSet(new HashSet<ConfigurationListener>());
 	private File configurationDirectory;
+	private File catalogDirectory;
 	private Preferences prefs;
 	
 	public static Configuration get() {
@@ -93,6 +153,30 @@ public class Configuration extends AbstractModelObject {
 		this.prefs = Preferences.userNodeForPackage(Configuration.class);
 	}
 	
+	public File getConfigurationDirectory() {
+		return configurationDirectory;
+	}
+	
+	/**
+	 * The directory packages.xml and parts.xml are read from and saved to.
+	 * It is the configuration directory unless another has been set, so
+	 * that several machines, each with its own configuration directory,
+	 * can share one catalog of parts and packages.
+	 * @return
+	 */
+	public File getCatalogDirectory() {
+		return catalogDirectory == null ? configurationDirectory : catalogDirectory;
+	}
+	
+	/**
+	 * Sets the directory packages.xml and parts.xml are read from and saved
+	 * to. Must be called before load().
+	 * @param catalogDirectory
+	 */
+	public void setCatalogDirectory(File catalogDirectory) {
+		this.catalogDirectory = catalogDirectory;
+	}
+	
 	public LengthUnit getSystemUnits() {
 		return LengthUnit.valueOf(prefs.get(PREF_UNITS, PREF_UNITS_DEF));
 	}
@@ -175,12 +259,104 @@ public class Configuration extends AbstractModelObject {
 		return file;
 	}
 	
+	/**
+	 * Sets whether background saves serialize the configuration on the
+	 * event dispatch thread. The GUI changes the configuration on that
+	 * thread, so it turns this on; without a GUI it stays off and the
+	 * saver serializes on its own thread, so that saving never starts AWT.
+	 * @param serializeOnEventDispatchThread
+	 */
+	public void setSerializeOnEventDispatchThread(boolean serializeOnEventDispatchThread) {
+		this.serializeOnEventDispatchThread = serializeOnEventDispatchThread;
+	}
+	
+	public boolean isSerializeOnEventDispatchThread() {
+		return serializeOnEventDispatchThread;
+	}
+	
+	void setSaveDelayMilliseconds(long saveDelayMilliseconds) {
+		this.saveDelayMilliseconds = saveDelayMilliseconds;
+	}
+	
+	/**
+	 * Returns how many times the Sections have been serialized for saving.
+	 */
+	long getSaveGeneration() {
+		return saveGeneration.get();
+	}
+	
 	public boolean isDirty() {
-		return dirty;
+		synchronized (dirtySections) {
+			return !dirtySections.isEmpty();
+		}
 	}
 
+	/**
+	 * Marks every Section dirty, or clears all dirty flags. Prefer
+	 * setDirty(Section) when the changed Section is known so that save()
+	 * only rewrites what changed.
+	 * @param dirty
+	 */
 	public void setDirty(boolean dirty) {
-		this.dirty = dirty;
+		synchronized (dirtySections) {
+			if (dirty) {
+				dirtySections.addAll(EnumSet.allOf(Section.class));
+			}
+			else {
+				dirtySections.clear();
+			}
+		}
+	}
+	
+	public void setDirty(Section section) {
+		synchronized (dirtySections) {
+			dirtySections.add(section);
+		}
+	}
+	
+	public boolean isDirty(Section section) {
+		synchronized (dirtySections) {
+			return dirtySections.contains(section);
+		}
+	}
+	
+	/**
+	 * Marks the Section dirty and saves the configuration on a background
+	 * thread a short time later. Changes made before the save runs are
+	 * written together, so this is cheap to call for frequently changing
+	 * state such as feeder counters. It never blocks the caller on I/O.
+	 * @param section
+	 */
+	public void scheduleSave(Section section) {
+		synchronized (dirtySections) {
+			dirtySections.add(section);
+			if (saveScheduled) {
+				return;
+			}
+			saveScheduled = true;
+			if (saveExecutor == null) {
+				saveExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "Configuration saver");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+			}
+		}
+		saveExecutor.schedule(new Runnable() {
+			public void run() {
+				synchronized (dirtySections) {
+					saveScheduled = false;
+				}
+				try {
+					saveInBackground();
+				}
+				catch (Exception e) {
+					logger.error("Background configuration save failed", e);
+				}
+			}
+		}, saveDelayMilliseconds, TimeUnit.MILLISECONDS);
 	}
 
 	public void addListener(ConfigurationListener listener) {
@@ -201,12 +377,24 @@ public class Configuration extends AbstractModelObject {
 		listeners.remove(listener);
 	}
 	
-	public void load() throws Exception {
+	/**
+	 * Loads only the packages and parts, for tools that read Jobs without
+	 * driving a machine.
+	 * @throws Exception
+	 */
+	public void loadCatalog() throws Exception {
+		loadCatalog(Boolean.getBoolean("overrideUserConfig"));
+		setDirty(false);
+	}
+	
+	/**
+	 * Loads packages.xml and parts.xml from the catalog directory, or the
+	 * defaults if they are not there. Returns true if defaults were loaded.
+	 */
+	private boolean loadCatalog(boolean overrideUserConfig) throws Exception {
 		boolean forceSave = false;
-		boolean overrideUserConfig = Boolean.getBoolean("overrideUserConfig");
-		
 		try {
-			File file = new File(configurationDirectory, "packages.xml");
+			File file = new File(getCatalogDirectory(), "packages.xml");
 			if (overrideUserConfig || !file.exists()) {
 				logger.info("No packages.xml found in configuration directory, loading defaults.");
 				file = File.createTempFile("packages", "xml");
@@ -225,7 +413,7 @@ public class Configuration extends AbstractModelObject {
 		
 		
 		try {
-			File file = new File(configurationDirectory, "parts.xml");
+			File file = new File(getCatalogDirectory(), "parts.xml");
 			if (overrideUserConfig || !file.exists()) {
 				logger.info("No parts.xml found in configuration directory, loading defaults.");
 				file = File.createTempFile("parts", "xml");
@@ -241,7 +429,12 @@ public class Configuration extends AbstractModelObject {
 			}
 			throw new Exception("Error while reading parts.xml (" + message + ")", e);
 		}
-		
+		return forceSave;
+	}
+	
+	public void load() throws Exception {
+		boolean overrideUserConfig = Boolean.getBoolean("overrideUserConfig");
+		boolean forceSave = loadCatalog(overrideUserConfig);
 		
 		try {
 			File file = new File(configurationDirectory, "machine.xml");
@@ -261,6 +454,11 @@ public class Configuration extends AbstractModelObject {
 			throw new Exception("Error while reading machine.xml (" + message + ")", e);
 		}
 		
+        // Loading adds every Part and Package, which marks those Sections
+        // dirty. Nothing has changed relative to disk unless we loaded
+        // defaults.
+        setDirty(forceSave);
+        
         loaded = true;
 
         for (ConfigurationListener listener : listeners) {
@@ -270,6 +468,8 @@ public class Configuration extends AbstractModelObject {
         if (forceSave) {
 			logger.info("Defaults were loaded. Saving to configuration directory.");
 			configurationDirectory.mkdirs();
+			getCatalogDirectory().mkdirs();
+			setDirty(true);
 			save();
 		}
         
@@ -278,66 +478,241 @@ public class Configuration extends AbstractModelObject {
         }
 	}
 	
+	/**
+	 * Saves each dirty Section to its file in the configuration directory.
+	 * Sections that have not changed since they were last loaded or saved
+	 * are not rewritten. The Sections are serialized on the calling thread,
+	 * which should be the one that changes the configuration: the event
+	 * dispatch thread in the GUI.
+	 * @throws Exception
+	 */
 	public void save() throws Exception {
+		Set<Section> sections = takeDirtySections();
+		Map<Section, SectionData> data = null;
 		try {
-			saveMachine(new File(configurationDirectory, "machine.xml"));
+			data = serialize(sections);
+			writeSections(data);
 		}
-		catch (Exception e) {
-			throw new Exception("Error while saving machine.xml (" + e.getMessage() + ")", e);
+		finally {
+			markDirty(data == null ? sections : data.keySet());
 		}
+	}
+	
+	/**
+	 * Saves the dirty Sections from the background saver. When the GUI is
+	 * running they are serialized on the event dispatch thread, where the
+	 * GUI changes the configuration, so that the snapshot never catches an
+	 * edit half done or a list being modified, and only the writing happens
+	 * on this thread. Without a GUI nothing edits the configuration
+	 * structurally, only Feeders update their own counters, so the Sections
+	 * are serialized here and AWT is never touched.
+	 * @throws Exception
+	 */
+	private void saveInBackground() throws Exception {
+		final Set<Section> sections = takeDirtySections();
+		Map<Section, SectionData> data = null;
 		try {
-			savePackages(new File(configurationDirectory, "packages.xml"));
+			if (serializeOnEventDispatchThread) {
+				data = serializeOnEventDispatchThread(sections);
+			}
+			else {
+				data = serialize(sections);
+			}
+			writeSections(data);
 		}
-		catch (Exception e) {
-			throw new Exception("Error while saving packages.xml (" + e.getMessage() + ")", e);
+		finally {
+			markDirty(data == null ? sections : data.keySet());
 		}
+	}
+	
+	private Map<Section, SectionData> serializeOnEventDispatchThread(final Set<Section> sections) throws Exception {
+		FutureTask<Map<Section, SectionData>> task = new FutureTask<Map<Section, SectionData>>(new Callable<Map<Section, SectionData>>() {
+			public Map<Section, SectionData> call() throws Exception {
+				return serialize(sections);
+			}
+		});
+		EventQueue.invokeLater(task);
 		try {
-			saveParts(new File(configurationDirectory, "parts.xml"));
+			return task.get();
 		}
-		catch (Exception e) {
-			throw new Exception("Error while saving parts.xml (" + e.getMessage() + ")", e);
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
 		}
-		dirty = false;
 	}
 	
-	public Package getPackage(String id) {
-		if (id == null) {
-			return null;
+	/**
+	 * Returns the dirty Sections and clears their flags. Whatever the
+	 * caller fails to save goes back through markDirty() so that the next
+	 * save tries it again.
+	 */
+	private Set<Section> takeDirtySections() {
+		synchronized (dirtySections) {
+			Set<Section> sections = EnumSet.copyOf(dirtySections);
+			dirtySections.clear();
+			return sections;
+		}
+	}
+	
+	private void markDirty(Set<Section> sections) {
+		synchronized (dirtySections) {
+			dirtySections.addAll(sections);
+		}
+	}
+	
+	/**
+	 * Serializes the Sections to memory.
+	 */
+	private Map<Section, SectionData> serialize(Set<Section> sections) throws Exception {
+		long generation = saveGeneration.incrementAndGet();
+		Map<Section, SectionData> data = new EnumMap<Section, SectionData>(Section.class);
+		for (Section section : sections) {
+			Object holder;
+			if (section == Section.Machine) {
+				MachineConfigurationHolder machineHolder = new MachineConfigurationHolder();
+				machineHolder.machine = machine;
+				holder = machineHolder;
+			}
+			else if (section == Section.Packages) {
+				PackagesConfigurationHolder packagesHolder = new PackagesConfigurationHolder();
+				packagesHolder.packages = new ArrayList<Package>(packages.getAll());
+				holder = packagesHolder;
+			}
+			else {
+				PartsConfigurationHolder partsHolder = new PartsConfigurationHolder();
+				partsHolder.parts = new ArrayList<Part>(parts.getAll());
+				holder = partsHolder;
+			}
+			try {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				createSerializer().write(holder, out);
+				data.put(section, new SectionData(generation, out.toByteArray()));
+			}
+			catch (Exception e) {
+				throw new Exception("Error while saving " + section.getFilename() + " (" + e.getMessage() + ")", e);
+			}
+		}
+		return data;
+	}
+	
+	/**
+	 * Writes the serialized Sections to their files, skipping any that a
+	 * newer snapshot has already been written for. Each Section that is
+	 * written, or skipped, is removed from the Map, so what is left after
+	 * a failure is what still needs saving.
+	 */
+	private void writeSections(Map<Section, SectionData> data) throws Exception {
+		synchronized (savedGenerations) {
+			for (Iterator<Map.Entry<Section, SectionData>> i = data.entrySet().iterator(); i.hasNext();) {
+				Map.Entry<Section, SectionData> entry = i.next();
+				Section section = entry.getKey();
+				SectionData sectionData = entry.getValue();
+				Long saved = savedGenerations.get(section);
+				if (saved == null || saved < sectionData.generation) {
+					File file = new File(section == Section.Machine ? configurationDirectory : getCatalogDirectory(), section.getFilename());
+					try {
+						writeAtomically(file, sectionData.data);
+					}
+					catch (Exception e) {
+						throw new Exception("Error while saving " + section.getFilename() + " (" + e.getMessage() + ")", e);
+					}
+					savedGenerations.put(section, sectionData.generation);
+				}
+				i.remove();
+			}
 		}
-		return packages.get(id.toUpperCase());
 	}
 	
+	public Package getPackage(String id) {
+		return packages.get(id);
+	}
+	
+	/**
+	 * Returns an immutable snapshot of the Packages. The snapshot is shared
+	 * until a Package is added, so callers should not copy it needlessly.
+	 * @return
+	 */
 	public List<Package> getPackages() {
-		return Collections.unmodifiableList(new ArrayList<Package>(packages.values()));
+		return packages.getAll();
+	}
+	
+	/**
+	 * Gets the indexed Package catalog for sorted views and searches.
+	 * @return
+	 */
+	public IdentifiableCatalog<Package> getPackagesCatalog() {
+		return packages;
 	}
 	
 	public void addPackage(Package pkg) {
 	    if (null == pkg.getId()) {
 	        throw new Error("Package with null Id cannot be added to Configuration.");
 	    }
-		packages.put(pkg.getId().toUpperCase(), pkg);
-		dirty = true;
-		firePropertyChange("packages", null, packages);
+		packages.put(pkg);
+		setDirty(Section.Packages);
+		firePropertyChange("packages", null, packages.getAll());
 	}
 	
-	public Part getPart(String id) {
-		if (id == null) {
-			return null;
+	/**
+	 * Adds all of the Packages and notifies listeners once.
+	 * @param pkgs
+	 */
+	public void addPackages(Collection<Package> pkgs) {
+		for (Package pkg : pkgs) {
+			if (null == pkg.getId()) {
+				throw new Error("Package with null Id cannot be added to Configuration.");
+			}
 		}
-		return parts.get(id.toUpperCase());
+		packages.putAll(pkgs);
+		setDirty(Section.Packages);
+		firePropertyChange("packages", null, packages.getAll());
 	}
 	
+	public Part getPart(String id) {
+		return parts.get(id);
+	}
+	
+	/**
+	 * Returns an immutable snapshot of the Parts. The snapshot is shared
+	 * until a Part is added, so callers should not copy it needlessly.
+	 * @return
+	 */
 	public List<Part> getParts() {
-		return Collections.unmodifiableList(new ArrayList<Part>(parts.values()));
+		return parts.getAll();
+	}
+	
+	/**
+	 * Gets the indexed Part catalog for sorted views and searches.
+	 * @return
+	 */
+	public IdentifiableCatalog<Part> getPartsCatalog() {
+		return parts;
 	}
 	
 	public void addPart(Part part) {
 	    if (null == part.getId()) {
             throw new Error("Part with null Id cannot be added to Configuration.");
 	    }
-		parts.put(part.getId().toUpperCase(), part);
-		dirty = true;
-		firePropertyChange("parts", null, parts);
+		parts.put(part);
+		setDirty(Section.Parts);
+		firePropertyChange("parts", null, parts.getAll());
+	}
+	
+	/**
+	 * Adds all of the Parts and notifies listeners once.
+	 * @param parts
+	 */
+	public void addParts(Collection<Part> parts) {
+		for (Part part : parts) {
+			if (null == part.getId()) {
+				throw new Error("Part with null Id cannot be added to Configuration.");
+			}
+		}
+		this.parts.putAll(parts);
+		setDirty(Section.Parts);
+		firePropertyChange("parts", null, this.parts.getAll());
 	}
 	
 	public List<Board> getBoards() {
@@ -352,8 +727,7 @@ public class Configuration extends AbstractModelObject {
 		if (!file.exists()) {
 			Board board = new Board(file);
 			board.setName(file.getName());
-			Serializer serializer = createSerializer();
-			serializer.write(board, file);
+			write(board, file);
 		}
 		file = file.getCanonicalFile();
 		if (boards.containsKey(file)) {
@@ -371,49 +745,52 @@ public class Configuration extends AbstractModelObject {
 		machine = holder.machine;
 	}
 	
-	private void saveMachine(File file) throws Exception {
-		MachineConfigurationHolder holder = new MachineConfigurationHolder();
-		holder.machine = machine;
-		Serializer serializer = createSerializer();
-		serializer.write(holder, new ByteArrayOutputStream());
-		serializer.write(holder, file);
-	}
-	
 	private void loadPackages(File file) throws Exception {
-		Serializer serializer = createSerializer();
-		PackagesConfigurationHolder holder = serializer.read(PackagesConfigurationHolder.class, file);
-		for (Package pkg : holder.packages) {
-			addPackage(pkg);
-		}
-	}
-	
-	private void savePackages(File file) throws Exception {
-		Serializer serializer = createSerializer();
-		PackagesConfigurationHolder holder = new PackagesConfigurationHolder();
-		holder.packages = new ArrayList<Package>(packages.values());
-		serializer.write(holder, new ByteArrayOutputStream());
-		serializer.write(holder, file);
+		readEntries(file, Package.class, packages);
+		firePropertyChange("packages", null, packages.getAll());
 	}
 	
 	private void loadParts(File file) throws Exception {
-		Serializer serializer = createSerializer();
-		PartsConfigurationHolder holder = serializer.read(PartsConfigurationHolder.class, file);
-		for (Part part : holder.parts) {
-			addPart(part);
-		}
+		readEntries(file, Part.class, parts);
+		firePropertyChange("parts", null, parts.getAll());
 	}
 	
-	private void saveParts(File file) throws Exception {
+	/**
+	 * Reads the child elements of the file's root element one at a time and
+	 * adds each to the catalog as it is read, so that large libraries are
+	 * never held twice in memory and listeners are not notified per entry.
+	 * @param file
+	 * @param type
+	 * @param catalog
+	 * @throws Exception
+	 */
+	private static <T extends Identifiable> void readEntries(File file, Class<T> type, IdentifiableCatalog<T> catalog) throws Exception {
 		Serializer serializer = createSerializer();
-		PartsConfigurationHolder holder = new PartsConfigurationHolder();
-		holder.parts = new ArrayList<Part>(parts.values());
-		serializer.write(holder, new ByteArrayOutputStream());
-		serializer.write(holder, file);
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			InputNode root = NodeBuilder.read(in);
+			InputNode node;
+			while ((node = root.getNext()) != null) {
+				T entry = serializer.read(type, node);
+				if (null == entry.getId()) {
+					throw new Exception(type.getSimpleName() + " with null Id found in " + file.getName());
+				}
+				catalog.put(entry);
+			}
+		}
+		finally {
+			in.close();
+		}
 	}
 	
 	public Job loadJob(File file) throws Exception {
-		Serializer serializer = createSerializer();
-		Job job = serializer.read(Job.class, file);
+		Job job;
+		if (BinaryJobFormat.isBinary(file)) {
+			job = BinaryJobFormat.readJob(file);
+		}
+		else {
+			job = createSerializer().read(Job.class, file);
+		}
 		job.setFile(file);
 		
 		// Once the Job is loaded we need to resolve any Boards that it
@@ -442,7 +819,6 @@ public class Configuration extends AbstractModelObject {
 	}
 	
 	public void saveJob(Job job, File file) throws Exception {
-		Serializer serializer = createSerializer();
 		Set<Board> boards = new HashSet<Board>();
 		// Fix the paths to any boards in the Job
 		for (BoardLocation boardLocation : job.getBoardLocations()) {
@@ -460,27 +836,84 @@ public class Configuration extends AbstractModelObject {
 			}
 		}
 		// Save the job
-		serializer.write(job, new ByteArrayOutputStream());
-		serializer.write(job, file);
+		write(job, file);
 		job.setFile(file);
 		job.setDirty(false);
 	}
 	
 	public void saveBoard(Board board) throws Exception {
-		Serializer serializer = createSerializer();
-		serializer.write(board, new ByteArrayOutputStream());
-		serializer.write(board, board.getFile());
+		write(board, board.getFile());
 		board.setDirty(false);
 	}
 	
 	private Board loadBoard(File file) throws Exception {
-		Serializer serializer = createSerializer();
-		Board board = serializer.read(Board.class, file);
+		Board board;
+		if (BinaryJobFormat.isBinary(file)) {
+			board = BinaryJobFormat.readBoard(file);
+		}
+		else {
+			board = createSerializer().read(Board.class, file);
+		}
 		board.setFile(file);
 		board.setDirty(false);
 		return board;
 	}
 	
+	/**
+	 * Serializes the object to memory and then replaces the file with the
+	 * result. Boards and Jobs are written in BinaryJobFormat when the
+	 * filename has a binary extension, otherwise everything is XML. The in memory pass doubles as validation: if serialization
+	 * fails the file on disk is left untouched.
+	 * @param o
+	 * @param file
+	 * @throws Exception
+	 */
+	private static void write(Object o, File file) throws Exception {
+		if (BinaryJobFormat.isBinaryFilename(file)) {
+			if (o instanceof Board) {
+				writeAtomically(file, BinaryJobFormat.writeBoard((Board) o));
+				return;
+			}
+			else if (o instanceof Job) {
+				writeAtomically(file, BinaryJobFormat.writeJob((Job) o));
+				return;
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		createSerializer().write(o, out);
+		writeAtomically(file, out.toByteArray());
+	}
+	
+	/**
+	 * Writes the data to a temporary file next to the target, forces it to
+	 * disk and then renames it over the target. A crash part way through
+	 * leaves either the old or the new file in place, never a truncated one.
+	 * @param file
+	 * @param data
+	 * @throws IOException
+	 */
+	static void writeAtomically(File file, byte[] data) throws IOException {
+		file = file.getAbsoluteFile();
+		File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+		FileOutputStream out = new FileOutputStream(temp);
+		try {
+			out.write(data);
+			out.flush();
+			out.getFD().sync();
+		}
+		finally {
+			out.close();
+		}
+		if (!temp.renameTo(file)) {
+			// Some platforms, notably Windows, will not rename over an
+			// existing file.
+			file.delete();
+			if (!temp.renameTo(file)) {
+				throw new IOException("Unable to rename " + temp + " to " + file);
+			}
+		}
+	}
+	
 	public static Serializer createSerializer() {
 		Style style = new HyphenStyle();
 		Format format = new Format(style);
@@ -515,4 +948,17 @@ public class Configuration extends AbstractModelObject {
 		@ElementList(inline=true, entry="part", required=false)
 		private ArrayList<Part> parts = new ArrayList<Part>();
 	}
+	
+	/**
+	 * A Section serialized by one save, waiting to be written.
+	 */
+	private static class SectionData {
+		private final long generation;
+		private final byte[] data;
+		
+		public SectionData(long generation, byte[] data) {
+			this.generation = generation;
+			this.data = data;
+		}
+	}
 }
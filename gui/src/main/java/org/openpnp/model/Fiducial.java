@@ -26,5 +26,16 @@ package org.openpnp.model;
  * for placement operations.
  */
 public interface Fiducial {
+	/**
+	 * The Location of the center of the Fiducial in board coordinates.
+	 * @return
+	 */
 	Location getLocation();
+	
+	/**
+	 * The diameter of the Fiducial, used to size the search when locating it
+	 * with vision.
+	 * @return
+	 */
+	Length getDiameter();
 }
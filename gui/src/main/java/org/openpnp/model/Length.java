@@ -66,45 +66,13 @@ public class Length {
 		if (this.units == units) {
 			return this;
 		}
-		double mm = 0;
-		if (this.units == LengthUnit.Millimeters) {
-			mm = value;
-		}
-		else if (this.units == LengthUnit.Centimeters) {
-			mm = value * 10;
-		}
-		else if (this.units == LengthUnit.Meters) {
-			mm = value * 1000;
-		}
-		else if (this.units == LengthUnit.Inches) {
-			mm = value * 25.4;
-		}
-		else if (this.units == LengthUnit.Feet) {
-			mm = value * 25.4 * 12;
-		}
-		else {
+		if (this.units == null) {
 			throw new Error("convertLength() unrecognized units " + this.units);
 		}
-		
-		if (units == LengthUnit.Millimeters) {
-			return new Length(mm, units);
-		}
-		else if (units == LengthUnit.Centimeters) {
-			return new Length(mm / 10, units);
-		}
-		else if (units == LengthUnit.Meters) {
-			return new Length(mm / 1000, units);
-		}
-		else if (units == LengthUnit.Inches) {
-			return new Length(mm * (1 / 25.4), units);
-		}
-		else if (units == LengthUnit.Feet) {
-			return new Length(mm * (1 / 25.4) * 12, units);
-		}
-		else {
+		if (units == null) {
 			throw new Error("convertLength() unrecognized units " + units);
 		}
-		
+		return new Length(this.units.convert(value, units), units);
 	}
 	
 	public static Length parse(String s) {
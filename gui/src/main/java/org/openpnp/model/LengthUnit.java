@@ -22,19 +22,40 @@
 package org.openpnp.model;
 
 public enum LengthUnit {
-	Meters("m", "Meter"),
-	Centimeters("cm", "Centimeter"),
-	Millimeters("mm", "Millimeter"),
-	Feet("'", "Foot"),
-	Inches("\"", "Inch");
+	Meters("m", "Meter", 1000),
+	Centimeters("cm", "Centimeter", 10),
+	Millimeters("mm", "Millimeter", 1),
+	Feet("'", "Foot", 25.4 * 12),
+	Inches("\"", "Inch", 25.4);
+	
+	/**
+	 * Conversion factors between every pair of units, indexed by the
+	 * ordinals of the source and destination units, so that a conversion is
+	 * a single multiply.
+	 */
+	private static final double[][] conversionFactors;
+	
+	static {
+		LengthUnit[] units = values();
+		conversionFactors = new double[units.length][units.length];
+		for (LengthUnit from : units) {
+			for (LengthUnit to : units) {
+				conversionFactors[from.ordinal()][to.ordinal()] = (from == to) ? 1
+						: from.millimetersPerUnit / to.millimetersPerUnit;
+			}
+		}
+	}
 	
 	private final String shortName;
 	
 	private final String singularName;
 	
-	private LengthUnit(String shortName, String singularName) {
+	private final double millimetersPerUnit;
+	
+	private LengthUnit(String shortName, String singularName, double millimetersPerUnit) {
 		this.shortName = shortName;
 		this.singularName = singularName;
+		this.millimetersPerUnit = millimetersPerUnit;
 	}
 	
 	public String getShortName() {
@@ -44,4 +65,28 @@ public enum LengthUnit {
 	public String getSingularName() {
 		return singularName;
 	}
+	
+	public double getMillimetersPerUnit() {
+		return millimetersPerUnit;
+	}
+	
+	/**
+	 * Returns the factor that a value in this unit must be multiplied by to
+	 * convert it to the given unit.
+	 * @param units
+	 * @return
+	 */
+	public double getConversionFactor(LengthUnit units) {
+		return conversionFactors[ordinal()][units.ordinal()];
+	}
+	
+	/**
+	 * Converts a value in this unit to the given unit without allocating.
+	 * @param value
+	 * @param units
+	 * @return
+	 */
+	public double convert(double value, LengthUnit units) {
+		return value * conversionFactors[ordinal()][units.ordinal()];
+	}
 }
@@ -84,14 +84,20 @@ public class Location {
 		return units;
 	}
 
+	/**
+	 * Returns this Location converted to the given units. Since Locations
+	 * are immutable this Location itself is returned if it is already in
+	 * those units.
+	 * @param units
+	 * @return
+	 */
 	public Location convertToUnits(LengthUnit units) {
-		Location location = new Location(
-		        units,
-		        new Length(x, this.units).convertToUnits(units).getValue(),
-		        new Length(y, this.units).convertToUnits(units).getValue(),
-		        new Length(z, this.units).convertToUnits(units).getValue(),
-		        rotation);
-		return location;
+		if (this.units == units) {
+			return this;
+		}
+		double factor = this.units.getConversionFactor(units);
+		return new Location(units, x * factor, y * factor, z * factor,
+				rotation);
 	}
 	
 	public double getLinearDistanceTo(Location location) {
@@ -99,7 +105,9 @@ public class Location {
 	}
 
 	public double getLinearDistanceTo(double x, double y) {
-		return (Math.sqrt(Math.pow(this.x - x, 2) + Math.pow(this.y - y, 2)));
+		double dx = this.x - x;
+		double dy = this.y - y;
+		return Math.sqrt(dx * dx + dy * dy);
 	}
 	
 	public Length getLengthX() {
@@ -122,8 +130,8 @@ public class Location {
 	 * @return
 	 */
 	public Location subtract(Location l) {
-		l = l.convertToUnits(getUnits());
-		return new Location(l.getUnits(), x - l.getX(), y - l.getY(), z - l.getZ(), getRotation());
+		double factor = l.getUnits().getConversionFactor(units);
+		return new Location(units, x - l.getX() * factor, y - l.getY() * factor, z - l.getZ() * factor, getRotation());
 	}
 	
 	/**
@@ -134,8 +142,8 @@ public class Location {
 	 * @return
 	 */
 	public Location add(Location l) {
-		l = l.convertToUnits(getUnits());
-		return new Location(l.getUnits(), x + l.getX(), y + l.getY(), z + l.getZ(), getRotation());
+		double factor = l.getUnits().getConversionFactor(units);
+		return new Location(units, x + l.getX() * factor, y + l.getY() * factor, z + l.getZ() * factor, getRotation());
 	}
 
 	/**
@@ -146,8 +154,8 @@ public class Location {
 	 * @return
 	 */
 	public Location multiply(Location l) {
-	    l = l.convertToUnits(getUnits());
-        return new Location(l.getUnits(), x * l.getX(), y * l.getY(), z * l.getZ(), getRotation());
+	    double factor = l.getUnits().getConversionFactor(units);
+        return new Location(units, x * l.getX() * factor, y * l.getY() * factor, z * l.getZ() * factor, getRotation());
 	}
 	
 	/**
@@ -23,8 +23,10 @@ package org.openpnp.model;
 
 import org.simpleframework.xml.Attribute;
 import org.simpleframework.xml.Element;
+import org.simpleframework.xml.Root;
 
 
+@Root(name="package")
 public class Package implements Identifiable {
 	@Attribute
 	private String id;
@@ -0,0 +1,193 @@
+/*
+ 	Copyright (C) 2011 Jason von Nieda <jason@vonnieda.org>
+ 	
+ 	This file is part of OpenPnP.
+ 	
+	OpenPnP is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    OpenPnP is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with OpenPnP.  If not, see <http://www.gnu.org/licenses/>.
+ 	
+ 	For more information about OpenPnP visit http://openpnp.org
+ */
+
+package org.openpnp.model;
+
+import java.util.BitSet;
+
+import org.simpleframework.xml.Attribute;
+import org.simpleframework.xml.Element;
+import org.simpleframework.xml.core.Commit;
+import org.simpleframework.xml.core.Persist;
+
+/**
+ * Describes a step and repeat panel: a grid of identical copies of one Board
+ * laid out in rows and columns at a fixed pitch. The copies, or cells, share
+ * the Board and its Placements rather than duplicating them, so a panel of
+ * any size costs about the same as a single board.
+ * 
+ * Cells are numbered row by row starting at 0, which is the cell at the
+ * BoardLocation itself. Columns step along the board's X axis and rows along
+ * its Y axis, so the grid follows the board's rotation and side. Individual
+ * cells can be skipped, for instance when a panel has a scrapped board.
+ */
+public class PanelLayout extends AbstractModelObject {
+	@Attribute
+	private int rows = 1;
+	@Attribute
+	private int columns = 1;
+	/**
+	 * The distance between columns in X and between rows in Y.
+	 */
+	@Element
+	private Location pitch = new Location(LengthUnit.Millimeters);
+	/**
+	 * The skipped cells as a comma separated list of cell numbers. Only used
+	 * for serialization; the working copy is skipMask.
+	 */
+	@Attribute(required=false)
+	private String skipped;
+	
+	private transient BitSet skipMask = new BitSet();
+	
+	public PanelLayout() {
+	}
+	
+	public PanelLayout(int rows, int columns, Location pitch) {
+		setRows(rows);
+		setColumns(columns);
+		setPitch(pitch);
+	}
+	
+	@SuppressWarnings("unused")
+	@Commit
+	private void commit() {
+		skipMask = new BitSet();
+		if (skipped != null) {
+			for (String cell : skipped.split(",")) {
+				cell = cell.trim();
+				if (cell.length() > 0) {
+					skipMask.set(Integer.parseInt(cell));
+				}
+			}
+		}
+	}
+	
+	@SuppressWarnings("unused")
+	@Persist
+	private void persist() {
+		if (skipMask.isEmpty()) {
+			skipped = null;
+			return;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int cell = skipMask.nextSetBit(0); cell >= 0; cell = skipMask.nextSetBit(cell + 1)) {
+			if (sb.length() > 0) {
+				sb.append(",");
+			}
+			sb.append(cell);
+		}
+		skipped = sb.toString();
+	}
+	
+	public int getRows() {
+		return rows;
+	}
+	
+	public void setRows(int rows) {
+		if (rows < 1) {
+			throw new IllegalArgumentException("A panel must have at least one row.");
+		}
+		int oldValue = this.rows;
+		this.rows = rows;
+		firePropertyChange("rows", oldValue, rows);
+	}
+	
+	public int getColumns() {
+		return columns;
+	}
+	
+	public void setColumns(int columns) {
+		if (columns < 1) {
+			throw new IllegalArgumentException("A panel must have at least one column.");
+		}
+		int oldValue = this.columns;
+		this.columns = columns;
+		firePropertyChange("columns", oldValue, columns);
+	}
+	
+	public Location getPitch() {
+		return pitch;
+	}
+	
+	public void setPitch(Location pitch) {
+		Location oldValue = this.pitch;
+		this.pitch = pitch;
+		firePropertyChange("pitch", oldValue, pitch);
+	}
+	
+	public int getCellCount() {
+		return rows * columns;
+	}
+	
+	/**
+	 * The number of cells that are not skipped.
+	 * @return
+	 */
+	public int getActiveCellCount() {
+		return getCellCount() - skipMask.get(0, getCellCount()).cardinality();
+	}
+	
+	public boolean isSkipped(int cell) {
+		return skipMask.get(cell);
+	}
+	
+	public void setSkipped(int cell, boolean skipped) {
+		boolean oldValue = skipMask.get(cell);
+		skipMask.set(cell, skipped);
+		firePropertyChange("skipped", oldValue, skipped);
+	}
+	
+	public int getRow(int cell) {
+		return cell / columns;
+	}
+	
+	public int getColumn(int cell) {
+		return cell % columns;
+	}
+	
+	/**
+	 * The X offset of the cell from cell 0 in board coordinates, in the
+	 * given units.
+	 * @param cell
+	 * @param units
+	 * @return
+	 */
+	public double getCellOffsetX(int cell, LengthUnit units) {
+		return getColumn(cell) * pitch.getUnits().convert(pitch.getX(), units);
+	}
+	
+	/**
+	 * The Y offset of the cell from cell 0 in board coordinates, in the
+	 * given units.
+	 * @param cell
+	 * @param units
+	 * @return
+	 */
+	public double getCellOffsetY(int cell, LengthUnit units) {
+		return getRow(cell) * pitch.getUnits().convert(pitch.getY(), units);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("%d x %d, pitch %s, skipped %s", rows, columns, pitch, skipMask);
+	}
+}
@@ -21,8 +21,9 @@
 
 package org.openpnp.model;
 
-import org.openpnp.ConfigurationListener;
 import org.simpleframework.xml.Attribute;
+import org.simpleframework.xml.Root;
+import org.simpleframework.xml.core.Commit;
 import org.simpleframework.xml.core.Persist;
 
 /**
@@ -30,6 +31,7 @@ import org.simpleframework.xml.core.Persist;
  * and is placed at a Placement as part of a Job. Parts can be used across many boards and should generally represent
  * a single part in the real world.
  */
+@Root(name="part")
 public class Part extends AbstractModelObject implements Identifiable {
 	@Attribute
 	private String id;
@@ -52,15 +54,20 @@ public class Part extends AbstractModelObject implements Identifiable {
 	
 	public Part(String id) {
 		this.id = id;
-		Configuration.get().addListener(new ConfigurationListener.Adapter() {
-            @Override
-            public void configurationLoaded(Configuration configuration)
-                    throws Exception {
-                if (getPackage() == null) {
-                    setPackage(configuration.getPackage(packageId));
-                }
-            }
-		});
+	}
+	
+	/**
+	 * Resolves the Package when the Part is deserialized. Packages are
+	 * always loaded before Parts so the Package is available here. This
+	 * replaces a ConfigurationListener per Part, which did not scale to
+	 * large libraries.
+	 */
+	@SuppressWarnings("unused")
+	@Commit
+	private void commit() {
+		if (getPackage() == null) {
+			setPackage(Configuration.get().getPackage(packageId));
+		}
 	}
 	
 	@SuppressWarnings("unused")
@@ -5,6 +5,12 @@ import org.openpnp.spi.JobPlanner;
 
 public abstract class AbstractJobPlanner implements JobPlanner {
     protected Job job;
+    protected CompletedPlacements completedPlacements;
+    
+    @Override
+    public void setCompletedPlacements(CompletedPlacements completedPlacements) {
+        this.completedPlacements = completedPlacements;
+    }
     
     @Override
     public void setJob(Job job) {
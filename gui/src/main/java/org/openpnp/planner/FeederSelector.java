@@ -0,0 +1,140 @@
+package org.openpnp.planner;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.spi.Feeder;
+import org.openpnp.spi.Machine;
+import org.openpnp.spi.Nozzle;
+import org.openpnp.util.HeadZones;
+import org.simpleframework.xml.Attribute;
+
+/**
+ * Chooses which of several Feeders of the same Part to pick from. Each
+ * candidate that can feed to the Nozzle is given a cost in millimeters of
+ * equivalent travel, and the cheapest wins:
+ *
+ * - The distance from the Feeder's pick location to the Placement.
+ * - The Feeder's feed cost, times feedCostMillimeters.
+ * - A load balancing penalty of balanceMillimeters for every pick more than
+ *   the least used candidate has already been given, so duplicate Feeders
+ *   are drawn down evenly instead of one running empty first.
+ * - A penalty of lowStockMillimeters divided by the remaining count, for
+ *   Feeders that know it, so nearly empty Feeders are used last.
+ *
+ * The pick counts are kept from the last reset(), which planners call when
+ * a Job is set.
+ *
+ * On a machine with more than one Head, Feeders in another Head's zone are
+ * never chosen.
+ */
+public class FeederSelector {
+    @Attribute(required = false)
+    private double feedCostMillimeters = 50;
+
+    @Attribute(required = false)
+    private double balanceMillimeters = 10;
+
+    @Attribute(required = false)
+    private double lowStockMillimeters = 100;
+
+    private final Map<Feeder, Integer> pickCounts = new IdentityHashMap<Feeder, Integer>();
+
+    public synchronized void reset() {
+        pickCounts.clear();
+    }
+
+    /**
+     * Returns the best Feeder of the candidates to feed the Nozzle for a
+     * Placement at placementLocation, or null if none of them can. The
+     * chosen Feeder is counted as having been used once more.
+     * @param machine The Machine the Feeders are on.
+     * @param candidates
+     * @param nozzle
+     * @param placementLocation May be null, in which case distance is not
+     * considered.
+     * @return
+     */
+    public synchronized Feeder select(Machine machine,
+            List<Feeder> candidates, Nozzle nozzle, Location placementLocation) {
+        int leastPicks = Integer.MAX_VALUE;
+        for (Feeder feeder : candidates) {
+            leastPicks = Math.min(leastPicks, getPickCount(feeder));
+        }
+        Feeder best = null;
+        double bestCost = Double.MAX_VALUE;
+        for (Feeder feeder : candidates) {
+            int remaining = feeder.getRemainingCount();
+            if (remaining == 0 || !feeder.isEnabled()
+                    || !feeder.canFeedToNozzle(nozzle)
+                    || !HeadZones.canUse(machine, nozzle.getHead(), feeder)) {
+                continue;
+            }
+            double cost = getDistance(feeder, placementLocation);
+            cost += feeder.getFeedCost() * feedCostMillimeters;
+            cost += (getPickCount(feeder) - leastPicks) * balanceMillimeters;
+            if (remaining > 0) {
+                cost += lowStockMillimeters / remaining;
+            }
+            if (cost < bestCost) {
+                best = feeder;
+                bestCost = cost;
+            }
+        }
+        if (best != null) {
+            pickCounts.put(best, getPickCount(best) + 1);
+        }
+        return best;
+    }
+
+    private int getPickCount(Feeder feeder) {
+        Integer count = pickCounts.get(feeder);
+        return count == null ? 0 : count;
+    }
+
+    private static double getDistance(Feeder feeder, Location placementLocation) {
+        if (placementLocation == null) {
+            return 0;
+        }
+        Location pickLocation;
+        try {
+            pickLocation = feeder.getPickLocation();
+        }
+        catch (Exception e) {
+            return 0;
+        }
+        if (pickLocation == null) {
+            return 0;
+        }
+        return pickLocation.convertToUnits(LengthUnit.Millimeters)
+                .getLinearDistanceTo(
+                        placementLocation.convertToUnits(LengthUnit.Millimeters));
+    }
+
+    public double getFeedCostMillimeters() {
+        return feedCostMillimeters;
+    }
+
+    public void setFeedCostMillimeters(double feedCostMillimeters) {
+        this.feedCostMillimeters = feedCostMillimeters;
+    }
+
+    public double getBalanceMillimeters() {
+        return balanceMillimeters;
+    }
+
+    public void setBalanceMillimeters(double balanceMillimeters) {
+        this.balanceMillimeters = balanceMillimeters;
+    }
+
+    public double getLowStockMillimeters() {
+        return lowStockMillimeters;
+    }
+
+    public void setLowStockMillimeters(double lowStockMillimeters) {
+        this.lowStockMillimeters = lowStockMillimeters;
+    }
+}
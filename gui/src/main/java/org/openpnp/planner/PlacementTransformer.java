@@ -0,0 +1,239 @@
+package org.openpnp.planner;
+
+import java.awt.geom.AffineTransform;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openpnp.model.Board;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Job;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.PanelLayout;
+import org.openpnp.model.Part;
+import org.openpnp.model.Placement;
+
+/**
+ * Transforms Placement Locations from board coordinates into machine
+ * coordinates. One AffineTransform is built per BoardLocation, covering the
+ * bottom side mirror, the board's rotation and its offset, or taken from
+ * the BoardLocation if fiducial registration has measured one, and all of the
+ * board's Placements on that side are transformed in a single pass over a
+ * primitive array. The results are in the units of the BoardLocation.
+ * 
+ * For a step and repeat panel only the first cell is transformed; any other
+ * cell is the same result moved by the cell's pitch offset, so the cost
+ * does not grow with the size of the panel.
+ * 
+ * Results are cached until the BoardLocation or the Board's list of
+ * Placements changes. A Placement whose Location or Part has been replaced
+ * since the pass is recomputed on its own the next time it is asked for.
+ */
+public class PlacementTransformer {
+    private final Map<BoardLocation, BoardTransform> transforms = new IdentityHashMap<BoardLocation, BoardTransform>();
+
+    /**
+     * Transforms the Placements of every board in the Job so that later
+     * lookups are just a map access. Call this before motion starts.
+     * @param job
+     */
+    public synchronized void transform(Job job) {
+        for (BoardLocation boardLocation : job.getBoardLocations()) {
+            getBoardTransform(boardLocation);
+        }
+    }
+
+    /**
+     * Returns the Location at which the Placement should be placed on the
+     * machine, including the board's rotation and a Z of the top of the
+     * board plus the height of the Part.
+     * @param boardLocation
+     * @param placement
+     * @return
+     */
+    public synchronized Location getPlacementLocation(
+            BoardLocation boardLocation, Placement placement) {
+        return getBoardTransform(boardLocation).getPlacementLocation(
+                placement);
+    }
+
+    /**
+     * Returns the Location at which the Placement should be placed in the
+     * given cell of the BoardLocation's PanelLayout.
+     * @param boardLocation
+     * @param placement
+     * @param cell
+     * @return
+     */
+    public synchronized Location getPlacementLocation(
+            BoardLocation boardLocation, Placement placement, int cell) {
+        BoardTransform boardTransform = getBoardTransform(boardLocation);
+        Location location = boardTransform.getPlacementLocation(placement);
+        PanelLayout panelLayout = boardLocation.getPanelLayout();
+        if (cell == 0 || panelLayout == null) {
+            return location;
+        }
+        // Only the linear part of the transform applies to an offset.
+        AffineTransform transform = boardTransform.transform;
+        double x = panelLayout.getCellOffsetX(cell, location.getUnits());
+        double y = panelLayout.getCellOffsetY(cell, location.getUnits());
+        return new Location(location.getUnits(), location.getX()
+                + transform.getScaleX() * x + transform.getShearX() * y,
+                location.getY() + transform.getShearY() * x
+                        + transform.getScaleY() * y, location.getZ(),
+                location.getRotation());
+    }
+
+    /**
+     * Returns a copy of the transform from board coordinates to machine
+     * coordinates for the BoardLocation. Board coordinates are expected in
+     * the units of the BoardLocation.
+     * @param boardLocation
+     * @return
+     */
+    public synchronized AffineTransform getTransform(
+            BoardLocation boardLocation) {
+        return new AffineTransform(
+                getBoardTransform(boardLocation).transform);
+    }
+
+    /**
+     * Discards the cached results for the BoardLocation. This happens
+     * automatically when the BoardLocation changes.
+     * @param boardLocation
+     */
+    public synchronized void invalidate(BoardLocation boardLocation) {
+        BoardTransform transform = transforms.remove(boardLocation);
+        if (transform != null) {
+            transform.dispose();
+        }
+    }
+
+    /**
+     * Discards all cached results and stops listening for changes.
+     */
+    public synchronized void clear() {
+        for (BoardTransform transform : transforms.values()) {
+            transform.dispose();
+        }
+        transforms.clear();
+    }
+
+    /**
+     * Builds the transform that takes a point in board coordinates to
+     * machine coordinates: mirror X for the bottom side, rotate by the
+     * board's rotation and then translate to the board's origin.
+     * @param location
+     * @param side
+     * @return
+     */
+    public static AffineTransform createTransform(Location location, Side side) {
+        AffineTransform transform = AffineTransform.getTranslateInstance(
+                location.getX(), location.getY());
+        transform.rotate(Math.toRadians(location.getRotation()));
+        if (side == Side.Bottom) {
+            transform.scale(-1, 1);
+        }
+        return transform;
+    }
+
+    private BoardTransform getBoardTransform(BoardLocation boardLocation) {
+        BoardTransform transform = transforms.get(boardLocation);
+        if (transform == null) {
+            transform = new BoardTransform(boardLocation);
+            transforms.put(boardLocation, transform);
+        }
+        return transform;
+    }
+
+    private class BoardTransform implements PropertyChangeListener {
+        private final BoardLocation boardLocation;
+        private final Board board;
+        private final Location location;
+        private final AffineTransform transform;
+        private final Map<Placement, Entry> entries = new IdentityHashMap<Placement, Entry>();
+
+        public BoardTransform(BoardLocation boardLocation) {
+            this.boardLocation = boardLocation;
+            this.board = boardLocation.getBoard();
+            this.location = boardLocation.getLocation();
+            AffineTransform registered = boardLocation
+                    .getPlacementTransform();
+            this.transform = registered != null ? registered
+                    : createTransform(location, boardLocation.getSide());
+
+            List<Placement> placements = new ArrayList<Placement>();
+            for (Placement placement : board.getPlacements()) {
+                if (placement.getSide() == boardLocation.getSide()) {
+                    placements.add(placement);
+                }
+            }
+            LengthUnit units = location.getUnits();
+            int count = placements.size();
+            double[] points = new double[count * 2];
+            for (int i = 0; i < count; i++) {
+                Location l = placements.get(i).getLocation();
+                double factor = l.getUnits().getConversionFactor(units);
+                points[i * 2] = l.getX() * factor;
+                points[i * 2 + 1] = l.getY() * factor;
+            }
+            transform.transform(points, 0, points, 0, count);
+            for (int i = 0; i < count; i++) {
+                Placement placement = placements.get(i);
+                entries.put(placement, new Entry(placement, points[i * 2],
+                        points[i * 2 + 1]));
+            }
+
+            boardLocation.addPropertyChangeListener(this);
+            board.addPropertyChangeListener("placements", this);
+        }
+
+        public Location getPlacementLocation(Placement placement) {
+            Entry entry = entries.get(placement);
+            if (entry == null || entry.source != placement.getLocation()
+                    || entry.part != placement.getPart()) {
+                Location l = placement.getLocation().convertToUnits(
+                        location.getUnits());
+                double[] point = new double[] { l.getX(), l.getY() };
+                transform.transform(point, 0, point, 0, 1);
+                entry = new Entry(placement, point[0], point[1]);
+                entries.put(placement, entry);
+            }
+            return entry.result;
+        }
+
+        public void dispose() {
+            boardLocation.removePropertyChangeListener(this);
+            board.removePropertyChangeListener("placements", this);
+        }
+
+        public void propertyChange(PropertyChangeEvent evt) {
+            invalidate(boardLocation);
+        }
+
+        private class Entry {
+            private final Location source;
+            private final Part part;
+            private final Location result;
+
+            public Entry(Placement placement, double x, double y) {
+                this.source = placement.getLocation();
+                this.part = placement.getPart();
+                // The Z is the distance to the top of the board plus the
+                // height of the part.
+                double z = location.getZ();
+                if (part != null) {
+                    z += part.getHeight().convertToUnits(location.getUnits())
+                            .getValue();
+                }
+                this.result = new Location(location.getUnits(), x, y, z,
+                        (source.getRotation() + location.getRotation()) % 360.0);
+            }
+        }
+    }
+}
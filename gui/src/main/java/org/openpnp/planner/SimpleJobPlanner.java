@@ -1,21 +1,27 @@
 package org.openpnp.planner;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.openpnp.model.BoardLocation;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Job;
+import org.openpnp.model.Location;
+import org.openpnp.model.PanelLayout;
 import org.openpnp.model.Part;
 import org.openpnp.model.Placement;
 import org.openpnp.spi.Feeder;
 import org.openpnp.spi.Head;
 import org.openpnp.spi.Machine;
 import org.openpnp.spi.Nozzle;
+import org.openpnp.util.HeadZones;
 import org.simpleframework.xml.Attribute;
+import org.simpleframework.xml.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,21 +32,51 @@ public class SimpleJobPlanner extends AbstractJobPlanner {
     @Attribute(required = false)
     private String placeHolder;
     
-    private Set<PlacementSolution> solutions = new LinkedHashSet<PlacementSolution>();
+    @Element(required = false)
+    private FeederSelector feederSelector = new FeederSelector();
+    
+    /*
+     * Finds where a Placement will go, so that it can be assigned to the
+     * Head whose zone it is in and the FeederSelector can weigh distance.
+     * The JobProcessor registers the boards by their fiducials before it
+     * sets the Job, so this uses the registered transform where there is
+     * one.
+     */
+    private final PlacementTransformer placementTransformer = new PlacementTransformer();
+    
+    /*
+     * The solutions are generated lazily from a cursor over the Job rather
+     * than planned up front, so that the memory used does not depend on the
+     * number of placements or the size of any panels. The cursor visits
+     * each BoardLocation in turn, each of its active panel cells and then
+     * each Placement on the BoardLocation's side.
+     */
+    private List<BoardLocation> boardLocations;
+    private int boardLocationIndex;
+    private List<Placement> placements;
+    private int cell;
+    private int placementIndex;
+    
+    /*
+     * On a machine with more than one Head each Placement goes to the Head
+     * whose zone it is in, if that Head can get the Part, so that Heads
+     * mostly work in their own zones and seldom wait for the shared
+     * workspace. Placements in the shared workspace go to whichever Head
+     * asks first. When a Head advances the cursor past Placements that
+     * belong to another Head they are queued here for that Head.
+     */
+    private final Map<Head, LinkedList<PlacementSolution>> deferred = new HashMap<Head, LinkedList<PlacementSolution>>();
     
     @Override
-    public void setJob(Job job) {
+    public synchronized void setJob(Job job) {
         super.setJob(job);
-        Head head = Configuration.get().getMachine().getHeads().get(0);
-        for (BoardLocation boardLocation : job.getBoardLocations()) {
-            for (Placement placement : boardLocation.getBoard().getPlacements()) {
-                if (placement.getSide() != boardLocation.getSide()) {
-                    continue;
-                }
-                solutions.add(new PlacementSolution(placement, boardLocation, head, null, null, null));
-            }
-        }
-        logger.debug("Planned {} solutions", solutions.size());
+        boardLocations = new ArrayList<BoardLocation>(job.getBoardLocations());
+        boardLocationIndex = 0;
+        placements = null;
+        deferred.clear();
+        feederSelector.reset();
+        placementTransformer.clear();
+        logger.debug("Planning {} board locations", boardLocations.size());
     }
 
     @Override
@@ -49,35 +85,142 @@ public class SimpleJobPlanner extends AbstractJobPlanner {
         // might need to actually translate everything to final coordinates first, maybe
         // that gets weird
         Set<PlacementSolution> results = new LinkedHashSet<PlacementSolution>();
-        Iterator<PlacementSolution> i = solutions.iterator();
         for (Nozzle nozzle : head.getNozzles()) {
-            if (!i.hasNext()) {
+            PlacementSolution solution = next(head);
+            if (solution == null) {
                 break;
             }
-            PlacementSolution solution = i.next();
-            i.remove();
-            Feeder feeder = getFeederSolution(Configuration.get().getMachine(), nozzle, solution.placement.getPart());
+            Feeder feeder = getFeederSolution(getMachine(), nozzle, solution);
             // We potentially return null here for Feeder, which lets the JobProcessor know that no applicable
             // Feeder was found. 
-            solution = new PlacementSolution(solution.placement, solution.boardLocation, solution.head, nozzle, nozzle.getNozzleTip(), feeder);
+            solution.nozzle = nozzle;
+            solution.nozzleTip = nozzle.getNozzleTip();
+            solution.feeder = feeder;
             results.add(solution);
         }
         return results.size() > 0 ? results : null;
     }
     
-    private static Feeder getFeederSolution(Machine machine, Nozzle nozzle, Part part) {
-        // Get a list of Feeders that can source the part
-        List<Feeder> feeders = new ArrayList<Feeder>();
-        for (Feeder feeder : machine.getFeeders()) {
-            if (feeder.getPart() == part && feeder.canFeedToNozzle(nozzle) && feeder.isEnabled()) {
-                feeders.add(feeder);
+    /**
+     * The Machine the Job is planned for. Package private so that tests can
+     * plan for a Machine other than the configured one.
+     */
+    Machine getMachine() {
+        return Configuration.get().getMachine();
+    }
+    
+    /**
+     * Returns the next Placement for the Head, or null if there is nothing
+     * left for it to do.
+     */
+    private PlacementSolution next(Head head) {
+        LinkedList<PlacementSolution> queue = deferred.get(head);
+        if (queue != null && !queue.isEmpty()) {
+            return queue.removeFirst();
+        }
+        Machine machine = getMachine();
+        PlacementSolution solution;
+        while ((solution = advance()) != null) {
+            solution.head = machine.getHeads().size() < 2 ? head : assign(machine, solution, head);
+            if (solution.head == head) {
+                return solution;
+            }
+            queue = deferred.get(solution.head);
+            if (queue == null) {
+                queue = new LinkedList<PlacementSolution>();
+                deferred.put(solution.head, queue);
+            }
+            queue.add(solution);
+        }
+        return null;
+    }
+    
+    /**
+     * Chooses the Head for a Placement: the Head whose zone it is in, then
+     * the asking Head, then any Head, as long as the Head can get the
+     * Part. If none can, the asking Head gets it and the JobProcessor
+     * reports the missing Feeder. Zones are in head coordinates and the
+     * Placement's location is the Nozzle's, which is close enough to tell
+     * whose side of the machine it is on.
+     */
+    private Head assign(Machine machine, PlacementSolution solution, Head head) {
+        Part part = solution.placement.getPart();
+        Location placementLocation = placementTransformer.getPlacementLocation(solution.boardLocation, solution.placement, solution.cell);
+        Head owner = HeadZones.getOwner(machine, placementLocation);
+        if (owner != null && canGetPart(machine, owner, part)) {
+            return owner;
+        }
+        if (canGetPart(machine, head, part)) {
+            return head;
+        }
+        for (Head h : machine.getHeads()) {
+            if (canGetPart(machine, h, part)) {
+                return h;
+            }
+        }
+        return head;
+    }
+    
+    private static boolean canGetPart(Machine machine, Head head, Part part) {
+        for (Feeder feeder : machine.getFeeders(part)) {
+            if (feeder.getRemainingCount() == 0 || !feeder.isEnabled() || !HeadZones.canUse(machine, head, feeder)) {
+                continue;
+            }
+            for (Nozzle nozzle : head.getNozzles()) {
+                if (feeder.canFeedToNozzle(nozzle)) {
+                    return true;
+                }
             }
         }
-        if (feeders.size() < 1) {
+        return false;
+    }
+    
+    /**
+     * Advances the cursor and returns the next unplanned Placement, or null
+     * if the Job is complete.
+     */
+    private PlacementSolution advance() {
+        while (boardLocationIndex < boardLocations.size()) {
+            BoardLocation boardLocation = boardLocations.get(boardLocationIndex);
+            if (placements == null) {
+                placements = new ArrayList<Placement>();
+                for (Placement placement : boardLocation.getBoard().getPlacements()) {
+                    if (placement.getSide() == boardLocation.getSide()) {
+                        placements.add(placement);
+                    }
+                }
+                cell = 0;
+                placementIndex = 0;
+            }
+            PanelLayout panelLayout = boardLocation.getPanelLayout();
+            int cellCount = panelLayout == null ? 1 : panelLayout.getCellCount();
+            while (cell < cellCount) {
+                if (panelLayout != null && panelLayout.isSkipped(cell)) {
+                    cell++;
+                    continue;
+                }
+                while (placementIndex < placements.size()) {
+                    Placement placement = placements.get(placementIndex++);
+                    if (completedPlacements != null && completedPlacements.isCompleted(boardLocation, cell, placement)) {
+                        continue;
+                    }
+                    return new PlacementSolution(placement, boardLocation, cell, null, null, null, null);
+                }
+                cell++;
+                placementIndex = 0;
+            }
+            boardLocationIndex++;
+            placements = null;
+        }
+        return null;
+    }
+    
+    private Feeder getFeederSolution(Machine machine, Nozzle nozzle, PlacementSolution solution) {
+        List<Feeder> feeders = machine.getFeeders(solution.placement.getPart());
+        if (feeders.isEmpty()) {
             return null;
         }
-        // For now we just take the first Feeder that can feed the part.
-        Feeder feeder = feeders.get(0);
-        return feeder;
+        Location placementLocation = placementTransformer.getPlacementLocation(solution.boardLocation, solution.placement, solution.cell);
+        return feederSelector.select(machine, feeders, nozzle, placementLocation);
     }
 }
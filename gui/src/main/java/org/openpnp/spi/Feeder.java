@@ -64,6 +64,22 @@ public interface Feeder extends Identifiable, WizardConfigurable {
 	 */
 	public boolean canFeedToNozzle(Nozzle nozzle);
 	
+	/**
+	 * Returns the number of parts left in the Feeder, or -1 if the Feeder
+	 * does not know. Used to choose between Feeders of the same Part.
+	 * @return
+	 */
+	public int getRemainingCount();
+	
+	/**
+	 * Returns the relative cost of a feed, not counting the move to the pick
+	 * location. 0 is a feed that takes no machine time, such as indexing a
+	 * tray; 1 is a typical tape drag. Used to choose between Feeders of the
+	 * same Part.
+	 * @return
+	 */
+	public double getFeedCost();
+	
 	/**
 	 * Gets the Location from which the currently available Part should be
 	 * picked from. This value may not be valid until after a feed has been
@@ -24,6 +24,7 @@ package org.openpnp.spi;
 import java.util.List;
 
 import org.openpnp.model.Identifiable;
+import org.openpnp.model.Location;
 
 
 /**
@@ -85,4 +86,29 @@ public interface Head extends Identifiable, WizardConfigurable {
     public void removeCamera(Camera camera);
     
     public void moveToSafeZ(double speed) throws Exception;
+    
+    /**
+     * Returns true if the Location is in this Head's zone: the area of the
+     * machine it works in without getting in the way of other Heads. A Head
+     * without a zone has no such area and returns false. Only X and Y are
+     * considered.
+     * @param location
+     * @return
+     */
+    public boolean isInZone(Location location);
+    
+    /**
+     * Returns true if this Head has a zone. Heads can only work at the same
+     * time when every one of them has a zone.
+     * @return
+     */
+    public boolean hasZone();
+    
+    /**
+     * Moves the Head to Safe Z and then to its park location, if it has
+     * one, so that it is out of the way of other Heads. Called when the
+     * Head has no more work to do in a Job.
+     * @throws Exception
+     */
+    public void park() throws Exception;
 }
@@ -26,10 +26,20 @@ public interface JobPlanner {
         public Nozzle nozzle;
         public NozzleTip nozzleTip;
         public Feeder feeder;
+        /**
+         * The cell of the BoardLocation's PanelLayout the Placement is in,
+         * or 0 if the BoardLocation is not a panel.
+         */
+        public int cell;
         
         public PlacementSolution(Placement placement, BoardLocation boardLocation, Head head, Nozzle nozzle, NozzleTip nozzleTip, Feeder feeder) {
+            this(placement, boardLocation, 0, head, nozzle, nozzleTip, feeder);
+        }
+        
+        public PlacementSolution(Placement placement, BoardLocation boardLocation, int cell, Head head, Nozzle nozzle, NozzleTip nozzleTip, Feeder feeder) {
             this.placement = placement;
             this.boardLocation = boardLocation;
+            this.cell = cell;
             this.head = head;
             this.nozzle = nozzle;
             this.nozzleTip = nozzleTip;
@@ -37,6 +47,22 @@ public interface JobPlanner {
         }
     }
     
+    /**
+     * Answers whether a Placement in a cell of a BoardLocation was already placed.
+     */
+    public interface CompletedPlacements {
+        public boolean isCompleted(BoardLocation boardLocation, int cell, Placement placement);
+    }
+    
+    /**
+     * Tells the planner which Placements have already been placed, for
+     * instance by an earlier run of the Job that was interrupted. The
+     * planner must not return solutions for them. Call before setJob; null
+     * plans every Placement.
+     * @param completedPlacements
+     */
+    public void setCompletedPlacements(CompletedPlacements completedPlacements);
+    
     public void setJob(Job job);
     
     /**
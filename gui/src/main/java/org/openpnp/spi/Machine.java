@@ -23,6 +23,10 @@ package org.openpnp.spi;
 
 import java.util.List;
 
+import org.openpnp.PickRecovery;
+import org.openpnp.model.Part;
+import org.openpnp.util.BottomVision;
+
 
 /**
  * Machine represents the pick and place machine itself. It provides the information and interface needed to
@@ -46,6 +50,14 @@ public interface Machine extends WizardConfigurable {
 	
 	public Feeder getFeeder(String id);
 	
+	/**
+	 * Gets the enabled Feeders that are loaded with the given Part. This is
+	 * an indexed lookup and does not scan the Feeders.
+	 * @param part
+	 * @return
+	 */
+	public List<Feeder> getFeeders(Part part);
+	
 	/**
 	 * Gets a List of Cameras attached to the Machine that are not attached
 	 * to Heads.
@@ -109,4 +121,17 @@ public interface Machine extends WizardConfigurable {
 	public void removeCamera(Camera camera);
 	
 	public JobPlanner getJobPlanner();
+	
+	/**
+	 * Gets the settings for aligning picked parts over an up-looking Camera.
+	 * @return
+	 */
+	public BottomVision getBottomVision();
+	
+	/**
+	 * Gets the limits on retrying failed picks and the per Feeder pick
+	 * statistics they are checked against.
+	 * @return
+	 */
+	public PickRecovery getPickRecovery();
 }
@@ -28,6 +28,17 @@ public interface Nozzle extends Identifiable, HeadMountable, WizardConfigurable
      */
     public boolean canPickAndPlace(Feeder feeder, Location placeLocation);
 
+    /**
+     * Moves the Nozzle up to safe Z, over to the Location and down to it.
+     * The three moves are made as one path, which the machine may blend so
+     * that it only comes to a stop at the Location.
+     * 
+     * @param location
+     * @param speed
+     * @throws Exception
+     */
+    public void moveToViaSafeZ(Location location, double speed) throws Exception;
+
     /**
      * Commands the Nozzle to perform it's pick operation. Generally this just
      * consists of turning on the vacuum. When this is called during job
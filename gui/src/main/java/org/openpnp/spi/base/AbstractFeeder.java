@@ -1,5 +1,8 @@
 package org.openpnp.spi.base;
 
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+
 import org.openpnp.ConfigurationListener;
 import org.openpnp.model.Configuration;
 import org.openpnp.model.Part;
@@ -16,12 +19,16 @@ public abstract class AbstractFeeder implements Feeder {
     
     protected Part part;
     
+    protected final PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
+    
     public AbstractFeeder() {
         Configuration.get().addListener(new ConfigurationListener.Adapter() {
             @Override
             public void configurationLoaded(Configuration configuration)
                     throws Exception {
+                Part oldValue = part;
                 part = configuration.getPart(partId);
+                propertyChangeSupport.firePropertyChange("part", oldValue, part);
             }
         });
     }
@@ -43,17 +50,53 @@ public abstract class AbstractFeeder implements Feeder {
 
     @Override
     public void setEnabled(boolean enabled) {
+        boolean oldValue = this.enabled;
         this.enabled = enabled;
+        propertyChangeSupport.firePropertyChange("enabled", oldValue, enabled);
     }
     
     @Override
     public void setPart(Part part) {
+        Part oldValue = this.part;
         this.part = part;
         this.partId = part.getId();
+        propertyChangeSupport.firePropertyChange("part", oldValue, part);
     }
 
     @Override
     public Part getPart() {
         return part;
     }
+    
+    /**
+     * Unknown by default.
+     */
+    @Override
+    public int getRemainingCount() {
+        return -1;
+    }
+    
+    @Override
+    public double getFeedCost() {
+        return 0;
+    }
+    
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        propertyChangeSupport.addPropertyChangeListener(listener);
+    }
+
+    public void addPropertyChangeListener(String propertyName,
+            PropertyChangeListener listener) {
+        propertyChangeSupport.addPropertyChangeListener(propertyName, listener);
+    }
+
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        propertyChangeSupport.removePropertyChangeListener(listener);
+    }
+
+    public void removePropertyChangeListener(String propertyName,
+            PropertyChangeListener listener) {
+        propertyChangeSupport.removePropertyChangeListener(propertyName,
+                listener);
+    }
 }
@@ -1,19 +1,21 @@
 package org.openpnp.spi.base;
 
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
+import org.openpnp.PickRecovery;
+import org.openpnp.model.Part;
 import org.openpnp.spi.Camera;
 import org.openpnp.spi.Feeder;
 import org.openpnp.spi.Head;
 import org.openpnp.spi.JobPlanner;
 import org.openpnp.spi.Machine;
 import org.openpnp.spi.MachineListener;
+import org.openpnp.util.BottomVision;
 import org.openpnp.util.IdentifiableList;
 import org.simpleframework.xml.Element;
 import org.simpleframework.xml.ElementList;
+import org.simpleframework.xml.core.Commit;
 
 public abstract class AbstractMachine implements Machine {
     @ElementList
@@ -24,12 +26,26 @@ public abstract class AbstractMachine implements Machine {
     protected IdentifiableList<Camera> cameras = new IdentifiableList<Camera>();
     @Element
     protected JobPlanner jobPlanner;
+    @Element(required=false)
+    protected BottomVision bottomVision = new BottomVision();
+    @Element(required=false)
+    protected PickRecovery pickRecovery = new PickRecovery();
     
-    protected Set<MachineListener> listeners = Collections.synchronizedSet(new HashSet<MachineListener>());
+    protected final MachineEventBus eventBus = new MachineEventBus(this);
+    
+    protected final FeederIndex feederIndex = new FeederIndex();
     
     protected AbstractMachine() {
     }
     
+    @SuppressWarnings("unused")
+    @Commit
+    private void commit() {
+        for (Feeder feeder : feeders) {
+            feederIndex.add(feeder);
+        }
+    }
+    
     @Override
     public List<Head> getHeads() {
         return Collections.unmodifiableList(heads);
@@ -50,6 +66,11 @@ public abstract class AbstractMachine implements Machine {
         return feeders.get(id);
     }
     
+    @Override
+    public List<Feeder> getFeeders(Part part) {
+        return feederIndex.getFeeders(part);
+    }
+    
     @Override
     public List<Camera> getCameras() {
         return Collections.unmodifiableList(cameras);
@@ -69,22 +90,24 @@ public abstract class AbstractMachine implements Machine {
 
     @Override
     public void addListener(MachineListener listener) {
-        listeners.add(listener);
+        eventBus.addListener(listener);
     }
 
     @Override
     public void removeListener(MachineListener listener) {
-        listeners.remove(listener);
+        eventBus.removeListener(listener);
     }
     
     @Override
     public void addFeeder(Feeder feeder) throws Exception {
         feeders.add(feeder);
+        feederIndex.add(feeder);
     }
 
     @Override
     public void removeFeeder(Feeder feeder) {
         feeders.remove(feeder);
+        feederIndex.remove(feeder);
     }
 
     @Override
@@ -102,33 +125,42 @@ public abstract class AbstractMachine implements Machine {
         return jobPlanner;
     }
 
+    @Override
+    public BottomVision getBottomVision() {
+        return bottomVision;
+    }
+
+    @Override
+    public PickRecovery getPickRecovery() {
+        return pickRecovery;
+    }
+
+    /**
+     * Gets the MachineEventBus that delivers this Machine's events to its
+     * listeners. Exposes the delivery counters and rate settings.
+     * @return
+     */
+    public MachineEventBus getEventBus() {
+        return eventBus;
+    }
+
     public void fireMachineHeadActivity(Head head) {
-        for (MachineListener listener : listeners) {
-            listener.machineHeadActivity(this, head);
-        }
+        eventBus.fireMachineHeadActivity(head);
     }
     
     public void fireMachineEnabled() {
-        for (MachineListener listener : listeners) {
-            listener.machineEnabled(this);
-        }
+        eventBus.fireMachineEnabled();
     }
     
     public void fireMachineEnableFailed(String reason) {
-        for (MachineListener listener : listeners) {
-            listener.machineEnableFailed(this, reason);
-        }
+        eventBus.fireMachineEnableFailed(reason);
     }
     
     public void fireMachineDisabled(String reason) {
-        for (MachineListener listener : listeners) {
-            listener.machineDisabled(this, reason);
-        }
+        eventBus.fireMachineDisabled(reason);
     }
     
     public void fireMachineDisableFailed(String reason) {
-        for (MachineListener listener : listeners) {
-            listener.machineDisableFailed(this, reason);
-        }
+        eventBus.fireMachineDisableFailed(reason);
     }
 }
@@ -0,0 +1,105 @@
+package org.openpnp.spi.base;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openpnp.model.Part;
+import org.openpnp.spi.Feeder;
+
+/**
+ * An index of a Machine's enabled Feeders by the Part they feed, so that
+ * planners can find the candidates for a Placement without scanning every
+ * Feeder. The index is kept up to date incrementally: Feeders are added and
+ * removed by the Machine, and changes to a Feeder's part or enabled
+ * properties move it between entries.
+ *
+ * Lookups take no lock. Each entry is an immutable List that is replaced,
+ * never modified, when it changes.
+ */
+public class FeederIndex {
+    private final Map<Part, List<Feeder>> feedersByPart = new ConcurrentHashMap<Part, List<Feeder>>();
+
+    private final PropertyChangeListener feederListener = new PropertyChangeListener() {
+        public void propertyChange(PropertyChangeEvent evt) {
+            Feeder feeder = (Feeder) evt.getSource();
+            if (evt.getPropertyName().equals("part")) {
+                unindex(feeder, (Part) evt.getOldValue());
+                index(feeder);
+            }
+            else if (evt.getPropertyName().equals("enabled")) {
+                unindex(feeder, feeder.getPart());
+                index(feeder);
+            }
+        }
+    };
+
+    /**
+     * Returns the enabled Feeders for the Part, in the order they were
+     * added or enabled. The List is immutable.
+     * @param part
+     * @return
+     */
+    public List<Feeder> getFeeders(Part part) {
+        if (part == null) {
+            return Collections.emptyList();
+        }
+        List<Feeder> feeders = feedersByPart.get(part);
+        if (feeders == null) {
+            return Collections.emptyList();
+        }
+        return feeders;
+    }
+
+    public void add(Feeder feeder) {
+        if (feeder instanceof AbstractFeeder) {
+            ((AbstractFeeder) feeder).addPropertyChangeListener(feederListener);
+        }
+        index(feeder);
+    }
+
+    public void remove(Feeder feeder) {
+        if (feeder instanceof AbstractFeeder) {
+            ((AbstractFeeder) feeder)
+                    .removePropertyChangeListener(feederListener);
+        }
+        unindex(feeder, feeder.getPart());
+    }
+
+    private synchronized void index(Feeder feeder) {
+        Part part = feeder.getPart();
+        if (part == null || !feeder.isEnabled()) {
+            return;
+        }
+        List<Feeder> feeders = feedersByPart.get(part);
+        List<Feeder> updated = feeders == null ? new ArrayList<Feeder>()
+                : new ArrayList<Feeder>(feeders);
+        if (updated.contains(feeder)) {
+            return;
+        }
+        updated.add(feeder);
+        feedersByPart.put(part, Collections.unmodifiableList(updated));
+    }
+
+    private synchronized void unindex(Feeder feeder, Part part) {
+        if (part == null) {
+            return;
+        }
+        List<Feeder> feeders = feedersByPart.get(part);
+        if (feeders == null || !feeders.contains(feeder)) {
+            return;
+        }
+        List<Feeder> updated = new ArrayList<Feeder>(feeders);
+        updated.remove(feeder);
+        if (updated.isEmpty()) {
+            feedersByPart.remove(part);
+        }
+        else {
+            feedersByPart.put(part, Collections.unmodifiableList(updated));
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.openpnp.spi.base;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openpnp.spi.Head;
+import org.openpnp.spi.Machine;
+import org.openpnp.spi.MachineListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers head activity events asynchronously so that the thread firing
+ * them, typically a motion thread, never waits on a listener. Each
+ * listener gets its own executor. Head activity events are coalesced per
+ * Head: while an event for a Head is waiting to be delivered to a listener
+ * any further events for that Head are dropped, and deliveries to a single
+ * listener are spaced at least headActivityIntervalMilliseconds apart.
+ *
+ * Enable and disable events are rare and listeners act on them, for
+ * instance by stopping a Job when the machine is disabled, so they are
+ * delivered on the firing thread before the fire method returns. Listeners
+ * that touch Swing must move to the event dispatch thread themselves.
+ */
+public class MachineEventBus {
+    private final static Logger logger = LoggerFactory
+            .getLogger(MachineEventBus.class);
+
+    public static final long DEFAULT_HEAD_ACTIVITY_INTERVAL_MILLISECONDS = 50;
+
+    private final Machine machine;
+
+    private final ConcurrentMap<MachineListener, ListenerChannel> channels = new ConcurrentHashMap<MachineListener, ListenerChannel>();
+
+    private volatile long headActivityIntervalMilliseconds = DEFAULT_HEAD_ACTIVITY_INTERVAL_MILLISECONDS;
+
+    private final AtomicLong firedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong deliveredCount = new AtomicLong();
+
+    public MachineEventBus(Machine machine) {
+        this.machine = machine;
+    }
+
+    public void addListener(MachineListener listener) {
+        if (channels.containsKey(listener)) {
+            return;
+        }
+        ListenerChannel channel = new ListenerChannel(listener);
+        if (channels.putIfAbsent(listener, channel) != null) {
+            // Another thread added the listener first.
+            channel.executor.shutdown();
+        }
+    }
+
+    public void removeListener(MachineListener listener) {
+        ListenerChannel channel = channels.remove(listener);
+        if (channel != null) {
+            channel.executor.shutdown();
+        }
+    }
+
+    public long getHeadActivityIntervalMilliseconds() {
+        return headActivityIntervalMilliseconds;
+    }
+
+    /**
+     * Sets the minimum time between two head activity deliveries to the same
+     * listener. A value of 0 delivers as fast as the listener can consume
+     * events, but still coalesces events that arrive while it is busy.
+     * @param headActivityIntervalMilliseconds
+     */
+    public void setHeadActivityIntervalMilliseconds(
+            long headActivityIntervalMilliseconds) {
+        this.headActivityIntervalMilliseconds = Math.max(0,
+                headActivityIntervalMilliseconds);
+    }
+
+    /**
+     * The number of head activity events fired, counted once per listener
+     * they were fired to.
+     */
+    public long getFiredCount() {
+        return firedCount.get();
+    }
+
+    /**
+     * The number of head activity events that were folded into an event
+     * already waiting for delivery.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * The number of head activity events actually handed to a listener.
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    public void fireMachineHeadActivity(Head head) {
+        for (ListenerChannel channel : channels.values()) {
+            channel.headActivity(head);
+        }
+    }
+
+    public void fireMachineEnabled() {
+        for (ListenerChannel channel : channels.values()) {
+            try {
+                channel.listener.machineEnabled(machine);
+            }
+            catch (Throwable t) {
+                logger.error("MachineListener " + channel.listener + " failed", t);
+            }
+        }
+    }
+
+    public void fireMachineEnableFailed(String reason) {
+        for (ListenerChannel channel : channels.values()) {
+            try {
+                channel.listener.machineEnableFailed(machine, reason);
+            }
+            catch (Throwable t) {
+                logger.error("MachineListener " + channel.listener + " failed", t);
+            }
+        }
+    }
+
+    public void fireMachineDisabled(String reason) {
+        for (ListenerChannel channel : channels.values()) {
+            try {
+                channel.listener.machineDisabled(machine, reason);
+            }
+            catch (Throwable t) {
+                logger.error("MachineListener " + channel.listener + " failed", t);
+            }
+        }
+    }
+
+    public void fireMachineDisableFailed(String reason) {
+        for (ListenerChannel channel : channels.values()) {
+            try {
+                channel.listener.machineDisableFailed(machine, reason);
+            }
+            catch (Throwable t) {
+                logger.error("MachineListener " + channel.listener + " failed", t);
+            }
+        }
+    }
+
+    private class ListenerChannel implements Runnable {
+        private final MachineListener listener;
+        private final ScheduledExecutorService executor;
+        private final Map<Head, Boolean> pendingHeads = new ConcurrentHashMap<Head, Boolean>();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private volatile long lastDelivery;
+
+        public ListenerChannel(MachineListener listener) {
+            this.listener = listener;
+            this.executor = Executors
+                    .newSingleThreadScheduledExecutor(new ThreadFactory() {
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "MachineEventBus "
+                                    + ListenerChannel.this.listener.getClass()
+                                            .getName());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        }
+
+        public void headActivity(Head head) {
+            firedCount.incrementAndGet();
+            if (pendingHeads.put(head, Boolean.TRUE) != null) {
+                coalescedCount.incrementAndGet();
+                return;
+            }
+            if (drainScheduled.compareAndSet(false, true)) {
+                long delay = lastDelivery + headActivityIntervalMilliseconds
+                        - System.currentTimeMillis();
+                try {
+                    executor.schedule(this, Math.max(0, delay),
+                            TimeUnit.MILLISECONDS);
+                }
+                catch (RejectedExecutionException e) {
+                    // The listener was removed while we were firing.
+                }
+            }
+        }
+
+        /**
+         * Drains the pending Heads. The scheduled flag is cleared before
+         * draining so that activity arriving during delivery schedules a new
+         * drain instead of being lost.
+         */
+        public void run() {
+            drainScheduled.set(false);
+            for (Iterator<Head> i = pendingHeads.keySet().iterator(); i
+                    .hasNext();) {
+                Head head = i.next();
+                i.remove();
+                try {
+                    listener.machineHeadActivity(machine, head);
+                }
+                catch (Throwable t) {
+                    logger.error("MachineListener " + listener + " failed", t);
+                }
+                deliveredCount.incrementAndGet();
+            }
+            lastDelivery = System.currentTimeMillis();
+        }
+    }
+}
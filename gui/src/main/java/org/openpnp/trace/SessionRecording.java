@@ -0,0 +1,203 @@
+package org.openpnp.trace;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.trace.TraceRecord.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * A session trace read back for replay. The recorded operations are kept in
+ * order for each type and source, so a ReplayDriver or ReplayCamera asks for
+ * the next Move of N1 or the next Frame of C1 and gets what that object did
+ * next in the recorded session, however the software interleaves objects
+ * during the replay.
+ *
+ * Drivers and cameras that name the same file share one SessionRecording,
+ * so rewinding it starts every object over together.
+ */
+public class SessionRecording {
+    private final static Logger logger = LoggerFactory
+            .getLogger(SessionRecording.class);
+
+    private static final Map<File, SessionRecording> recordings = new HashMap<File, SessionRecording>();
+
+    private final File file;
+    private final File framesDirectory;
+    private final Map<String, List<TraceRecord>> records = new HashMap<String, List<TraceRecord>>();
+    private final Map<String, Integer> positions = new HashMap<String, Integer>();
+    private String lastFrameName;
+    private BufferedImage lastFrame;
+
+    private SessionRecording(File file) throws IOException {
+        this.file = file;
+        this.framesDirectory = SessionTrace.getFramesDirectory(file);
+        read();
+    }
+
+    /**
+     * Returns the recording of the trace file at path, reading it the first
+     * time it is asked for. A relative path is relative to the
+     * configuration directory.
+     * @param path
+     * @return
+     * @throws IOException
+     */
+    public static synchronized SessionRecording get(String path)
+            throws IOException {
+        File file = new File(path);
+        if (!file.isAbsolute()) {
+            file = new File(Configuration.get().getConfigurationDirectory(),
+                    path);
+        }
+        file = file.getCanonicalFile();
+        SessionRecording recording = recordings.get(file);
+        if (recording == null) {
+            recording = new SessionRecording(file);
+            recordings.put(file, recording);
+        }
+        return recording;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the next recorded record of the type for the source, or null
+     * if all of them have been replayed.
+     * @param type
+     * @param source
+     * @return
+     */
+    public synchronized TraceRecord next(Type type, String source) {
+        String key = key(type, source);
+        List<TraceRecord> list = records.get(key);
+        if (list == null) {
+            return null;
+        }
+        Integer position = positions.get(key);
+        int index = position == null ? 0 : position;
+        if (index >= list.size()) {
+            return null;
+        }
+        positions.put(key, index + 1);
+        return list.get(index);
+    }
+
+    /**
+     * Starts every source over from its first record.
+     */
+    public synchronized void rewind() {
+        positions.clear();
+    }
+
+    /**
+     * Reads the image of a Frame record. Frames were only recorded if the
+     * session was traced with frames on.
+     * @param frame
+     * @return
+     * @throws IOException
+     */
+    public synchronized BufferedImage readFrame(TraceRecord frame)
+            throws IOException {
+        // The same image is often captured several times in a row, so keep
+        // the last one rather than decoding it again.
+        if (!frame.text.equals(lastFrameName)) {
+            File frameFile = new File(framesDirectory, frame.text);
+            BufferedImage image = ImageIO.read(frameFile);
+            if (image == null) {
+                throw new IOException("Unable to read " + frameFile);
+            }
+            lastFrameName = frame.text;
+            lastFrame = image;
+        }
+        return lastFrame;
+    }
+
+    private void read() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), "UTF-8"));
+        try {
+            JsonParser parser = new JsonParser();
+            int count = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().length() == 0) {
+                    continue;
+                }
+                TraceRecord record = parse(parser.parse(line)
+                        .getAsJsonObject());
+                String key = key(record.type, record.source);
+                List<TraceRecord> list = records.get(key);
+                if (list == null) {
+                    list = new ArrayList<TraceRecord>();
+                    records.put(key, list);
+                }
+                list.add(record);
+                count++;
+            }
+            logger.info("Read {} records from {}", count, file);
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    private static TraceRecord parse(JsonObject o) {
+        TraceRecord record = new TraceRecord();
+        record.reset();
+        record.type = Type.valueOf(o.get("type").getAsString());
+        record.nanoTime = o.get("t").getAsLong() * 1000;
+        record.source = getString(o, "source");
+        record.text = getString(o, "text");
+        String units = getString(o, "units");
+        if (units != null) {
+            record.units = LengthUnit.valueOf(units);
+        }
+        record.x = getDouble(o, "x");
+        record.y = getDouble(o, "y");
+        record.z = getDouble(o, "z");
+        record.rotation = getDouble(o, "rotation");
+        record.speed = getDouble(o, "speed");
+        record.value = getDouble(o, "value");
+        record.duration = getDouble(o, "duration");
+        if (o.has("count")) {
+            record.count = o.get("count").getAsInt();
+        }
+        return record;
+    }
+
+    private static String getString(JsonObject o, String key) {
+        JsonElement element = o.get(key);
+        return element == null || element.isJsonNull() ? null : element
+                .getAsString();
+    }
+
+    private static double getDouble(JsonObject o, String key) {
+        JsonElement element = o.get(key);
+        return element == null || element.isJsonNull() ? Double.NaN : element
+                .getAsDouble();
+    }
+
+    private static String key(Type type, String source) {
+        return type + " " + source;
+    }
+}
@@ -0,0 +1,427 @@
+package org.openpnp.trace;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.io.FileUtils;
+import org.openpnp.Main;
+import org.openpnp.model.Location;
+import org.openpnp.trace.TraceRecord.Type;
+import org.openpnp.util.BoundedRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records what the machine did during a session, as JSON lines in a trace
+ * file: every driver command and response, every home, move, pick, place,
+ * actuation and feed with how long it took, and every vision result, each
+ * with a timestamp. The file can be read back to see exactly what happened,
+ * or replayed with SessionRecording.
+ *
+ * Main and JobRunner trace every session unless the openpnp.trace system
+ * property is false. If the openpnp.trace.frames system property is true
+ * the images cameras capture for vision are recorded too, as PNG files in a
+ * directory next to the trace file. Each distinct image is written once.
+ *
+ * The calling thread only claims a preallocated TraceRecord from a
+ * BoundedRing, copies a few primitives and references into it and
+ * publishes it; formatting and disk writes happen on the trace thread. When tracing is not started every call is a single volatile
+ * read. If the ring is full the record is dropped and counted rather than
+ * making the machine wait.
+ */
+public class SessionTrace {
+    private final static Logger logger = LoggerFactory
+            .getLogger(SessionTrace.class);
+
+    static final int CAPACITY = 8192;
+
+    /**
+     * How many trace files to keep in the trace directory. Older ones are
+     * deleted when a new session starts.
+     */
+    static final int MAX_SESSIONS = 20;
+
+    public static final String TRACE_PROPERTY = "openpnp.trace";
+
+    public static final String RECORD_FRAMES_PROPERTY = "openpnp.trace.frames";
+
+    private static volatile SessionTrace instance;
+
+    private final BoundedRing<TraceRecord> ring;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final File file;
+    private final boolean recordFrames;
+    private final TraceWriter writer;
+    private final Thread thread;
+    private volatile boolean stopping;
+
+    private SessionTrace(File file, boolean recordFrames) throws IOException {
+        TraceRecord[] records = new TraceRecord[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            records[i] = new TraceRecord();
+            records[i].reset();
+        }
+        ring = new BoundedRing<TraceRecord>(records);
+        this.file = file;
+        this.recordFrames = recordFrames;
+        long startNanoTime = System.nanoTime();
+        writer = new TraceWriter(file,
+                recordFrames ? getFramesDirectory(file) : null, startNanoTime);
+        TraceRecord session = new TraceRecord();
+        session.reset();
+        session.type = Type.Session;
+        session.nanoTime = startNanoTime;
+        session.text = "OpenPnP " + Main.getVersion();
+        session.value = System.currentTimeMillis();
+        writer.write(session);
+        thread = new Thread(new Runnable() {
+            public void run() {
+                drain();
+            }
+        }, "Session trace");
+        thread.setDaemon(true);
+        ring.setConsumer(thread);
+    }
+
+    /**
+     * True unless tracing has been turned off by setting the openpnp.trace
+     * system property to false. Main and JobRunner only start tracing if
+     * this is true.
+     * @return
+     */
+    public static boolean isRequested() {
+        return Boolean.parseBoolean(System.getProperty(TRACE_PROPERTY, "true"));
+    }
+
+    /**
+     * Starts tracing to a new file in the trace subdirectory of the
+     * directory. Does nothing if tracing has already started.
+     * @param directory
+     * @throws IOException
+     */
+    public static synchronized void start(File directory) throws IOException {
+        if (instance != null) {
+            return;
+        }
+        File traceDirectory = new File(directory, "trace");
+        if (!traceDirectory.exists() && !traceDirectory.mkdirs()) {
+            throw new IOException("Unable to create " + traceDirectory);
+        }
+        deleteOldSessions(traceDirectory);
+        String name = "session-"
+                + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date())
+                + ".jsonl";
+        SessionTrace trace = new SessionTrace(new File(traceDirectory, name),
+                Boolean.getBoolean(RECORD_FRAMES_PROPERTY));
+        trace.thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                SessionTrace.stop();
+            }
+        });
+        instance = trace;
+        logger.info("Tracing session to {}", trace.file);
+    }
+
+    /**
+     * Stops tracing, writing out every record made before the call.
+     */
+    public static synchronized void stop() {
+        SessionTrace trace = instance;
+        if (trace == null) {
+            return;
+        }
+        instance = null;
+        trace.stopping = true;
+        trace.ring.wakeConsumer();
+        try {
+            trace.thread.join(5000);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return instance != null;
+    }
+
+    /**
+     * The file being written, or null if tracing has not started.
+     * @return
+     */
+    public static File getFile() {
+        SessionTrace trace = instance;
+        return trace == null ? null : trace.file;
+    }
+
+    /**
+     * The number of records dropped because the ring was full.
+     * @return
+     */
+    public static long getDroppedCount() {
+        SessionTrace trace = instance;
+        return trace == null ? 0 : trace.droppedCount.get();
+    }
+
+    public static void command(String source, String command) {
+        text(Type.Command, source, command);
+    }
+
+    public static void response(String source, String response) {
+        text(Type.Response, source, response);
+    }
+
+    /**
+     * Records that a Head finished homing.
+     * @param source The Head's id.
+     * @param startNanoTime The System.nanoTime() the operation started at.
+     */
+    public static void home(String source, long startNanoTime) {
+        operation(Type.Home, source, null, startNanoTime);
+    }
+
+    /**
+     * Records that a HeadMountable finished moving to a Location.
+     * @param source The HeadMountable's id.
+     * @param location The Location as passed to the driver.
+     * @param speed
+     * @param startNanoTime The System.nanoTime() the operation started at.
+     */
+    public static void move(String source, Location location, double speed,
+            long startNanoTime) {
+        SessionTrace trace = instance;
+        if (trace == null) {
+            return;
+        }
+        long sequence = trace.claim();
+        if (sequence < 0) {
+            return;
+        }
+        TraceRecord record = trace.ring.get(sequence);
+        record.type = Type.Move;
+        record.source = source;
+        record.units = location.getUnits();
+        record.x = location.getX();
+        record.y = location.getY();
+        record.z = location.getZ();
+        record.rotation = location.getRotation();
+        record.speed = speed;
+        record.duration = (record.nanoTime - startNanoTime) / 1e6;
+        trace.publish(sequence);
+    }
+
+    public static void pick(String source, long startNanoTime) {
+        operation(Type.Pick, source, null, startNanoTime);
+    }
+
+    public static void place(String source, long startNanoTime) {
+        operation(Type.Place, source, null, startNanoTime);
+    }
+
+    public static void actuate(String source, double value,
+            long startNanoTime) {
+        SessionTrace trace = instance;
+        if (trace == null) {
+            return;
+        }
+        long sequence = trace.claim();
+        if (sequence < 0) {
+            return;
+        }
+        TraceRecord record = trace.ring.get(sequence);
+        record.type = Type.Actuate;
+        record.source = source;
+        record.value = value;
+        record.duration = (record.nanoTime - startNanoTime) / 1e6;
+        trace.publish(sequence);
+    }
+
+    public static void actuate(String source, boolean on, long startNanoTime) {
+        actuate(source, on ? 1 : 0, startNanoTime);
+    }
+
+    /**
+     * Records that a Feeder finished feeding.
+     * @param source The Feeder's id.
+     * @param nozzle The id of the Nozzle it fed for.
+     * @param startNanoTime The System.nanoTime() the operation started at.
+     */
+    public static void feed(String source, String nozzle, long startNanoTime) {
+        operation(Type.Feed, source, nozzle, startNanoTime);
+    }
+
+    /**
+     * Records an image a Camera captured for vision, if frames are being
+     * recorded. The image is hashed and written out later on the trace
+     * thread, so it must not be changed by the caller afterwards.
+     * @param source The Camera's id.
+     * @param image
+     */
+    public static void frame(String source, BufferedImage image) {
+        SessionTrace trace = instance;
+        if (trace == null || !trace.recordFrames || image == null) {
+            return;
+        }
+        long sequence = trace.claim();
+        if (sequence < 0) {
+            return;
+        }
+        TraceRecord record = trace.ring.get(sequence);
+        record.type = Type.Frame;
+        record.source = source;
+        record.results = image;
+        trace.publish(sequence);
+    }
+
+    /**
+     * Records the results of a vision operation. The results array is
+     * formatted later on the trace thread, so its elements must not be
+     * changed by the caller afterwards.
+     * @param source The Camera's id.
+     * @param operation
+     * @param results Circles or Points, or null.
+     * @param startNanoTime The System.nanoTime() the operation started at.
+     */
+    public static void vision(String source, String operation,
+            Object[] results, long startNanoTime) {
+        SessionTrace trace = instance;
+        if (trace == null) {
+            return;
+        }
+        long sequence = trace.claim();
+        if (sequence < 0) {
+            return;
+        }
+        TraceRecord record = trace.ring.get(sequence);
+        record.type = Type.Vision;
+        record.source = source;
+        record.text = operation;
+        record.duration = (record.nanoTime - startNanoTime) / 1e6;
+        record.count = results == null ? 0 : results.length;
+        record.results = results;
+        trace.publish(sequence);
+    }
+
+    private static void text(Type type, String source, String text) {
+        SessionTrace trace = instance;
+        if (trace == null) {
+            return;
+        }
+        long sequence = trace.claim();
+        if (sequence < 0) {
+            return;
+        }
+        TraceRecord record = trace.ring.get(sequence);
+        record.type = type;
+        record.source = source;
+        record.text = text;
+        trace.publish(sequence);
+    }
+
+    private static void operation(Type type, String source, String text,
+            long startNanoTime) {
+        SessionTrace trace = instance;
+        if (trace == null) {
+            return;
+        }
+        long sequence = trace.claim();
+        if (sequence < 0) {
+            return;
+        }
+        TraceRecord record = trace.ring.get(sequence);
+        record.type = type;
+        record.source = source;
+        record.text = text;
+        record.duration = (record.nanoTime - startNanoTime) / 1e6;
+        trace.publish(sequence);
+    }
+
+    /**
+     * The directory the frames of the trace file are written to.
+     */
+    static File getFramesDirectory(File file) {
+        String name = file.getName();
+        if (name.endsWith(".jsonl")) {
+            name = name.substring(0, name.length() - ".jsonl".length());
+        }
+        return new File(file.getParentFile(), name + "-frames");
+    }
+
+    /**
+     * Claims a slot and timestamps it, returning its sequence number or -1
+     * if the ring is full.
+     */
+    private long claim() {
+        long sequence = ring.tryClaim();
+        if (sequence < 0) {
+            droppedCount.incrementAndGet();
+            return -1;
+        }
+        ring.get(sequence).nanoTime = System.nanoTime();
+        return sequence;
+    }
+
+    private void publish(long sequence) {
+        ring.publish(sequence);
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                TraceRecord record = ring.peek();
+                if (record == null) {
+                    if (stopping) {
+                        break;
+                    }
+                    // Write out what we have before going idle, so the file
+                    // is current whenever the machine is.
+                    writer.flush();
+                    if (!stopping) {
+                        ring.await(TimeUnit.MILLISECONDS.toNanos(100));
+                    }
+                    continue;
+                }
+                writer.write(record);
+                record.reset();
+                ring.release();
+            }
+            if (droppedCount.get() > 0) {
+                logger.warn("{} trace records were dropped", droppedCount.get());
+            }
+        }
+        catch (IOException e) {
+            logger.error("Unable to write session trace " + file, e);
+            instance = null;
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private static void deleteOldSessions(File traceDirectory) {
+        File[] files = traceDirectory.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.startsWith("session-") && name.endsWith(".jsonl");
+            }
+        });
+        if (files == null || files.length < MAX_SESSIONS) {
+            return;
+        }
+        // The names sort by the time they were started.
+        Arrays.sort(files);
+        for (int i = 0; i <= files.length - MAX_SESSIONS; i++) {
+            files[i].delete();
+            FileUtils.deleteQuietly(getFramesDirectory(files[i]));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.openpnp.trace;
+
+import org.openpnp.model.LengthUnit;
+
+/**
+ * One entry of a session trace: a driver command or response, a machine
+ * operation, a feed, a camera frame or a vision result. Records carry
+ * primitives and references only; they are turned into text by the trace
+ * writer thread.
+ *
+ * Operations are recorded when they complete, with the time they took in
+ * duration, so that a replay can take the same time over them.
+ *
+ * Records are owned by the SessionTrace ring and reused, so anything that
+ * reads them must do so before returning. Records read back by
+ * SessionRecording are not reused.
+ */
+public class TraceRecord {
+    public enum Type {
+        /**
+         * The first record of every trace. text is the OpenPnP version and
+         * value the wall clock time in milliseconds at which the trace
+         * started.
+         */
+        Session,
+        /**
+         * A command sent to a driver's controller. source is the driver.
+         */
+        Command,
+        /**
+         * A line received from a driver's controller. source is the driver.
+         */
+        Response,
+        /**
+         * A Head was homed. source is the Head.
+         */
+        Home,
+        /**
+         * A HeadMountable was moved to a Location. Axes that do not move
+         * are NaN.
+         */
+        Move,
+        /**
+         * A Nozzle picked. source is the Nozzle.
+         */
+        Pick,
+        /**
+         * A Nozzle placed. source is the Nozzle.
+         */
+        Place,
+        /**
+         * An Actuator was set to value; 1 and 0 for on and off.
+         */
+        Actuate,
+        /**
+         * A Feeder fed. source is the Feeder and text the Nozzle it fed
+         * for.
+         */
+        Feed,
+        /**
+         * A Camera captured an image for vision. source is the Camera and
+         * text the name of the image file in the session's frames
+         * directory. Identical images share a file.
+         */
+        Frame,
+        /**
+         * The results of a vision operation on a Camera. text is the
+         * operation and count the number of results.
+         */
+        Vision
+    }
+
+    Type type;
+    long nanoTime;
+    String source;
+    String text;
+    LengthUnit units;
+    double x;
+    double y;
+    double z;
+    double rotation;
+    double speed;
+    double value;
+    /**
+     * How long the operation took in milliseconds.
+     */
+    double duration;
+    int count;
+    /**
+     * For Vision records, the Circles or Points found. For Frame records,
+     * the BufferedImage until it has been written.
+     */
+    Object results;
+
+    void reset() {
+        type = null;
+        source = null;
+        text = null;
+        units = null;
+        x = y = z = rotation = speed = value = duration = Double.NaN;
+        count = 0;
+        results = null;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The System.nanoTime() at which the record was made.
+     * @return
+     */
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public LengthUnit getUnits() {
+        return units;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getZ() {
+        return z;
+    }
+
+    public double getRotation() {
+        return rotation;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public Object getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,242 @@
+package org.openpnp.trace;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
+
+import org.openpnp.spi.VisionProvider.Circle;
+import org.openpnp.trace.TraceRecord.Type;
+
+/**
+ * Writes TraceRecords as one JSON object per line. Every line has t, the
+ * time in microseconds since the session started, and type; the other keys
+ * are only present when the record has them:
+ *
+ * {"t":0,"type":"Session","text":"OpenPnP 0.0.1","value":1381234567890}
+ * {"t":1520,"type":"Command","source":"GrblDriver","text":"G1 X10.0000"}
+ * {"t":9811,"type":"Move","source":"N1","units":"Millimeters","x":10.0,"y":null,"z":null,"rotation":null,"speed":1.0,"duration":8.3}
+ * {"t":69020,"type":"Frame","source":"C1","text":"8c1e0f...png"}
+ * {"t":70211,"type":"Vision","source":"C1","text":"locateCircles","duration":31.2,"count":1,"results":[[320.5,241.0,30.1]]}
+ *
+ * Axes that are not moved are written as null. Vision results are [x, y]
+ * for Points and [x, y, diameter] for Circles.
+ *
+ * Frames are written as PNG files named by the SHA-1 of their pixels, so a
+ * Camera looking at the same thing twice costs one file.
+ */
+class TraceWriter {
+    private final Writer out;
+    private final File framesDirectory;
+    private final long startNanoTime;
+    private final StringBuilder line = new StringBuilder(256);
+    private final Set<String> frames = new HashSet<String>();
+    private MessageDigest digest;
+
+    /**
+     * @param file
+     * @param framesDirectory Where to write Frame images, or null if
+     * frames are not recorded.
+     * @param startNanoTime
+     * @throws IOException
+     */
+    TraceWriter(File file, File framesDirectory, long startNanoTime)
+            throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), "UTF-8"), 64 * 1024);
+        this.framesDirectory = framesDirectory;
+        this.startNanoTime = startNanoTime;
+    }
+
+    void write(TraceRecord record) throws IOException {
+        line.setLength(0);
+        line.append("{\"t\":")
+                .append((record.nanoTime - startNanoTime) / 1000)
+                .append(",\"type\":\"").append(record.type).append('"');
+        if (record.source != null) {
+            appendString("source", record.source);
+        }
+        if (record.type == Type.Frame) {
+            appendString("text", writeFrame((BufferedImage) record.results));
+        }
+        else if (record.text != null) {
+            appendString("text", record.text);
+        }
+        switch (record.type) {
+        case Move:
+            line.append(",\"units\":\"").append(record.units).append('"');
+            appendNumber("x", record.x);
+            appendNumber("y", record.y);
+            appendNumber("z", record.z);
+            appendNumber("rotation", record.rotation);
+            appendNumber("speed", record.speed);
+            appendNumber("duration", record.duration);
+            break;
+        case Session:
+            line.append(",\"value\":").append((long) record.value);
+            break;
+        case Actuate:
+            appendNumber("value", record.value);
+            appendNumber("duration", record.duration);
+            break;
+        case Home:
+        case Pick:
+        case Place:
+        case Feed:
+            appendNumber("duration", record.duration);
+            break;
+        case Vision:
+            appendNumber("duration", record.duration);
+            line.append(",\"count\":").append(record.count);
+            appendResults((Object[]) record.results);
+            break;
+        default:
+            break;
+        }
+        line.append("}\n");
+        out.append(line);
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    void close() {
+        try {
+            out.close();
+        }
+        catch (IOException e) {
+            // Nothing more can be done with the trace.
+        }
+    }
+
+    /**
+     * Writes the image to the frames directory unless an identical one has
+     * already been written, and returns its file name.
+     */
+    private String writeFrame(BufferedImage image) throws IOException {
+        String name = hash(image) + ".png";
+        if (frames.add(name)) {
+            if (!framesDirectory.exists() && !framesDirectory.mkdirs()) {
+                throw new IOException("Unable to create " + framesDirectory);
+            }
+            ImageIO.write(image, "png", new File(framesDirectory, name));
+        }
+        return name;
+    }
+
+    private String hash(BufferedImage image) throws IOException {
+        if (digest == null) {
+            try {
+                digest = MessageDigest.getInstance("SHA-1");
+            }
+            catch (NoSuchAlgorithmException e) {
+                throw new IOException(e.getMessage());
+            }
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        byte[] bytes = new byte[width * 4];
+        digest.reset();
+        digest.update(new byte[] { (byte) (width >> 8), (byte) width,
+                (byte) (height >> 8), (byte) height });
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0, i = 0; x < width; x++) {
+                int argb = row[x];
+                bytes[i++] = (byte) (argb >>> 24);
+                bytes[i++] = (byte) (argb >>> 16);
+                bytes[i++] = (byte) (argb >>> 8);
+                bytes[i++] = (byte) argb;
+            }
+            digest.update(bytes);
+        }
+        StringBuilder hex = new StringBuilder(40);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(
+                    Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private void appendResults(Object[] results) {
+        if (results == null) {
+            return;
+        }
+        line.append(",\"results\":[");
+        for (int i = 0; i < results.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Object result = results[i];
+            if (result instanceof Circle) {
+                Circle circle = (Circle) result;
+                line.append('[').append(circle.getX()).append(',')
+                        .append(circle.getY()).append(',')
+                        .append(circle.getDiameter()).append(']');
+            }
+            else if (result instanceof Point) {
+                Point point = (Point) result;
+                line.append('[').append(point.x).append(',').append(point.y)
+                        .append(']');
+            }
+            else {
+                line.append("null");
+            }
+        }
+        line.append(']');
+    }
+
+    private void appendNumber(String key, double value) {
+        line.append(",\"").append(key).append("\":");
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            line.append("null");
+        }
+        else {
+            line.append(value);
+        }
+    }
+
+    private void appendString(String key, String value) {
+        line.append(",\"").append(key).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '"':
+                line.append("\\\"");
+                break;
+            case '\\':
+                line.append("\\\\");
+                break;
+            case '\n':
+                line.append("\\n");
+                break;
+            case '\r':
+                line.append("\\r");
+                break;
+            case '\t':
+                line.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    line.append(String.format("\\u%04x", (int) c));
+                }
+                else {
+                    line.append(c);
+                }
+            }
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,273 @@
+package org.openpnp.util;
+
+import java.awt.geom.AffineTransform;
+
+/**
+ * Finds the affine transform that best maps one set of 2D points onto
+ * another in the least squares sense, and reports how well it fits. Used to
+ * register a board from the nominal and measured positions of its
+ * fiducials.
+ * 
+ * The model is chosen by the number of points: one point gives a pure
+ * translation, two give a similarity transform (translation, rotation and
+ * uniform scale) and three or more give a full affine transform which also
+ * captures non-uniform scale and skew. If three or more points are
+ * collinear the full affine transform is undetermined and the similarity
+ * fit is used instead.
+ *
+ * The residuals only measure the quality of the fit when there are more
+ * points than the model needs, see isOverdetermined().
+ */
+public class AffineFit {
+    public enum Model {
+        Translation,
+        Similarity,
+        Affine
+    }
+
+    private final Model model;
+    private final AffineTransform transform;
+    private final double[] residuals;
+    private final double rmsResidual;
+    private final double maxResidual;
+
+    /**
+     * Fits a transform taking each source point to its destination point.
+     * Points are stored interleaved as x0, y0, x1, y1, ... and both arrays
+     * must hold count points.
+     * @param source
+     * @param destination
+     * @param count
+     * @return
+     */
+    public static AffineFit fit(double[] source, double[] destination,
+            int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException(
+                    "At least one point is required.");
+        }
+        if (count >= 3) {
+            AffineTransform transform = fitAffine(source, destination, count);
+            if (transform != null) {
+                return new AffineFit(Model.Affine, transform, source,
+                        destination, count);
+            }
+        }
+        if (count >= 2) {
+            AffineTransform transform = fitSimilarity(source, destination,
+                    count);
+            if (transform != null) {
+                return new AffineFit(Model.Similarity, transform, source,
+                        destination, count);
+            }
+        }
+        return new AffineFit(Model.Translation, fitTranslation(source,
+                destination, count), source, destination, count);
+    }
+
+    private AffineFit(Model model, AffineTransform transform,
+            double[] source, double[] destination, int count) {
+        this.model = model;
+        this.transform = transform;
+        this.residuals = new double[count];
+        double[] fitted = new double[count * 2];
+        transform.transform(source, 0, fitted, 0, count);
+        double sumSquares = 0;
+        double max = 0;
+        for (int i = 0; i < count; i++) {
+            double dx = fitted[i * 2] - destination[i * 2];
+            double dy = fitted[i * 2 + 1] - destination[i * 2 + 1];
+            double residual = Math.sqrt(dx * dx + dy * dy);
+            residuals[i] = residual;
+            sumSquares += residual * residual;
+            max = Math.max(max, residual);
+        }
+        this.rmsResidual = Math.sqrt(sumSquares / count);
+        this.maxResidual = max;
+    }
+
+    public Model getModel() {
+        return model;
+    }
+
+    /**
+     * Returns a copy of the fitted transform.
+     * @return
+     */
+    public AffineTransform getTransform() {
+        return new AffineTransform(transform);
+    }
+
+    /**
+     * The distance between each destination point and where the fitted
+     * transform puts its source point, in the same order as the points.
+     * @return
+     */
+    public double[] getResiduals() {
+        return residuals.clone();
+    }
+
+    public double getRmsResidual() {
+        return rmsResidual;
+    }
+
+    public double getMaxResidual() {
+        return maxResidual;
+    }
+
+    /**
+     * Returns true if there were more points than the model needs. Only then
+     * do the residuals show how well the points agree with each other: one
+     * point for a translation, two for a similarity transform or three for
+     * an affine transform are always fitted exactly, with residuals of 0.
+     * @return
+     */
+    public boolean isOverdetermined() {
+        int needed = model == Model.Translation ? 1
+                : (model == Model.Similarity ? 2 : 3);
+        return residuals.length > needed;
+    }
+
+    /**
+     * The rotation of the source X axis, in degrees.
+     * @return
+     */
+    public double getRotation() {
+        return Math.toDegrees(Math.atan2(transform.getShearY(),
+                transform.getScaleX()));
+    }
+
+    public double getScaleX() {
+        return Math.hypot(transform.getScaleX(), transform.getShearY());
+    }
+
+    public double getScaleY() {
+        return transform.getDeterminant() / getScaleX();
+    }
+
+    /**
+     * The angle, in degrees, by which the transformed Y axis departs from
+     * being perpendicular to the transformed X axis.
+     * @return
+     */
+    public double getSkew() {
+        double m00 = transform.getScaleX();
+        double m10 = transform.getShearY();
+        double m01 = transform.getShearX();
+        double m11 = transform.getScaleY();
+        return Math.toDegrees(Math.atan2(m00 * m01 + m10 * m11,
+                transform.getDeterminant()));
+    }
+
+    @Override
+    public String toString() {
+        String fit = String.format(
+                "%s fit, rotation %f, scale %f x %f, skew %f", model,
+                getRotation(), getScaleX(), getScaleY(), getSkew());
+        if (!isOverdetermined()) {
+            return fit + ", exact";
+        }
+        return fit + String.format(", rms residual %f, max residual %f",
+                rmsResidual, maxResidual);
+    }
+
+    private static AffineTransform fitTranslation(double[] source,
+            double[] destination, int count) {
+        double dx = 0, dy = 0;
+        for (int i = 0; i < count; i++) {
+            dx += destination[i * 2] - source[i * 2];
+            dy += destination[i * 2 + 1] - source[i * 2 + 1];
+        }
+        return AffineTransform.getTranslateInstance(dx / count, dy / count);
+    }
+
+    /**
+     * Closed form least squares fit of x' = a x - b y + c, y' = b x + a y +
+     * d. Returns null if all of the source points coincide.
+     */
+    private static AffineTransform fitSimilarity(double[] source,
+            double[] destination, int count) {
+        double sx = 0, sy = 0, dx = 0, dy = 0;
+        for (int i = 0; i < count; i++) {
+            sx += source[i * 2];
+            sy += source[i * 2 + 1];
+            dx += destination[i * 2];
+            dy += destination[i * 2 + 1];
+        }
+        sx /= count;
+        sy /= count;
+        dx /= count;
+        dy /= count;
+        double norm = 0, a = 0, b = 0;
+        for (int i = 0; i < count; i++) {
+            double x = source[i * 2] - sx;
+            double y = source[i * 2 + 1] - sy;
+            double u = destination[i * 2] - dx;
+            double v = destination[i * 2 + 1] - dy;
+            norm += x * x + y * y;
+            a += x * u + y * v;
+            b += x * v - y * u;
+        }
+        if (norm < 1e-12) {
+            return null;
+        }
+        a /= norm;
+        b /= norm;
+        double c = dx - a * sx + b * sy;
+        double d = dy - b * sx - a * sy;
+        return new AffineTransform(a, b, -b, a, c, d);
+    }
+
+    /**
+     * Least squares fit of x' = a x + b y + c, y' = d x + e y + f by solving
+     * the 3x3 normal equations, which are shared by both rows. Returns null
+     * if the source points are collinear.
+     */
+    private static AffineTransform fitAffine(double[] source,
+            double[] destination, int count) {
+        double sxx = 0, sxy = 0, syy = 0, sx = 0, sy = 0;
+        double sxu = 0, syu = 0, su = 0, sxv = 0, syv = 0, sv = 0;
+        for (int i = 0; i < count; i++) {
+            double x = source[i * 2];
+            double y = source[i * 2 + 1];
+            double u = destination[i * 2];
+            double v = destination[i * 2 + 1];
+            sxx += x * x;
+            sxy += x * y;
+            syy += y * y;
+            sx += x;
+            sy += y;
+            sxu += x * u;
+            syu += y * u;
+            su += u;
+            sxv += x * v;
+            syv += y * v;
+            sv += v;
+        }
+        double n = count;
+        // Cofactors of the symmetric matrix
+        // | sxx sxy sx |
+        // | sxy syy sy |
+        // | sx  sy  n  |
+        double c00 = syy * n - sy * sy;
+        double c01 = sx * sy - sxy * n;
+        double c02 = sxy * sy - syy * sx;
+        double c11 = sxx * n - sx * sx;
+        double c12 = sxy * sx - sxx * sy;
+        double c22 = sxx * syy - sxy * sxy;
+        double det = sxx * c00 + sxy * c01 + sx * c02;
+        // Compare against the scale of the points so that the test does not
+        // depend on the units they are in.
+        double scale = sxx * syy * n;
+        if (Math.abs(det) <= 1e-9 * Math.abs(scale)) {
+            return null;
+        }
+        double a = (c00 * sxu + c01 * syu + c02 * su) / det;
+        double b = (c01 * sxu + c11 * syu + c12 * su) / det;
+        double c = (c02 * sxu + c12 * syu + c22 * su) / det;
+        double d = (c00 * sxv + c01 * syv + c02 * sv) / det;
+        double e = (c01 * sxv + c11 * syv + c12 * sv) / det;
+        double f = (c02 * sxv + c12 * syv + c22 * sv) / det;
+        return new AffineTransform(a, d, b, e, c, f);
+    }
+}
@@ -0,0 +1,321 @@
+package org.openpnp.util;
+
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.openpnp.model.Location;
+import org.openpnp.spi.Camera;
+import org.openpnp.spi.Camera.Looking;
+import org.openpnp.spi.Machine;
+import org.openpnp.spi.Nozzle;
+import org.openpnp.trace.SessionTrace;
+import org.simpleframework.xml.Attribute;
+import org.simpleframework.xml.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures where a picked part sits on the Nozzle with an up-looking Camera
+ * and corrects the placement for it. The Nozzle carries the part over the
+ * Camera already turned to its placement rotation and stops only long
+ * enough for a frame to be captured. The frame is searched for the part,
+ * see PartShape, on another thread while the Nozzle lifts away from the
+ * Camera and, if the part is placed next, travels to the placement, so the
+ * search costs nothing unless it takes longer than the travel. Only the
+ * small correction is left for the move down to the placement.
+ *
+ * The part's offset from the Nozzle and its rotation, which is how far its
+ * sides are from where the rotations of the pick and the placement put
+ * them, are taken out of the placement Location, so the part lands where
+ * the Placement says.
+ *
+ * The Camera is expected to give images the right way round, as if looking
+ * down through the part, and to be mounted so that the Nozzle is in the
+ * center of the image when it is at the configured Location.
+ *
+ * Alignment is off until it is enabled and the Location is set, on the
+ * Machine tab or in the bottom-vision element of the machine.
+ */
+public class BottomVision {
+    private final static Logger logger = LoggerFactory
+            .getLogger(BottomVision.class);
+
+    /**
+     * Searches frames while the machine moves. Several Heads may be
+     * aligning parts at once.
+     */
+    private static final ExecutorService executor = Executors
+            .newCachedThreadPool(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "BottomVision");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    @Attribute(required = false)
+    private boolean enabled = false;
+
+    /**
+     * The id of the Camera to use. If it is not set the first up-looking
+     * Camera of the machine is used.
+     */
+    @Attribute(required = false)
+    private String cameraId;
+
+    /**
+     * Where the Nozzle is centered over the Camera.
+     */
+    @Element(required = false)
+    private Location location;
+
+    /**
+     * How long to let the Nozzle settle over the Camera before capturing.
+     * 0 captures as soon as the Nozzle arrives.
+     */
+    @Attribute(required = false)
+    private int settleTimeMilliseconds = 0;
+
+    /**
+     * Brightness, 0 to 255, above which a pixel is part of the part.
+     */
+    @Attribute(required = false)
+    private int threshold = 128;
+
+    /**
+     * The fewest pixels that count as a part. Fewer means the Nozzle is
+     * empty.
+     */
+    @Attribute(required = false)
+    private int minimumPixels = 50;
+
+    /**
+     * The largest offset of the part from the Nozzle, in the units of the
+     * placement, that is taken to be real. 0 for no limit.
+     */
+    @Attribute(required = false)
+    private double maximumOffset = 0;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getCameraId() {
+        return cameraId;
+    }
+
+    public void setCameraId(String cameraId) {
+        // An empty id, as from an emptied text field, means any Camera.
+        this.cameraId = (cameraId == null || cameraId.length() == 0) ? null
+                : cameraId;
+    }
+
+    public Location getLocation() {
+        return location;
+    }
+
+    public void setLocation(Location location) {
+        this.location = location;
+    }
+
+    public int getSettleTimeMilliseconds() {
+        return settleTimeMilliseconds;
+    }
+
+    public void setSettleTimeMilliseconds(int settleTimeMilliseconds) {
+        this.settleTimeMilliseconds = settleTimeMilliseconds;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public int getMinimumPixels() {
+        return minimumPixels;
+    }
+
+    public void setMinimumPixels(int minimumPixels) {
+        this.minimumPixels = minimumPixels;
+    }
+
+    public double getMaximumOffset() {
+        return maximumOffset;
+    }
+
+    public void setMaximumOffset(double maximumOffset) {
+        this.maximumOffset = maximumOffset;
+    }
+
+    /**
+     * Returns the Camera to align parts with, or null if parts should not
+     * be aligned: alignment is not enabled, the Location is not set or
+     * the machine has no such Camera.
+     * @param machine
+     * @return
+     */
+    public Camera getCamera(Machine machine) {
+        if (!enabled) {
+            return null;
+        }
+        if (location == null) {
+            logger.warn("Bottom vision is enabled but has no location, parts will not be aligned.");
+            return null;
+        }
+        if (cameraId != null) {
+            Camera camera = machine.getCamera(cameraId);
+            if (camera == null) {
+                logger.warn("Bottom vision camera {} not found, parts will not be aligned.", cameraId);
+            }
+            return camera;
+        }
+        for (Camera camera : machine.getCameras()) {
+            if (camera.getLooking() == Looking.Up) {
+                return camera;
+            }
+        }
+        logger.warn("Bottom vision is enabled but the machine has no up-looking camera, parts will not be aligned.");
+        return null;
+    }
+
+    /**
+     * Carries the part on the Nozzle over the Camera, measures it and
+     * returns the placement Location corrected for where it sits. Call it
+     * straight after the pick, while the Nozzle is still at the pick
+     * rotation, and only with a Camera returned by getCamera(). The Nozzle
+     * is left at safe Z, over the placement if it is placed next and
+     * otherwise over the Camera.
+     * @param nozzle
+     * @param camera
+     * @param placementLocation
+     * @param placesNext True if the Nozzle places the part straight
+     * after, so it can travel to the placement while the frame is
+     * searched. False if it has to go somewhere else first, such as to
+     * pick for another Nozzle.
+     * @return
+     * @throws Exception if the part can't be found or is further off the
+     * Nozzle than the maximum offset.
+     */
+    public Location align(Nozzle nozzle, Camera camera,
+            Location placementLocation, boolean placesNext) throws Exception {
+        // The Nozzle is still at the rotation it picked at.
+        double pickRotation = nozzle.getLocation().getRotation();
+
+        Location cameraLocation = location
+                .convertToUnits(placementLocation.getUnits())
+                .derive(null, null, null, placementLocation.getRotation());
+        nozzle.moveToViaSafeZ(cameraLocation, 1.0);
+        if (settleTimeMilliseconds > 0) {
+            Thread.sleep(settleTimeMilliseconds);
+        }
+        final BufferedImage image = camera.capture();
+        if (image == null) {
+            throw new Exception(String.format(
+                    "Camera %s returned no image.", camera.getId()));
+        }
+        SessionTrace.frame(camera.getId(), image);
+
+        final long start = System.nanoTime();
+        Future<PartShape> search = executor.submit(new Callable<PartShape>() {
+            public PartShape call() throws Exception {
+                return PartShape.locate(image, 0, 0, image.getWidth(),
+                        image.getHeight(), threshold, minimumPixels);
+            }
+        });
+
+        // Get out of the Camera's way, and on to the placement, while the
+        // frame is searched.
+        nozzle.moveToSafeZ(1.0);
+        if (placesNext) {
+            nozzle.moveTo(placementLocation.derive(null, null, Double.NaN,
+                    null), 1.0);
+        }
+
+        PartShape shape;
+        try {
+            shape = search.get();
+        }
+        catch (ExecutionException e) {
+            throw new Exception(e.getCause());
+        }
+        SessionTrace.vision(camera.getId(), "locatePart",
+                shape == null ? null : new Object[] { new Point(
+                        (int) Math.round(shape.getCenterX()),
+                        (int) Math.round(shape.getCenterY())) }, start);
+        if (shape == null) {
+            throw new Exception(String.format(
+                    "No part found on nozzle %s.", nozzle.getId()));
+        }
+
+        // Offset of the part from the Nozzle, in the units of the
+        // placement. Images count top to bottom and the Y axis of the
+        // machine counts bottom to top, so Y is inverted.
+        Location unitsPerPixel = camera.getUnitsPerPixel();
+        double factor = unitsPerPixel.getUnits().getConversionFactor(
+                placementLocation.getUnits());
+        double offsetX = (shape.getCenterX() - image.getWidth() / 2.0)
+                * unitsPerPixel.getX() * factor;
+        double offsetY = (image.getHeight() / 2.0 - shape.getCenterY())
+                * unitsPerPixel.getY() * factor;
+        if (maximumOffset > 0
+                && Math.sqrt(offsetX * offsetX + offsetY * offsetY) > maximumOffset) {
+            throw new Exception(String.format(
+                    "Part on nozzle %s is %.3f, %.3f off center.",
+                    nozzle.getId(), offsetX, offsetY));
+        }
+
+        Location corrected = correct(placementLocation, pickRotation,
+                offsetX, offsetY, shape.getAngle());
+        logger.debug("Part on {}: {}, offset {}, {}, corrected to {}",
+                new Object[] { nozzle.getId(), shape, offsetX, offsetY,
+                        corrected });
+        return corrected;
+    }
+
+    /**
+     * Corrects the placement Location for a part measured over the Camera
+     * with the Nozzle at the placement rotation.
+     * @param placementLocation
+     * @param pickRotation The rotation of the Nozzle when it picked.
+     * @param offsetX The offset of the part from the Nozzle, in the units
+     * of the placement.
+     * @param offsetY
+     * @param angle The angle of the part's sides as measured, in degrees.
+     * @return
+     */
+    static Location correct(Location placementLocation, double pickRotation,
+            double offsetX, double offsetY, double angle) {
+        // The sides of the part were square when it was picked, so turning
+        // the Nozzle from the pick to the placement rotation should have
+        // turned them by the difference. Anything more is error.
+        double error = angle
+                - (placementLocation.getRotation() - pickRotation);
+        error = error - 90 * Math.floor((error + 45) / 90);
+
+        // Turning the Nozzle back by the error swings the part's offset
+        // around with it.
+        double radians = Math.toRadians(-error);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        double correctedX = offsetX * cos - offsetY * sin;
+        double correctedY = offsetX * sin + offsetY * cos;
+        return new Location(placementLocation.getUnits(),
+                placementLocation.getX() - correctedX,
+                placementLocation.getY() - correctedY,
+                placementLocation.getZ(), placementLocation.getRotation()
+                        - error);
+    }
+}
@@ -0,0 +1,189 @@
+package org.openpnp.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded ring of preallocated slots carrying items from any number of
+ * producer threads to a single consumer thread, without locks and without
+ * allocating.
+ *
+ * A producer claims a slot with a compare and set on the tail, fills in the
+ * item and publishes it by advancing the slot's sequence number. The
+ * consumer takes published items in the order they were claimed with
+ * peek(), and frees each slot with release() once it is done with the
+ * item. Items are reused, so neither side may hold on to one after it is
+ * released.
+ *
+ * When the ring is full tryClaim() fails at once, for producers that would
+ * rather drop the item, and claim() waits for the consumer to free a slot.
+ * The consumer can never free a slot while it is waiting on itself, so
+ * claim() fails instead of waiting when it is called on the consumer
+ * thread, for instance by a listener that fires another event.
+ * @param <T>
+ */
+public class BoundedRing<T> {
+    private final int mask;
+    private final T[] items;
+    /**
+     * For each slot, the sequence number at which it may next be claimed by
+     * a producer, or that number plus one once it has been published and
+     * may be consumed.
+     */
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private volatile Thread consumer;
+    private volatile boolean waiting;
+
+    /**
+     * @param items The preallocated items, one per slot. The length must
+     * be a power of two.
+     */
+    public BoundedRing(T[] items) {
+        int capacity = items.length;
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException(
+                    "Capacity must be a power of two.");
+        }
+        this.mask = capacity - 1;
+        this.items = items;
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int getCapacity() {
+        return items.length;
+    }
+
+    /**
+     * Sets the thread that consumes the ring. Must be called before the
+     * thread first calls peek().
+     * @param consumer
+     */
+    public void setConsumer(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    public Thread getConsumer() {
+        return consumer;
+    }
+
+    /**
+     * True if the calling thread is the consumer.
+     * @return
+     */
+    public boolean isConsumer() {
+        return Thread.currentThread() == consumer;
+    }
+
+    /**
+     * Claims a slot and returns its sequence number, or -1 if the ring is
+     * full.
+     * @return
+     */
+    public long tryClaim() {
+        while (true) {
+            long position = tail.get();
+            long difference = sequences.get((int) position & mask) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            }
+            else if (difference < 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Claims a slot and returns its sequence number, waiting for the
+     * consumer to free one if the ring is full. Returns -1 only if the ring
+     * is full and the caller is the consumer, which would wait forever.
+     * @return
+     */
+    public long claim() {
+        while (true) {
+            long sequence = tryClaim();
+            if (sequence >= 0) {
+                return sequence;
+            }
+            if (isConsumer()) {
+                return -1;
+            }
+            wakeConsumer();
+            Thread.yield();
+        }
+    }
+
+    /**
+     * The item in the slot of the claimed sequence number.
+     * @param sequence
+     * @return
+     */
+    public T get(long sequence) {
+        return items[(int) sequence & mask];
+    }
+
+    /**
+     * Makes the item of the claimed sequence number available to the
+     * consumer.
+     * @param sequence
+     */
+    public void publish(long sequence) {
+        sequences.set((int) sequence & mask, sequence + 1);
+        if (waiting) {
+            wakeConsumer();
+        }
+    }
+
+    /**
+     * Returns the next published item, or null if there is none yet. Only
+     * the consumer may call this.
+     * @return
+     */
+    public T peek() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        return items[index];
+    }
+
+    /**
+     * Frees the slot of the item last returned by peek(). Only the consumer
+     * may call this.
+     */
+    public void release() {
+        sequences.set((int) head & mask, head + mask + 1);
+        head++;
+    }
+
+    /**
+     * Parks the consumer for up to the given time or until an item is
+     * published or wakeConsumer() is called. Only the consumer may call
+     * this.
+     * @param nanos
+     */
+    public void await(long nanos) {
+        waiting = true;
+        // Check again after setting the flag, since a producer may have
+        // published before it could see it.
+        if (peek() == null) {
+            LockSupport.parkNanos(this, nanos);
+        }
+        waiting = false;
+    }
+
+    public void wakeConsumer() {
+        Thread consumer = this.consumer;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package org.openpnp.util;
+
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Fiducial;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.planner.PlacementTransformer;
+import org.openpnp.spi.Camera;
+import org.openpnp.spi.VisionProvider;
+import org.openpnp.spi.VisionProvider.Circle;
+import org.openpnp.trace.SessionTrace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registers a board on the machine automatically using its Fiducials. The
+ * camera is moved over the expected position of each Fiducial, the Fiducial
+ * is found with VisionProvider.locateCircles(), and an AffineFit of the
+ * expected to the measured positions gives the correction to the board's
+ * offset, rotation, scale and skew. The correction is applied to the
+ * BoardLocation.
+ */
+public class FiducialLocator {
+    private final static Logger logger = LoggerFactory
+            .getLogger(FiducialLocator.class);
+
+    /**
+     * How long to let the machine settle after a move before capturing.
+     */
+    private long settleTimeMilliseconds = 200;
+
+    /**
+     * The search area around each Fiducial, as a multiple of its diameter.
+     */
+    private double searchDiameters = 4;
+
+    public long getSettleTimeMilliseconds() {
+        return settleTimeMilliseconds;
+    }
+
+    public void setSettleTimeMilliseconds(long settleTimeMilliseconds) {
+        this.settleTimeMilliseconds = settleTimeMilliseconds;
+    }
+
+    public double getSearchDiameters() {
+        return searchDiameters;
+    }
+
+    public void setSearchDiameters(double searchDiameters) {
+        this.searchDiameters = searchDiameters;
+    }
+
+    /**
+     * Locates every Fiducial on the board with the given Camera, fits the
+     * correction to the board's transform and applies it to the
+     * BoardLocation: the Location is set to the corrected origin and
+     * rotation and the corrected transform is set as the BoardLocation's
+     * placement transform.
+     * @param boardLocation
+     * @param camera
+     * @return The fit of the correction, including the residual of each
+     * Fiducial.
+     * @throws Exception if the board has no Fiducials, the Camera has no
+     * VisionProvider or a Fiducial could not be found.
+     */
+    public AffineFit locateBoard(BoardLocation boardLocation, Camera camera)
+            throws Exception {
+        List<Fiducial> fiducials = boardLocation.getBoard().getFiducials();
+        if (fiducials.isEmpty()) {
+            throw new Exception(String.format("Board %s has no fiducials.",
+                    boardLocation.getBoard().getName()));
+        }
+        VisionProvider visionProvider = camera.getVisionProvider();
+        if (visionProvider == null) {
+            throw new Exception(String.format(
+                    "Camera %s has no vision provider.", camera.getId()));
+        }
+
+        Location location = boardLocation.getLocation();
+        LengthUnit units = location.getUnits();
+        Side side = boardLocation.getSide();
+        AffineTransform nominal = PlacementTransformer.createTransform(
+                location, side);
+
+        int count = fiducials.size();
+        double[] expected = new double[count * 2];
+        double[] measured = new double[count * 2];
+        for (int i = 0; i < count; i++) {
+            Fiducial fiducial = fiducials.get(i);
+            Location l = fiducial.getLocation().convertToUnits(units);
+            expected[i * 2] = l.getX();
+            expected[i * 2 + 1] = l.getY();
+            nominal.transform(expected, i * 2, expected, i * 2, 1);
+            Location expectedLocation = new Location(units, expected[i * 2],
+                    expected[i * 2 + 1], location.getZ(), 0);
+
+            Location found = locateFiducial(camera, visionProvider, fiducial,
+                    expectedLocation);
+            logger.debug("Fiducial {} expected at {}, found at {}",
+                    new Object[] { fiducial, expectedLocation, found });
+            measured[i * 2] = found.getX();
+            measured[i * 2 + 1] = found.getY();
+        }
+
+        AffineFit fit = register(boardLocation, expected, measured, count);
+        logger.debug("Board {} registered: {}", boardLocation.getBoard()
+                .getName(), fit);
+        return fit;
+    }
+
+    /**
+     * Fits the correction that takes the expected machine positions of the
+     * Fiducials, from the BoardLocation's nominal transform, to the measured
+     * ones, and applies it on top of the nominal transform. Fitting only the
+     * correction keeps the nominal rotation and the mirroring of the bottom
+     * side, so one Fiducial, which can only give a translation, still
+     * registers a rotated board.
+     * @param boardLocation
+     * @param expected
+     * @param measured
+     * @param count
+     * @return The fit of the correction.
+     */
+    static AffineFit register(BoardLocation boardLocation, double[] expected,
+            double[] measured, int count) {
+        Location location = boardLocation.getLocation();
+        AffineFit fit = AffineFit.fit(expected, measured, count);
+        AffineTransform transform = fit.getTransform();
+        transform.concatenate(PlacementTransformer.createTransform(location,
+                boardLocation.getSide()));
+        Location registered = new Location(location.getUnits(),
+                transform.getTranslateX(), transform.getTranslateY(),
+                location.getZ(), location.getRotation() + fit.getRotation());
+        // setLocation() clears the placement transform, so set it second.
+        boardLocation.setLocation(registered);
+        boardLocation.setPlacementTransform(transform);
+        return fit;
+    }
+
+    /**
+     * Moves the Camera over the expected Location of the Fiducial and
+     * returns the Location at which it was actually found, in the units of
+     * the expected Location.
+     */
+    private Location locateFiducial(Camera camera,
+            VisionProvider visionProvider, Fiducial fiducial,
+            Location expectedLocation) throws Exception {
+        MovableUtils.moveToLocationAtSafeZ(camera, expectedLocation, 1.0);
+        Thread.sleep(settleTimeMilliseconds);
+
+        Location unitsPerPixel = camera.getUnitsPerPixel();
+        double diameter = fiducial.getDiameter()
+                .convertToUnits(unitsPerPixel.getUnits()).getValue()
+                / unitsPerPixel.getX();
+
+        BufferedImage image = camera.capture();
+        SessionTrace.frame(camera.getId(), image);
+        int imageWidth = image.getWidth();
+        int imageHeight = image.getHeight();
+        int centerX = imageWidth / 2;
+        int centerY = imageHeight / 2;
+        int roiSize = (int) Math.ceil(diameter * searchDiameters);
+        int roiX = Math.max(0, centerX - roiSize / 2);
+        int roiY = Math.max(0, centerY - roiSize / 2);
+        int roiWidth = Math.min(imageWidth - roiX, roiSize);
+        int roiHeight = Math.min(imageHeight - roiY, roiSize);
+
+        Circle[] circles = visionProvider.locateCircles(roiX, roiY, roiWidth,
+                roiHeight, centerX, centerY, (int) (diameter * 0.5),
+                (int) diameter, (int) Math.ceil(diameter * 1.5));
+        if (circles == null || circles.length == 0) {
+            throw new Exception(String.format(
+                    "Unable to find fiducial near %s.", expectedLocation));
+        }
+
+        // Take the circle closest to where we expected the Fiducial.
+        Circle best = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (Circle circle : circles) {
+            double dx = circle.getX() - centerX;
+            double dy = circle.getY() - centerY;
+            double distance = dx * dx + dy * dy;
+            if (distance < bestDistance) {
+                best = circle;
+                bestDistance = distance;
+            }
+        }
+
+        // Convert the offset from the center of the image to machine units.
+        // Images count top to bottom and the Y axis of the machine counts
+        // bottom to top, so Y is inverted.
+        double offsetX = (best.getX() - centerX) * unitsPerPixel.getX();
+        double offsetY = (centerY - best.getY()) * unitsPerPixel.getY();
+        double factor = unitsPerPixel.getUnits().getConversionFactor(
+                expectedLocation.getUnits());
+        Location cameraLocation = camera.getLocation().convertToUnits(
+                expectedLocation.getUnits());
+        return new Location(expectedLocation.getUnits(), cameraLocation.getX()
+                + offsetX * factor, cameraLocation.getY() + offsetY * factor,
+                expectedLocation.getZ(), 0);
+    }
+}
@@ -0,0 +1,69 @@
+package org.openpnp.util;
+
+import org.openpnp.model.Location;
+import org.openpnp.spi.Feeder;
+import org.openpnp.spi.Head;
+import org.openpnp.spi.Machine;
+
+/**
+ * Answers which Head a Location belongs to on a machine with more than one
+ * Head, from the Heads' zones. See Head.isInZone().
+ */
+public class HeadZones {
+    /**
+     * Returns the Head whose zone the Location is in, or null if it is in
+     * the shared workspace.
+     * @param machine
+     * @param location
+     * @return
+     */
+    public static Head getOwner(Machine machine, Location location) {
+        if (location == null) {
+            return null;
+        }
+        for (Head head : machine.getHeads()) {
+            if (head.isInZone(location)) {
+                return head;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if every Head of the machine has a zone, so that the
+     * Heads can work at the same time without getting in each other's way.
+     * @param machine
+     * @return
+     */
+    public static boolean isZoned(Machine machine) {
+        for (Head head : machine.getHeads()) {
+            if (!head.hasZone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns false if the Feeder's pick location is in the zone of a Head
+     * other than the given one, so the given Head must not use it.
+     * @param machine
+     * @param head
+     * @param feeder
+     * @return
+     */
+    public static boolean canUse(Machine machine, Head head, Feeder feeder) {
+        if (machine.getHeads().size() < 2) {
+            return true;
+        }
+        Location pickLocation;
+        try {
+            pickLocation = feeder.getPickLocation();
+        }
+        catch (Exception e) {
+            return true;
+        }
+        Head owner = getOwner(machine, pickLocation);
+        return owner == null || owner == head;
+    }
+}
@@ -0,0 +1,323 @@
+package org.openpnp.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openpnp.model.Identifiable;
+
+/**
+ * An indexed store of Identifiable objects keyed case insensitively by id,
+ * intended for large collections such as the Parts and Packages libraries.
+ *
+ * Reads never copy the collection. getAll() and getSorted() return immutable
+ * snapshots that are built once and shared until the catalog changes, and
+ * prefix searches run against a sorted index that is cached the same way.
+ * Substring searches run against a suffix array of the ids that is built
+ * the first time one is made and then cached with the index. Writers
+ * synchronize on the catalog; a snapshot that a reader already holds is
+ * never modified.
+ * @param <E>
+ */
+public class IdentifiableCatalog<E extends Identifiable> {
+    private final Map<String, E> items = new LinkedHashMap<String, E>();
+
+    private volatile List<E> snapshot;
+    private volatile Index<E> index;
+
+    public synchronized E get(String id) {
+        if (id == null) {
+            return null;
+        }
+        return items.get(id.toUpperCase());
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    /**
+     * Adds the item, replacing any existing item with the same id.
+     * @param item
+     */
+    public synchronized void put(E item) {
+        items.put(item.getId().toUpperCase(), item);
+        invalidate();
+    }
+
+    /**
+     * Adds all of the items with a single invalidation of the cached views.
+     * @param items
+     */
+    public synchronized void putAll(Collection<? extends E> items) {
+        for (E item : items) {
+            this.items.put(item.getId().toUpperCase(), item);
+        }
+        invalidate();
+    }
+
+    public synchronized E remove(String id) {
+        if (id == null) {
+            return null;
+        }
+        E item = items.remove(id.toUpperCase());
+        if (item != null) {
+            invalidate();
+        }
+        return item;
+    }
+
+    /**
+     * Returns an immutable List of all items in insertion order. The same
+     * List is returned until the catalog changes.
+     * @return
+     */
+    public List<E> getAll() {
+        List<E> snapshot = this.snapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = this.snapshot;
+                if (snapshot == null) {
+                    snapshot = Collections.unmodifiableList(new ArrayList<E>(
+                            items.values()));
+                    this.snapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns an immutable List of all items sorted case insensitively by id.
+     * The same List is returned until the catalog changes.
+     * @return
+     */
+    public List<E> getSorted() {
+        return getIndex().sorted;
+    }
+
+    /**
+     * Returns the index in getSorted() of the first item whose id starts
+     * with the given prefix, ignoring case, or -1 if there is none. Runs in
+     * logarithmic time. Used by the pickers to jump to what the user types.
+     * @param prefix
+     * @return
+     */
+    public int indexOfPrefix(String prefix) {
+        Index<E> index = getIndex();
+        String key = prefix.toUpperCase();
+        int i = lowerBound(index.keys, key);
+        if (i < index.keys.length && index.keys[i].startsWith(key)) {
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the indexes in getSorted() of the items whose id contains the
+     * given text, ignoring case, in ascending order. Runs in logarithmic
+     * time in the total length of the ids plus the number of matches.
+     * @param text
+     * @return
+     */
+    public int[] indexesOfSubstring(String text) {
+        Index<E> index = getIndex();
+        String key = text.toUpperCase();
+        if (key.length() == 0) {
+            int[] results = new int[index.keys.length];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = i;
+            }
+            return results;
+        }
+        Suffixes suffixes = index.getSuffixes();
+        String[] keys = index.keys;
+        boolean[] matched = new boolean[keys.length];
+        int count = 0;
+        for (int i = suffixes.lowerBound(keys, key); i < suffixes.keys.length; i++) {
+            int k = suffixes.keys[i];
+            if (!keys[k].startsWith(key, suffixes.offsets[i])) {
+                break;
+            }
+            if (!matched[k]) {
+                matched[k] = true;
+                count++;
+            }
+        }
+        int[] results = new int[count];
+        for (int k = 0, j = 0; j < count; k++) {
+            if (matched[k]) {
+                results[j++] = k;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the items whose id contains the given text, ignoring case, in
+     * id order. Used by the parts search.
+     * @param text
+     * @return
+     */
+    public List<E> findBySubstring(String text) {
+        Index<E> index = getIndex();
+        int[] indexes = indexesOfSubstring(text);
+        List<E> results = new ArrayList<E>(indexes.length);
+        for (int i : indexes) {
+            results.add(index.sorted.get(i));
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    private void invalidate() {
+        snapshot = null;
+        index = null;
+    }
+
+    private Index<E> getIndex() {
+        Index<E> index = this.index;
+        if (index == null) {
+            synchronized (this) {
+                index = this.index;
+                if (index == null) {
+                    index = new Index<E>(items);
+                    this.index = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * The upper cased ids in sorted order alongside the items they belong
+     * to.
+     */
+    private static class Index<E> {
+        final String[] keys;
+        final List<E> sorted;
+        private volatile Suffixes suffixes;
+
+        public Index(Map<String, E> items) {
+            keys = items.keySet().toArray(new String[items.size()]);
+            Arrays.sort(keys);
+            List<E> sorted = new ArrayList<E>(keys.length);
+            for (String key : keys) {
+                sorted.add(items.get(key));
+            }
+            this.sorted = Collections.unmodifiableList(sorted);
+        }
+
+        Suffixes getSuffixes() {
+            Suffixes suffixes = this.suffixes;
+            if (suffixes == null) {
+                synchronized (this) {
+                    suffixes = this.suffixes;
+                    if (suffixes == null) {
+                        suffixes = new Suffixes(keys);
+                        this.suffixes = suffixes;
+                    }
+                }
+            }
+            return suffixes;
+        }
+    }
+
+    /**
+     * Every suffix of every key, as the index of the key and the offset the
+     * suffix starts at, in sorted order. The suffixes that start with some
+     * text are adjacent, and those are exactly the places the text occurs.
+     */
+    private static class Suffixes {
+        final int[] keys;
+        final int[] offsets;
+
+        public Suffixes(final String[] keys) {
+            int count = 0;
+            for (String key : keys) {
+                count += key.length();
+            }
+            Integer[] order = new Integer[count];
+            final int[] suffixKeys = new int[count];
+            final int[] suffixOffsets = new int[count];
+            for (int k = 0, i = 0; k < keys.length; k++) {
+                for (int offset = 0; offset < keys[k].length(); offset++, i++) {
+                    suffixKeys[i] = k;
+                    suffixOffsets[i] = offset;
+                    order[i] = i;
+                }
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                public int compare(Integer a, Integer b) {
+                    return compareSuffix(keys[suffixKeys[a]], suffixOffsets[a],
+                            keys[suffixKeys[b]], suffixOffsets[b]);
+                }
+            });
+            this.keys = new int[count];
+            this.offsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                this.keys[i] = suffixKeys[order[i]];
+                this.offsets[i] = suffixOffsets[order[i]];
+            }
+        }
+
+        /**
+         * Returns the first suffix that is not less than the text.
+         */
+        int lowerBound(String[] keys, String text) {
+            int low = 0;
+            int high = this.keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareSuffix(keys[this.keys[mid]], offsets[mid], text, 0) < 0) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Compares a.substring(aOffset) to b.substring(bOffset) without
+         * creating either.
+         */
+        static int compareSuffix(String a, int aOffset, String b, int bOffset) {
+            int aLength = a.length() - aOffset;
+            int bLength = b.length() - bOffset;
+            int length = Math.min(aLength, bLength);
+            for (int i = 0; i < length; i++) {
+                char ac = a.charAt(aOffset + i);
+                char bc = b.charAt(bOffset + i);
+                if (ac != bc) {
+                    return ac - bc;
+                }
+            }
+            return aLength - bLength;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.openpnp.util;
+
+import java.awt.geom.AffineTransform;
+
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+/**
+ * A mutable counterpart to Location for use as a scratch vector in hot
+ * paths such as motion planning and per frame vision code, where creating a
+ * new Location for every intermediate step would allocate several objects
+ * per operation. All operations modify this object in place and return it
+ * so that calls can be chained. Convert back to a Location with toLocation()
+ * once the result needs to be kept or passed to the rest of the system.
+ * 
+ * Instances are not thread safe. Keep one per thread or per object that
+ * uses it.
+ */
+public class MutableLocation {
+    public LengthUnit units;
+    public double x;
+    public double y;
+    public double z;
+    public double rotation;
+
+    public MutableLocation(LengthUnit units) {
+        this.units = units;
+    }
+
+    public MutableLocation(Location location) {
+        set(location);
+    }
+
+    public MutableLocation set(Location location) {
+        return set(location.getUnits(), location.getX(), location.getY(),
+                location.getZ(), location.getRotation());
+    }
+
+    public MutableLocation set(LengthUnit units, double x, double y,
+            double z, double rotation) {
+        this.units = units;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.rotation = rotation;
+        return this;
+    }
+
+    public MutableLocation convertToUnits(LengthUnit units) {
+        if (this.units != units) {
+            double factor = this.units.getConversionFactor(units);
+            x *= factor;
+            y *= factor;
+            z *= factor;
+            this.units = units;
+        }
+        return this;
+    }
+
+    /**
+     * Adds the given Location's X, Y and Z, converted to this object's units.
+     * Rotation is left unchanged.
+     * @param l
+     * @return
+     */
+    public MutableLocation add(Location l) {
+        double factor = l.getUnits().getConversionFactor(units);
+        x += l.getX() * factor;
+        y += l.getY() * factor;
+        z += l.getZ() * factor;
+        return this;
+    }
+
+    /**
+     * Subtracts the given Location's X, Y and Z, converted to this object's
+     * units. Rotation is left unchanged.
+     * @param l
+     * @return
+     */
+    public MutableLocation subtract(Location l) {
+        double factor = l.getUnits().getConversionFactor(units);
+        x -= l.getX() * factor;
+        y -= l.getY() * factor;
+        z -= l.getZ() * factor;
+        return this;
+    }
+
+    /**
+     * Applies the transform to X and Y. Z and rotation are left unchanged.
+     * @param transform
+     * @return
+     */
+    public MutableLocation transform(AffineTransform transform) {
+        double x = this.x;
+        double y = this.y;
+        this.x = transform.getScaleX() * x + transform.getShearX() * y
+                + transform.getTranslateX();
+        this.y = transform.getShearY() * x + transform.getScaleY() * y
+                + transform.getTranslateY();
+        return this;
+    }
+
+    public double getLinearDistanceTo(double x, double y) {
+        double dx = this.x - x;
+        double dy = this.y - y;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public Location toLocation() {
+        return new Location(units, x, y, z, rotation);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("units %s, x %f, y %f, z %f, rotation %f",
+                units, x, y, z, rotation);
+    }
+}
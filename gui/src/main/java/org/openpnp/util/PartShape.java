@@ -0,0 +1,250 @@
+package org.openpnp.util;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The outline of a part seen by a camera: the smallest rectangle that
+ * contains every pixel brighter than a threshold, and the centroid of those
+ * pixels. Bottom vision lights the part against a dark background, so the
+ * bright pixels are the part's body and leads.
+ *
+ * The rectangle is found from the convex hull of the bright pixels by
+ * trying each edge of the hull as a side of the rectangle, which works for
+ * square parts too, where the image moments give no orientation.
+ *
+ * Coordinates are in pixels with Y down, as in the image. Angles are in
+ * degrees counter-clockwise as seen in the image turned the right way up,
+ * that is with Y up.
+ */
+public class PartShape {
+    private final double centerX;
+    private final double centerY;
+    private final double width;
+    private final double height;
+    private final double angle;
+    private final double centroidX;
+    private final double centroidY;
+    private final int pixels;
+
+    private PartShape(double centerX, double centerY, double width,
+            double height, double angle, double centroidX, double centroidY,
+            int pixels) {
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.width = width;
+        this.height = height;
+        this.angle = angle;
+        this.centroidX = centroidX;
+        this.centroidY = centroidY;
+        this.pixels = pixels;
+    }
+
+    /**
+     * Finds the part in the region of the image. Returns null if fewer than
+     * minimumPixels pixels are brighter than the threshold.
+     * @param image
+     * @param roiX
+     * @param roiY
+     * @param roiWidth
+     * @param roiHeight
+     * @param threshold Brightness, 0 to 255, that a pixel of the part is
+     * brighter than.
+     * @param minimumPixels
+     * @return
+     */
+    public static PartShape locate(BufferedImage image, int roiX, int roiY,
+            int roiWidth, int roiHeight, int threshold, int minimumPixels) {
+        // The leftmost and rightmost bright pixel of each row are all the
+        // convex hull needs.
+        List<double[]> extremes = new ArrayList<double[]>();
+        int[] row = new int[roiWidth];
+        long count = 0;
+        double sumX = 0;
+        double sumY = 0;
+        for (int y = roiY; y < roiY + roiHeight; y++) {
+            image.getRGB(roiX, y, roiWidth, 1, row, 0, roiWidth);
+            int first = -1;
+            int last = -1;
+            for (int i = 0; i < roiWidth; i++) {
+                int rgb = row[i];
+                // Integer approximation of luma.
+                int luma = (((rgb >> 16) & 0xff) * 77 + ((rgb >> 8) & 0xff)
+                        * 150 + (rgb & 0xff) * 29) >> 8;
+                if (luma <= threshold) {
+                    continue;
+                }
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+                count++;
+                sumX += roiX + i;
+                sumY += y;
+            }
+            if (first >= 0) {
+                // Pixel edges rather than centers, so a single pixel still
+                // has an area.
+                extremes.add(new double[] { roiX + first, y });
+                extremes.add(new double[] { roiX + first, y + 1 });
+                extremes.add(new double[] { roiX + last + 1, y });
+                extremes.add(new double[] { roiX + last + 1, y + 1 });
+            }
+        }
+        if (count < Math.max(1, minimumPixels)) {
+            return null;
+        }
+
+        List<double[]> hull = convexHull(extremes);
+        double bestArea = Double.MAX_VALUE;
+        double[] best = null;
+        for (int i = 0; i < hull.size(); i++) {
+            double[] a = hull.get(i);
+            double[] b = hull.get((i + 1) % hull.size());
+            double ex = b[0] - a[0];
+            double ey = b[1] - a[1];
+            double length = Math.sqrt(ex * ex + ey * ey);
+            if (length == 0) {
+                continue;
+            }
+            ex /= length;
+            ey /= length;
+            // Project the hull onto the edge and its normal.
+            double minU = Double.MAX_VALUE, maxU = -Double.MAX_VALUE;
+            double minV = Double.MAX_VALUE, maxV = -Double.MAX_VALUE;
+            for (double[] p : hull) {
+                double u = p[0] * ex + p[1] * ey;
+                double v = -p[0] * ey + p[1] * ex;
+                minU = Math.min(minU, u);
+                maxU = Math.max(maxU, u);
+                minV = Math.min(minV, v);
+                maxV = Math.max(maxV, v);
+            }
+            double area = (maxU - minU) * (maxV - minV);
+            if (area < bestArea) {
+                bestArea = area;
+                best = new double[] { ex, ey, minU, maxU, minV, maxV };
+            }
+        }
+
+        double ex = best[0];
+        double ey = best[1];
+        double u = (best[2] + best[3]) / 2;
+        double v = (best[4] + best[5]) / 2;
+        double width = best[3] - best[2];
+        double height = best[5] - best[4];
+        // Y is down in the image, so the angle is negated to be counter-
+        // clockwise with Y up, and folded into [-45, 45) since a rectangle
+        // looks the same every 90 degrees.
+        double angle = -Math.toDegrees(Math.atan2(ey, ex));
+        long turns = (long) Math.floor((angle + 45) / 90);
+        angle -= 90 * turns;
+        if (turns % 2 != 0) {
+            double side = width;
+            width = height;
+            height = side;
+        }
+        return new PartShape(u * ex - v * ey, u * ey + v * ex, width, height,
+                angle, sumX / count + 0.5, sumY / count + 0.5, (int) count);
+    }
+
+    /**
+     * Andrew's monotone chain.
+     */
+    private static List<double[]> convexHull(List<double[]> points) {
+        Collections.sort(points, new Comparator<double[]>() {
+            public int compare(double[] a, double[] b) {
+                if (a[0] != b[0]) {
+                    return a[0] < b[0] ? -1 : 1;
+                }
+                return a[1] < b[1] ? -1 : (a[1] > b[1] ? 1 : 0);
+            }
+        });
+        int n = points.size();
+        double[][] hull = new double[n * 2][];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            while (k >= 2 && cross(hull[k - 2], hull[k - 1], points.get(i)) <= 0) {
+                k--;
+            }
+            hull[k++] = points.get(i);
+        }
+        for (int i = n - 2, lower = k + 1; i >= 0; i--) {
+            while (k >= lower && cross(hull[k - 2], hull[k - 1], points.get(i)) <= 0) {
+                k--;
+            }
+            hull[k++] = points.get(i);
+        }
+        List<double[]> result = new ArrayList<double[]>(k);
+        for (int i = 0; i < k - 1; i++) {
+            result.add(hull[i]);
+        }
+        return result;
+    }
+
+    private static double cross(double[] o, double[] a, double[] b) {
+        return (a[0] - o[0]) * (b[1] - o[1]) - (a[1] - o[1]) * (b[0] - o[0]);
+    }
+
+    /**
+     * The center of the rectangle, in pixels.
+     * @return
+     */
+    public double getCenterX() {
+        return centerX;
+    }
+
+    public double getCenterY() {
+        return centerY;
+    }
+
+    /**
+     * The length of the side of the rectangle at getAngle(), in pixels.
+     * @return
+     */
+    public double getWidth() {
+        return width;
+    }
+
+    public double getHeight() {
+        return height;
+    }
+
+    /**
+     * The angle of the rectangle in degrees, between -45 and 45.
+     * @return
+     */
+    public double getAngle() {
+        return angle;
+    }
+
+    /**
+     * The centroid of the bright pixels, in pixels.
+     * @return
+     */
+    public double getCentroidX() {
+        return centroidX;
+    }
+
+    public double getCentroidY() {
+        return centroidY;
+    }
+
+    /**
+     * How many pixels were brighter than the threshold.
+     * @return
+     */
+    public int getPixels() {
+        return pixels;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "center (%.2f, %.2f), %.2f x %.2f at %.2f degrees, centroid (%.2f, %.2f)",
+                centerX, centerY, width, height, angle, centroidX, centroidY);
+    }
+}
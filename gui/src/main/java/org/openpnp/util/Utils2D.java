@@ -24,6 +24,8 @@
 
 package org.openpnp.util;
 
+import java.awt.geom.AffineTransform;
+
 import org.openpnp.model.Point;
 
 
@@ -53,22 +55,68 @@ public class Utils2D {
 		double y = point.getY();
 		
 		// convert degrees to radians
-		c = c * Math.PI / 180.0;
+		c = Math.toRadians(c);
 		
 		// rotate the points
-		double xn = x * Math.cos(c) - y * Math.sin(c);
-		double yn = x * Math.sin(c) + y * Math.cos(c);
-		
-		x = xn;
-		y = yn;
+		double cos = Math.cos(c);
+		double sin = Math.sin(c);
+		double xn = x * cos - y * sin;
+		double yn = x * sin + y * cos;
 		
-		return new Point(x, y);
+		return new Point(xn, yn);
 	}
 	
 	public static Point scalePoint(Point point, double scaleX, double scaleY) {
 		return new Point(point.getX() * scaleX, point.getY() * scaleY);
 	}
 	
+	/**
+	 * Returns a transform that performs the same operation as
+	 * rotateTranslateScalePoint(): rotate by c degrees, then translate by
+	 * x, y and then scale by scaleX, scaleY. Build it once and apply it to
+	 * any number of points without further trigonometry or allocation.
+	 * @param c
+	 * @param x
+	 * @param y
+	 * @param scaleX
+	 * @param scaleY
+	 * @return
+	 */
+	public static AffineTransform getRotateTranslateScaleTransform(double c, double x, double y, double scaleX, double scaleY) {
+		AffineTransform transform = AffineTransform.getScaleInstance(scaleX, scaleY);
+		transform.translate(x, y);
+		transform.rotate(Math.toRadians(c));
+		return transform;
+	}
+	
+	/**
+	 * Rotates, translates and scales count points in place. The points are
+	 * stored interleaved as x0, y0, x1, y1, ... starting at offset.
+	 * @param points
+	 * @param offset
+	 * @param count
+	 * @param c
+	 * @param x
+	 * @param y
+	 * @param scaleX
+	 * @param scaleY
+	 */
+	public static void rotateTranslateScalePoints(double[] points, int offset, int count, double c, double x, double y, double scaleX, double scaleY) {
+		transformPoints(getRotateTranslateScaleTransform(c, x, y, scaleX, scaleY), points, offset, count);
+	}
+	
+	/**
+	 * Applies the transform to count points in place. The points are
+	 * stored interleaved as x0, y0, x1, y1, ... starting at offset.
+	 * @param transform
+	 * @param points
+	 * @param offset
+	 * @param count
+	 */
+	public static void transformPoints(AffineTransform transform, double[] points, int offset, int count) {
+		transform.transform(points, offset, points, offset, count);
+	}
+	
 	public static void main(String[] args) {
 		Point p = new Point(0, 1);
 		System.out.println(rotatePoint(p, 90));
@@ -0,0 +1,181 @@
+package org.openpnp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.model.Board;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Job;
+import org.openpnp.model.Placement;
+
+public class JobJournalTest {
+    private File directory;
+    private Job job;
+    private BoardLocation boardLocation;
+    private Placement r1;
+    private Placement r2;
+    private Placement r3;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("JobJournalTest", "");
+        directory.delete();
+        directory.mkdirs();
+
+        Board board = new Board();
+        board.setName("test");
+        r1 = new Placement("R1");
+        r2 = new Placement("R2");
+        r3 = new Placement("R3");
+        board.addPlacement(r1);
+        board.addPlacement(r2);
+        board.addPlacement(r3);
+        boardLocation = new BoardLocation(board);
+        job = new Job();
+        job.addBoardLocation(boardLocation);
+        job.setFile(new File(directory, "test.job.xml"));
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    private static void append(File file, String s) throws IOException {
+        FileOutputStream out = new FileOutputStream(file, true);
+        try {
+            out.write(s.getBytes("UTF-8"));
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    @Test
+    public void placedPlacementsAreResumed() throws Exception {
+        JobJournal journal = JobJournal.create(job);
+        assertEquals(new File(directory, "test.job.xml.journal"),
+                journal.getFile());
+        journal.placed(boardLocation, 0, r1);
+        journal.placed(boardLocation, 1, r1);
+        journal.placed(boardLocation, 0, r2);
+        // Recording the same Placement twice writes it once.
+        journal.placed(boardLocation, 0, r2);
+        journal.close();
+
+        assertEquals(3, JobJournal.getPlacedCount(job));
+        journal = JobJournal.resume(job);
+        try {
+            assertEquals(3, journal.getPlacedCount());
+            assertTrue(journal.isCompleted(boardLocation, 0, r1));
+            assertTrue(journal.isCompleted(boardLocation, 1, r1));
+            assertTrue(journal.isCompleted(boardLocation, 0, r2));
+            assertFalse(journal.isCompleted(boardLocation, 1, r2));
+            assertFalse(journal.isCompleted(boardLocation, 0, r3));
+            assertFalse(journal.isCompleted(new BoardLocation(new Board()), 0,
+                    r1));
+        }
+        finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void tornRecordIsTruncated() throws Exception {
+        JobJournal journal = JobJournal.create(job);
+        journal.placed(boardLocation, 0, r1);
+        journal.placed(boardLocation, 0, r2);
+        journal.close();
+        File file = journal.getFile();
+        long length = file.length();
+
+        // A crash part way through writing a record leaves it without its
+        // line end.
+        append(file, "P\t0\t0\tR");
+        assertEquals(2, JobJournal.getPlacedCount(job));
+
+        journal = JobJournal.resume(job);
+        assertEquals(length, file.length());
+        assertEquals(2, journal.getPlacedCount());
+        assertFalse(journal.isCompleted(boardLocation, 0, r3));
+
+        // New records follow the last complete one rather than the torn
+        // one.
+        journal.placed(boardLocation, 0, r3);
+        journal.close();
+        journal = JobJournal.resume(job);
+        try {
+            assertEquals(3, journal.getPlacedCount());
+            assertTrue(journal.isCompleted(boardLocation, 0, r3));
+        }
+        finally {
+            journal.close();
+        }
+        assertTrue(FileUtils.readFileToString(file, "UTF-8").endsWith(
+                "P\t0\t0\tR2\nP\t0\t0\tR3\n"));
+    }
+
+    @Test
+    public void journalOfAnEditedJobIsRejected() throws Exception {
+        JobJournal journal = JobJournal.create(job);
+        journal.placed(boardLocation, 0, r1);
+        journal.close();
+
+        boardLocation.getBoard().addPlacement(new Placement("R4"));
+        assertEquals(0, JobJournal.getPlacedCount(job));
+        try {
+            JobJournal.resume(job);
+            fail("Resumed the journal of a different job.");
+        }
+        catch (Exception e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void invalidRecordIsRejected() throws Exception {
+        JobJournal journal = JobJournal.create(job);
+        journal.close();
+        append(journal.getFile(), "X\t0\n");
+        try {
+            JobJournal.resume(job);
+            fail("Resumed a journal with an invalid record.");
+        }
+        catch (Exception e) {
+            // Expected.
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void missingJournal() throws Exception {
+        JobJournal.resume(job);
+    }
+
+    @Test
+    public void journalIsFoundFromTheJobFile() throws Exception {
+        File jobFile = job.getFile();
+        assertEquals(JobJournal.getFile(job), JobJournal.getFile(jobFile));
+        assertFalse(JobJournal.getFile(jobFile).exists());
+        JobJournal.create(job).close();
+        assertTrue(JobJournal.getFile(jobFile).exists());
+    }
+
+    @Test
+    public void deleteRemovesTheJournal() throws Exception {
+        JobJournal journal = JobJournal.create(job);
+        journal.placed(boardLocation, 0, r1);
+        journal.delete();
+        assertFalse(journal.getFile().exists());
+        assertEquals(0, JobJournal.getPlacedCount(job));
+    }
+}
@@ -0,0 +1,187 @@
+package org.openpnp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.openpnp.JobProcessor.JobError;
+import org.openpnp.JobProcessor.JobState;
+import org.openpnp.JobProcessorEvent.Status;
+import org.openpnp.JobProcessorEvent.Type;
+
+public class JobProcessorEventQueueTest {
+    /**
+     * Records the events it is given as strings, since the events themselves
+     * are reused.
+     */
+    private static class Recorder implements JobProcessorEvent.Listener {
+        final List<String> events = Collections
+                .synchronizedList(new ArrayList<String>());
+        final CountDownLatch latch;
+
+        Recorder(int count) {
+            latch = new CountDownLatch(count);
+        }
+
+        public void jobProcessorEvent(JobProcessorEvent event) {
+            events.add(describe(event));
+            latch.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("Timed out waiting for events",
+                    latch.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    private static String describe(JobProcessorEvent event) {
+        switch (event.type) {
+        case JobStateChanged:
+            return event.state.toString();
+        case JobEncounteredError:
+            return event.description;
+        default:
+            return event.type.toString();
+        }
+    }
+
+    private static void fireError(JobProcessorEventQueue queue,
+            String description) {
+        long sequence = queue.claim(Type.JobEncounteredError);
+        JobProcessorEvent event = queue.getEvent(sequence);
+        event.error = JobError.MachineMovementError;
+        event.description = description;
+        queue.publish(sequence);
+    }
+
+    private static void fireState(JobProcessorEventQueue queue, JobState state) {
+        long sequence = queue.claim(Type.JobStateChanged);
+        queue.getEvent(sequence).state = state;
+        queue.publish(sequence);
+    }
+
+    @Test
+    public void nothingIsClaimedWithoutListeners() {
+        JobProcessorEventQueue queue = new JobProcessorEventQueue(4);
+        assertEquals(-1, queue.claim(Type.JobStateChanged));
+    }
+
+    @Test
+    public void deliversInOrderThroughAFullRing() throws Exception {
+        JobProcessorEventQueue queue = new JobProcessorEventQueue(4);
+        Recorder recorder = new Recorder(100);
+        queue.addEventListener(recorder);
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            fireError(queue, "" + i);
+            expected.add("" + i);
+        }
+        recorder.await();
+        assertEquals(expected, recorder.events);
+        assertEquals(0, queue.getDroppedCount());
+    }
+
+    @Test
+    public void detailedStatusIsDroppedWhenFull() throws Exception {
+        JobProcessorEventQueue queue = new JobProcessorEventQueue(4);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Recorder recorder = new Recorder(4);
+        queue.addEventListener(new JobProcessorEvent.Listener() {
+            public void jobProcessorEvent(JobProcessorEvent event) {
+                if ("0".equals(event.description)) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    }
+                    catch (InterruptedException e) {
+                        throw new Error(e);
+                    }
+                }
+            }
+        });
+        queue.addEventListener(recorder);
+        fireError(queue, "0");
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        fireError(queue, "1");
+        fireError(queue, "2");
+        fireError(queue, "3");
+        // The event thread still holds the first slot, so the ring is full.
+        assertEquals(-1, queue.claim(Type.DetailedStatusUpdated));
+        assertEquals(-1, queue.claim(Type.DetailedStatusUpdated));
+        assertEquals(2, queue.getDroppedCount());
+        release.countDown();
+        recorder.await();
+        assertEquals(4, recorder.events.size());
+        long sequence = queue.claim(Type.DetailedStatusUpdated);
+        assertTrue(sequence >= 0);
+        queue.getEvent(sequence).status = Status.JobComplete;
+        queue.publish(sequence);
+    }
+
+    @Test
+    public void reentrantListenerDoesNotDeadlockOnAFullRing() throws Exception {
+        final JobProcessorEventQueue queue = new JobProcessorEventQueue(4);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch filled = new CountDownLatch(1);
+        // Like JobPanel pausing the JobProcessor when it hears of an error.
+        queue.addEventListener(new JobProcessorEvent.Listener() {
+            public void jobProcessorEvent(JobProcessorEvent event) {
+                if ("0".equals(event.description)) {
+                    blocked.countDown();
+                    try {
+                        filled.await();
+                    }
+                    catch (InterruptedException e) {
+                        throw new Error(e);
+                    }
+                    fireState(queue, JobState.Paused);
+                }
+            }
+        });
+        Recorder recorder = new Recorder(5);
+        queue.addEventListener(recorder);
+        fireError(queue, "0");
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        fireError(queue, "1");
+        fireError(queue, "2");
+        fireError(queue, "3");
+        filled.countDown();
+        recorder.await();
+        // The Paused event could not be queued behind the others, so it was
+        // delivered inline, while the first event was being delivered.
+        List<String> expected = new ArrayList<String>();
+        expected.add("Paused");
+        expected.add("0");
+        expected.add("1");
+        expected.add("2");
+        expected.add("3");
+        assertEquals(expected, recorder.events);
+    }
+
+    @Test
+    public void reentrantListenerIsQueuedWhenThereIsRoom() throws Exception {
+        final JobProcessorEventQueue queue = new JobProcessorEventQueue(4);
+        queue.addEventListener(new JobProcessorEvent.Listener() {
+            public void jobProcessorEvent(JobProcessorEvent event) {
+                if ("0".equals(event.description)) {
+                    fireState(queue, JobState.Paused);
+                }
+            }
+        });
+        Recorder recorder = new Recorder(3);
+        queue.addEventListener(recorder);
+        fireError(queue, "0");
+        fireError(queue, "1");
+        recorder.await();
+        assertEquals("0", recorder.events.get(0));
+        assertTrue(recorder.events.contains("1"));
+        assertTrue(recorder.events.contains("Paused"));
+    }
+}
@@ -0,0 +1,147 @@
+package org.openpnp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.JobProcessor.PickRetryAction;
+import org.openpnp.PickRecovery.Recovery;
+import org.openpnp.gui.support.Wizard;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Location;
+import org.openpnp.spi.Nozzle;
+import org.openpnp.spi.base.AbstractFeeder;
+
+public class PickRecoveryTest {
+    private PickRecovery pickRecovery;
+    private TestFeeder feeder;
+
+    @Before
+    public void setUp() {
+        Configuration.initialize(new File(System.getProperty("java.io.tmpdir")));
+        pickRecovery = new PickRecovery();
+        pickRecovery.setMaxAttemptsPerFeeder(3);
+        pickRecovery.setMaxAttempts(6);
+        pickRecovery.setMinimumPicks(5);
+        pickRecovery.setMaxFailureRate(0.5);
+        feeder = new TestFeeder();
+        feeder.setId("feeder");
+        feeder.setEnabled(true);
+    }
+
+    @Test
+    public void retriesUntilTheFeederLimit() {
+        assertEquals(Recovery.Retry, pickRecovery.getRecovery(1, 1, false,
+                PickRetryAction.RetryWithFeed));
+        assertEquals(Recovery.Retry, pickRecovery.getRecovery(2, 2, false,
+                PickRetryAction.RetryWithoutFeed));
+        assertEquals(Recovery.Alternate, pickRecovery.getRecovery(3, 3,
+                false, PickRetryAction.RetryWithFeed));
+        // The count starts again on the alternate Feeder.
+        assertEquals(Recovery.Retry, pickRecovery.getRecovery(4, 1, false,
+                PickRetryAction.RetryWithFeed));
+    }
+
+    @Test
+    public void skipsAtTheTotalLimit() {
+        assertEquals(Recovery.Retry, pickRecovery.getRecovery(5, 2, false,
+                PickRetryAction.RetryWithFeed));
+        assertEquals(Recovery.Skip, pickRecovery.getRecovery(6, 1, false,
+                PickRetryAction.RetryWithFeed));
+        // The total limit wins over trying an alternate.
+        assertEquals(Recovery.Skip, pickRecovery.getRecovery(6, 3, true,
+                PickRetryAction.RetryWithFeed));
+    }
+
+    @Test
+    public void skipsWhenTheDelegateSaysSo() {
+        assertEquals(Recovery.Skip, pickRecovery.getRecovery(1, 1, false,
+                PickRetryAction.SkipAndContinue));
+    }
+
+    @Test
+    public void disabledFeederIsLeftForAnAlternate() {
+        assertEquals(Recovery.Alternate, pickRecovery.getRecovery(1, 1, true,
+                PickRetryAction.RetryWithFeed));
+    }
+
+    @Test
+    public void feederIsDisabledOverTheFailureRate() {
+        pickRecovery.pickSucceeded(feeder);
+        pickRecovery.pickSucceeded(feeder);
+        // Over the rate, but under the minimum number of picks.
+        assertFalse(pickRecovery.pickFailed(feeder));
+        assertFalse(pickRecovery.pickFailed(feeder));
+        assertTrue(feeder.isEnabled());
+        // 2 in 4 is not over 0.5, 3 in 5 is.
+        assertTrue(pickRecovery.pickFailed(feeder));
+        assertFalse(feeder.isEnabled());
+        assertEquals(5, pickRecovery.getStatistics(feeder).getPicks());
+        assertEquals(3, pickRecovery.getStatistics(feeder).getFailures());
+        // It is only disabled once.
+        assertFalse(pickRecovery.pickFailed(feeder));
+    }
+
+    @Test
+    public void feederAtTheFailureRateStaysEnabled() {
+        for (int i = 0; i < 3; i++) {
+            pickRecovery.pickSucceeded(feeder);
+            assertFalse(pickRecovery.pickFailed(feeder));
+        }
+        assertTrue(feeder.isEnabled());
+        assertEquals(0.5, pickRecovery.getStatistics(feeder)
+                .getFailureRate(), 0);
+    }
+
+    @Test
+    public void failureRateOfOneNeverDisables() {
+        pickRecovery.setMaxFailureRate(1);
+        for (int i = 0; i < 10; i++) {
+            assertFalse(pickRecovery.pickFailed(feeder));
+        }
+        assertTrue(feeder.isEnabled());
+    }
+
+    @Test
+    public void countsFromManyThreadsAreKept() throws Exception {
+        pickRecovery.setMaxFailureRate(1);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        pickRecovery.pickSucceeded(feeder);
+                        pickRecovery.pickFailed(feeder);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80000, pickRecovery.getStatistics(feeder).getPicks());
+        assertEquals(40000, pickRecovery.getStatistics(feeder).getFailures());
+    }
+
+    private static class TestFeeder extends AbstractFeeder {
+        public boolean canFeedToNozzle(Nozzle nozzle) {
+            return true;
+        }
+
+        public Location getPickLocation() throws Exception {
+            return null;
+        }
+
+        public void feed(Nozzle nozzle) throws Exception {
+        }
+
+        public Wizard getConfigurationWizard() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.openpnp.cli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs a Job headless on the NullDriver, picking from a tray feeder whose
+ * feed count is saved with the machine.
+ */
+public class JobRunnerTest {
+    private static final String MACHINE = "<openpnp-machine>\n"
+            + "   <machine class=\"org.openpnp.machine.reference.ReferenceMachine\">\n"
+            + "      <driver class=\"org.openpnp.machine.reference.driver.NullDriver\"/>\n"
+            + "      <heads>\n"
+            + "         <head class=\"org.openpnp.machine.reference.ReferenceHead\" id=\"H1\">\n"
+            + "            <nozzles>\n"
+            + "               <nozzle class=\"org.openpnp.machine.reference.ReferenceNozzle\" id=\"N1\">\n"
+            + "                  <head-offsets units=\"Millimeters\" x=\"10\" y=\"0\" z=\"0\" rotation=\"0\"/>\n"
+            + "                  <nozzle-tip class=\"org.openpnp.machine.reference.ReferenceNozzleTip\" id=\"NT1\" allow-incompatible-packages=\"true\"/>\n"
+            + "               </nozzle>\n"
+            + "            </nozzles>\n"
+            + "         </head>\n"
+            + "      </heads>\n"
+            + "      <feeders>\n"
+            + "         <feeder class=\"org.openpnp.machine.reference.feeder.ReferenceTrayFeeder\" id=\"T1\" enabled=\"true\" part-id=\"R-0805-10K\" tray-count-x=\"2\" tray-count-y=\"2\" feed-count=\"0\">\n"
+            + "            <location units=\"Millimeters\" x=\"-20\" y=\"10\" z=\"-10\" rotation=\"0\"/>\n"
+            + "            <offsets units=\"Millimeters\" x=\"5\" y=\"5\" z=\"0\" rotation=\"0\"/>\n"
+            + "         </feeder>\n"
+            + "      </feeders>\n"
+            + "      <job-planner class=\"org.openpnp.planner.SimpleJobPlanner\"/>\n"
+            + "   </machine>\n"
+            + "</openpnp-machine>\n";
+
+    private static final String BOARD = "<openpnp-board name=\"test.board.xml\">\n"
+            + "   <fiducials/>\n"
+            + "   <placements>\n"
+            + "      <placement id=\"R1\" side=\"Top\" part-id=\"R-0805-10K\">\n"
+            + "         <location units=\"Millimeters\" x=\"2\" y=\"2\" z=\"0\" rotation=\"0\"/>\n"
+            + "      </placement>\n"
+            + "      <placement id=\"R2\" side=\"Top\" part-id=\"R-0805-10K\">\n"
+            + "         <location units=\"Millimeters\" x=\"10\" y=\"10\" z=\"0\" rotation=\"45\"/>\n"
+            + "      </placement>\n"
+            + "      <placement id=\"R3\" side=\"Top\" part-id=\"R-0805-10K\">\n"
+            + "         <location units=\"Millimeters\" x=\"3\" y=\"7\" z=\"0\" rotation=\"90\"/>\n"
+            + "      </placement>\n"
+            + "   </placements>\n"
+            + "</openpnp-board>\n";
+
+    private static final String JOB = "<openpnp-job>\n"
+            + "   <board-locations>\n"
+            + "      <board-location side=\"Top\" board-file=\"test.board.xml\">\n"
+            + "         <location units=\"Millimeters\" x=\"100\" y=\"100\" z=\"0\" rotation=\"0\"/>\n"
+            + "      </board-location>\n"
+            + "   </board-locations>\n"
+            + "</openpnp-job>\n";
+
+    private File directory;
+    private File configurationDirectory;
+    private File jobFile;
+    private String headless;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("JobRunnerTest", "");
+        directory.delete();
+        configurationDirectory = new File(directory, "configuration");
+        configurationDirectory.mkdirs();
+        FileUtils.writeStringToFile(new File(configurationDirectory,
+                "machine.xml"), MACHINE, "UTF-8");
+        FileUtils.writeStringToFile(new File(directory, "test.board.xml"),
+                BOARD, "UTF-8");
+        jobFile = new File(directory, "test.job.xml");
+        FileUtils.writeStringToFile(jobFile, JOB, "UTF-8");
+        // As JobRunner.main() does.
+        headless = System.setProperty("java.awt.headless", "true");
+    }
+
+    @After
+    public void tearDown() {
+        if (headless == null) {
+            System.clearProperty("java.awt.headless");
+        }
+        else {
+            System.setProperty("java.awt.headless", headless);
+        }
+        FileUtils.deleteQuietly(directory);
+    }
+
+    @Test
+    public void runsAJobFromATrayFeederHeadless() throws Exception {
+        int status = JobRunner.run(new String[] { "-c",
+                configurationDirectory.getPath(), "-q", jobFile.getPath() });
+        assertEquals(JobRunner.EXIT_OK, status);
+
+        // The tray's feed count was saved, and saving it did not start the
+        // event dispatch thread.
+        String machine = FileUtils.readFileToString(new File(
+                configurationDirectory, "machine.xml"), "UTF-8");
+        assertTrue(machine, machine.contains("feed-count=\"3\""));
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            assertFalse(thread.getName(),
+                    thread.getName().startsWith("AWT-EventQueue"));
+        }
+    }
+
+    @Test
+    public void resumeWithoutAJournalStartsAfresh() throws Exception {
+        int status = JobRunner.run(new String[] { "-c",
+                configurationDirectory.getPath(), "-q", "-r",
+                jobFile.getPath() });
+        assertEquals(JobRunner.EXIT_OK, status);
+    }
+
+    @Test
+    public void emptyTrayFailsTheJob() throws Exception {
+        FileUtils.writeStringToFile(new File(configurationDirectory,
+                "machine.xml"), MACHINE.replace("tray-count-y=\"2\"",
+                "tray-count-y=\"1\""), "UTF-8");
+        int status = JobRunner.run(new String[] { "-c",
+                configurationDirectory.getPath(), "-q", jobFile.getPath() });
+        assertEquals(JobRunner.EXIT_JOB_FAILED, status);
+    }
+}
@@ -0,0 +1,174 @@
+package org.openpnp.machine.reference.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MotionPlannerTest {
+    private static final double EPSILON = 1e-9;
+
+    private static MotionPlanner planner(double acceleration,
+            double junctionDeviation) {
+        return new MotionPlanner(new double[] { 100, 100, 50, 360 },
+                new double[] { acceleration, acceleration, acceleration / 2,
+                        acceleration * 4 }, junctionDeviation);
+    }
+
+    private static List<double[]> path(double[]... positions) {
+        return new ArrayList<double[]>(Arrays.asList(positions));
+    }
+
+    private static void assertPosition(double[] expected, double[] actual) {
+        for (int axis = 0; axis < MotionPlanner.AXES; axis++) {
+            assertEquals("axis " + axis, expected[axis], actual[axis], 1e-6);
+        }
+    }
+
+    @Test
+    public void unlimitedAcceleration() {
+        MotionPlanner.Plan plan = planner(0, 0).plan(new double[4],
+                path(new double[] { 30, 40, 0, 0 }), 1);
+        // The limits are per axis, so Y at 100 mm/s holds the 50 mm
+        // diagonal to 125 mm/s.
+        assertEquals(0.4, plan.getDuration(), EPSILON);
+        assertPosition(new double[] { 15, 20, 0, 0 }, plan.getPosition(0.2));
+    }
+
+    @Test
+    public void trapezoid() {
+        MotionPlanner.Plan plan = planner(1000, 0).plan(new double[4],
+                path(new double[] { 100, 0, 0, 0 }), 1);
+        // 0.1 s and 5 mm to reach 100 mm/s, the same to stop, and 90 mm of
+        // cruise in between.
+        assertEquals(1.1, plan.getDuration(), EPSILON);
+        assertPosition(new double[] { 5, 0, 0, 0 }, plan.getPosition(0.1));
+        assertPosition(new double[] { 50, 0, 0, 0 }, plan.getPosition(0.55));
+        assertPosition(new double[] { 95, 0, 0, 0 }, plan.getPosition(1.0));
+    }
+
+    @Test
+    public void triangle() {
+        MotionPlanner.Plan plan = planner(1000, 0).plan(new double[4],
+                path(new double[] { 4, 0, 0, 0 }), 1);
+        // Too short to reach full speed: 2 mm each way at 1000 mm/s^2.
+        double half = Math.sqrt(2 * 2 / 1000.0);
+        assertEquals(2 * half, plan.getDuration(), EPSILON);
+        assertPosition(new double[] { 2, 0, 0, 0 }, plan.getPosition(half));
+    }
+
+    @Test
+    public void speedScalesVelocity() {
+        MotionPlanner planner = planner(0, 0);
+        double full = planner.plan(new double[4],
+                path(new double[] { 100, 0, 0, 0 }), 1).getDuration();
+        double half = planner.plan(new double[4],
+                path(new double[] { 100, 0, 0, 0 }), 0.5).getDuration();
+        assertEquals(full * 2, half, EPSILON);
+    }
+
+    @Test
+    public void slowestAxisLimitsTheSegment() {
+        // Z is limited to 50 mm/s, so a move that is all Z takes twice as
+        // long as the same move in X.
+        MotionPlanner planner = planner(0, 0);
+        double x = planner.plan(new double[4],
+                path(new double[] { 10, 0, 0, 0 }), 1).getDuration();
+        double z = planner.plan(new double[4],
+                path(new double[] { 0, 0, 10, 0 }), 1).getDuration();
+        assertEquals(x * 2, z, EPSILON);
+    }
+
+    @Test
+    public void straightOnDoesNotStop() {
+        MotionPlanner planner = planner(1000, 0);
+        double one = planner.plan(new double[4],
+                path(new double[] { 100, 0, 0, 0 }), 1).getDuration();
+        double two = planner.plan(new double[4],
+                path(new double[] { 50, 0, 0, 0 },
+                        new double[] { 100, 0, 0, 0 }), 1).getDuration();
+        assertEquals(one, two, EPSILON);
+    }
+
+    @Test
+    public void cornersAreBlended() {
+        double[] start = new double[4];
+        List<double[]> corner = path(new double[] { 50, 0, 0, 0 },
+                new double[] { 50, 50, 0, 0 });
+        double stopped = planner(1000, 0).plan(start, corner, 1)
+                .getDuration();
+        double blended = planner(1000, 0.05).plan(start, corner, 1)
+                .getDuration();
+        // Stopping at the corner is the same as two separate moves.
+        double single = planner(1000, 0).plan(start,
+                path(new double[] { 50, 0, 0, 0 }), 1).getDuration();
+        assertEquals(single * 2, stopped, EPSILON);
+        assertTrue(blended < stopped);
+        // But it is never faster than a straight line of the same length.
+        double straight = planner(1000, 0).plan(start,
+                path(new double[] { 100, 0, 0, 0 }), 1).getDuration();
+        assertTrue(blended > straight);
+    }
+
+    @Test
+    public void reversalStops() {
+        double[] start = new double[4];
+        List<double[]> back = path(new double[] { 50, 0, 0, 0 },
+                new double[] { 0, 0, 0, 0 });
+        double single = planner(1000, 1).plan(start,
+                path(new double[] { 50, 0, 0, 0 }), 1).getDuration();
+        assertEquals(single * 2, planner(1000, 1).plan(start, back, 1)
+                .getDuration(), EPSILON);
+    }
+
+    @Test
+    public void endsWhereThePathEnds() {
+        double[] start = { 10, 20, -5, 90 };
+        double[] end = { 30, 60, -10, 0 };
+        MotionPlanner.Plan plan = planner(2000, 0.02).plan(start,
+                path(new double[] { 10, 20, 0, 90 },
+                        new double[] { 30, 60, 0, 45 }, end), 1);
+        assertPosition(start, plan.getPosition(0));
+        assertPosition(end, plan.getPosition(plan.getDuration()));
+        assertPosition(end, plan.getPosition(plan.getDuration() + 1));
+    }
+
+    @Test
+    public void emptyMovesAreDropped() {
+        double[] start = { 1, 2, 3, 4 };
+        MotionPlanner planner = planner(1000, 0);
+        assertEquals(0, planner.plan(start, path(), 1).getDuration(), 0);
+        assertEquals(0, planner.plan(start, path(start.clone()), 1)
+                .getDuration(), 0);
+        double one = planner.plan(start,
+                path(new double[] { 51, 2, 3, 4 }), 1).getDuration();
+        double repeated = planner.plan(start,
+                path(start.clone(), new double[] { 51, 2, 3, 4 },
+                        new double[] { 51, 2, 3, 4 }), 1).getDuration();
+        assertEquals(one, repeated, EPSILON);
+    }
+
+    @Test
+    public void independentAxisMovesAlongside() {
+        MotionPlanner planner = planner(0, 0);
+        planner.setIndependent(3, true);
+        double[] start = new double[4];
+        // 50 mm in X at 100 mm/s and 90 degrees in C at 360 degrees/s run
+        // at the same time.
+        MotionPlanner.Plan plan = planner.plan(start,
+                path(new double[] { 50, 0, 0, 0 },
+                        new double[] { 50, 0, 0, 90 }), 1);
+        assertEquals(0.5, plan.getDuration(), EPSILON);
+        assertPosition(new double[] { 25, 0, 0, 90 }, plan.getPosition(0.25));
+        assertPosition(new double[] { 10, 0, 0, 36 }, plan.getPosition(0.1));
+
+        // The longer of the two sets the duration.
+        plan = planner.plan(start, path(new double[] { 10, 0, 0, 360 }), 1);
+        assertEquals(1, plan.getDuration(), EPSILON);
+        assertPosition(new double[] { 10, 0, 0, 180 }, plan.getPosition(0.5));
+    }
+}
@@ -0,0 +1,159 @@
+package org.openpnp.machine.reference.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.machine.reference.ReferenceHead;
+import org.openpnp.machine.reference.ReferenceNozzle;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.spi.Head;
+import org.openpnp.trace.SessionRecording;
+import org.openpnp.trace.SessionTrace;
+import org.openpnp.trace.TraceRecord;
+import org.openpnp.trace.TraceRecord.Type;
+
+public class ReplayDriverTest {
+    private static final long MOVE_MILLISECONDS = 50;
+
+    private final Location pickLocation = new Location(
+            LengthUnit.Millimeters, 10, 20, Double.NaN, 90);
+    private final Location placeLocation = new Location(LengthUnit.Inches,
+            1, 2, -0.5, 0);
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("ReplayDriverTest", "");
+        directory.delete();
+        directory.mkdirs();
+        Configuration.initialize(directory);
+    }
+
+    @After
+    public void tearDown() {
+        SessionTrace.stop();
+        FileUtils.deleteQuietly(directory);
+    }
+
+    /**
+     * Traces a short session: home, a move that took MOVE_MILLISECONDS, a
+     * pick, a move in other units and a place.
+     */
+    private File record() throws Exception {
+        SessionTrace.start(directory);
+        File file = SessionTrace.getFile();
+        long now = System.nanoTime();
+        SessionTrace.home("H1", now);
+        SessionTrace.move("N1", pickLocation, 1.0, now - MOVE_MILLISECONDS
+                * 1000000);
+        SessionTrace.pick("N1", now);
+        SessionTrace.move("N1", placeLocation, 0.5, now);
+        SessionTrace.place("N1", now);
+        SessionTrace.stop();
+        return file;
+    }
+
+    @Test
+    public void recordingReadsBackWhatWasTraced() throws Exception {
+        SessionRecording recording = SessionRecording.get(record().getPath());
+
+        TraceRecord move = recording.next(Type.Move, "N1");
+        assertEquals(LengthUnit.Millimeters, move.getUnits());
+        assertEquals(10, move.getX(), 0);
+        assertEquals(20, move.getY(), 0);
+        assertTrue(Double.isNaN(move.getZ()));
+        assertEquals(90, move.getRotation(), 0);
+        assertEquals(1.0, move.getSpeed(), 0);
+        assertTrue(move.getDuration() >= MOVE_MILLISECONDS);
+
+        move = recording.next(Type.Move, "N1");
+        assertEquals(LengthUnit.Inches, move.getUnits());
+        assertEquals(-0.5, move.getZ(), 0);
+        assertNull(recording.next(Type.Move, "N1"));
+
+        assertNotNull(recording.next(Type.Home, "H1"));
+        assertNotNull(recording.next(Type.Pick, "N1"));
+        assertNotNull(recording.next(Type.Place, "N1"));
+        assertNull(recording.next(Type.Pick, "N2"));
+
+        recording.rewind();
+        assertEquals(10, recording.next(Type.Move, "N1").getX(), 0);
+    }
+
+    @Test
+    public void sessionIsReplayedInRealTime() throws Exception {
+        ReplayDriver driver = new ReplayDriver();
+        driver.setRecording(record().getPath());
+        driver.setRealTime(true);
+        driver.setEnabled(true);
+        TestHead head = new TestHead("H1");
+        TestNozzle nozzle = new TestNozzle("N1", head);
+
+        driver.home(head);
+        long start = System.nanoTime();
+        driver.moveTo(nozzle, pickLocation, 1.0);
+        assertTrue(System.nanoTime() - start >= MOVE_MILLISECONDS * 1000000);
+        driver.pick(nozzle);
+        // A path replays as the one Move to its end.
+        driver.moveThrough(nozzle, Arrays.asList(
+                new Location(LengthUnit.Inches, Double.NaN, Double.NaN, 0,
+                        Double.NaN), placeLocation), 0.5);
+        driver.place(nozzle);
+        assertFalse(driver.isDiverged());
+        assertEquals(placeLocation.convertToUnits(LengthUnit.Millimeters)
+                .getX(), driver.getLocation(nozzle).getX(), 1e-9);
+
+        // The recording has no more moves.
+        driver.moveTo(nozzle, pickLocation, 1.0);
+        assertTrue(driver.isDiverged());
+    }
+
+    @Test
+    public void enablingStartsTheReplayOver() throws Exception {
+        ReplayDriver driver = new ReplayDriver();
+        driver.setRecording(record().getPath());
+        driver.setRealTime(false);
+        TestNozzle nozzle = new TestNozzle("N1", new TestHead("H1"));
+
+        driver.setEnabled(true);
+        driver.moveTo(nozzle, pickLocation, 1.0);
+        assertFalse(driver.isDiverged());
+
+        driver.setEnabled(true);
+        // A move somewhere the recording did not go.
+        driver.moveTo(nozzle, pickLocation.derive(11.0, null, null, null),
+                1.0);
+        assertTrue(driver.isDiverged());
+    }
+
+    private static class TestHead extends ReferenceHead {
+        public TestHead(String id) {
+            this.id = id;
+        }
+    }
+
+    private static class TestNozzle extends ReferenceNozzle {
+        public TestNozzle(String id, Head head) {
+            this.id = id;
+            setHead(head);
+        }
+
+        @Override
+        public Location getHeadOffsets() {
+            return new Location(LengthUnit.Millimeters, 0, 0, 0, 0);
+        }
+    }
+}
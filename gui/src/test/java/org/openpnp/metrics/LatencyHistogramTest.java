@@ -0,0 +1,91 @@
+package org.openpnp.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void smallValuesHaveTheirOwnBuckets() {
+        for (long value = 0; value < 32; value++) {
+            assertEquals(value, LatencyHistogram.getBucket(value));
+            assertEquals(value, LatencyHistogram.getBucketValue((int) value));
+        }
+    }
+
+    @Test
+    public void bucketsFollowEachOther() {
+        // Each bucket starts where the one before it ends, so walking the
+        // boundaries of consecutive buckets never skips or repeats one.
+        long value = 0;
+        int previous = LatencyHistogram.getBucket(0);
+        while (value < Long.MAX_VALUE / 2) {
+            value = value < 1024 ? value + 1 : value + value / 64;
+            int bucket = LatencyHistogram.getBucket(value);
+            assertTrue("bucket of " + value + " went backwards",
+                    bucket >= previous);
+            assertTrue("bucket after " + previous + " skipped at " + value,
+                    bucket <= previous + 1);
+            previous = bucket;
+        }
+    }
+
+    @Test
+    public void largestValueFits() {
+        int bucket = LatencyHistogram.getBucket(Long.MAX_VALUE);
+        assertEquals(bucket, LatencyHistogram.getBucket(Long.MAX_VALUE - 1));
+        assertTrue(LatencyHistogram.getBucketValue(bucket) > 0);
+        // Recording it must not fall off the end of the buckets.
+        new LatencyHistogram("test").record(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void bucketValueIsCloseToTheValue() {
+        // 16 sub-buckets per power of two keep the middle of a bucket within
+        // 1/32 of any value in it.
+        for (long value = 32; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 7) {
+            long bucketValue = LatencyHistogram
+                    .getBucketValue(LatencyHistogram.getBucket(value));
+            assertTrue("bucket value " + bucketValue + " for " + value,
+                    Math.abs(bucketValue - value) <= value / 32.0);
+            assertEquals(LatencyHistogram.getBucket(value),
+                    LatencyHistogram.getBucket(bucketValue));
+        }
+    }
+
+    @Test
+    public void negativeValuesCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        histogram.record(-5);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0, histogram.getSnapshot().getPercentileMillis(100), 0);
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50.5, snapshot.getMeanMillis(), 1e-9);
+        assertEquals(100, snapshot.getMaxMillis(), 1e-9);
+        assertEquals(50, snapshot.getPercentileMillis(50), 50 / 32.0);
+        assertEquals(99, snapshot.getPercentileMillis(99), 99 / 32.0);
+        assertEquals(100, snapshot.getPercentileMillis(100), 100 / 32.0);
+        // Never more than the largest value recorded.
+        assertTrue(snapshot.getPercentileMillis(100) <= 100);
+        assertEquals(1, snapshot.getPercentileMillis(0), 1 / 32.0);
+    }
+
+    @Test
+    public void emptySnapshot() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram("test")
+                .getSnapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMeanMillis(), 0);
+        assertEquals(0, snapshot.getPercentileMillis(99), 0);
+    }
+}
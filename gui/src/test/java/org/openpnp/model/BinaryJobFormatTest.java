@@ -0,0 +1,206 @@
+package org.openpnp.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.model.Board.Side;
+
+public class BinaryJobFormatTest {
+    private File directory;
+    private Part resistor;
+    private Part capacitor;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("BinaryJobFormatTest", "");
+        directory.delete();
+        directory.mkdirs();
+        Configuration.initialize(directory);
+        resistor = new Part("R-0603");
+        capacitor = new Part("C-0402");
+        Configuration.get().addPart(resistor);
+        Configuration.get().addPart(capacitor);
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    private Board createBoard() {
+        Board board = new Board();
+        board.setName("test");
+        board.addPlacement(createPlacement("R1", resistor, Side.Top,
+                new Location(LengthUnit.Millimeters, 10.5, 20.25, 0, 90)));
+        board.addPlacement(createPlacement("C1", capacitor, Side.Bottom,
+                new Location(LengthUnit.Inches, 1.5, -0.25, 0.01, -45)));
+        board.addPlacement(createPlacement("R2", resistor, Side.Top,
+                new Location(LengthUnit.Millimeters, 0, 0, 0, 0)));
+        return board;
+    }
+
+    private static Placement createPlacement(String id, Part part, Side side,
+            Location location) {
+        Placement placement = new Placement(id);
+        placement.setPart(part);
+        placement.setSide(side);
+        placement.setLocation(location);
+        return placement;
+    }
+
+    private File writeBoard(Board board) throws Exception {
+        File file = new File(directory, "test" + BinaryJobFormat.BOARD_EXTENSION);
+        FileUtils.writeByteArrayToFile(file, BinaryJobFormat.writeBoard(board));
+        return file;
+    }
+
+    private static void assertLocation(Location expected, Location actual) {
+        assertEquals(expected.getUnits(), actual.getUnits());
+        assertEquals(expected.getX(), actual.getX(), 0);
+        assertEquals(expected.getY(), actual.getY(), 0);
+        assertEquals(expected.getZ(), actual.getZ(), 0);
+        assertEquals(expected.getRotation(), actual.getRotation(), 0);
+    }
+
+    private static void assertPlacements(List<Placement> expected,
+            List<Placement> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Placement e = expected.get(i);
+            Placement a = actual.get(i);
+            assertEquals(e.getId(), a.getId());
+            assertSame(e.getPart(), a.getPart());
+            assertEquals(e.getSide(), a.getSide());
+            assertLocation(e.getLocation(), a.getLocation());
+        }
+    }
+
+    @Test
+    public void boardRoundTrip() throws Exception {
+        Board board = createBoard();
+        // A Placement without a Part is kept as one.
+        board.addPlacement(createPlacement("U1", null, Side.Top, new Location(
+                LengthUnit.Millimeters, 1, 2, 3, 4)));
+        File file = writeBoard(board);
+        assertTrue(BinaryJobFormat.isBinary(file));
+
+        Board read = BinaryJobFormat.readBoard(file);
+        assertEquals("test", read.getName());
+        assertPlacements(board.getPlacements(), read.getPlacements());
+        assertNull(read.getPlacements().get(3).getPart());
+    }
+
+    @Test
+    public void placementWithoutAnIdRoundTrips() throws Exception {
+        Board board = createBoard();
+        board.addPlacement(createPlacement(null, resistor, Side.Top,
+                new Location(LengthUnit.Millimeters, 5, 6, 0, 0)));
+        Board read = BinaryJobFormat.readBoard(writeBoard(board));
+        assertPlacements(board.getPlacements(), read.getPlacements());
+        assertNull(read.getPlacements().get(3).getId());
+    }
+
+    @Test
+    public void xmlSaveOfLazyBoardKeepsPlacements() throws Exception {
+        Board board = createBoard();
+        Board read = BinaryJobFormat.readBoard(writeBoard(board));
+
+        // Serialize before anything has asked for the Placements.
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Configuration.createSerializer().write(read, out);
+        Board xml = Configuration.createSerializer().read(Board.class,
+                new ByteArrayInputStream(out.toByteArray()));
+        assertPlacements(board.getPlacements(), xml.getPlacements());
+    }
+
+    @Test
+    public void convertBoard() throws Exception {
+        Board board = createBoard();
+        File binaryFile = writeBoard(board);
+        File xmlFile = new File(directory, "test.board.xml");
+        BinaryJobFormat.convertBoardToXml(binaryFile, xmlFile);
+        assertFalse(BinaryJobFormat.isBinary(xmlFile));
+        assertPlacements(board.getPlacements(), Configuration
+                .createSerializer().read(Board.class, xmlFile)
+                .getPlacements());
+
+        File back = new File(directory, "back" + BinaryJobFormat.BOARD_EXTENSION);
+        BinaryJobFormat.convertBoardToBinary(xmlFile, back);
+        assertPlacements(board.getPlacements(), BinaryJobFormat
+                .readBoard(back).getPlacements());
+    }
+
+    @Test
+    public void jobRoundTrip() throws Exception {
+        Job job = new Job();
+        BoardLocation top = new BoardLocation(createBoard());
+        top.setBoardFile("a" + BinaryJobFormat.BOARD_EXTENSION);
+        top.setLocation(new Location(LengthUnit.Millimeters, 10, 20, 1.5, 90));
+        job.addBoardLocation(top);
+        BoardLocation bottom = new BoardLocation(createBoard());
+        bottom.setBoardFile("b.board.xml");
+        bottom.setSide(Side.Bottom);
+        bottom.setLocation(new Location(LengthUnit.Inches, 4, 2, 0, 0));
+        // More than 8 cells, so the skip mask takes more than one byte.
+        PanelLayout panelLayout = new PanelLayout(3, 4, new Location(
+                LengthUnit.Millimeters, 25, 30, 0, 0));
+        panelLayout.setSkipped(0, true);
+        panelLayout.setSkipped(9, true);
+        panelLayout.setSkipped(11, true);
+        bottom.setPanelLayout(panelLayout);
+        job.addBoardLocation(bottom);
+
+        File file = new File(directory, "test" + BinaryJobFormat.JOB_EXTENSION);
+        FileUtils.writeByteArrayToFile(file, BinaryJobFormat.writeJob(job));
+        assertTrue(BinaryJobFormat.isBinary(file));
+        Job read = BinaryJobFormat.readJob(file);
+
+        List<BoardLocation> boardLocations = read.getBoardLocations();
+        assertEquals(2, boardLocations.size());
+        assertEquals(top.getBoardFile(), boardLocations.get(0).getBoardFile());
+        assertEquals(Side.Top, boardLocations.get(0).getSide());
+        assertLocation(top.getLocation(), boardLocations.get(0).getLocation());
+        assertNull(boardLocations.get(0).getPanelLayout());
+
+        BoardLocation readBottom = boardLocations.get(1);
+        assertEquals(bottom.getBoardFile(), readBottom.getBoardFile());
+        assertEquals(Side.Bottom, readBottom.getSide());
+        assertLocation(bottom.getLocation(), readBottom.getLocation());
+        PanelLayout readLayout = readBottom.getPanelLayout();
+        assertEquals(3, readLayout.getRows());
+        assertEquals(4, readLayout.getColumns());
+        assertLocation(panelLayout.getPitch(), readLayout.getPitch());
+        for (int cell = 0; cell < panelLayout.getCellCount(); cell++) {
+            assertEquals("cell " + cell, panelLayout.isSkipped(cell),
+                    readLayout.isSkipped(cell));
+        }
+    }
+
+    @Test
+    public void filenames() {
+        assertTrue(BinaryJobFormat.isBinaryFilename(new File("a.board.bin")));
+        assertTrue(BinaryJobFormat.isBinaryFilename(new File("A.JOB.BIN")));
+        assertFalse(BinaryJobFormat.isBinaryFilename(new File("a.board.xml")));
+        assertFalse(BinaryJobFormat.isBinary(new File(directory, "missing")));
+    }
+
+    @Test(expected = IOException.class)
+    public void readingAJobAsABoard() throws Exception {
+        File file = new File(directory, "test" + BinaryJobFormat.JOB_EXTENSION);
+        FileUtils.writeByteArrayToFile(file, BinaryJobFormat.writeJob(new Job()));
+        BinaryJobFormat.readBoard(file);
+    }
+}
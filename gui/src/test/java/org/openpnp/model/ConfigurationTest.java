@@ -0,0 +1,93 @@
+package org.openpnp.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.model.Configuration.Section;
+
+public class ConfigurationTest {
+    private File directory;
+    private Configuration configuration;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("ConfigurationTest", "");
+        directory.delete();
+        directory.mkdirs();
+        Configuration.initialize(directory);
+        configuration = Configuration.get();
+        configuration.setSaveDelayMilliseconds(200);
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(directory);
+    }
+
+    private File file(Section section) {
+        return new File(directory, section.getFilename());
+    }
+
+    private void awaitFiles(Section... sections) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        for (Section section : sections) {
+            while (!file(section).exists()) {
+                assertTrue("Timed out waiting for " + section.getFilename(),
+                        System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Test
+    public void saveOnlyWritesDirtySections() throws Exception {
+        configuration.setDirty(Section.Parts);
+        configuration.save();
+        assertTrue(file(Section.Parts).exists());
+        assertFalse(file(Section.Packages).exists());
+        assertFalse(file(Section.Machine).exists());
+        assertFalse(configuration.isDirty());
+    }
+
+    @Test
+    public void scheduleSaveCoalescesABurst() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            configuration.scheduleSave(Section.Packages);
+        }
+        configuration.scheduleSave(Section.Parts);
+        awaitFiles(Section.Packages, Section.Parts);
+        // Give a second, wrongly scheduled save time to run.
+        Thread.sleep(400);
+        assertEquals(1, configuration.getSaveGeneration());
+        assertFalse(configuration.isDirty());
+        assertFalse(file(Section.Machine).exists());
+    }
+
+    @Test
+    public void scheduleSaveWithoutGuiDoesNotStartAwt() throws Exception {
+        assertFalse(configuration.isSerializeOnEventDispatchThread());
+        configuration.scheduleSave(Section.Parts);
+        awaitFiles(Section.Parts);
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            assertFalse(thread.getName(),
+                    thread.getName().startsWith("AWT-EventQueue"));
+        }
+    }
+
+    @Test
+    public void writeAtomicallyReplacesTheFile() throws Exception {
+        File file = new File(directory, "test.xml");
+        FileUtils.writeStringToFile(file, "old", "UTF-8");
+        Configuration.writeAtomically(file, "new".getBytes("UTF-8"));
+        assertEquals("new", FileUtils.readFileToString(file, "UTF-8"));
+        assertFalse(new File(directory, "test.xml.tmp").exists());
+        assertEquals(1, directory.list().length);
+    }
+}
@@ -0,0 +1,373 @@
+package org.openpnp.planner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.gui.support.Wizard;
+import org.openpnp.model.Board;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Job;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.model.Part;
+import org.openpnp.model.Placement;
+import org.openpnp.spi.Actuator;
+import org.openpnp.spi.Camera;
+import org.openpnp.spi.Feeder;
+import org.openpnp.spi.Head;
+import org.openpnp.spi.JobPlanner.PlacementSolution;
+import org.openpnp.spi.Machine;
+import org.openpnp.spi.Nozzle;
+import org.openpnp.spi.NozzleTip;
+import org.openpnp.spi.base.AbstractFeeder;
+import org.openpnp.spi.base.AbstractMachine;
+
+public class SimpleJobPlannerTest {
+    private TestMachine machine;
+    private TestHead left;
+    private TestHead right;
+    private Part resistor;
+    private Part capacitor;
+    private Board board;
+    private SimpleJobPlanner planner;
+
+    @Before
+    public void setUp() throws Exception {
+        Configuration.initialize(new File(System.getProperty("java.io.tmpdir")));
+        machine = new TestMachine();
+        // The left Head has X below 100 to itself and the right Head X
+        // from 200. Between them is the shared workspace.
+        left = new TestHead("left", -1000, 100);
+        right = new TestHead("right", 200, 1000);
+        resistor = new Part("R-0603");
+        capacitor = new Part("C-0402");
+        board = new Board();
+        board.setName("test");
+        planner = new SimpleJobPlanner() {
+            @Override
+            Machine getMachine() {
+                return machine;
+            }
+        };
+    }
+
+    private void addPlacement(String id, Part part, double x) {
+        Placement placement = new Placement(id);
+        placement.setPart(part);
+        placement.setLocation(new Location(LengthUnit.Millimeters, x, 10, 0, 0));
+        board.addPlacement(placement);
+    }
+
+    private void setJob() {
+        Job job = new Job();
+        job.addBoardLocation(new BoardLocation(board));
+        planner.setJob(job);
+    }
+
+    /**
+     * Returns the id of the Placement planned for the Head, or null if
+     * there are none left for it.
+     */
+    private String next(Head head) {
+        Set<PlacementSolution> solutions = planner
+                .getNextPlacementSolutions(head);
+        if (solutions == null) {
+            return null;
+        }
+        assertEquals(1, solutions.size());
+        PlacementSolution solution = solutions.iterator().next();
+        assertSame(head, solution.head);
+        assertSame(head.getNozzles().get(0), solution.nozzle);
+        return solution.placement.getId();
+    }
+
+    @Test
+    public void placementsGoToTheHeadWhoseZoneTheyAreIn() throws Exception {
+        machine.addHead(left);
+        machine.addHead(right);
+        machine.addFeeder(new TestFeeder("shared", resistor, 150));
+        addPlacement("L1", resistor, 50);
+        addPlacement("R1", resistor, 250);
+        addPlacement("L2", resistor, 60);
+        addPlacement("S1", resistor, 150);
+        addPlacement("R2", resistor, 260);
+        setJob();
+
+        assertEquals("L1", next(left));
+        assertEquals("R1", next(right));
+        assertEquals("L2", next(left));
+        // The shared workspace goes to whichever Head asks first.
+        assertEquals("S1", next(right));
+        // R2 is passed over by the left Head and kept for the right one.
+        assertNull(next(left));
+        assertEquals("R2", next(right));
+        assertNull(next(right));
+    }
+
+    @Test
+    public void deferredPlacementsKeepTheirOrder() throws Exception {
+        machine.addHead(left);
+        machine.addHead(right);
+        machine.addFeeder(new TestFeeder("shared", resistor, 150));
+        addPlacement("R1", resistor, 250);
+        addPlacement("R2", resistor, 260);
+        addPlacement("L1", resistor, 50);
+        addPlacement("R3", resistor, 270);
+        setJob();
+
+        assertEquals("L1", next(left));
+        assertNull(next(left));
+        assertEquals("R1", next(right));
+        assertEquals("R2", next(right));
+        assertEquals("R3", next(right));
+        assertNull(next(right));
+    }
+
+    @Test
+    public void placementGoesToAHeadThatCanGetThePart() throws Exception {
+        machine.addHead(left);
+        machine.addHead(right);
+        machine.addFeeder(new TestFeeder("shared", resistor, 150));
+        // The only capacitor Feeder is in the right Head's zone.
+        machine.addFeeder(new TestFeeder("right", capacitor, 300));
+        addPlacement("C1", capacitor, 50);
+        addPlacement("L1", resistor, 60);
+        setJob();
+
+        assertEquals("L1", next(left));
+        assertNull(next(left));
+        assertEquals("C1", next(right));
+        assertNull(next(right));
+    }
+
+    @Test
+    public void missingFeederStaysWithTheAskingHead() throws Exception {
+        machine.addHead(left);
+        machine.addHead(right);
+        addPlacement("R1", resistor, 250);
+        setJob();
+
+        Set<PlacementSolution> solutions = planner
+                .getNextPlacementSolutions(left);
+        PlacementSolution solution = solutions.iterator().next();
+        assertSame(left, solution.head);
+        assertNull(solution.feeder);
+        assertNull(next(right));
+    }
+
+    @Test
+    public void singleHeadGetsEverything() throws Exception {
+        machine.addHead(left);
+        machine.addFeeder(new TestFeeder("shared", resistor, 150));
+        addPlacement("R1", resistor, 250);
+        addPlacement("L1", resistor, 50);
+        setJob();
+
+        assertEquals("R1", next(left));
+        assertEquals("L1", next(left));
+        assertNull(next(left));
+    }
+
+    @Test
+    public void settingAJobClearsDeferredPlacements() throws Exception {
+        machine.addHead(left);
+        machine.addHead(right);
+        machine.addFeeder(new TestFeeder("shared", resistor, 150));
+        addPlacement("R1", resistor, 250);
+        setJob();
+        assertNull(next(left));
+
+        board = new Board();
+        board.setName("other");
+        addPlacement("L1", resistor, 50);
+        setJob();
+        assertNull(next(right));
+        assertEquals("L1", next(left));
+    }
+
+    private static class TestMachine extends AbstractMachine {
+        public void addHead(Head head) {
+            heads.add(head);
+        }
+
+        public boolean isEnabled() {
+            return true;
+        }
+
+        public void setEnabled(boolean enabled) throws Exception {
+        }
+
+        public List<Class<? extends Feeder>> getCompatibleFeederClasses() {
+            return Collections.emptyList();
+        }
+
+        public List<Class<? extends Camera>> getCompatibleCameraClasses() {
+            return Collections.emptyList();
+        }
+
+        public Wizard getConfigurationWizard() {
+            return null;
+        }
+    }
+
+    /**
+     * A Head with one Nozzle and a zone that takes in every Y.
+     */
+    private static class TestHead implements Head {
+        private final String id;
+        private final double minimumX;
+        private final double maximumX;
+        private final List<Nozzle> nozzles = new ArrayList<Nozzle>();
+
+        public TestHead(String id, double minimumX, double maximumX) {
+            this.id = id;
+            this.minimumX = minimumX;
+            this.maximumX = maximumX;
+            nozzles.add(new TestNozzle(this));
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public List<Nozzle> getNozzles() {
+            return nozzles;
+        }
+
+        public Nozzle getNozzle(String id) {
+            return null;
+        }
+
+        public List<Actuator> getActuators() {
+            return Collections.emptyList();
+        }
+
+        public Actuator getActuator(String id) {
+            return null;
+        }
+
+        public List<Camera> getCameras() {
+            return Collections.emptyList();
+        }
+
+        public Camera getCamera(String id) {
+            return null;
+        }
+
+        public void home() throws Exception {
+        }
+
+        public void addCamera(Camera camera) throws Exception {
+        }
+
+        public void removeCamera(Camera camera) {
+        }
+
+        public void moveToSafeZ(double speed) throws Exception {
+        }
+
+        public boolean isInZone(Location location) {
+            double x = location.convertToUnits(LengthUnit.Millimeters).getX();
+            return x >= minimumX && x <= maximumX;
+        }
+
+        public boolean hasZone() {
+            return true;
+        }
+
+        public void park() throws Exception {
+        }
+
+        public Wizard getConfigurationWizard() {
+            return null;
+        }
+    }
+
+    private static class TestNozzle implements Nozzle {
+        private Head head;
+
+        public TestNozzle(Head head) {
+            this.head = head;
+        }
+
+        public String getId() {
+            return head.getId() + "-nozzle";
+        }
+
+        public Head getHead() {
+            return head;
+        }
+
+        public void setHead(Head head) {
+            this.head = head;
+        }
+
+        public NozzleTip getNozzleTip() {
+            return null;
+        }
+
+        public boolean canPickAndPlace(Feeder feeder, Location placeLocation) {
+            return true;
+        }
+
+        public Location getLocation() {
+            return new Location(LengthUnit.Millimeters);
+        }
+
+        public void moveTo(Location location, double speed) throws Exception {
+        }
+
+        public void moveToSafeZ(double speed) throws Exception {
+        }
+
+        public void moveToViaSafeZ(Location location, double speed)
+                throws Exception {
+        }
+
+        public void pick() throws Exception {
+        }
+
+        public void place() throws Exception {
+        }
+
+        public Wizard getConfigurationWizard() {
+            return null;
+        }
+    }
+
+    private static class TestFeeder extends AbstractFeeder {
+        private final Location pickLocation;
+
+        public TestFeeder(String id, Part part, double x) {
+            setId(id);
+            setPart(part);
+            setEnabled(true);
+            pickLocation = new Location(LengthUnit.Millimeters, x, 0, 0, 0);
+        }
+
+        public boolean canFeedToNozzle(Nozzle nozzle) {
+            return true;
+        }
+
+        public Location getPickLocation() throws Exception {
+            return pickLocation;
+        }
+
+        public void feed(Nozzle nozzle) throws Exception {
+        }
+
+        public Wizard getConfigurationWizard() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.openpnp.spi.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openpnp.gui.support.Wizard;
+import org.openpnp.model.Configuration;
+import org.openpnp.model.Location;
+import org.openpnp.model.Part;
+import org.openpnp.spi.Feeder;
+import org.openpnp.spi.Nozzle;
+
+public class FeederIndexTest {
+    private FeederIndex index;
+    private Part resistor;
+    private Part capacitor;
+
+    @Before
+    public void setUp() {
+        Configuration.initialize(new File(System.getProperty("java.io.tmpdir")));
+        index = new FeederIndex();
+        resistor = new Part("R-0603");
+        capacitor = new Part("C-0402");
+    }
+
+    private static TestFeeder feeder(String id, Part part, boolean enabled) {
+        TestFeeder feeder = new TestFeeder();
+        feeder.setId(id);
+        feeder.setPart(part);
+        feeder.setEnabled(enabled);
+        return feeder;
+    }
+
+    @Test
+    public void onlyEnabledFeedersAreIndexed() {
+        Feeder a = feeder("a", resistor, true);
+        Feeder b = feeder("b", resistor, false);
+        Feeder c = feeder("c", resistor, true);
+        Feeder d = feeder("d", capacitor, true);
+        index.add(a);
+        index.add(b);
+        index.add(c);
+        index.add(d);
+        assertEquals(Arrays.asList(a, c), index.getFeeders(resistor));
+        assertEquals(Arrays.asList(d), index.getFeeders(capacitor));
+        assertTrue(index.getFeeders(new Part("U-SOIC8")).isEmpty());
+        assertTrue(index.getFeeders(null).isEmpty());
+    }
+
+    @Test
+    public void feederWithoutPartIsIgnored() {
+        TestFeeder feeder = new TestFeeder();
+        feeder.setEnabled(true);
+        index.add(feeder);
+        index.remove(feeder);
+        assertTrue(index.getFeeders(resistor).isEmpty());
+    }
+
+    @Test
+    public void enablingMovesFeeders() {
+        TestFeeder a = feeder("a", resistor, true);
+        TestFeeder b = feeder("b", resistor, true);
+        index.add(a);
+        index.add(b);
+        a.setEnabled(false);
+        assertEquals(Arrays.asList(b), index.getFeeders(resistor));
+        b.setEnabled(false);
+        assertTrue(index.getFeeders(resistor).isEmpty());
+        // Enabled Feeders go to the end.
+        b.setEnabled(true);
+        a.setEnabled(true);
+        assertEquals(Arrays.asList(b, a), index.getFeeders(resistor));
+    }
+
+    @Test
+    public void changingPartMovesFeeders() {
+        TestFeeder a = feeder("a", resistor, true);
+        index.add(a);
+        a.setPart(capacitor);
+        assertTrue(index.getFeeders(resistor).isEmpty());
+        assertEquals(Arrays.asList(a), index.getFeeders(capacitor));
+
+        // A disabled Feeder stays out of the index when its part changes.
+        a.setEnabled(false);
+        a.setPart(resistor);
+        assertTrue(index.getFeeders(resistor).isEmpty());
+        assertTrue(index.getFeeders(capacitor).isEmpty());
+    }
+
+    @Test
+    public void removedFeedersAreNotTracked() {
+        TestFeeder a = feeder("a", resistor, true);
+        TestFeeder b = feeder("b", resistor, true);
+        index.add(a);
+        index.add(b);
+        index.remove(a);
+        assertEquals(Arrays.asList(b), index.getFeeders(resistor));
+        a.setEnabled(false);
+        a.setEnabled(true);
+        a.setPart(capacitor);
+        assertEquals(Arrays.asList(b), index.getFeeders(resistor));
+        assertTrue(index.getFeeders(capacitor).isEmpty());
+    }
+
+    @Test
+    public void addingTwiceIndexesOnce() {
+        TestFeeder a = feeder("a", resistor, true);
+        index.add(a);
+        index.add(a);
+        assertEquals(Arrays.asList(a), index.getFeeders(resistor));
+    }
+
+    @Test
+    public void listsAreSnapshots() {
+        TestFeeder a = feeder("a", resistor, true);
+        index.add(a);
+        List<Feeder> feeders = index.getFeeders(resistor);
+        index.add(feeder("b", resistor, true));
+        assertEquals(Arrays.asList(a), feeders);
+        try {
+            feeders.add(a);
+            fail("The list of Feeders can be modified.");
+        }
+        catch (UnsupportedOperationException e) {
+            // Expected.
+        }
+    }
+
+    private static class TestFeeder extends AbstractFeeder {
+        public boolean canFeedToNozzle(Nozzle nozzle) {
+            return true;
+        }
+
+        public Location getPickLocation() throws Exception {
+            return null;
+        }
+
+        public void feed(Nozzle nozzle) throws Exception {
+        }
+
+        public Wizard getConfigurationWizard() {
+            return null;
+        }
+    }
+}
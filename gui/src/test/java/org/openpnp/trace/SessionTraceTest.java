@@ -0,0 +1,83 @@
+package org.openpnp.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionTraceTest {
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("SessionTraceTest", "");
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        SessionTrace.stop();
+        System.clearProperty(SessionTrace.TRACE_PROPERTY);
+        FileUtils.deleteQuietly(directory);
+    }
+
+    @Test
+    public void tracingIsOnUnlessTurnedOff() {
+        System.clearProperty(SessionTrace.TRACE_PROPERTY);
+        assertTrue(SessionTrace.isRequested());
+        System.setProperty(SessionTrace.TRACE_PROPERTY, "false");
+        assertFalse(SessionTrace.isRequested());
+    }
+
+    private static void command(int from, int to) {
+        for (int i = from; i < to; i++) {
+            SessionTrace.command("test", "G1 X" + i);
+        }
+    }
+
+    private static boolean isWritten(File file, int i) throws Exception {
+        String trace = FileUtils.readFileToString(file, "UTF-8");
+        return trace.endsWith("\"text\":\"G1 X" + i + "\"}\n");
+    }
+
+    @Test
+    public void recordsAreWrittenInOrderBeforeStopReturns() throws Exception {
+        assertFalse(SessionTrace.isEnabled());
+        // Not started, so this goes nowhere.
+        SessionTrace.command("test", "ignored");
+
+        SessionTrace.start(directory);
+        assertTrue(SessionTrace.isEnabled());
+        File file = SessionTrace.getFile();
+        // A full ring's worth at once, then another once the trace thread
+        // has written the first out and freed the slots.
+        int count = SessionTrace.CAPACITY;
+        command(0, count);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!isWritten(file, count - 1)) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        command(count, count * 2);
+        assertEquals(0, SessionTrace.getDroppedCount());
+        SessionTrace.stop();
+        assertFalse(SessionTrace.isEnabled());
+
+        List<String> lines = FileUtils.readLines(file, "UTF-8");
+        assertEquals(count * 2 + 1, lines.size());
+        assertTrue(lines.get(0).contains("\"type\":\"Session\""));
+        for (int i = 0; i < count * 2; i++) {
+            String line = lines.get(i + 1);
+            assertTrue(line, line.contains("\"type\":\"Command\""));
+            assertTrue(line, line.contains("\"text\":\"G1 X" + i + "\""));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.openpnp.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.AffineTransform;
+
+import org.junit.Test;
+
+public class AffineFitTest {
+    private static final double EPSILON = 1e-9;
+
+    private static double[] transform(AffineTransform transform,
+            double[] points) {
+        double[] result = new double[points.length];
+        transform.transform(points, 0, result, 0, points.length / 2);
+        return result;
+    }
+
+    @Test
+    public void onePointIsATranslation() {
+        AffineFit fit = AffineFit.fit(new double[] { 10, 20 }, new double[] {
+                12.5, 19 }, 1);
+        assertEquals(AffineFit.Model.Translation, fit.getModel());
+        AffineTransform transform = fit.getTransform();
+        assertEquals(2.5, transform.getTranslateX(), EPSILON);
+        assertEquals(-1, transform.getTranslateY(), EPSILON);
+        assertEquals(0, fit.getRotation(), EPSILON);
+        assertEquals(0, fit.getMaxResidual(), EPSILON);
+    }
+
+    @Test
+    public void twoPointsAreASimilarity() {
+        AffineTransform expected = new AffineTransform();
+        expected.translate(100, 50);
+        expected.rotate(Math.toRadians(30));
+        expected.scale(1.01, 1.01);
+        double[] source = { 0, 0, 80, 40 };
+        AffineFit fit = AffineFit.fit(source, transform(expected, source), 2);
+        assertEquals(AffineFit.Model.Similarity, fit.getModel());
+        assertEquals(30, fit.getRotation(), EPSILON);
+        assertEquals(1.01, fit.getScaleX(), EPSILON);
+        assertEquals(1.01, fit.getScaleY(), EPSILON);
+        assertEquals(0, fit.getSkew(), EPSILON);
+        assertEquals(0, fit.getRmsResidual(), EPSILON);
+    }
+
+    @Test
+    public void threeOrMorePointsAreAffine() {
+        AffineTransform expected = new AffineTransform(1.002, 0.01, 0.015,
+                0.998, -3, 7);
+        double[] source = { 0, 0, 100, 0, 100, 60, 0, 60 };
+        AffineFit fit = AffineFit.fit(source, transform(expected, source), 4);
+        assertEquals(AffineFit.Model.Affine, fit.getModel());
+        double[] matrix = new double[6];
+        double[] expectedMatrix = new double[6];
+        fit.getTransform().getMatrix(matrix);
+        expected.getMatrix(expectedMatrix);
+        for (int i = 0; i < 6; i++) {
+            assertEquals(expectedMatrix[i], matrix[i], EPSILON);
+        }
+        assertEquals(0, fit.getMaxResidual(), 1e-6);
+    }
+
+    @Test
+    public void collinearPointsFallBackToSimilarity() {
+        AffineTransform expected = AffineTransform.getRotateInstance(Math
+                .toRadians(-5));
+        double[] source = { 0, 0, 10, 10, 20, 20 };
+        AffineFit fit = AffineFit.fit(source, transform(expected, source), 3);
+        assertEquals(AffineFit.Model.Similarity, fit.getModel());
+        assertEquals(-5, fit.getRotation(), EPSILON);
+    }
+
+    @Test
+    public void coincidentPointsFallBackToTranslation() {
+        double[] source = { 5, 5, 5, 5 };
+        double[] destination = { 6, 5, 8, 5 };
+        AffineFit fit = AffineFit.fit(source, destination, 2);
+        assertEquals(AffineFit.Model.Translation, fit.getModel());
+        assertEquals(2, fit.getTransform().getTranslateX(), EPSILON);
+        assertEquals(1, fit.getResiduals()[0], EPSILON);
+        assertEquals(1, fit.getResiduals()[1], EPSILON);
+        assertEquals(1, fit.getMaxResidual(), EPSILON);
+        assertEquals(1, fit.getRmsResidual(), EPSILON);
+    }
+
+    @Test
+    public void residualsShowAPointThatIsOff() {
+        double[] source = { 0, 0, 100, 0, 100, 100, 0, 100 };
+        double[] destination = source.clone();
+        // Move one point out of place; the least squares fit spreads the
+        // error but that point is still the worst.
+        destination[4] += 1;
+        AffineFit fit = AffineFit.fit(source, destination, 4);
+        double[] residuals = fit.getResiduals();
+        for (int i = 0; i < residuals.length; i++) {
+            if (i != 2) {
+                assertTrue(residuals[i] < residuals[2]);
+            }
+        }
+        assertEquals(residuals[2], fit.getMaxResidual(), EPSILON);
+        assertTrue(fit.getRmsResidual() > 0);
+        assertTrue(fit.getMaxResidual() < 1);
+    }
+
+    @Test
+    public void unitsDoNotMatter() {
+        // The collinearity test is relative to the size of the points, so
+        // a small board in inches is still fitted as affine.
+        double[] source = { 0, 0, 0.5, 0, 0, 0.3 };
+        AffineTransform expected = new AffineTransform(1, 0.001, 0, 1, 0.1,
+                0.2);
+        AffineFit fit = AffineFit.fit(source, transform(expected, source), 3);
+        assertEquals(AffineFit.Model.Affine, fit.getModel());
+        assertEquals(0, fit.getMaxResidual(), EPSILON);
+    }
+
+    @Test
+    public void onlyExtraPointsAreOverdetermined() {
+        double[] points = { 0, 0, 100, 0, 100, 60, 0, 60 };
+        assertFalse(AffineFit.fit(points, points, 1).isOverdetermined());
+        assertFalse(AffineFit.fit(points, points, 2).isOverdetermined());
+        assertFalse(AffineFit.fit(points, points, 3).isOverdetermined());
+        assertTrue(AffineFit.fit(points, points, 4).isOverdetermined());
+        // Collinear points fall back to a similarity, which three points
+        // overdetermine.
+        double[] collinear = { 0, 0, 10, 10, 20, 20 };
+        assertTrue(AffineFit.fit(collinear, collinear, 3).isOverdetermined());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noPoints() {
+        AffineFit.fit(new double[0], new double[0], 0);
+    }
+}
@@ -0,0 +1,58 @@
+package org.openpnp.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+
+public class BottomVisionTest {
+    private static final double EPSILON = 1e-9;
+
+    private static void assertLocation(double x, double y, double rotation,
+            Location actual) {
+        assertEquals(x, actual.getX(), EPSILON);
+        assertEquals(y, actual.getY(), EPSILON);
+        assertEquals(rotation, actual.getRotation(), EPSILON);
+    }
+
+    @Test
+    public void offsetIsTakenOut() {
+        Location placement = new Location(LengthUnit.Millimeters, 10, 20, 1,
+                90);
+        // Picked at 0 and turned to 90, the sides are where they should be.
+        Location corrected = BottomVision.correct(placement, 0, 0.5, -0.25,
+                90);
+        assertLocation(9.5, 20.25, 90, corrected);
+        assertEquals(1, corrected.getZ(), EPSILON);
+        assertEquals(LengthUnit.Millimeters, corrected.getUnits());
+    }
+
+    @Test
+    public void angleErrorIsTakenOutAndTurnsTheOffset() {
+        Location placement = new Location(LengthUnit.Millimeters, 10, 20, 0,
+                90);
+        // Turned 2 degrees too far, with the part 1 off the Nozzle along X.
+        // Turning back by 2 degrees swings the offset to (cos 2, -sin 2).
+        double radians = Math.toRadians(2);
+        Location corrected = BottomVision.correct(placement, 0, 1, 0, 92);
+        assertLocation(10 - Math.cos(radians), 20 + Math.sin(radians), 88,
+                corrected);
+    }
+
+    @Test
+    public void angleIsTakenModuloAQuarterTurn() {
+        Location placement = new Location(LengthUnit.Millimeters, 0, 0, 0,
+                90);
+        // A square part looks the same every quarter turn, so sides at 1
+        // degree after turning 90 are 1 degree off, not -89.
+        assertLocation(0, 0, 89,
+                BottomVision.correct(placement, 0, 0, 0, 1));
+        assertLocation(0, 0, 91,
+                BottomVision.correct(placement, 0, 0, 0, -1));
+        // The pick rotation counts: picked at 30 and turned to 90 the sides
+        // should be at 60.
+        assertLocation(0, 0, 87,
+                BottomVision.correct(placement, 30, 0, 0, 63));
+    }
+}
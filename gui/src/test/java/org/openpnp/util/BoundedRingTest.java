@@ -0,0 +1,70 @@
+package org.openpnp.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class BoundedRingTest {
+    private static BoundedRing<StringBuilder> createRing(int capacity) {
+        StringBuilder[] items = new StringBuilder[capacity];
+        for (int i = 0; i < capacity; i++) {
+            items[i] = new StringBuilder();
+        }
+        return new BoundedRing<StringBuilder>(items);
+    }
+
+    private static void offer(BoundedRing<StringBuilder> ring, String value) {
+        long sequence = ring.tryClaim();
+        ring.get(sequence).append(value);
+        ring.publish(sequence);
+    }
+
+    private static String take(BoundedRing<StringBuilder> ring) {
+        StringBuilder item = ring.peek();
+        String value = item.toString();
+        item.setLength(0);
+        ring.release();
+        return value;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBeAPowerOfTwo() {
+        createRing(3);
+    }
+
+    @Test
+    public void takesItemsInOrderAndReusesSlots() {
+        BoundedRing<StringBuilder> ring = createRing(2);
+        ring.setConsumer(Thread.currentThread());
+        for (int i = 0; i < 10; i++) {
+            offer(ring, "a" + i);
+            offer(ring, "b" + i);
+            assertEquals("a" + i, take(ring));
+            assertEquals("b" + i, take(ring));
+            assertNull(ring.peek());
+        }
+    }
+
+    @Test
+    public void claimedButUnpublishedItemsAreNotTaken() {
+        BoundedRing<StringBuilder> ring = createRing(4);
+        long sequence = ring.tryClaim();
+        assertNull(ring.peek());
+        ring.publish(sequence);
+        assertSame(ring.get(sequence), ring.peek());
+    }
+
+    @Test
+    public void fullRingFailsTheConsumerInsteadOfWaiting() {
+        BoundedRing<StringBuilder> ring = createRing(2);
+        ring.setConsumer(Thread.currentThread());
+        offer(ring, "a");
+        offer(ring, "b");
+        assertEquals(-1, ring.tryClaim());
+        assertEquals(-1, ring.claim());
+        take(ring);
+        assertEquals(2, ring.claim());
+    }
+}
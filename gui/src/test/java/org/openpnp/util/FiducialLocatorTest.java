@@ -0,0 +1,100 @@
+package org.openpnp.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.geom.AffineTransform;
+
+import org.junit.Test;
+import org.openpnp.model.Board;
+import org.openpnp.model.Board.Side;
+import org.openpnp.model.BoardLocation;
+import org.openpnp.model.LengthUnit;
+import org.openpnp.model.Location;
+import org.openpnp.planner.PlacementTransformer;
+
+public class FiducialLocatorTest {
+    private static final double EPSILON = 1e-9;
+
+    private static BoardLocation boardLocation(Side side, double x, double y,
+            double rotation) {
+        BoardLocation boardLocation = new BoardLocation(new Board());
+        boardLocation.setSide(side);
+        boardLocation.setLocation(new Location(LengthUnit.Millimeters, x, y,
+                -1, rotation));
+        return boardLocation;
+    }
+
+    /**
+     * Returns where the nominal transform of the BoardLocation puts the
+     * board points.
+     */
+    private static double[] nominal(BoardLocation boardLocation,
+            double... points) {
+        double[] result = new double[points.length];
+        PlacementTransformer.createTransform(boardLocation.getLocation(),
+                boardLocation.getSide()).transform(points, 0, result, 0,
+                points.length / 2);
+        return result;
+    }
+
+    private static void assertPoint(AffineTransform transform, double x,
+            double y, double expectedX, double expectedY) {
+        double[] point = { x, y };
+        transform.transform(point, 0, point, 0, 1);
+        assertEquals(expectedX, point[0], EPSILON);
+        assertEquals(expectedY, point[1], EPSILON);
+    }
+
+    @Test
+    public void oneFiducialKeepsTheRotation() {
+        BoardLocation boardLocation = boardLocation(Side.Top, 100, 50, 90);
+        // The fiducial at 10, 0 on the board should be at 100, 60 and is
+        // found half a millimeter right and a fifth up.
+        double[] expected = nominal(boardLocation, 10, 0);
+        assertEquals(100, expected[0], EPSILON);
+        assertEquals(60, expected[1], EPSILON);
+        FiducialLocator.register(boardLocation, expected, new double[] {
+                100.5, 60.2 }, 1);
+
+        Location location = boardLocation.getLocation();
+        assertEquals(100.5, location.getX(), EPSILON);
+        assertEquals(50.2, location.getY(), EPSILON);
+        assertEquals(-1, location.getZ(), EPSILON);
+        assertEquals(90, location.getRotation(), EPSILON);
+        // A placement at 20, 0 on the board is still along the machine's Y.
+        assertPoint(boardLocation.getPlacementTransform(), 20, 0, 100.5, 70.2);
+    }
+
+    @Test
+    public void oneFiducialOnTheBottom() {
+        BoardLocation boardLocation = boardLocation(Side.Bottom, 100, 50, 180);
+        double[] expected = nominal(boardLocation, 10, 5);
+        FiducialLocator.register(boardLocation, expected, new double[] {
+                expected[0] - 1, expected[1] + 2 }, 1);
+
+        AffineTransform transform = boardLocation.getPlacementTransform();
+        double[] placement = nominal(boardLocation(Side.Bottom, 99, 52, 180),
+                30, 20);
+        assertPoint(transform, 30, 20, placement[0], placement[1]);
+        assertEquals(180, boardLocation.getLocation().getRotation(), EPSILON);
+    }
+
+    @Test
+    public void twoFiducialsCorrectTheRotation() {
+        BoardLocation boardLocation = boardLocation(Side.Top, 100, 50, 90);
+        double[] expected = nominal(boardLocation, 0, 0, 50, 0);
+        // The board is actually turned one more degree about its origin.
+        BoardLocation actual = boardLocation(Side.Top, 100, 50, 91);
+        double[] measured = nominal(actual, 0, 0, 50, 0);
+        AffineFit fit = FiducialLocator.register(boardLocation, expected,
+                measured, 2);
+
+        assertEquals(1, fit.getRotation(), EPSILON);
+        assertEquals(91, boardLocation.getLocation().getRotation(), EPSILON);
+        assertEquals(100, boardLocation.getLocation().getX(), EPSILON);
+        assertEquals(50, boardLocation.getLocation().getY(), EPSILON);
+        double[] placement = nominal(actual, 25, 40);
+        assertPoint(boardLocation.getPlacementTransform(), 25, 40,
+                placement[0], placement[1]);
+    }
+}
@@ -0,0 +1,113 @@
+package org.openpnp.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.openpnp.model.Part;
+
+public class IdentifiableCatalogTest {
+    private static IdentifiableCatalog<Part> createCatalog(String... ids) {
+        IdentifiableCatalog<Part> catalog = new IdentifiableCatalog<Part>();
+        for (String id : ids) {
+            catalog.put(new Part(id));
+        }
+        return catalog;
+    }
+
+    private static List<String> ids(List<Part> parts) {
+        List<String> ids = new ArrayList<String>();
+        for (Part part : parts) {
+            ids.add(part.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void getIgnoresCase() {
+        IdentifiableCatalog<Part> catalog = createCatalog("R-0805-10K");
+        assertSame(catalog.get("R-0805-10K"), catalog.get("r-0805-10k"));
+        assertEquals(null, catalog.get("R-0805-1K"));
+    }
+
+    @Test
+    public void prefixSearchFindsTheFirstMatchInSortedOrder() {
+        IdentifiableCatalog<Part> catalog = createCatalog("R-0805-1K",
+                "C-0805-1UF", "R-0603-10K", "C-0805-100NF");
+        assertEquals("C-0805-100NF", catalog.getSorted().get(0).getId());
+        assertEquals(0, catalog.indexOfPrefix("c-0805"));
+        assertEquals(2, catalog.indexOfPrefix("R"));
+        assertEquals(-1, catalog.indexOfPrefix("X"));
+    }
+
+    @Test
+    public void substringSearchFindsEveryIdContainingTheText() {
+        IdentifiableCatalog<Part> catalog = createCatalog("R-0805-1K",
+                "C-0805-1UF", "R-0603-10K", "C-0805-100NF", "ATMEGA168A-AU");
+        assertEquals(ids(catalog.getSorted()), ids(catalog.findBySubstring("")));
+        assertEquals(list("C-0805-100NF", "C-0805-1UF", "R-0805-1K"),
+                ids(catalog.findBySubstring("0805")));
+        assertEquals(list("R-0603-10K", "R-0805-1K"),
+                ids(catalog.findBySubstring("k")));
+        // An id that contains the text more than once is found once.
+        assertEquals(list("ATMEGA168A-AU"), ids(catalog.findBySubstring("A")));
+        assertEquals(5, catalog.findBySubstring("-").size());
+        assertEquals(0, catalog.findBySubstring("0402").size());
+        assertArrayEquals(new int[] { 1, 2 }, catalog.indexesOfSubstring("C-"));
+    }
+
+    @Test
+    public void substringSearchSeesChanges() {
+        IdentifiableCatalog<Part> catalog = createCatalog("R-0805-1K");
+        assertEquals(1, catalog.findBySubstring("1K").size());
+        catalog.put(new Part("R-0603-1K"));
+        assertEquals(list("R-0603-1K", "R-0805-1K"),
+                ids(catalog.findBySubstring("1K")));
+        catalog.remove("R-0805-1K");
+        assertEquals(list("R-0603-1K"), ids(catalog.findBySubstring("1K")));
+    }
+
+    @Test
+    public void substringSearchMatchesALinearScan() {
+        Random random = new Random(1);
+        String alphabet = "AB01-";
+        List<String> ids = new ArrayList<String>();
+        for (int i = 0; i < 300; i++) {
+            StringBuilder id = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                id.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            ids.add(id.toString());
+        }
+        IdentifiableCatalog<Part> catalog = createCatalog(ids
+                .toArray(new String[ids.size()]));
+        List<Part> sorted = catalog.getSorted();
+        for (int i = 0; i < 200; i++) {
+            String text = ids.get(random.nextInt(ids.size()));
+            text = text.substring(random.nextInt(text.length()));
+            List<String> expected = new ArrayList<String>();
+            for (Part part : sorted) {
+                if (part.getId().contains(text)) {
+                    expected.add(part.getId());
+                }
+            }
+            assertTrue(expected.size() > 0);
+            assertEquals(text, expected, ids(catalog.findBySubstring(text)));
+        }
+    }
+
+    private static List<String> list(String... values) {
+        List<String> list = new ArrayList<String>();
+        for (String value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,139 @@
+package org.openpnp.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class PartShapeTest {
+    /**
+     * Draws a white width x height rectangle centered at centerX, centerY
+     * and turned angle degrees counter-clockwise with Y up, on black.
+     */
+    private static BufferedImage image(double centerX, double centerY,
+            double width, double height, double angle) {
+        BufferedImage image = new BufferedImage(200, 200,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.black);
+        g.fillRect(0, 0, 200, 200);
+        g.setColor(Color.white);
+        AffineTransform transform = new AffineTransform();
+        transform.translate(centerX, centerY);
+        // Y is down in the image.
+        transform.rotate(Math.toRadians(-angle));
+        g.fill(transform.createTransformedShape(new Rectangle2D.Double(
+                -width / 2, -height / 2, width, height)));
+        g.dispose();
+        return image;
+    }
+
+    private static PartShape locate(BufferedImage image) {
+        return PartShape.locate(image, 0, 0, image.getWidth(),
+                image.getHeight(), 128, 10);
+    }
+
+    @Test
+    public void squareRectangle() {
+        PartShape shape = locate(image(80, 120, 40, 20, 0));
+        assertNotNull(shape);
+        assertEquals(80, shape.getCenterX(), 1e-9);
+        assertEquals(120, shape.getCenterY(), 1e-9);
+        assertEquals(40, shape.getWidth(), 1e-9);
+        assertEquals(20, shape.getHeight(), 1e-9);
+        assertEquals(0, shape.getAngle(), 1e-9);
+        assertEquals(80, shape.getCentroidX(), 1e-9);
+        assertEquals(120, shape.getCentroidY(), 1e-9);
+        assertEquals(800, shape.getPixels());
+    }
+
+    @Test
+    public void rotatedRectangle() {
+        for (double angle : new double[] { 10, -20, 35, -40 }) {
+            PartShape shape = locate(image(100, 90, 60, 30, angle));
+            assertNotNull(shape);
+            assertEquals("angle at " + angle, angle, shape.getAngle(), 1.5);
+            assertEquals("center x at " + angle, 100, shape.getCenterX(), 1);
+            assertEquals("center y at " + angle, 90, shape.getCenterY(), 1);
+            assertEquals("width at " + angle, 60, shape.getWidth(), 2);
+            assertEquals("height at " + angle, 30, shape.getHeight(), 2);
+        }
+    }
+
+    @Test
+    public void angleIsFoldedAndSidesSwapped() {
+        // A rectangle turned by 70 degrees looks like one twice as tall as
+        // it is wide turned by -20 degrees.
+        PartShape shape = locate(image(100, 100, 60, 30, 70));
+        assertNotNull(shape);
+        assertEquals(-20, shape.getAngle(), 1.5);
+        assertEquals(30, shape.getWidth(), 2);
+        assertEquals(60, shape.getHeight(), 2);
+    }
+
+    @Test
+    public void anglesStayInRange() {
+        for (int angle = -90; angle <= 90; angle += 5) {
+            PartShape shape = locate(image(100, 100, 50, 50, angle));
+            assertNotNull(shape);
+            assertTrue("angle " + shape.getAngle() + " at " + angle,
+                    shape.getAngle() >= -45 && shape.getAngle() < 45);
+        }
+    }
+
+    @Test
+    public void regionOfInterest() {
+        BufferedImage image = image(50, 50, 20, 20, 0);
+        // A second, brighter object outside the region is ignored.
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.white);
+        g.fillRect(150, 150, 30, 30);
+        g.dispose();
+        PartShape shape = PartShape.locate(image, 20, 20, 60, 60, 128, 10);
+        assertNotNull(shape);
+        assertEquals(50, shape.getCenterX(), 1e-9);
+        assertEquals(50, shape.getCenterY(), 1e-9);
+        assertEquals(400, shape.getPixels());
+    }
+
+    @Test
+    public void singlePixel() {
+        BufferedImage image = new BufferedImage(10, 10,
+                BufferedImage.TYPE_INT_RGB);
+        image.setRGB(3, 4, 0xffffff);
+        PartShape shape = PartShape.locate(image, 0, 0, 10, 10, 128, 1);
+        assertNotNull(shape);
+        assertEquals(3.5, shape.getCenterX(), 1e-9);
+        assertEquals(4.5, shape.getCenterY(), 1e-9);
+        assertEquals(1, shape.getWidth(), 1e-9);
+        assertEquals(1, shape.getHeight(), 1e-9);
+    }
+
+    @Test
+    public void tooFewPixels() {
+        BufferedImage image = image(100, 100, 3, 3, 0);
+        assertNull(locate(image));
+        assertNull(locate(new BufferedImage(20, 20,
+                BufferedImage.TYPE_INT_RGB)));
+    }
+
+    @Test
+    public void threshold() {
+        BufferedImage image = new BufferedImage(20, 20,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(100, 100, 100));
+        g.fillRect(5, 5, 10, 10);
+        g.dispose();
+        assertNull(PartShape.locate(image, 0, 0, 20, 20, 128, 1));
+        assertNotNull(PartShape.locate(image, 0, 0, 20, 20, 64, 1));
+    }
+}